@@ -187,6 +187,11 @@ public class ProcessMojo extends AbstractMojo {
      */
     @Parameter(property="compress")
     private boolean compress = true;
+    /**
+     * Turns on writing of gzip-compressed copies (*.gz) of textual resources next to them
+     */
+    @Parameter(property="gzip")
+    private boolean gzip = false;
     /**
      * Turns on packing of JavaScript/CSS resources
      */
@@ -449,6 +454,7 @@ public class ProcessMojo extends AbstractMojo {
 
             ResourceWriterImpl resourceWriter = new ResourceWriterImpl(new File(resourcesOutputDir),
                 getDefaultResourceProcessors(), getLogger(), resourcesWithKnownOrder);
+            resourceWriter.setGzip(gzip);
             ResourceTaskFactoryImpl taskFactory = new ResourceTaskFactoryImpl(faces, pack);
             taskFactory.setResourceWriter(resourceWriter);
 
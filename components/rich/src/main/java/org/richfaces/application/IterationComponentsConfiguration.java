@@ -36,7 +36,20 @@ public final class IterationComponentsConfiguration {
     public enum Items {
 
         @ConfigurationItem(defaultValue = "false", names = "org.richfaces.datatableUsesViewLocale")
-        datatableUsesViewLocale
+        datatableUsesViewLocale,
+
+        /**
+         * Minimal number of rows of arrangeable model sorted by several threads, parallel sorting is disabled if not positive
+         */
+        @ConfigurationItem(defaultValue = "0", names = "org.richfaces.datatableParallelSortThreshold")
+        datatableParallelSortThreshold,
+
+        /**
+         * Minimal number of rows of arrangeable model filtered by several threads, parallel filtering is disabled if not
+         * positive; models filtered by expressions are always filtered by a single thread
+         */
+        @ConfigurationItem(defaultValue = "0", names = "org.richfaces.datatableParallelFilterThreshold")
+        datatableParallelFilterThreshold
 
     }
 }
@@ -78,6 +78,7 @@ public abstract class UIDataTableBase extends UISequence implements Row, MetaCom
     public static final String HEADER = "header";
     public static final String FOOTER = "footer";
     public static final String BODY = "body";
+    private static final String ARRANGED_ROW_KEYS_ATTRIBUTE_PREFIX = UIDataTableBase.class.getName() + ".ARRANGED_ROW_KEYS:";
     private static final Logger RENDERKIT_LOG = RichfacesLogger.RENDERKIT.getLogger();
     private static final Set<String> SUPPORTED_META_COMPONENTS = new HashSet<String>();
     private static Predicate<UIComponent> isRow = new Predicate<UIComponent>() {
@@ -165,6 +166,14 @@ public abstract class UIDataTableBase extends UISequence implements Row, MetaCom
     @Attribute
     public abstract SortMode getSortMode();
 
+    /**
+     * Version of the table data. If set, the rows arranged by sorting and filtering are kept in view scope and reused by
+     * the following requests, e.g. while paging, until the version or the sorting and filtering change. The version has to
+     * change whenever the data or the values sorting and filtering expressions depend on change.
+     */
+    @Attribute
+    public abstract Object getDataVersion();
+
     public Iterator<UIComponent> columns() {
         return new DataTableColumnsIterator(this);
     }
@@ -216,6 +225,11 @@ public abstract class UIDataTableBase extends UISequence implements Row, MetaCom
             arrangeable = (Arrangeable) dataModel;
         } else if (state != null) {
             ArrangeableModel arrangebleModel = new ArrangeableModel(dataModel, getVar(), getFilterVar());
+            Object dataVersion = getDataVersion();
+            if (dataVersion != null) {
+                arrangebleModel.setRowKeysCache(context.getViewRoot().getViewMap(), ARRANGED_ROW_KEYS_ATTRIBUTE_PREFIX
+                    + getClientId(context), dataVersion);
+            }
             dataModel = arrangebleModel;
             arrangeable = arrangebleModel;
         }
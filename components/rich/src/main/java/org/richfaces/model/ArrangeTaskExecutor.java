@@ -0,0 +1,137 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.model;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.faces.FacesException;
+import javax.faces.context.FacesContext;
+import javax.faces.event.AbortProcessingException;
+import javax.faces.event.PreDestroyApplicationEvent;
+import javax.faces.event.SystemEvent;
+import javax.faces.event.SystemEventListener;
+
+import com.google.common.base.Throwables;
+
+/**
+ * <p>Runs the tasks of a parallel sort or filter of {@link ArrangeableModel} rows.</p>
+ *
+ * <p>One executor is shared by all the arrangements of the application, so that concurrent requests don't start more than
+ * one thread per available processor. It is created when first needed, its threads stop when idle and it is shut down
+ * before the application is destroyed, so that no threads hold the application class loader.</p>
+ *
+ * @since 4.5
+ */
+final class ArrangeTaskExecutor implements SystemEventListener {
+    private static final String INSTANCE_KEY_NAME = ArrangeTaskExecutor.class.getName();
+    private static final long KEEP_ALIVE_SECONDS = 60;
+    private final ThreadPoolExecutor executorService;
+
+    private ArrangeTaskExecutor() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        executorService = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), new ArrangeThreadFactory("RichFaces data arrange"));
+        executorService.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Returns the executor of the application, creates it if it doesn't exist yet.
+     */
+    static ArrangeTaskExecutor getInstance(FacesContext context) {
+        Map<String, Object> applicationMap = context.getExternalContext().getApplicationMap();
+        ArrangeTaskExecutor executor = (ArrangeTaskExecutor) applicationMap.get(INSTANCE_KEY_NAME);
+
+        if (executor == null) {
+            synchronized (ArrangeTaskExecutor.class) {
+                executor = (ArrangeTaskExecutor) applicationMap.get(INSTANCE_KEY_NAME);
+                if (executor == null) {
+                    executor = new ArrangeTaskExecutor();
+                    context.getApplication().subscribeToEvent(PreDestroyApplicationEvent.class, executor);
+                    applicationMap.put(INSTANCE_KEY_NAME, executor);
+                }
+            }
+        }
+
+        return executor;
+    }
+
+    /**
+     * Returns the number of threads worth using for the given number of items.
+     *
+     * @param items number of items to process
+     * @param minItemsPerThread minimal number of items processed by one thread
+     */
+    static int getThreadsCount(int items, int minItemsPerThread) {
+        return Math.min(Runtime.getRuntime().availableProcessors(), items / minItemsPerThread);
+    }
+
+    /**
+     * Runs the tasks and waits for their completion. Exception thrown by a task is rethrown.
+     */
+    <T> void invokeAll(List<? extends Callable<T>> tasks) {
+        try {
+            for (Future<T> future : executorService.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FacesException(e);
+        } catch (ExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        }
+    }
+
+    /**
+     * Shuts the executor down before the application is destroyed
+     */
+    public void processEvent(SystemEvent event) throws AbortProcessingException {
+        executorService.shutdownNow();
+    }
+
+    public boolean isListenerForSource(Object source) {
+        return true;
+    }
+
+    private static final class ArrangeThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger();
+        private final String name;
+
+        ArrangeThreadFactory(String name) {
+            this.name = name;
+        }
+
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, name + " " + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -22,17 +22,14 @@
 package org.richfaces.model;
 
 import static org.richfaces.application.configuration.ConfigurationServiceHelper.getBooleanConfigurationValue;
+import static org.richfaces.application.configuration.ConfigurationServiceHelper.getIntConfigurationValue;
 
 import java.text.Collator;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
-import javax.el.ValueExpression;
 import javax.faces.context.FacesContext;
 import javax.faces.model.DataModelListener;
 
@@ -42,7 +39,6 @@ import org.ajax4jsf.model.ExtendedDataModel;
 import org.ajax4jsf.model.Range;
 import org.ajax4jsf.model.SequenceRange;
 import org.richfaces.application.IterationComponentsConfiguration;
-import org.richfaces.component.SortOrder;
 
 /**
  * @author Konstantin Mishin
@@ -54,7 +50,9 @@ public class ArrangeableModel extends ExtendedDataModel<Object> implements Arran
     private ExtendedDataModel<?> originalModel;
     private String var;
     private String filterVar;
-    private Comparator<? super String> stringComparator;
+    private Map<String, Object> rowKeysCache;
+    private String rowKeysCacheKey;
+    private Object dataVersion;
 
     public ArrangeableModel(ExtendedDataModel<?> originalModel, String var, String filterVar) {
         this.originalModel = originalModel;
@@ -62,6 +60,22 @@ public class ArrangeableModel extends ExtendedDataModel<Object> implements Arran
         this.filterVar = filterVar;
     }
 
+    /**
+     * Enables reuse of the arranged row keys by the following requests. The row keys arranged by
+     * {@link #arrange(FacesContext, ArrangeableState)} are stored to the given map and are used instead of walking, filtering
+     * and sorting the original model again while the data version and the arrangeable state are equal.
+     *
+     * @param cache the map to store the arranged row keys to, e.g. view map
+     * @param cacheKey key of the arranged row keys in the map
+     * @param dataVersion version of the data of the original model; it has to change whenever the data or anything the
+     *        sorting and filtering depend on, except for filter values, changes
+     */
+    public void setRowKeysCache(Map<String, Object> cache, String cacheKey, Object dataVersion) {
+        this.rowKeysCache = cache;
+        this.rowKeysCacheKey = cacheKey;
+        this.dataVersion = dataVersion;
+    }
+
     public void addDataModelListener(DataModelListener listener) {
         originalModel.addDataModelListener(listener);
     }
@@ -191,6 +205,20 @@ public class ArrangeableModel extends ExtendedDataModel<Object> implements Arran
      * @see org.richfaces.model.Modifiable#modify(org.richfaces.model.ModifiableState)
      */
     public void arrange(FacesContext context, ArrangeableState state) {
+        Object arrangedRowKeysKey = null;
+        if (state != null && rowKeysCache != null) {
+            arrangedRowKeysKey = ArrangedRowKeys.createKey(state, var, filterVar, dataVersion);
+            Object arrangedRowKeys = rowKeysCache.get(rowKeysCacheKey);
+            if (arrangedRowKeys instanceof ArrangedRowKeys) {
+                List<Object> cachedRowKeys = ((ArrangedRowKeys) arrangedRowKeys).getRowKeys(arrangedRowKeysKey);
+                if (cachedRowKeys != null) {
+                    this.state = state;
+                    rowKeys = cachedRowKeys;
+                    return;
+                }
+            }
+        }
+
         initializeRowKeys(context);
         if (state != null) {
             this.state = state;
@@ -211,6 +239,9 @@ public class ArrangeableModel extends ExtendedDataModel<Object> implements Arran
             if (filterVar != null && filterVar.length() > 0) {
                 map.put(filterVar, filterValue);
             }
+            if (arrangedRowKeysKey != null) {
+                rowKeysCache.put(rowKeysCacheKey, new ArrangedRowKeys(arrangedRowKeysKey, rowKeys));
+            }
         }
     }
 
@@ -237,115 +268,27 @@ public class ArrangeableModel extends ExtendedDataModel<Object> implements Arran
     private void filter(FacesContext context) {
         List<FilterField> filterFields = state.getFilterFields();
         if (filterFields != null && !filterFields.isEmpty()) {
-            List<Object> filteredCollection = new ArrayList<Object>();
-            for (Object rowKey : rowKeys) {
-                if (accept(context, rowKey)) {
-                    filteredCollection.add(rowKey);
-                }
-            }
-            rowKeys = filteredCollection;
+            RowKeyFilter filter = new RowKeyFilter(context, originalModel, var, filterVar,
+                getIntConfigurationValue(context, IterationComponentsConfiguration.Items.datatableParallelFilterThreshold));
+            rowKeys = filter.filter(rowKeys, filterFields);
         }
     }
 
-    private void sort(final FacesContext context) {
+    private void sort(FacesContext context) {
         List<SortField> sortFields = state.getSortFields();
         if (sortFields != null && !sortFields.isEmpty()) {
-            Collections.sort(rowKeys, new Comparator<Object>() {
-                public int compare(Object rowKey1, Object rowKey2) {
-                    return ArrangeableModel.this.compare(context, rowKey1, rowKey2);
-                }
-            });
+            RowKeySorter sorter = new RowKeySorter(context, originalModel, var, createCollator(context),
+                getIntConfigurationValue(context, IterationComponentsConfiguration.Items.datatableParallelSortThreshold));
+            rowKeys = sorter.sort(rowKeys, sortFields);
         }
     }
 
-    private boolean accept(FacesContext context, Object rowKey) {
-        originalModel.setRowKey(rowKey);
-        Object object = originalModel.getRowData();
-        updateVar(context, var, object);
-        for (FilterField filterField : state.getFilterFields()) {
-            Filter filter = filterField.getFilter();
-            if (filter != null && !filter.accept(object)) {
-                return false;
-            } else {
-                ValueExpression filterExpression = filterField.getFilterExpression();
-                if (filterExpression != null) {
-                    updateVar(context, filterVar, filterField.getFilterValue());
-                    if (Boolean.FALSE.equals(filterExpression.getValue(context.getELContext()))) {
-                        return false;
-                    }
-                }
-            }
-        }
-        return true;
-    }
-
-    private int compare(FacesContext context, Object rowKey1, Object rowKey2) {
-        originalModel.setRowKey(rowKey1);
-        Object object1 = originalModel.getRowData();
-        originalModel.setRowKey(rowKey2);
-        Object object2 = originalModel.getRowData();
-        int result = 0;
-        for (Iterator<SortField> iterator = state.getSortFields().iterator(); iterator.hasNext() && result == 0;) {
-            SortField sortField = iterator.next();
-            SortOrder sortOrder = sortField.getSortOrder();
-            if (sortOrder != null && !SortOrder.unsorted.equals(sortOrder)) {
-                Comparator comparator = sortField.getComparator();
-                if (comparator != null) {
-                    result = comparator.compare(object1, object2);
-                } else {
-                    ValueExpression sortBy = sortField.getSortBy();
-                    if (sortBy != null) {
-                        updateVar(context, var, object1);
-                        Object value1 = sortBy.getValue(context.getELContext());
-                        updateVar(context, var, object2);
-                        Object value2 = sortBy.getValue(context.getELContext());
-                        result = compareSortByValues(context, value1, value2);
-                    }
-                }
-                if (SortOrder.descending.equals(sortOrder)) {
-                    result = -result;
-                }
-            }
-        }
-        return result;
-    }
-
-    private int compareSortByValues(FacesContext context, Object value1, Object value2) {
-        int result = 0;
-        if (value1 instanceof String && value2 instanceof String) {
-            if (stringComparator == null) {
-                stringComparator = createStringComparator(context);
-            }
-            result = stringComparator.compare(((String) value1).trim(), ((String) value2).trim());
-        } else if (value1 == null && value2 != null) {
-            result = -1;
-        } else if (value2 == null && value1 != null) {
-            result = 1;
-        } else if (value1 instanceof Comparable<?>) {
-            result = ((Comparable) value1).compareTo(value2);
-        }
-        return result;
-    }
-
-    private Comparator<? super String> createStringComparator(FacesContext context) {
-        Comparator<? super String> comparator = null;
+    private Collator createCollator(FacesContext context) {
         Locale locale = state.getLocale();
         if (locale != null
             && getBooleanConfigurationValue(context, IterationComponentsConfiguration.Items.datatableUsesViewLocale)) {
-            comparator = Collator.getInstance(locale);
-        } else {
-            comparator = new Comparator<String>() {
-                public int compare(String o1, String o2) {
-                    return o1.compareToIgnoreCase(o2);
-                }
-            };
-        }
-        return comparator;
-    }
-
-    private void updateVar(FacesContext context, String var, Object value) {
-        if (var != null && var.length() > 0) {
-            context.getExternalContext().getRequestMap().put(var, value);
+            return Collator.getInstance(locale);
         }
+        return null;
     }
 }
@@ -0,0 +1,82 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>Row keys of {@link ArrangeableModel} arranged for a particular state and version of data, kept for the following
+ * requests.</p>
+ *
+ * <p>The state is compared by the expressions, filters, comparators, filter values and sort orders of its fields and by its
+ * locale. The row keys are not serialized, arrangement is repeated after the stored instance is deserialized.</p>
+ *
+ * @since 4.5
+ */
+final class ArrangedRowKeys implements Serializable {
+    private static final long serialVersionUID = -5301633474211096548L;
+    private final transient Object key;
+    private final transient List<Object> rowKeys;
+
+    ArrangedRowKeys(Object key, List<Object> rowKeys) {
+        this.key = key;
+        this.rowKeys = Collections.unmodifiableList(rowKeys);
+    }
+
+    /**
+     * Creates the key identifying the arranged row keys.
+     *
+     * @param state the state the row keys are arranged for
+     * @param var name of the variable holding row data
+     * @param filterVar name of the variable holding filter value
+     * @param dataVersion version of the data of the model
+     */
+    static Object createKey(ArrangeableState state, String var, String filterVar, Object dataVersion) {
+        List<Object> filterKeys = new ArrayList<Object>();
+        if (state.getFilterFields() != null) {
+            for (FilterField filterField : state.getFilterFields()) {
+                filterKeys.add(Arrays.asList(filterField.getFilterExpression(), filterField.getFilter(),
+                    filterField.getFilterValue()));
+            }
+        }
+
+        List<Object> sortKeys = new ArrayList<Object>();
+        if (state.getSortFields() != null) {
+            for (SortField sortField : state.getSortFields()) {
+                sortKeys.add(Arrays.asList(sortField.getSortBy(), sortField.getComparator(), sortField.getSortOrder()));
+            }
+        }
+
+        return Arrays.asList(dataVersion, var, filterVar, state.getLocale(), filterKeys, sortKeys);
+    }
+
+    /**
+     * Returns the arranged row keys if they were arranged for the given key, <code>null</code> otherwise
+     */
+    List<Object> getRowKeys(Object key) {
+        return this.key != null && this.key.equals(key) ? rowKeys : null;
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import javax.el.ValueExpression;
+import javax.faces.context.FacesContext;
+
+import org.ajax4jsf.model.ExtendedDataModel;
+
+/**
+ * <p>Filters row keys of {@link ArrangeableModel}.</p>
+ *
+ * <p>Filter fields are compiled to predicates over row data: {@link Filter}s are applied to row data directly, filter
+ * expressions are evaluated with row data and filter value exposed in request-scoped variables. The cost and selectivity of
+ * the predicates are measured on the first {@value #SAMPLE_SIZE} rows, the rest of the rows is checked by predicates ordered
+ * so that cheap predicates rejecting many rows go first. A row is rejected by the first predicate that doesn't accept it.</p>
+ *
+ * <p>If there are no filter expressions, large models can be filtered by several threads. Filter expressions depend on faces
+ * context and are always evaluated by the request thread.</p>
+ *
+ * @since 4.5
+ */
+final class RowKeyFilter {
+    private static final int SAMPLE_SIZE = 256;
+    private static final int MIN_ROWS_PER_THREAD = 1024;
+    private static final Comparator<RowPredicate> RANK_COMPARATOR = new Comparator<RowPredicate>() {
+        public int compare(RowPredicate o1, RowPredicate o2) {
+            return Double.compare(o1.getRank(), o2.getRank());
+        }
+    };
+    private final FacesContext context;
+    private final ExtendedDataModel<?> model;
+    private final String var;
+    private final String filterVar;
+    private final int parallelThreshold;
+
+    /**
+     * @param context current faces context
+     * @param model the model providing row data
+     * @param var name of request-scoped variable holding row data while filter expressions are evaluated
+     * @param filterVar name of request-scoped variable holding filter value while filter expressions are evaluated
+     * @param parallelThreshold minimal number of rows filtered by several threads, not positive value disables parallel
+     *        filtering
+     */
+    RowKeyFilter(FacesContext context, ExtendedDataModel<?> model, String var, String filterVar, int parallelThreshold) {
+        this.context = context;
+        this.model = model;
+        this.var = var;
+        this.filterVar = filterVar;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Filters the row keys, the order of accepted row keys is preserved.
+     *
+     * @param rowKeys the row keys to filter
+     * @param filterFields the filter fields
+     * @return the row keys of the rows accepted by all the filter fields
+     */
+    List<Object> filter(List<Object> rowKeys, List<FilterField> filterFields) {
+        List<RowPredicate> predicates = new ArrayList<RowPredicate>(filterFields.size());
+        boolean hasExpressions = false;
+
+        for (FilterField filterField : filterFields) {
+            if (filterField.getFilter() != null) {
+                predicates.add(new FilterPredicate(filterField.getFilter()));
+            }
+
+            if (filterField.getFilterExpression() != null) {
+                predicates.add(new ExpressionPredicate(filterField.getFilterExpression(), filterField.getFilterValue()));
+                hasExpressions = true;
+            }
+        }
+
+        if (predicates.isEmpty()) {
+            return rowKeys;
+        }
+
+        int size = rowKeys.size();
+        Object[] rowData = new Object[size];
+        for (int i = 0; i < size; i++) {
+            model.setRowKey(rowKeys.get(i));
+            rowData[i] = model.getRowData();
+        }
+
+        boolean[] accepted = new boolean[size];
+        int sampleSize = Math.min(SAMPLE_SIZE, size);
+        for (int i = 0; i < sampleSize; i++) {
+            accepted[i] = acceptMeasured(predicates, rowData[i]);
+        }
+
+        // stable sort keeps the declared order of predicates with equal rank
+        Collections.sort(predicates, RANK_COMPARATOR);
+        RowPredicate[] orderedPredicates = predicates.toArray(new RowPredicate[predicates.size()]);
+
+        if (!hasExpressions && parallelThreshold > 0 && size >= parallelThreshold) {
+            parallelAccept(orderedPredicates, rowData, accepted, sampleSize);
+        } else {
+            accept(orderedPredicates, rowData, accepted, sampleSize, size);
+        }
+
+        List<Object> filteredRowKeys = new ArrayList<Object>();
+        for (int i = 0; i < size; i++) {
+            if (accepted[i]) {
+                filteredRowKeys.add(rowKeys.get(i));
+            }
+        }
+
+        return filteredRowKeys;
+    }
+
+    private static boolean acceptMeasured(List<RowPredicate> predicates, Object rowData) {
+        for (RowPredicate predicate : predicates) {
+            if (!predicate.acceptMeasured(rowData)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static void accept(RowPredicate[] predicates, Object[] rowData, boolean[] accepted, int from, int to) {
+        for (int i = from; i < to; i++) {
+            boolean rowAccepted = true;
+            for (RowPredicate predicate : predicates) {
+                if (!predicate.accept(rowData[i])) {
+                    rowAccepted = false;
+                    break;
+                }
+            }
+            accepted[i] = rowAccepted;
+        }
+    }
+
+    private void parallelAccept(final RowPredicate[] predicates, final Object[] rowData, final boolean[] accepted, int from) {
+        int rows = rowData.length - from;
+        int threads = ArrangeTaskExecutor.getThreadsCount(rows, MIN_ROWS_PER_THREAD);
+        if (threads < 2) {
+            accept(predicates, rowData, accepted, from, rowData.length);
+            return;
+        }
+
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(threads);
+        for (int i = 0; i < threads; i++) {
+            final int chunkFrom = from + (int) ((long) rows * i / threads);
+            final int chunkTo = from + (int) ((long) rows * (i + 1) / threads);
+            tasks.add(new Callable<Void>() {
+                public Void call() {
+                    accept(predicates, rowData, accepted, chunkFrom, chunkTo);
+                    return null;
+                }
+            });
+        }
+
+        ArrangeTaskExecutor.getInstance(context).invokeAll(tasks);
+    }
+
+    private void updateVar(String var, Object value) {
+        if (var != null && var.length() > 0) {
+            context.getExternalContext().getRequestMap().put(var, value);
+        }
+    }
+
+    /**
+     * Condition on row data with the statistics of its evaluations
+     */
+    private abstract static class RowPredicate {
+        private long evaluations;
+        private long rejections;
+        private long time;
+
+        abstract boolean accept(Object rowData);
+
+        boolean acceptMeasured(Object rowData) {
+            long start = System.nanoTime();
+            boolean result = accept(rowData);
+            time += System.nanoTime() - start;
+            evaluations++;
+            if (!result) {
+                rejections++;
+            }
+            return result;
+        }
+
+        /**
+         * Returns the expected cost of rejecting a row by this predicate, predicates with lower rank should be applied first
+         */
+        double getRank() {
+            if (rejections == 0) {
+                return Double.POSITIVE_INFINITY;
+            }
+
+            // average time of evaluation divided by the probability of rejection
+            return (double) (time + evaluations) / rejections;
+        }
+    }
+
+    private static final class FilterPredicate extends RowPredicate {
+        private final Filter<Object> filter;
+
+        @SuppressWarnings("unchecked")
+        FilterPredicate(Filter<?> filter) {
+            this.filter = (Filter<Object>) filter;
+        }
+
+        @Override
+        boolean accept(Object rowData) {
+            return filter.accept(rowData);
+        }
+    }
+
+    private final class ExpressionPredicate extends RowPredicate {
+        private final ValueExpression filterExpression;
+        private final Object filterValue;
+
+        ExpressionPredicate(ValueExpression filterExpression, Object filterValue) {
+            this.filterExpression = filterExpression;
+            this.filterValue = filterValue;
+        }
+
+        @Override
+        boolean accept(Object rowData) {
+            updateVar(var, rowData);
+            updateVar(filterVar, filterValue);
+            return !Boolean.FALSE.equals(filterExpression.getValue(context.getELContext()));
+        }
+    }
+}
@@ -0,0 +1,333 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.model;
+
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import javax.el.ELContext;
+import javax.el.ValueExpression;
+import javax.faces.context.FacesContext;
+
+import org.ajax4jsf.model.ExtendedDataModel;
+import org.richfaces.component.SortOrder;
+
+/**
+ * <p>Sorts row keys of {@link ArrangeableModel}.</p>
+ *
+ * <p>Sort keys are extracted once per row: <code>sortBy</code> expressions are evaluated only once for each row and string
+ * values are converted to {@link java.text.CollationKey}s if locale-aware comparison is used. The permutation of rows is then
+ * sorted over the extracted keys, so that the comparisons neither touch the data model nor evaluate expressions. Large
+ * models can be sorted by several threads if all the sort keys are extracted, i.e. no custom comparator is used.</p>
+ *
+ * @since 4.5
+ */
+final class RowKeySorter {
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+    private final FacesContext context;
+    private final ExtendedDataModel<?> model;
+    private final String var;
+    private final Collator collator;
+    private final int parallelThreshold;
+
+    /**
+     * @param context current faces context
+     * @param model the model providing row data
+     * @param var name of request-scoped variable holding row data while <code>sortBy</code> expressions are evaluated
+     * @param collator collator used to compare string values or <code>null</code> to compare them ignoring case
+     * @param parallelThreshold minimal number of rows sorted by several threads, not positive value disables parallel sorting
+     */
+    RowKeySorter(FacesContext context, ExtendedDataModel<?> model, String var, Collator collator, int parallelThreshold) {
+        this.context = context;
+        this.model = model;
+        this.var = var;
+        this.collator = collator;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Sorts the row keys. The sort is stable.
+     *
+     * @param rowKeys the row keys to sort
+     * @param sortFields the sort fields in order of precedence
+     * @return sorted row keys
+     */
+    @SuppressWarnings("unchecked")
+    List<Object> sort(List<Object> rowKeys, List<SortField> sortFields) {
+        List<SortField> activeFields = new ArrayList<SortField>(sortFields.size());
+        boolean hasComparators = false;
+        boolean hasExpressions = false;
+
+        for (SortField sortField : sortFields) {
+            SortOrder sortOrder = sortField.getSortOrder();
+            if (sortOrder == null || SortOrder.unsorted.equals(sortOrder)) {
+                continue;
+            }
+
+            if (sortField.getComparator() != null) {
+                hasComparators = true;
+            } else if (sortField.getSortBy() != null) {
+                hasExpressions = true;
+            } else {
+                continue;
+            }
+
+            activeFields.add(sortField);
+        }
+
+        if (activeFields.isEmpty()) {
+            return rowKeys;
+        }
+
+        int size = rowKeys.size();
+        int fieldsCount = activeFields.size();
+        Object[] rowData = hasComparators ? new Object[size] : null;
+        Object[][] keys = new Object[fieldsCount][];
+        Comparator<Object>[] comparators = newComparatorsArray(fieldsCount);
+        boolean[] descending = new boolean[fieldsCount];
+
+        for (int f = 0; f < fieldsCount; f++) {
+            SortField sortField = activeFields.get(f);
+            comparators[f] = (Comparator<Object>) sortField.getComparator();
+            if (comparators[f] == null) {
+                keys[f] = new Object[size];
+            }
+            descending[f] = SortOrder.descending.equals(sortField.getSortOrder());
+        }
+
+        ELContext elContext = context.getELContext();
+        for (int i = 0; i < size; i++) {
+            model.setRowKey(rowKeys.get(i));
+            Object data = model.getRowData();
+            if (rowData != null) {
+                rowData[i] = data;
+            }
+
+            if (hasExpressions) {
+                updateVar(data);
+                for (int f = 0; f < fieldsCount; f++) {
+                    if (keys[f] != null) {
+                        keys[f][i] = toSortKey(activeFields.get(f).getSortBy().getValue(elContext));
+                    }
+                }
+            }
+        }
+
+        int[] permutation = new int[size];
+        for (int i = 0; i < size; i++) {
+            permutation[i] = i;
+        }
+
+        IndexComparator comparator = new IndexComparator(keys, rowData, comparators, descending);
+        if (!hasComparators && parallelThreshold > 0 && size >= parallelThreshold) {
+            parallelSort(permutation, comparator);
+        } else {
+            mergeSort(permutation, permutation.clone(), 0, size, comparator);
+        }
+
+        List<Object> sortedRowKeys = new ArrayList<Object>(size);
+        for (int index : permutation) {
+            sortedRowKeys.add(rowKeys.get(index));
+        }
+
+        return sortedRowKeys;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Comparator<Object>[] newComparatorsArray(int size) {
+        return new Comparator[size];
+    }
+
+    private Object toSortKey(Object value) {
+        if (value instanceof String) {
+            String s = ((String) value).trim();
+            return collator != null ? collator.getCollationKey(s) : s;
+        }
+
+        return value;
+    }
+
+    private void updateVar(Object value) {
+        if (var != null && var.length() > 0) {
+            context.getExternalContext().getRequestMap().put(var, value);
+        }
+    }
+
+    private void parallelSort(final int[] a, final IndexComparator comparator) {
+        int threads = ArrangeTaskExecutor.getThreadsCount(a.length, INSERTION_SORT_THRESHOLD);
+        if (threads < 2) {
+            mergeSort(a, a.clone(), 0, a.length, comparator);
+            return;
+        }
+
+        // chunk boundaries, chunks are sorted concurrently and then merged pairwise
+        int[] bounds = new int[threads + 1];
+        for (int i = 0; i <= threads; i++) {
+            bounds[i] = (int) ((long) a.length * i / threads);
+        }
+
+        final int[] buffer = a.clone();
+        ArrangeTaskExecutor executor = ArrangeTaskExecutor.getInstance(context);
+
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(threads);
+        for (int i = 0; i < threads; i++) {
+            final int from = bounds[i];
+            final int to = bounds[i + 1];
+            tasks.add(new Callable<Void>() {
+                public Void call() {
+                    mergeSort(a, buffer, from, to, comparator);
+                    return null;
+                }
+            });
+        }
+        executor.invokeAll(tasks);
+
+        int[] src = a;
+        int[] dst = buffer;
+        while (bounds.length > 2) {
+            int[] mergedBounds = new int[bounds.length / 2 + 1];
+            tasks.clear();
+
+            for (int i = 0; i + 1 < bounds.length; i += 2) {
+                final int from = bounds[i];
+                final int mid = bounds[i + 1];
+                final int to = i + 2 < bounds.length ? bounds[i + 2] : mid;
+                final int[] mergeSrc = src;
+                final int[] mergeDst = dst;
+                tasks.add(new Callable<Void>() {
+                    public Void call() {
+                        merge(mergeSrc, mergeDst, from, mid, to, comparator);
+                        return null;
+                    }
+                });
+                mergedBounds[i / 2] = from;
+            }
+            mergedBounds[mergedBounds.length - 1] = a.length;
+            executor.invokeAll(tasks);
+
+            bounds = mergedBounds;
+            int[] swap = src;
+            src = dst;
+            dst = swap;
+        }
+
+        if (src != a) {
+            System.arraycopy(src, 0, a, 0, a.length);
+        }
+    }
+
+    /**
+     * Stable merge sort of <code>a[from, to)</code>, the same range of <code>buffer</code> is used as scratch space
+     */
+    private static void mergeSort(int[] a, int[] buffer, int from, int to, IndexComparator comparator) {
+        if (to - from <= INSERTION_SORT_THRESHOLD) {
+            for (int i = from + 1; i < to; i++) {
+                int value = a[i];
+                int j = i;
+                while (j > from && comparator.compare(a[j - 1], value) > 0) {
+                    a[j] = a[j - 1];
+                    j--;
+                }
+                a[j] = value;
+            }
+            return;
+        }
+
+        int mid = (from + to) >>> 1;
+        mergeSort(a, buffer, from, mid, comparator);
+        mergeSort(a, buffer, mid, to, comparator);
+
+        if (comparator.compare(a[mid - 1], a[mid]) <= 0) {
+            return;
+        }
+
+        System.arraycopy(a, from, buffer, from, to - from);
+        merge(buffer, a, from, mid, to, comparator);
+    }
+
+    /**
+     * Merges sorted ranges <code>src[from, mid)</code> and <code>src[mid, to)</code> to <code>dst[from, to)</code>
+     */
+    private static void merge(int[] src, int[] dst, int from, int mid, int to, IndexComparator comparator) {
+        int i = from;
+        int j = mid;
+        for (int k = from; k < to; k++) {
+            if (j >= to || (i < mid && comparator.compare(src[i], src[j]) <= 0)) {
+                dst[k] = src[i++];
+            } else {
+                dst[k] = src[j++];
+            }
+        }
+    }
+
+    /**
+     * Compares rows by their indexes using the extracted sort keys or row data for the fields with custom comparators
+     */
+    private static final class IndexComparator {
+        private final Object[][] keys;
+        private final Object[] rowData;
+        private final Comparator<Object>[] comparators;
+        private final boolean[] descending;
+
+        IndexComparator(Object[][] keys, Object[] rowData, Comparator<Object>[] comparators, boolean[] descending) {
+            this.keys = keys;
+            this.rowData = rowData;
+            this.comparators = comparators;
+            this.descending = descending;
+        }
+
+        int compare(int i, int j) {
+            for (int f = 0; f < keys.length; f++) {
+                int result;
+                if (comparators[f] != null) {
+                    result = comparators[f].compare(rowData[i], rowData[j]);
+                } else {
+                    result = compareKeys(keys[f][i], keys[f][j]);
+                }
+
+                if (result != 0) {
+                    return descending[f] ? -result : result;
+                }
+            }
+
+            return 0;
+        }
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        private static int compareKeys(Object key1, Object key2) {
+            if (key1 instanceof String && key2 instanceof String) {
+                return ((String) key1).compareToIgnoreCase((String) key2);
+            } else if (key1 == null && key2 != null) {
+                return -1;
+            } else if (key2 == null && key1 != null) {
+                return 1;
+            } else if (key1 instanceof Comparable<?>) {
+                return ((Comparable) key1).compareTo(key2);
+            }
+
+            return 0;
+        }
+    }
+}
@@ -21,7 +21,6 @@
  */
 package org.richfaces.renderkit;
 
-import java.io.File;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
@@ -29,7 +28,6 @@ import java.util.List;
 import javax.faces.component.UIComponent;
 import javax.faces.context.ExternalContext;
 import javax.faces.context.FacesContext;
-import javax.servlet.ServletContext;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.Part;
@@ -38,6 +36,7 @@ import org.richfaces.component.AbstractFileUpload;
 import org.richfaces.event.FileUploadEvent;
 import org.richfaces.exception.FileUploadException;
 import org.richfaces.model.UploadedFile;
+import org.richfaces.request.FileUploadSettings;
 import org.richfaces.request.MultipartRequest;
 import org.richfaces.request.MultipartRequest25;
 import org.richfaces.request.MultipartRequestParser;
@@ -52,30 +51,6 @@ import org.richfaces.request.UploadedFile30;
  */
 public class FileUploadRendererBase extends RendererBase {
 
-    private boolean isCreateTempFiles(ServletContext servletContext) {
-        String param = servletContext.getInitParameter("org.richfaces.fileUpload.createTempFiles");
-        if (param != null) {
-            return Boolean.parseBoolean(param);
-        }
-
-        return true;
-    }
-
-    private String getTempFilesDirectory(ServletContext servletContext) {
-        String result = servletContext.getInitParameter("org.richfaces.fileUpload.tempFilesDirectory");
-        if (result == null) {
-            File servletTempDir = (File) servletContext.getAttribute("javax.servlet.context.tempdir");
-            if (servletTempDir != null) {
-                result = servletTempDir.getAbsolutePath();
-            }
-        }
-        if (result == null) {
-            result = new File(System.getProperty("java.io.tmpdir")).getAbsolutePath();
-        }
-
-        return result;
-    }
-
     private Iterable<UploadedFile> initializeUploadedFiles(ExternalContext context, HttpServletRequest request, String uploadId) {
         try {
             List<UploadedFile> files = new LinkedList<UploadedFile>();
@@ -92,9 +67,7 @@ public class FileUploadRendererBase extends RendererBase {
                     }
                 }
             } else {
-                boolean createTempFiles = isCreateTempFiles(request.getServletContext());
-                String tempFilesDirectory = getTempFilesDirectory(request.getServletContext());
-                MultipartRequestParser requestParser = new MultipartRequestParser(request, createTempFiles, tempFilesDirectory);
+                MultipartRequestParser requestParser = FileUploadSettings.createParser(request);
                 MultipartRequest multipartRequest = new MultipartRequest25(request, uploadId, requestParser);
 
                 files = (List<UploadedFile>) multipartRequest.getUploadedFiles();
@@ -106,15 +79,6 @@ public class FileUploadRendererBase extends RendererBase {
         }
     }
 
-    private long getMaxRequestSize(ServletContext servletContext) {
-        String param = servletContext.getInitParameter("org.richfaces.fileUpload.maxRequestSize");
-        if (param != null) {
-            return Long.parseLong(param);
-        }
-
-        return 0;
-    }
-
     @Override
     protected void doDecode(FacesContext context, UIComponent component) {
         final AbstractFileUpload fileUpload = (AbstractFileUpload) component;
@@ -124,13 +88,22 @@ public class FileUploadRendererBase extends RendererBase {
 
         if (request instanceof HttpServletRequest) {
             HttpServletRequest httpRequest = (HttpServletRequest) request;
-            if (httpRequest.getContentType() != null && httpRequest.getContentType().startsWith("multipart/")) {
+            MultipartRequest multipartRequest = (MultipartRequest) httpRequest.getAttribute(MultipartRequest.REQUEST_ATTRIBUTE_NAME);
+            if (multipartRequest != null) {
+                // request body has been parsed by AsyncFileUploadFilter
+                if (multipartRequest.getResponseState() != MultipartRequest.ResponseState.ok) {
+                    externalContext.setResponseStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                    return;
+                }
+
+                queueFileUploadEvents(fileUpload, multipartRequest.getUploadedFiles());
+            } else if (httpRequest.getContentType() != null && httpRequest.getContentType().startsWith("multipart/")) {
                 String uid = MultipartRequestParser.getParameterValueFromQueryString(httpRequest.getQueryString());
 
                 if (uid != null) {
                     long contentLength = Long.parseLong(httpRequest.getHeader("Content-Length"));
 
-                    long maxRequestSize = getMaxRequestSize(httpRequest.getServletContext());
+                    long maxRequestSize = FileUploadSettings.getMaxRequestSize(httpRequest.getServletContext());
 
                     if (maxRequestSize != 0 && contentLength > maxRequestSize) {
                         externalContext.setResponseStatus(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
@@ -138,14 +111,17 @@ public class FileUploadRendererBase extends RendererBase {
                     }
 
                     Iterable<UploadedFile> uploadedFiles = initializeUploadedFiles(externalContext, httpRequest, uid);
-
-                    for (UploadedFile file : uploadedFiles) {
-                        if (fileUpload.acceptsFile(file)) {
-                            fileUpload.queueEvent(new FileUploadEvent(fileUpload, file));
-                        }
-                    }
+                    queueFileUploadEvents(fileUpload, uploadedFiles);
                 }
             }
         }
     }
-}
\ No newline at end of file
+
+    private void queueFileUploadEvents(AbstractFileUpload fileUpload, Iterable<UploadedFile> uploadedFiles) {
+        for (UploadedFile file : uploadedFiles) {
+            if (fileUpload.acceptsFile(file)) {
+                fileUpload.queueEvent(new FileUploadEvent(fileUpload, file));
+            }
+        }
+    }
+}
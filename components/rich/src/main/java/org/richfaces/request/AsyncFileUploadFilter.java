@@ -0,0 +1,250 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.request;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.richfaces.log.Logger;
+import org.richfaces.log.RichfacesLogger;
+
+/**
+ * <p>Reads the bodies of <code>rich:fileUpload</code> requests outside of the container request threads.</p>
+ *
+ * <p>The filter puts upload requests to asynchronous mode and releases the request thread; the multipart body is read by a
+ * thread of the filter, the files are written to disc or memory as the data arrives. When the body is complete, the request
+ * is dispatched again with the parameters and files parsed from the body, so that it is processed by JSF the usual way.
+ * Other requests pass through the filter unchanged, as well as the upload requests exceeding
+ * <code>org.richfaces.fileUpload.maxRequestSize</code> or not supporting asynchronous processing.</p>
+ *
+ * <p>The filter is opt-in: it has to be declared with <code>&lt;async-supported&gt;true&lt;/async-supported&gt;</code>
+ * and mapped to Faces Servlet, which has to support asynchronous processing too. Init parameter <code>threads</code> sets the
+ * number of threads reading the uploads ({@value #DEFAULT_THREADS} by default), <code>queueSize</code> sets the number of
+ * uploads waiting for a free thread (the number of threads by default), <code>timeout</code> sets the timeout of
+ * asynchronous processing in milliseconds (0, meaning no timeout, by default, as the container default is too short for
+ * large uploads). When the asynchronous processing times out or fails, parsing of the body is cancelled and the request
+ * is not dispatched.</p>
+ *
+ * <p>Each upload occupies a thread for as long as the client is sending the body, so <code>threads</code> should be set to
+ * the number of uploads expected to run at the same time, which is roughly the upload rate multiplied by the time it takes
+ * to send a typical upload. Uploads exceeding the capacity of the threads and the queue are read by the container request
+ * thread, as if the filter was not used; this way a burst of slow uploads can't make the other uploads wait without
+ * limit.</p>
+ *
+ * <p>The threads of the filter use blocking reads, as non-blocking reads are not available before Servlet 3.1; slow uploads
+ * keep the threads of the filter busy, but not the threads of the container.</p>
+ *
+ * @since 4.5
+ */
+public class AsyncFileUploadFilter implements Filter {
+    static final int DEFAULT_THREADS = 10;
+    private static final Logger LOGGER = RichfacesLogger.APPLICATION.getLogger();
+    private ExecutorService executorService;
+    private long timeout = 0;
+
+    public void init(FilterConfig filterConfig) throws ServletException {
+        int threads = DEFAULT_THREADS;
+
+        String threadsParam = filterConfig.getInitParameter("threads");
+        if (threadsParam != null) {
+            threads = Integer.parseInt(threadsParam);
+        }
+
+        int queueSize = threads;
+
+        String queueSizeParam = filterConfig.getInitParameter("queueSize");
+        if (queueSizeParam != null) {
+            queueSize = Integer.parseInt(queueSizeParam);
+        }
+
+        String timeoutParam = filterConfig.getInitParameter("timeout");
+        if (timeoutParam != null) {
+            timeout = Long.parseLong(timeoutParam);
+        }
+
+        BlockingQueue<Runnable> queue = queueSize > 0 ? new ArrayBlockingQueue<Runnable>(queueSize)
+            : new SynchronousQueue<Runnable>();
+        executorService = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, queue,
+            new UploadThreadFactory());
+    }
+
+    public void destroy() {
+        executorService.shutdownNow();
+        executorService = null;
+    }
+
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException,
+        ServletException {
+
+        String uploadId = getUploadId(request);
+        if (uploadId == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        MultipartRequestParser requestParser = FileUploadSettings.createParser(httpRequest);
+        MultipartRequest25 multipartRequest = new MultipartRequest25(httpRequest, uploadId, requestParser);
+        AsyncContext asyncContext = request.startAsync(multipartRequest, response);
+        asyncContext.setTimeout(timeout);
+
+        ParseTask task = new ParseTask(asyncContext, multipartRequest, requestParser);
+        asyncContext.addListener(task);
+        try {
+            executorService.execute(task);
+        } catch (RejectedExecutionException e) {
+            // all the threads are busy and the queue is full, or the filter is being destroyed
+            task.run();
+        }
+    }
+
+    /**
+     * Returns the upload id of the request if it has to be parsed asynchronously, <code>null</code> otherwise
+     */
+    private static String getUploadId(ServletRequest request) {
+        if (!(request instanceof HttpServletRequest) || request.getDispatcherType() != DispatcherType.REQUEST
+            || !request.isAsyncSupported()) {
+            return null;
+        }
+
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        if (httpRequest.getContentType() == null || !httpRequest.getContentType().startsWith("multipart/")) {
+            return null;
+        }
+
+        long maxRequestSize = FileUploadSettings.getMaxRequestSize(httpRequest.getServletContext());
+        if (maxRequestSize != 0 && httpRequest.getContentLength() > maxRequestSize) {
+            // rejected by the renderer without reading the body
+            return null;
+        }
+
+        return MultipartRequestParser.getParameterValueFromQueryString(httpRequest.getQueryString());
+    }
+
+    /**
+     * Parses the body and dispatches the request, unless the asynchronous processing has timed out or failed meanwhile
+     */
+    private static final class ParseTask implements Runnable, AsyncListener {
+        private final AsyncContext asyncContext;
+        private final MultipartRequest25 multipartRequest;
+        private final MultipartRequestParser requestParser;
+        // set by the one who finishes the request: either the task or the container on timeout or error
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        ParseTask(AsyncContext asyncContext, MultipartRequest25 multipartRequest, MultipartRequestParser requestParser) {
+            this.asyncContext = asyncContext;
+            this.multipartRequest = multipartRequest;
+            this.requestParser = requestParser;
+        }
+
+        public void run() {
+            if (finished.get()) {
+                return;
+            }
+
+            try {
+                // parses the body
+                multipartRequest.getResponseState();
+            } catch (RuntimeException e) {
+                if (!finished.compareAndSet(false, true)) {
+                    return;
+                }
+
+                LOGGER.error(e.getMessage(), e);
+
+                try {
+                    ((HttpServletResponse) asyncContext.getResponse()).sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                } catch (IOException ioe) {
+                    LOGGER.debug(ioe.getMessage(), ioe);
+                } finally {
+                    asyncContext.complete();
+                }
+
+                return;
+            }
+
+            if (!finished.compareAndSet(false, true)) {
+                // the request has already been finished by the container, the uploaded files won't be processed
+                multipartRequest.release();
+                return;
+            }
+
+            multipartRequest.setAttribute(MultipartRequest.REQUEST_ATTRIBUTE_NAME, multipartRequest);
+            asyncContext.dispatch();
+        }
+
+        public void onTimeout(AsyncEvent event) throws IOException {
+            cancel();
+        }
+
+        public void onError(AsyncEvent event) throws IOException {
+            cancel();
+        }
+
+        public void onComplete(AsyncEvent event) throws IOException {
+        }
+
+        public void onStartAsync(AsyncEvent event) throws IOException {
+        }
+
+        private void cancel() {
+            if (finished.compareAndSet(false, true)) {
+                requestParser.cancel();
+            }
+        }
+    }
+
+    private static final class UploadThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger();
+        // uploaded files are processed using application class loader
+        private final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "RichFaces file upload " + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setContextClassLoader(contextClassLoader);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.request;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>Pool of the buffers used to parse multipart requests, so that large buffers are not allocated for every upload.</p>
+ *
+ * <p>There is one pool for each buffer size; at most {@value #MAX_POOLED_BUFFERS} idle buffers are kept by a pool, the
+ * buffers released over the limit are left to garbage collector.</p>
+ *
+ * @since 4.5
+ */
+final class BufferPool {
+    static final int MAX_POOLED_BUFFERS = 16;
+    private static final ConcurrentMap<Integer, BufferPool> POOLS = new ConcurrentHashMap<Integer, BufferPool>();
+    private final int bufferSize;
+    private final Queue<byte[]> buffers = new ConcurrentLinkedQueue<byte[]>();
+    private final AtomicInteger pooledCount = new AtomicInteger();
+
+    private BufferPool(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    static BufferPool getInstance(int bufferSize) {
+        BufferPool pool = POOLS.get(bufferSize);
+        if (pool == null) {
+            pool = new BufferPool(bufferSize);
+            BufferPool existingPool = POOLS.putIfAbsent(bufferSize, pool);
+            if (existingPool != null) {
+                pool = existingPool;
+            }
+        }
+
+        return pool;
+    }
+
+    /**
+     * Returns an idle buffer or a new one if there is none.
+     */
+    byte[] acquire() {
+        byte[] buffer = buffers.poll();
+        if (buffer == null) {
+            return new byte[bufferSize];
+        }
+
+        pooledCount.decrementAndGet();
+        return buffer;
+    }
+
+    /**
+     * Returns the buffer to the pool, the buffer must not be used after it is released.
+     */
+    void release(byte[] buffer) {
+        if (buffer.length != bufferSize) {
+            throw new IllegalArgumentException("Buffer doesn't belong to the pool");
+        }
+
+        if (pooledCount.incrementAndGet() <= MAX_POOLED_BUFFERS) {
+            buffers.offer(buffer);
+        } else {
+            pooledCount.decrementAndGet();
+        }
+    }
+}
@@ -24,11 +24,79 @@ package org.richfaces.request;
 import java.io.IOException;
 import java.io.InputStream;
 
+/**
+ * <p>Reads input stream up to the given sequence of bytes, reporting the bytes preceding the sequence to {@link BytesHandler}.</p>
+ *
+ * <p>The sequence is looked up in the buffer by Boyer-Moore-Horspool algorithm, so that most of the bytes are skipped
+ * without comparing them; the bytes that cannot start the sequence are reported in as large chunks as the buffer allows.</p>
+ */
 public class ByteSequenceMatcher {
     public interface BytesHandler {
         void handle(byte[] bytes, int length) throws IOException;
     }
 
+    /**
+     * Sequence of bytes prepared for the search. The skip table holds for each byte value the distance of its last occurrence
+     * (not counting the last byte of the sequence) to the end of the sequence.
+     *
+     * @since 4.5
+     */
+    public static final class Sequence {
+        private final byte[] bytes;
+        private final int[] skipTable = new int[256];
+
+        public Sequence(byte[]... parts) {
+            int length = 0;
+            for (byte[] part : parts) {
+                length += part.length;
+            }
+
+            bytes = new byte[length];
+            int offset = 0;
+            for (byte[] part : parts) {
+                System.arraycopy(part, 0, bytes, offset, part.length);
+                offset += part.length;
+            }
+
+            for (int i = 0; i < skipTable.length; i++) {
+                skipTable[i] = length;
+            }
+
+            for (int i = 0; i < length - 1; i++) {
+                skipTable[bytes[i] & 0xff] = length - 1 - i;
+            }
+        }
+
+        public int length() {
+            return bytes.length;
+        }
+
+        /**
+         * Returns the index of the first occurrence of the sequence in <code>buffer[0, length)</code> or -1 if there is none.
+         */
+        int indexIn(byte[] buffer, int length) {
+            int last = bytes.length - 1;
+            if (last < 0) {
+                return 0;
+            }
+
+            int i = 0;
+            while (i <= length - bytes.length) {
+                int j = last;
+                while (buffer[i + j] == bytes[j]) {
+                    if (j == 0) {
+                        return i;
+                    }
+                    j--;
+                }
+
+                i += skipTable[buffer[i + last] & 0xff];
+            }
+
+            return -1;
+        }
+    }
+
     private static final int ZERO_READS_NUMBER = 20;
     private byte[] buffer;
     private int readLength = 0;
@@ -40,8 +108,16 @@ public class ByteSequenceMatcher {
     private BytesHandler bytesHandler;
 
     public ByteSequenceMatcher(InputStream inputStream, int bufferSize) {
+        this(inputStream, new byte[bufferSize]);
+    }
+
+    /**
+     * @param inputStream the stream to read
+     * @param buffer the buffer to read the stream to, it has to be longer than the sequences looked up
+     */
+    public ByteSequenceMatcher(InputStream inputStream, byte[] buffer) {
         this.inputStream = inputStream;
-        this.buffer = new byte[bufferSize];
+        this.buffer = buffer;
     }
 
     public BytesHandler getBytesHandler() {
@@ -84,28 +160,17 @@ public class ByteSequenceMatcher {
         }
     }
 
-    private boolean match(int startOffset, byte[]... sequences) {
-        int index = startOffset;
-
-        for (byte[] bs : sequences) {
-            for (byte b : bs) {
-
-                if (index >= readLength) {
-                    return false;
-                }
-
-                if (buffer[index] != b) {
-                    return false;
-                }
-
-                index++;
-            }
-        }
-
-        return true;
+    public void findSequence(int limit, byte[]... sequences) throws IOException {
+        findSequence(limit, new Sequence(sequences));
     }
 
-    public void findSequence(int limit, byte[]... sequences) throws IOException {
+    /**
+     * Reads the stream up to and including the sequence, the bytes preceding the sequence are reported to the bytes handler.
+     *
+     * @param limit maximum number of bytes reported to the handler at once, not positive value means no limit
+     * @param sequence the sequence to look up
+     */
+    public void findSequence(int limit, Sequence sequence) throws IOException {
         isMatched = false;
 
         int userLimit = limit;
@@ -113,39 +178,37 @@ public class ByteSequenceMatcher {
             userLimit = Integer.MAX_VALUE;
         }
 
+        int sequenceLength = sequence.length();
+        if (sequenceLength >= buffer.length) {
+            throw new IllegalArgumentException("Sequence doesn't fit the buffer");
+        }
+
         prefillBuffer(0);
 
-        int sequencesLength = 0;
-        for (byte[] bs : sequences) {
-            sequencesLength += bs.length;
-        }
+        while (!isMatched) {
+            int index = sequence.indexIn(buffer, readLength);
+            int unmatchedLength;
 
-        int i = 0;
+            if (index >= 0) {
+                unmatchedLength = index;
+            } else if (bufferEOF) {
+                break;
+            } else {
+                // the buffer is full, the bytes that cannot start the sequence are reported
+                unmatchedLength = readLength - sequenceLength + 1;
+            }
 
-        while (!isMatched && i <= readLength - sequencesLength) {
-            if (match(i, sequences)) {
+            if (unmatchedLength > userLimit) {
+                // report limit
+                bytesHandler.handle(buffer, userLimit);
+                prefillBuffer(userLimit);
+            } else if (index >= 0) {
                 isMatched = true;
-                bytesHandler.handle(buffer, i);
-                prefillBuffer(i + sequencesLength);
+                bytesHandler.handle(buffer, index);
+                prefillBuffer(index + sequenceLength);
             } else {
-                int sequenceLimit = readLength - sequencesLength + 1;
-                int realLimit;
-
-                if (sequenceLimit < userLimit) {
-                    realLimit = sequenceLimit;
-                } else {
-                    realLimit = userLimit;
-                }
-
-                if (realLimit > 0 && i == realLimit - 1) {
-                    // report limit
-                    bytesHandler.handle(buffer, realLimit);
-                    prefillBuffer(realLimit);
-
-                    i = 0;
-                } else {
-                    i++;
-                }
+                bytesHandler.handle(buffer, unmatchedLength);
+                prefillBuffer(unmatchedLength);
             }
         }
 
@@ -26,6 +26,8 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.text.MessageFormat;
 
 /**
@@ -33,7 +35,7 @@ import java.text.MessageFormat;
  */
 final class FileUploadDiscResource extends FileUploadResource {
     private File file;
-    private FileOutputStream fos;
+    private FileChannel channel;
 
     public FileUploadDiscResource(String name, String uploadLocation) {
         super(name, uploadLocation);
@@ -76,21 +78,24 @@ final class FileUploadDiscResource extends FileUploadResource {
     public void create() throws IOException {
         file = File.createTempFile("richfaces_uploaded_file_", null, getOutputFile(null));
         file.deleteOnExit();
-        fos = new FileOutputStream(file);
+        channel = new FileOutputStream(file).getChannel();
     }
 
     public void handle(byte[] bytes, int length) throws IOException {
-        fos.write(bytes, 0, length);
+        ByteBuffer byteBuffer = ByteBuffer.wrap(bytes, 0, length);
+        while (byteBuffer.hasRemaining()) {
+            channel.write(byteBuffer);
+        }
     }
 
     public void complete() {
         try {
-            if (fos != null) {
-                fos.close();
+            if (channel != null) {
+                channel.close();
             }
         } catch (IOException e) {
             // Swallow
         }
-        fos = null;
+        channel = null;
     }
 }
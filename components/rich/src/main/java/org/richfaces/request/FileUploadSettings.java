@@ -0,0 +1,88 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.request;
+
+import java.io.File;
+
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * <p>File upload settings read from the context parameters of the application.</p>
+ *
+ * @since 4.5
+ */
+public final class FileUploadSettings {
+    private FileUploadSettings() {
+    }
+
+    public static boolean isCreateTempFiles(ServletContext servletContext) {
+        String param = servletContext.getInitParameter("org.richfaces.fileUpload.createTempFiles");
+        if (param != null) {
+            return Boolean.parseBoolean(param);
+        }
+
+        return true;
+    }
+
+    public static String getTempFilesDirectory(ServletContext servletContext) {
+        String result = servletContext.getInitParameter("org.richfaces.fileUpload.tempFilesDirectory");
+        if (result == null) {
+            File servletTempDir = (File) servletContext.getAttribute("javax.servlet.context.tempdir");
+            if (servletTempDir != null) {
+                result = servletTempDir.getAbsolutePath();
+            }
+        }
+        if (result == null) {
+            result = new File(System.getProperty("java.io.tmpdir")).getAbsolutePath();
+        }
+
+        return result;
+    }
+
+    public static long getMaxRequestSize(ServletContext servletContext) {
+        String param = servletContext.getInitParameter("org.richfaces.fileUpload.maxRequestSize");
+        if (param != null) {
+            return Long.parseLong(param);
+        }
+
+        return 0;
+    }
+
+    public static int getBufferSize(ServletContext servletContext) {
+        String param = servletContext.getInitParameter("org.richfaces.fileUpload.bufferSize");
+        if (param != null) {
+            return Integer.parseInt(param);
+        }
+
+        return MultipartRequestParser.DEFAULT_BUFFER_SIZE;
+    }
+
+    /**
+     * Creates parser of the multipart request configured by the settings of the application.
+     */
+    public static MultipartRequestParser createParser(HttpServletRequest request) {
+        ServletContext servletContext = request.getServletContext();
+        return new MultipartRequestParser(request, isCreateTempFiles(servletContext), getTempFilesDirectory(servletContext),
+            getBufferSize(servletContext));
+    }
+}
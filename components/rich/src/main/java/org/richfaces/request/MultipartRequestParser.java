@@ -40,6 +40,7 @@ import org.richfaces.log.Logger;
 import org.richfaces.log.RichfacesLogger;
 import org.richfaces.model.UploadedFile;
 import org.richfaces.request.ByteSequenceMatcher.BytesHandler;
+import org.richfaces.request.ByteSequenceMatcher.Sequence;
 
 import com.google.common.base.Strings;
 import com.google.common.collect.Iterables;
@@ -61,9 +62,12 @@ public final class MultipartRequestParser {
     private static final byte LF = 0x0a;
     private static final byte[] CR_LF = { CR, LF };
     private static final byte[] HYPHENS = { 0x2d, 0x2d }; // '--'
-    private static final int BUFFER_SIZE = 2048;
-    private static final int CHUNK_SIZE = 1024;
+    public static final int DEFAULT_BUFFER_SIZE = 65536;
+    private static final int MIN_BUFFER_SIZE = 2048;
+    private static final int HEADERS_BUFFER_SIZE = 2048;
     private static final int MAX_HEADER_SIZE = 32768;
+    private static final Sequence CR_LF_SEQUENCE = new Sequence(CR_LF);
+    private static final Sequence HEADERS_END_SEQUENCE = new Sequence(CR_LF, CR_LF);
     private static final Logger LOGGER = RichfacesLogger.APPLICATION.getLogger();
     private static final Pattern FILE_NAME_PATTERN = Pattern.compile(".*filename=\"(.*)\"");
     private static final Pattern PARAM_VALUE_PATTERN = Pattern.compile("^\\s*([^\\s=]+)\\s*[=:]\\s*(.+)\\s*$");
@@ -74,7 +78,7 @@ public final class MultipartRequestParser {
     };
 
     private class HeadersHandler implements BytesHandler {
-        private ByteArrayOutputStream baos = new ByteArrayOutputStream(BUFFER_SIZE);
+        private ByteArrayOutputStream baos = new ByteArrayOutputStream(HEADERS_BUFFER_SIZE);
 
         public void handle(byte[] bytes, int length) throws IOException {
             if (length != 0) {
@@ -106,11 +110,15 @@ public final class MultipartRequestParser {
     private HttpServletRequest request;
     private boolean createTempFiles;
     private String tempFilesDirectory;
+    private int bufferSize;
     private Multimap<String, String> parametersMap = LinkedListMultimap.create();
     private List<UploadedFile> uploadedFiles = Lists.newArrayList();
     private byte[] boundaryMarker;
+    private Sequence prologSequence;
+    private Sequence dataEndSequence;
     private ByteSequenceMatcher sequenceMatcher;
     private HeadersHandler headersHandler;
+    private volatile boolean cancelled;
 
     /**
      * @param request
@@ -119,13 +127,33 @@ public final class MultipartRequestParser {
      * @param uploadId
      */
     public MultipartRequestParser(HttpServletRequest request, boolean createTempFiles, String tempFilesDirectory) {
+        this(request, createTempFiles, tempFilesDirectory, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param request
+     * @param createTempFiles
+     * @param tempFilesDirectory
+     * @param bufferSize size of the buffer the request is read to, the buffers are pooled
+     */
+    public MultipartRequestParser(HttpServletRequest request, boolean createTempFiles, String tempFilesDirectory,
+        int bufferSize) {
 
         this.request = request;
         this.createTempFiles = createTempFiles;
         this.tempFilesDirectory = tempFilesDirectory;
+        this.bufferSize = Math.max(bufferSize, MIN_BUFFER_SIZE);
+    }
+
+    /**
+     * Stops parsing of the request, {@link #parse()} called by another thread deletes the uploaded files and fails once it
+     * finishes the read in progress.
+     */
+    public void cancel() {
+        cancelled = true;
     }
 
-    private void cancel() {
+    private void deleteUploadedFiles() {
         for (UploadedFile uploadedFile : uploadedFiles) {
             try {
                 uploadedFile.delete();
@@ -144,30 +172,44 @@ public final class MultipartRequestParser {
     }
 
     public void parse() throws FileUploadException {
+        BufferPool bufferPool = BufferPool.getInstance(bufferSize);
+        byte[] buffer = bufferPool.acquire();
+
         try {
-            initialize();
+            initialize(buffer);
 
             while (!sequenceMatcher.isEOF()) {
+                if (cancelled) {
+                    deleteUploadedFiles();
+                    throw new FileUploadException("Parsing of multipart request was cancelled");
+                }
+
                 readNext();
             }
         } catch (IOException e) {
-            this.cancel();
+            this.deleteUploadedFiles();
 
             throw new FileUploadException(MessageFormat.format("Exception parsing multipart request: {0}", e.getMessage()), e);
+        } finally {
+            sequenceMatcher = null;
+            bufferPool.release(buffer);
         }
     }
 
-    private void initialize() throws IOException, FileUploadException {
+    private void initialize(byte[] buffer) throws IOException, FileUploadException {
         this.boundaryMarker = getBoundaryMarker(request.getContentType());
         if (this.boundaryMarker == null) {
             throw new FileUploadException("The request was rejected because no multipart boundary was found");
         }
 
-        if (HYPHENS.length + boundaryMarker.length + CHUNK_SIZE + CR_LF.length > BUFFER_SIZE) {
+        this.prologSequence = new Sequence(HYPHENS, boundaryMarker);
+        this.dataEndSequence = new Sequence(CR_LF, HYPHENS, boundaryMarker);
+
+        if (dataEndSequence.length() * 2 > buffer.length) {
             throw new FileUploadException("Boundary marker is too long");
         }
 
-        this.sequenceMatcher = new ByteSequenceMatcher(new ProgressServletInputStream(request.getInputStream()), BUFFER_SIZE);
+        this.sequenceMatcher = new ByteSequenceMatcher(new ProgressServletInputStream(request.getInputStream()), buffer);
 
         readProlog();
     }
@@ -292,7 +334,7 @@ public final class MultipartRequestParser {
 
     private void readProlog() throws IOException {
         sequenceMatcher.setBytesHandler(NOOP_HANDLER);
-        sequenceMatcher.findSequence(-1, HYPHENS, boundaryMarker);
+        sequenceMatcher.findSequence(-1, prologSequence);
         if (!sequenceMatcher.isMatchedAndNotEOF()) {
             throw new IOException("Request prolog cannot be read");
         }
@@ -300,7 +342,7 @@ public final class MultipartRequestParser {
 
     private void readData(FileUploadParam uploadParam) throws IOException {
         sequenceMatcher.setBytesHandler(uploadParam);
-        sequenceMatcher.findSequence(CHUNK_SIZE, CR_LF, HYPHENS, boundaryMarker);
+        sequenceMatcher.findSequence(-1, dataEndSequence);
         sequenceMatcher.setBytesHandler(null);
         if (!this.sequenceMatcher.isMatchedAndNotEOF()) {
             throw new IOException("Request data cannot be read");
@@ -370,12 +412,12 @@ public final class MultipartRequestParser {
         }
 
         sequenceMatcher.setBytesHandler(headersHandler);
-        sequenceMatcher.findSequence(-1, CR_LF);
+        sequenceMatcher.findSequence(-1, CR_LF_SEQUENCE);
 
         if (sequenceMatcher.isMatchedAndNotEOF() && !headersHandler.dataEquals(HYPHENS)) {
             headersHandler.reset();
 
-            sequenceMatcher.findSequence(-1, CR_LF, CR_LF);
+            sequenceMatcher.findSequence(-1, HEADERS_END_SEQUENCE);
 
             if (!sequenceMatcher.isMatchedAndNotEOF()) {
                 throw new IOException("Request header cannot be read");
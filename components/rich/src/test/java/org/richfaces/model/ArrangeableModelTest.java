@@ -24,7 +24,9 @@ package org.richfaces.model;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.el.ELContext;
 import javax.el.ExpressionFactory;
@@ -77,6 +79,7 @@ public class ArrangeableModelTest extends AbstractFacesTest {
             new User("b", "b"), new User("A", "A") };
     private ExtendedDataModel<User> extendedDataModel;
     private ArrangeableModel arrangeableModel;
+    private ArrangeableState arrangeableState;
 
     @Before
     public void setUp() throws Exception {
@@ -101,14 +104,15 @@ public class ArrangeableModelTest extends AbstractFacesTest {
                         return o1.getLname().compareTo(o2.getLname());
                     }
                 }, SortOrder.descending) };
-        arrangeableModel.arrange(facesContext,
-            new ArrangeableStateDefaultImpl(Arrays.asList(filterFields), Arrays.asList(sortFields), null));
+        arrangeableState = new ArrangeableStateDefaultImpl(Arrays.asList(filterFields), Arrays.asList(sortFields), null);
+        arrangeableModel.arrange(facesContext, arrangeableState);
     }
 
     @After
     public void tearDown() throws Exception {
         extendedDataModel = null;
         arrangeableModel = null;
+        arrangeableState = null;
         super.tearDown();
     }
 
@@ -247,4 +251,39 @@ public class ArrangeableModelTest extends AbstractFacesTest {
         arrangeableModel.setWrappedData(objects);
         Assert.assertSame(objects, arrangeableModel.getWrappedData());
     }
+
+    private List<Object> getRowKeys(ArrangeableModel model) {
+        final List<Object> rowKeys = new ArrayList<Object>();
+        model.walk(facesContext, new DataVisitor() {
+            public DataVisitResult process(FacesContext context, Object rowKey, Object argument) {
+                rowKeys.add(rowKey);
+                return DataVisitResult.CONTINUE;
+            }
+        }, new SequenceRange(0, -1), null);
+        return rowKeys;
+    }
+
+    /**
+     * Test method for {@link org.richfaces.model.ArrangeableModel#setRowKeysCache(Map, String, Object)}.
+     */
+    @Test
+    public void testRowKeysCache() {
+        Map<String, Object> cache = new HashMap<String, Object>();
+        ArrangeableModel model = new ArrangeableModel(extendedDataModel, "var", "filterVar");
+        model.setRowKeysCache(cache, "table", 1);
+        model.arrange(facesContext, arrangeableState);
+        Assert.assertEquals(FILTERD_AND_SORTED_ROW_KEYS, getRowKeys(model));
+
+        // data is changed without changing the version, cached row keys are used
+        users[1] = new User("B", "B");
+        model = new ArrangeableModel(extendedDataModel, "var", "filterVar");
+        model.setRowKeysCache(cache, "table", 1);
+        model.arrange(facesContext, arrangeableState);
+        Assert.assertEquals(FILTERD_AND_SORTED_ROW_KEYS, getRowKeys(model));
+
+        model = new ArrangeableModel(extendedDataModel, "var", "filterVar");
+        model.setRowKeysCache(cache, "table", 2);
+        model.arrange(facesContext, arrangeableState);
+        Assert.assertEquals(Arrays.asList(5, 3, 1, 2, 0), getRowKeys(model));
+    }
 }
@@ -0,0 +1,148 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.el.ELContext;
+import javax.el.ValueExpression;
+import javax.faces.application.Application;
+import javax.faces.context.ExternalContext;
+import javax.faces.context.FacesContext;
+import javax.faces.model.ArrayDataModel;
+
+import org.ajax4jsf.model.ExtendedDataModel;
+import org.ajax4jsf.model.SequenceDataModel;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class RowKeyFilterTest {
+    private static final String VAR = "row";
+    private static final String FILTER_VAR = "filterValue";
+    private FacesContext facesContext;
+    private Map<String, Object> requestMap;
+    private Map<String, Object> applicationMap;
+    private Application application;
+
+    @Before
+    public void setUp() {
+        requestMap = new HashMap<String, Object>();
+        applicationMap = new HashMap<String, Object>();
+        application = mock(Application.class);
+        facesContext = mock(FacesContext.class);
+        ExternalContext externalContext = mock(ExternalContext.class);
+        ELContext elContext = mock(ELContext.class);
+        when(facesContext.getExternalContext()).thenReturn(externalContext);
+        when(facesContext.getELContext()).thenReturn(elContext);
+        when(externalContext.getRequestMap()).thenReturn(requestMap);
+        when(externalContext.getApplicationMap()).thenReturn(applicationMap);
+        when(facesContext.getApplication()).thenReturn(application);
+    }
+
+    private static List<Object> createRowKeys(int size) {
+        List<Object> rowKeys = new ArrayList<Object>(size);
+        for (int i = 0; i < size; i++) {
+            rowKeys.add(i);
+        }
+        return rowKeys;
+    }
+
+    private static ExtendedDataModel<Integer> createModel(int size) {
+        Integer[] rows = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            rows[i] = i;
+        }
+        return new SequenceDataModel<Integer>(new ArrayDataModel<Integer>(rows));
+    }
+
+    private static Filter<Integer> createModuloFilter(final int divisor, final AtomicInteger evaluations) {
+        return new Filter<Integer>() {
+            public boolean accept(Integer t) {
+                evaluations.incrementAndGet();
+                return t % divisor == 0;
+            }
+        };
+    }
+
+    @Test
+    public void testFiltersAndExpressions() {
+        // #{row < filterValue}
+        ValueExpression expression = mock(ValueExpression.class);
+        when(expression.getValue(any(ELContext.class))).thenAnswer(new Answer<Object>() {
+            public Object answer(InvocationOnMock invocation) {
+                return (Integer) requestMap.get(VAR) < (Integer) requestMap.get(FILTER_VAR);
+            }
+        });
+        RowKeyFilter filter = new RowKeyFilter(facesContext, createModel(20), VAR, FILTER_VAR, 0);
+
+        List<Object> filtered = filter.filter(createRowKeys(20), Arrays.asList(
+            new FilterField(expression, createModuloFilter(3, new AtomicInteger()), 10)));
+
+        assertEquals(Arrays.<Object>asList(0, 3, 6, 9), filtered);
+    }
+
+    @Test
+    public void testSelectivePredicatesGoFirst() {
+        int size = 2000;
+        AtomicInteger acceptAllEvaluations = new AtomicInteger();
+        AtomicInteger selectiveEvaluations = new AtomicInteger();
+        RowKeyFilter filter = new RowKeyFilter(facesContext, createModel(size), VAR, FILTER_VAR, 0);
+
+        List<Object> filtered = filter.filter(createRowKeys(size), Arrays.asList(
+            new FilterField(null, createModuloFilter(1, acceptAllEvaluations), null),
+            new FilterField(null, createModuloFilter(10, selectiveEvaluations), null)));
+
+        assertEquals(size / 10, filtered.size());
+        assertEquals(size, selectiveEvaluations.get());
+        // after the sample the accepting filter checks only the rows accepted by the selective one
+        assertTrue(acceptAllEvaluations.get() < size / 2);
+    }
+
+    @Test
+    public void testParallelFilter() {
+        int size = 10000;
+        RowKeyFilter filter = new RowKeyFilter(facesContext, createModel(size), VAR, FILTER_VAR, 100);
+
+        List<Object> filtered = filter.filter(createRowKeys(size), Arrays.asList(
+            new FilterField(null, createModuloFilter(2, new AtomicInteger()), null),
+            new FilterField(null, createModuloFilter(3, new AtomicInteger()), null)));
+
+        List<Object> expected = new ArrayList<Object>();
+        for (int i = 0; i < size; i += 6) {
+            expected.add(i);
+        }
+        assertEquals(expected, filtered);
+    }
+}
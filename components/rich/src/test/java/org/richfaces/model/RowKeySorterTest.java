@@ -0,0 +1,195 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.el.ELContext;
+import javax.el.ValueExpression;
+import javax.faces.application.Application;
+import javax.faces.context.ExternalContext;
+import javax.faces.context.FacesContext;
+import javax.faces.event.PreDestroyApplicationEvent;
+import javax.faces.model.ArrayDataModel;
+
+import org.ajax4jsf.model.ExtendedDataModel;
+import org.ajax4jsf.model.SequenceDataModel;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.richfaces.component.SortOrder;
+
+public class RowKeySorterTest {
+    private static final String VAR = "row";
+    private FacesContext facesContext;
+    private Map<String, Object> requestMap;
+    private Map<String, Object> applicationMap;
+    private Application application;
+
+    @Before
+    public void setUp() {
+        requestMap = new HashMap<String, Object>();
+        applicationMap = new HashMap<String, Object>();
+        application = mock(Application.class);
+        facesContext = mock(FacesContext.class);
+        ExternalContext externalContext = mock(ExternalContext.class);
+        ELContext elContext = mock(ELContext.class);
+        when(facesContext.getExternalContext()).thenReturn(externalContext);
+        when(facesContext.getELContext()).thenReturn(elContext);
+        when(externalContext.getRequestMap()).thenReturn(requestMap);
+        when(externalContext.getApplicationMap()).thenReturn(applicationMap);
+        when(facesContext.getApplication()).thenReturn(application);
+    }
+
+    /**
+     * Creates expression evaluating to the given element of the row array
+     */
+    private ValueExpression createSortBy(final int column) {
+        ValueExpression expression = mock(ValueExpression.class);
+        when(expression.getValue(any(ELContext.class))).thenAnswer(new Answer<Object>() {
+            public Object answer(InvocationOnMock invocation) {
+                return ((Object[]) requestMap.get(VAR))[column];
+            }
+        });
+        return expression;
+    }
+
+    private static List<Object> createRowKeys(int size) {
+        List<Object> rowKeys = new ArrayList<Object>(size);
+        for (int i = 0; i < size; i++) {
+            rowKeys.add(i);
+        }
+        return rowKeys;
+    }
+
+    private static ExtendedDataModel<Object[]> createModel(Object[][] rows) {
+        return new SequenceDataModel<Object[]>(new ArrayDataModel<Object[]>(rows));
+    }
+
+    @Test
+    public void testSortByIsEvaluatedOncePerRow() {
+        Object[][] rows = { { "b " }, { "C" }, { "a" }, { null }, { "B" } };
+        ValueExpression sortBy = createSortBy(0);
+        RowKeySorter sorter = new RowKeySorter(facesContext, createModel(rows), VAR, null, 0);
+
+        List<Object> sorted = sorter.sort(createRowKeys(rows.length),
+            Arrays.asList(new SortField(sortBy, null, SortOrder.ascending)));
+
+        assertEquals(Arrays.<Object>asList(3, 2, 0, 4, 1), sorted);
+        verify(sortBy, times(rows.length)).getValue(any(ELContext.class));
+    }
+
+    @Test
+    public void testCollationKeys() {
+        Object[][] rows = { { "\u00e9t\u00e9" }, { "ete" }, { "zoo" }, { "Abc" } };
+        RowKeySorter sorter = new RowKeySorter(facesContext, createModel(rows), VAR, Collator.getInstance(Locale.FRENCH), 0);
+
+        List<Object> sorted = sorter.sort(createRowKeys(rows.length),
+            Arrays.asList(new SortField(createSortBy(0), null, SortOrder.descending)));
+
+        assertEquals(Arrays.<Object>asList(2, 0, 1, 3), sorted);
+    }
+
+    @Test
+    public void testComparatorsAndUnsortedFields() {
+        Object[][] rows = { { 1, "x" }, { 2, "y" }, { 1, "y" }, { 2, "x" } };
+        Comparator<Object[]> secondColumn = new Comparator<Object[]>() {
+            public int compare(Object[] o1, Object[] o2) {
+                return ((String) o1[1]).compareTo((String) o2[1]);
+            }
+        };
+        RowKeySorter sorter = new RowKeySorter(facesContext, createModel(rows), VAR, null, 0);
+
+        List<Object> sorted = sorter.sort(createRowKeys(rows.length), Arrays.asList(
+            new SortField(createSortBy(1), null, SortOrder.unsorted),
+            new SortField(null, secondColumn, SortOrder.descending),
+            new SortField(createSortBy(0), null, SortOrder.ascending)));
+
+        assertEquals(Arrays.<Object>asList(2, 1, 0, 3), sorted);
+    }
+
+    @Test
+    public void testParallelSortIsStable() {
+        int size = 10000;
+        Random random = new Random(42);
+        final Object[][] rows = new Object[size][];
+        for (int i = 0; i < size; i++) {
+            rows[i] = new Object[] { random.nextInt(50), random.nextInt(10) };
+        }
+
+        List<Object> expected = createRowKeys(size);
+        Collections.sort(expected, new Comparator<Object>() {
+            public int compare(Object o1, Object o2) {
+                Object[] row1 = rows[(Integer) o1];
+                Object[] row2 = rows[(Integer) o2];
+                int result = ((Integer) row2[0]).compareTo((Integer) row1[0]);
+                return result != 0 ? result : ((Integer) row1[1]).compareTo((Integer) row2[1]);
+            }
+        });
+
+        RowKeySorter sorter = new RowKeySorter(facesContext, createModel(rows), VAR, null, 100);
+        List<Object> sorted = sorter.sort(createRowKeys(size), Arrays.asList(
+            new SortField(createSortBy(0), null, SortOrder.descending),
+            new SortField(createSortBy(1), null, SortOrder.ascending)));
+
+        assertEquals(expected, sorted);
+    }
+
+    @Test
+    public void testExecutorIsSharedByApplication() {
+        ArrangeTaskExecutor executor = ArrangeTaskExecutor.getInstance(facesContext);
+        assertSame(executor, ArrangeTaskExecutor.getInstance(facesContext));
+        verify(application, times(1)).subscribeToEvent(PreDestroyApplicationEvent.class, executor);
+
+        executor.processEvent(new PreDestroyApplicationEvent(application));
+        try {
+            executor.invokeAll(Arrays.asList(Executors.callable(new Runnable() {
+                public void run() {
+                }
+            })));
+            fail();
+        } catch (RejectedExecutionException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,287 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.request;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.richfaces.model.UploadedFile;
+
+import com.google.common.collect.Lists;
+
+public class AsyncFileUploadFilterTest {
+    private static final String BOUNDARY = "----RichFacesBoundary";
+    private AsyncFileUploadFilter filter;
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+    private FilterChain chain;
+    private ServletContext servletContext;
+
+    @Before
+    public void setUp() throws Exception {
+        filter = new AsyncFileUploadFilter();
+        filter.init(mock(FilterConfig.class));
+
+        servletContext = mock(ServletContext.class);
+        when(servletContext.getInitParameter("org.richfaces.fileUpload.createTempFiles")).thenReturn("false");
+
+        request = mock(HttpServletRequest.class);
+        when(request.getServletContext()).thenReturn(servletContext);
+        when(request.getDispatcherType()).thenReturn(DispatcherType.REQUEST);
+        when(request.isAsyncSupported()).thenReturn(true);
+        when(request.getCharacterEncoding()).thenReturn("UTF-8");
+
+        response = mock(HttpServletResponse.class);
+        chain = mock(FilterChain.class);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        filter.destroy();
+    }
+
+    private static ServletInputStream createInputStream(String body) throws IOException {
+        final ByteArrayInputStream stream = new ByteArrayInputStream(body.getBytes("ISO-8859-1"));
+        return new ServletInputStream() {
+            @Override
+            public int read() throws IOException {
+                return stream.read();
+            }
+        };
+    }
+
+    @Test
+    public void testUploadParsedAsynchronously() throws Exception {
+        String body = "--" + BOUNDARY + "\r\n" + "Content-Disposition: form-data; name=\"file\"; filename=\"data.txt\"\r\n"
+            + "Content-Type: text/plain\r\n\r\n" + "content\r\n" + "--" + BOUNDARY + "--\r\n";
+
+        when(request.getContentType()).thenReturn("multipart/form-data; boundary=" + BOUNDARY);
+        when(request.getContentLength()).thenReturn(body.length());
+        when(request.getQueryString()).thenReturn(MultipartRequestParser.UID_KEY + "=1");
+        when(request.getInputStream()).thenReturn(createInputStream(body));
+
+        final CountDownLatch dispatched = new CountDownLatch(1);
+        AsyncContext asyncContext = mock(AsyncContext.class);
+        when(asyncContext.getResponse()).thenReturn(response);
+        doAnswer(new Answer<Void>() {
+            public Void answer(InvocationOnMock invocation) {
+                dispatched.countDown();
+                return null;
+            }
+        }).when(asyncContext).dispatch();
+        when(request.startAsync(any(ServletRequest.class), eq(response))).thenReturn(asyncContext);
+
+        filter.doFilter(request, response, chain);
+
+        assertTrue(dispatched.await(10, TimeUnit.SECONDS));
+        verify(chain, never()).doFilter(any(ServletRequest.class), any(ServletResponse.class));
+
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        verify(request).setAttribute(eq(MultipartRequest.REQUEST_ATTRIBUTE_NAME), captor.capture());
+        MultipartRequest multipartRequest = (MultipartRequest) captor.getValue();
+        assertEquals(MultipartRequest.ResponseState.ok, multipartRequest.getResponseState());
+
+        List<UploadedFile> files = Lists.newArrayList(multipartRequest.getUploadedFiles());
+        assertEquals(1, files.size());
+        assertEquals("data.txt", files.get(0).getName());
+        assertEquals("content", new String(files.get(0).getData(), "ISO-8859-1"));
+    }
+
+    @Test
+    public void testUploadCancelledOnTimeout() throws Exception {
+        String body = "--" + BOUNDARY + "\r\n" + "Content-Disposition: form-data; name=\"file\"; filename=\"data.txt\"\r\n"
+            + "Content-Type: text/plain\r\n\r\n" + "content\r\n" + "--" + BOUNDARY + "--\r\n";
+        final ServletInputStream bodyStream = createInputStream(body);
+        final CountDownLatch reading = new CountDownLatch(1);
+        final CountDownLatch timedOut = new CountDownLatch(1);
+        final CountDownLatch bodyRead = new CountDownLatch(1);
+        final Thread[] parseThread = new Thread[1];
+
+        when(request.getContentType()).thenReturn("multipart/form-data; boundary=" + BOUNDARY);
+        when(request.getContentLength()).thenReturn(body.length());
+        when(request.getQueryString()).thenReturn(MultipartRequestParser.UID_KEY + "=1");
+        // the body arrives after the asynchronous processing times out
+        when(request.getInputStream()).thenReturn(new ServletInputStream() {
+            @Override
+            public int read() throws IOException {
+                parseThread[0] = Thread.currentThread();
+                reading.countDown();
+                try {
+                    timedOut.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+
+                int b = bodyStream.read();
+                if (b < 0) {
+                    bodyRead.countDown();
+                }
+                return b;
+            }
+        });
+
+        AsyncContext asyncContext = mock(AsyncContext.class);
+        when(asyncContext.getResponse()).thenReturn(response);
+        when(request.startAsync(any(ServletRequest.class), eq(response))).thenReturn(asyncContext);
+
+        filter.doFilter(request, response, chain);
+
+        verify(asyncContext).setTimeout(0);
+        ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass(AsyncListener.class);
+        verify(asyncContext).addListener(listener.capture());
+
+        assertTrue(reading.await(10, TimeUnit.SECONDS));
+        listener.getValue().onTimeout(new AsyncEvent(asyncContext));
+        timedOut.countDown();
+
+        assertTrue(bodyRead.await(10, TimeUnit.SECONDS));
+
+        // wait for the thread to finish the task and return to the pool
+        long deadline = System.currentTimeMillis() + 10000;
+        while (parseThread[0].getState() != Thread.State.WAITING) {
+            assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+
+        verify(asyncContext, never()).dispatch();
+        verify(asyncContext, never()).complete();
+        verify(request, never()).setAttribute(eq(MultipartRequest.REQUEST_ATTRIBUTE_NAME), any());
+    }
+
+    @Test
+    public void testOverflowUploadParsedByRequestThread() throws Exception {
+        FilterConfig filterConfig = mock(FilterConfig.class);
+        when(filterConfig.getInitParameter("threads")).thenReturn("1");
+        when(filterConfig.getInitParameter("queueSize")).thenReturn("0");
+        filter.destroy();
+        filter = new AsyncFileUploadFilter();
+        filter.init(filterConfig);
+
+        String body = "--" + BOUNDARY + "\r\n" + "Content-Disposition: form-data; name=\"file\"; filename=\"data.txt\"\r\n"
+            + "Content-Type: text/plain\r\n\r\n" + "content\r\n" + "--" + BOUNDARY + "--\r\n";
+        final ServletInputStream bodyStream = createInputStream(body);
+        final CountDownLatch reading = new CountDownLatch(1);
+        final CountDownLatch released = new CountDownLatch(1);
+
+        when(request.getContentType()).thenReturn("multipart/form-data; boundary=" + BOUNDARY);
+        when(request.getContentLength()).thenReturn(body.length());
+        when(request.getQueryString()).thenReturn(MultipartRequestParser.UID_KEY + "=1");
+        // the first upload keeps the only thread busy
+        when(request.getInputStream()).thenReturn(new ServletInputStream() {
+            @Override
+            public int read() throws IOException {
+                reading.countDown();
+                try {
+                    released.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+
+                return -1;
+            }
+        });
+
+        AsyncContext asyncContext = mock(AsyncContext.class);
+        when(asyncContext.getResponse()).thenReturn(response);
+        when(request.startAsync(any(ServletRequest.class), eq(response))).thenReturn(asyncContext);
+
+        filter.doFilter(request, response, chain);
+        assertTrue(reading.await(10, TimeUnit.SECONDS));
+
+        HttpServletRequest overflowRequest = mock(HttpServletRequest.class);
+        when(overflowRequest.getServletContext()).thenReturn(servletContext);
+        when(overflowRequest.getDispatcherType()).thenReturn(DispatcherType.REQUEST);
+        when(overflowRequest.isAsyncSupported()).thenReturn(true);
+        when(overflowRequest.getCharacterEncoding()).thenReturn("UTF-8");
+        when(overflowRequest.getContentType()).thenReturn("multipart/form-data; boundary=" + BOUNDARY);
+        when(overflowRequest.getContentLength()).thenReturn(body.length());
+        when(overflowRequest.getQueryString()).thenReturn(MultipartRequestParser.UID_KEY + "=2");
+        when(overflowRequest.getInputStream()).thenReturn(bodyStream);
+
+        AsyncContext overflowAsyncContext = mock(AsyncContext.class);
+        when(overflowAsyncContext.getResponse()).thenReturn(response);
+        when(overflowRequest.startAsync(any(ServletRequest.class), eq(response))).thenReturn(overflowAsyncContext);
+
+        try {
+            filter.doFilter(overflowRequest, response, chain);
+
+            // parsed and dispatched before the filter returned
+            verify(overflowAsyncContext).dispatch();
+            verify(overflowRequest).setAttribute(eq(MultipartRequest.REQUEST_ATTRIBUTE_NAME), any());
+        } finally {
+            released.countDown();
+        }
+    }
+
+    @Test
+    public void testOtherRequestsPassThrough() throws Exception {
+        when(request.getContentType()).thenReturn("application/x-www-form-urlencoded");
+
+        filter.doFilter(request, response, chain);
+
+        verify(chain).doFilter(request, response);
+        verify(request, never()).startAsync(any(ServletRequest.class), any(ServletResponse.class));
+    }
+
+    @Test
+    public void testAsyncNotSupported() throws Exception {
+        when(request.getContentType()).thenReturn("multipart/form-data; boundary=" + BOUNDARY);
+        when(request.getQueryString()).thenReturn(MultipartRequestParser.UID_KEY + "=1");
+        when(request.isAsyncSupported()).thenReturn(false);
+
+        filter.doFilter(request, response, chain);
+
+        verify(chain).doFilter(request, response);
+    }
+}
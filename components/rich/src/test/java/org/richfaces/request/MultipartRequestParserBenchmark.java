@@ -0,0 +1,156 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.request;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.richfaces.exception.FileUploadException;
+import org.richfaces.model.UploadedFile;
+
+/**
+ * <p>Measures time {@link MultipartRequestParser} needs to parse a synthetic multipart request with one uploaded file of
+ * 1 MB to 1 GB written to a temporary file.</p>
+ *
+ * <p>The request body is generated while it is read, so that large bodies don't have to fit the heap. Run
+ * {@link #main(String[])} from the test classpath to compare small and large parser buffers.</p>
+ *
+ * @since 4.5
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MultipartRequestParserBenchmark {
+    private static final String BOUNDARY = "----RichFacesBenchmarkBoundary";
+    @Param({ "1048576", "67108864", "1073741824" })
+    private long fileSize;
+    @Param({ "2048", "65536" })
+    private int bufferSize;
+    private byte[] head;
+    private byte[] content;
+    private byte[] tail;
+    private String tempFilesDirectory;
+
+    /**
+     * Request body made of a head, the content repeated up to the file size and a tail
+     */
+    private final class BodyInputStream extends ServletInputStream {
+        private long position;
+        private final long length = head.length + fileSize + tail.length;
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (position >= length) {
+                return -1;
+            }
+
+            byte[] source;
+            int sourceOffset;
+            int available;
+            if (position < head.length) {
+                source = head;
+                sourceOffset = (int) position;
+                available = head.length - sourceOffset;
+            } else if (position < head.length + fileSize) {
+                long contentPosition = position - head.length;
+                source = content;
+                sourceOffset = (int) (contentPosition % content.length);
+                available = (int) Math.min(content.length - sourceOffset, fileSize - contentPosition);
+            } else {
+                source = tail;
+                sourceOffset = (int) (position - head.length - fileSize);
+                available = tail.length - sourceOffset;
+            }
+
+            int read = Math.min(len, available);
+            System.arraycopy(source, sourceOffset, b, off, read);
+            position += read;
+            return read;
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        head = ("--" + BOUNDARY + "\r\n" + "Content-Disposition: form-data; name=\"file\"; filename=\"data.bin\"\r\n"
+            + "Content-Type: application/octet-stream\r\n\r\n").getBytes("ISO-8859-1");
+        tail = ("\r\n--" + BOUNDARY + "--\r\n").getBytes("ISO-8859-1");
+        content = new byte[1024 * 1024];
+        new Random(42).nextBytes(content);
+        tempFilesDirectory = System.getProperty("java.io.tmpdir");
+    }
+
+    @Benchmark
+    public long parse() throws IOException, FileUploadException {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getContentType()).thenReturn("multipart/form-data; boundary=" + BOUNDARY);
+        when(request.getInputStream()).thenReturn(new BodyInputStream());
+
+        MultipartRequestParser parser = new MultipartRequestParser(request, true, tempFilesDirectory, bufferSize);
+        parser.parse();
+
+        long size = 0;
+        for (UploadedFile uploadedFile : parser.getUploadedFiles()) {
+            size += uploadedFile.getSize();
+            uploadedFile.delete();
+        }
+
+        return size;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+            .include(MultipartRequestParserBenchmark.class.getSimpleName())
+            .build();
+
+        new Runner(options).run();
+    }
+}
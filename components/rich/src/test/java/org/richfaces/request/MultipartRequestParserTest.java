@@ -0,0 +1,157 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.request;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+
+import org.junit.Test;
+import org.richfaces.model.UploadedFile;
+import org.richfaces.request.ByteSequenceMatcher.BytesHandler;
+import org.richfaces.request.ByteSequenceMatcher.Sequence;
+
+import com.google.common.collect.Lists;
+
+public class MultipartRequestParserTest {
+    private static final String BOUNDARY = "----RichFacesBoundary";
+    private static final int READ_SIZE = 100;
+
+    /**
+     * Request stream returning at most {@value #READ_SIZE} bytes per read
+     */
+    private static final class ChunkedServletInputStream extends ServletInputStream {
+        private final InputStream stream;
+
+        ChunkedServletInputStream(byte[] bytes) {
+            stream = new ByteArrayInputStream(bytes);
+        }
+
+        @Override
+        public int read() throws IOException {
+            return stream.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return stream.read(b, off, Math.min(len, READ_SIZE));
+        }
+    }
+
+    private static byte[] createFileContent() throws IOException {
+        byte[] bytes = new byte[20000];
+        new Random(42).nextBytes(bytes);
+        // partial boundary inside of the content
+        byte[] partialBoundary = ("\r\n--" + BOUNDARY.substring(0, BOUNDARY.length() - 1)).getBytes("ISO-8859-1");
+        System.arraycopy(partialBoundary, 0, bytes, 5000, partialBoundary.length);
+        return bytes;
+    }
+
+    private static byte[] createBody(byte[] fileContent) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(("--" + BOUNDARY + "\r\n" + "Content-Disposition: form-data; name=\"text\"\r\n\r\n" + "value\r\n" + "--"
+            + BOUNDARY + "\r\n" + "Content-Disposition: form-data; name=\"file\"; filename=\"data.bin\"\r\n"
+            + "Content-Type: application/octet-stream\r\n\r\n").getBytes("ISO-8859-1"));
+        body.write(fileContent);
+        body.write(("\r\n--" + BOUNDARY + "--\r\n").getBytes("ISO-8859-1"));
+        return body.toByteArray();
+    }
+
+    private void checkParse(boolean createTempFiles) throws Exception {
+        byte[] fileContent = createFileContent();
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getContentType()).thenReturn("multipart/form-data; boundary=" + BOUNDARY);
+        when(request.getCharacterEncoding()).thenReturn("UTF-8");
+        when(request.getInputStream()).thenReturn(new ChunkedServletInputStream(createBody(fileContent)));
+
+        MultipartRequestParser parser = new MultipartRequestParser(request, createTempFiles,
+            System.getProperty("java.io.tmpdir"), 0);
+        parser.parse();
+
+        assertEquals(Collections.singletonList("value"), parser.getParameters().get("text"));
+
+        List<UploadedFile> uploadedFiles = Lists.newArrayList(parser.getUploadedFiles());
+        assertEquals(1, uploadedFiles.size());
+        UploadedFile uploadedFile = uploadedFiles.get(0);
+        try {
+            assertEquals("file", uploadedFile.getParameterName());
+            assertEquals("data.bin", uploadedFile.getName());
+            assertArrayEquals(fileContent, uploadedFile.getData());
+        } finally {
+            uploadedFile.delete();
+        }
+    }
+
+    @Test
+    public void testParseToDisc() throws Exception {
+        checkParse(true);
+    }
+
+    @Test
+    public void testParseToMemory() throws Exception {
+        checkParse(false);
+    }
+
+    @Test
+    public void testSequenceIsFoundAcrossReads() throws Exception {
+        byte[] bytes = new byte[1000];
+        new Random(42).nextBytes(bytes);
+        byte[] sequence = "\r\n--boundary".getBytes("ISO-8859-1");
+        System.arraycopy(sequence, 0, bytes, 190, sequence.length);
+
+        final ByteArrayOutputStream handled = new ByteArrayOutputStream();
+        final List<Integer> chunks = Lists.newArrayList();
+        ByteSequenceMatcher matcher = new ByteSequenceMatcher(new ChunkedServletInputStream(bytes), 64);
+        matcher.setBytesHandler(new BytesHandler() {
+            public void handle(byte[] b, int length) throws IOException {
+                handled.write(b, 0, length);
+                chunks.add(length);
+            }
+        });
+
+        matcher.findSequence(16, new Sequence(sequence));
+
+        assertTrue(matcher.isMatchedAndNotEOF());
+        assertEquals(190, handled.size());
+        for (int length : chunks) {
+            assertTrue(length <= 16);
+        }
+
+        handled.reset();
+        matcher.findSequence(-1, new Sequence(sequence));
+        assertTrue(matcher.isEOF());
+        assertEquals(bytes.length - 190 - sequence.length, handled.size());
+    }
+}
@@ -21,6 +21,8 @@
  */
 package org.richfaces.application;
 
+import static org.richfaces.application.configuration.ConfigurationServiceHelper.getLongConfigurationValue;
+
 import java.util.Date;
 import java.util.Map;
 
@@ -28,6 +30,10 @@ import javax.faces.context.FacesContext;
 
 import org.richfaces.cache.Cache;
 import org.richfaces.cache.CacheManager;
+import org.richfaces.cache.concurrent.ConcurrentLRUCache;
+import org.richfaces.cache.concurrent.ConcurrentLRUCacheFactory;
+import org.richfaces.log.Logger;
+import org.richfaces.log.RichfacesLogger;
 import org.richfaces.resource.ResourceHandlerImpl;
 
 /**
@@ -38,6 +44,7 @@ import org.richfaces.resource.ResourceHandlerImpl;
  *
  */
 public class CacheProvider implements Initializable, Cache {
+    private static final Logger LOG = RichfacesLogger.CACHE.getLogger();
     private Cache instance;
     private CacheManager cacheManager;
 
@@ -105,6 +112,14 @@ public class CacheProvider implements Initializable, Cache {
         cacheManager = new CacheManager();
         Map<?, ?> envMap = facesContext.getExternalContext().getInitParameterMap();
         instance = cacheManager.createCache(facesContext, ResourceHandlerImpl.RESOURCE_CACHE_NAME, envMap);
+
+        // memory limit is applied only by the concurrent LRU cache, other caches are bounded as configured by themselves
+        if (getLongConfigurationValue(facesContext, CoreConfiguration.Items.resourcesCacheMemoryLimit) != null
+            && !(instance instanceof ConcurrentLRUCache)) {
+            LOG.warn("org.richfaces.resourceCacheMemoryLimit is ignored by the selected cache factory, set "
+                + CacheManager.CACHE_MANAGER_FACTORY_CLASS + " to " + ConcurrentLRUCacheFactory.class.getName()
+                + " to apply it");
+        }
     }
 
     public Cache get() {
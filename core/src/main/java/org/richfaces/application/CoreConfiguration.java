@@ -56,10 +56,64 @@ public final class CoreConfiguration {
         resourcesTTL,
         @ConfigurationItem(defaultValue = "512", names = RESOURCES_CACHE_SIZE_PARAM_NAME, literal = true)
         resourcesCacheSize,
+        /**
+         * Maximum total size of cached resources content in bytes. When set, the concurrent LRU cache (if selected as the
+         * cache factory) is bounded by this limit instead of by number of entries. Other cache factories ignore it, a warning
+         * is logged on startup in such case.
+         */
+        @ConfigurationItem(names = "org.richfaces.resourceCacheMemoryLimit", literal = true)
+        resourcesCacheMemoryLimit,
+        /**
+         * Maximum size of content of single cached resource in bytes. Larger resources are streamed to the client and are
+         * not stored in cache. Applied by the resource handler, regardless of the selected cache factory.
+         */
+        @ConfigurationItem(names = "org.richfaces.resourceCacheMaxEntrySize", literal = true)
+        resourcesCacheMaxEntrySize,
+        /**
+         * Whether content of cached resources should be stored in direct memory outside of Java heap. The amount of direct
+         * memory is limited by -XX:MaxDirectMemorySize JVM option.
+         */
+        @ConfigurationItem(defaultValue = "false", names = "org.richfaces.resourceCacheOffHeap", literal = true)
+        resourcesCacheOffHeap,
+        /**
+         * Whether a gzip-compressed variant of textual cached resources should be prepared and served to user agents
+         * accepting gzip content encoding. Static optimized resources are served using gzip-compressed copies written next
+         * to them by resource optimizer, if there are any. Disabled by default.
+         */
+        @ConfigurationItem(defaultValue = "false", names = "org.richfaces.resourceGzip", literal = true)
+        resourcesGzip,
+        /**
+         * Whether resources cache should be populated on application startup with resources listed in resource mapping
+         * files, so that the first requests don't have to build them.
+         */
+        @ConfigurationItem(defaultValue = "false", names = "org.richfaces.resourceCacheWarmUp", literal = true)
+        resourcesCacheWarmUp,
+        /**
+         * Maximum time in milliseconds resources cache warm-up may take, the remaining resources are built on demand. The
+         * warm-up delays application startup by up to this time.
+         */
+        @ConfigurationItem(defaultValue = "10000", names = "org.richfaces.resourceCacheWarmUpTimeout", literal = true)
+        resourcesCacheWarmUpTimeout,
+        /**
+         * Maximum time in milliseconds a request waits for a concurrent request loading the same resource. When it elapses,
+         * the request creates the resource itself.
+         */
+        @ConfigurationItem(defaultValue = "5000", names = "org.richfaces.resourceLoadingWaitTimeout", literal = true)
+        resourcesLoadingWaitTimeout,
+        /**
+         * Whether statistics of resource requests should be collected and exposed via JMX.
+         */
+        @ConfigurationItem(defaultValue = "false", names = "org.richfaces.resourceMetrics.enabled", literal = true)
+        resourceMetricsEnabled,
         @ConfigurationItem(names = "org.richfaces.resourceDefaultVersion")
         resourcesDefaultVersion,
         @ConfigurationItem(names = "org.richfaces.cache.LRU_MAP_CACHE_SIZE", literal = true)
         lruMapCacheSize,
+        /**
+         * Number of independently locked segments of the concurrent LRU cache
+         */
+        @ConfigurationItem(defaultValue = "16", names = "org.richfaces.cache.CONCURRENCY_LEVEL", literal = true)
+        cacheConcurrencyLevel,
         @ConfigurationItem(names = "org.richfaces.resourceMapping.location", literal = true)
         resourceMappingLocation,
         @ConfigurationItem(names = "org.richfaces.resourceMapping.mappingFile")
@@ -88,6 +142,43 @@ public final class CoreConfiguration {
         pushJMSConnectionPassword,
         @ConfigurationItem(defaultValue = "", names = "org.richfaces.push.jms.connectionPassword", source = ConfigurationItemSource.webEnvironmentEntry)
         pushJMSConnectionPasswordEnvRef,
+        /**
+         * Whether messages of all JMS topics should be received using one connection instead of one connection and thread per
+         * topic
+         */
+        @ConfigurationItem(defaultValue = "false", names = "org.richfaces.push.jms.sharedConnection", literal = true)
+        pushJMSSharedConnection,
+        /**
+         * Transport delivering push messages to the other nodes of the cluster when JMS is not enabled: either
+         * <code>multicast</code> or class name of {@link org.richfaces.application.push.impl.cluster.ClusterTransport}
+         * implementation. Messages are not delivered to other nodes when empty.
+         */
+        @ConfigurationItem(defaultValue = "", names = "org.richfaces.push.cluster.transport", literal = true)
+        pushClusterTransport,
+        /**
+         * Name of the cluster, only messages sent by the nodes of the cluster with the same name are accepted. Required by
+         * <code>multicast</code> transport.
+         */
+        @ConfigurationItem(names = "org.richfaces.push.cluster.name", literal = true)
+        pushClusterName,
+        /**
+         * Secret shared by the nodes of the cluster, messages sent by <code>multicast</code> transport are signed using it
+         * and messages with invalid signature are dropped. Required by <code>multicast</code> transport.
+         */
+        @ConfigurationItem(names = "org.richfaces.push.cluster.secret", literal = true)
+        pushClusterSecret,
+        /**
+         * Multicast group address used by <code>multicast</code> transport, it has to be configured explicitly.
+         */
+        @ConfigurationItem(names = "org.richfaces.push.cluster.multicastGroup", literal = true)
+        pushClusterMulticastGroup,
+        @ConfigurationItem(defaultValue = "45588", names = "org.richfaces.push.cluster.multicastPort", literal = true)
+        pushClusterMulticastPort,
+        /**
+         * Whether statistics of push messages and sessions should be collected and exposed via JMX.
+         */
+        @ConfigurationItem(defaultValue = "false", names = "org.richfaces.push.metrics.enabled", literal = true)
+        pushMetricsEnabled,
         @ConfigurationItem(defaultValue = "false", names="org.richfaces.push.initializeOnStartup")
         pushInitializePushContextOnStartup,
         /**
@@ -96,6 +187,34 @@ public final class CoreConfiguration {
         @Experimental
         @ConfigurationItem(defaultValue = "300000", names="org.richfaces.push.session.maxInactiveInterval")
         pushSessionMaxInactiveInterval,
+        /**
+         * Maximum number of undelivered messages queued for one push session, the queue is unbounded when not positive
+         */
+        @ConfigurationItem(defaultValue = "0", names = "org.richfaces.push.session.maxMessages", literal = true)
+        pushSessionMaxMessages,
+        /**
+         * What happens when a push session's queue of undelivered messages is full, one of
+         * {@link org.richfaces.application.push.SessionOverflowPolicy} names
+         */
+        @ConfigurationItem(defaultValue = "dropOldest", names = "org.richfaces.push.session.overflowPolicy", literal = true)
+        pushSessionOverflowPolicy,
+        /**
+         * Number of shards of push sessions, each expiring its sessions in its own thread, number of available processors is
+         * used when not positive
+         */
+        @ConfigurationItem(defaultValue = "0", names = "org.richfaces.push.session.shards", literal = true)
+        pushSessionShards,
+        /**
+         * Number of threads delivering published push messages to sessions, number of available processors is used when not
+         * positive
+         */
+        @ConfigurationItem(defaultValue = "0", names = "org.richfaces.push.publish.threads", literal = true)
+        pushPublishThreads,
+        /**
+         * Maximum number of messages of one topic delivered to subscribed sessions at once
+         */
+        @ConfigurationItem(defaultValue = "100", names = "org.richfaces.push.publish.batchSize", literal = true)
+        pushPublishBatchSize,
         /**
          * Whether or not to display the built in sort controls when the sorting attributes are present on a column
          */
@@ -105,7 +224,13 @@ public final class CoreConfiguration {
          * Whether or not to display the built in filter controls when the filtering attributes are present on a column
          */
         @ConfigurationItem(defaultValue = "true", names = "org.richfaces.builtin.filter.enabled")
-        builtInFilterControlsEnabled
+        builtInFilterControlsEnabled,
+        /**
+         * Whether components are indexed by their ids as they are added to views, so that partial visits find the
+         * components to visit without walking the whole tree
+         */
+        @ConfigurationItem(defaultValue = "false", names = "org.richfaces.componentIdIndex.enabled", literal = true)
+        componentIdIndexEnabled
     }
 
     @ConfigurationItemsBundle(propertiesFile = "org/richfaces/push.properties")
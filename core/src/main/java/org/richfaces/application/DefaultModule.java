@@ -46,6 +46,7 @@ import org.richfaces.resource.external.MappedResourceFactoryImpl;
 import org.richfaces.resource.external.ResourceTracker;
 import org.richfaces.resource.external.ResourceTrackerImpl;
 import org.richfaces.resource.mapping.ResourceMappingConfiguration;
+import org.richfaces.resource.metrics.ResourceHandlerListeners;
 import org.richfaces.skin.SkinFactory;
 import org.richfaces.skin.SkinFactoryImpl;
 
@@ -79,6 +80,7 @@ public class DefaultModule implements Module {
         factory.setInstance(GenericsIntrospectionService.class, new GenericsIntrospectionServiceImpl());
         factory.setInstance(ResourceTracker.class, new ResourceTrackerImpl());
         factory.setInstance(MappedResourceFactory.class, new MappedResourceFactoryImpl());
+        factory.setInstance(ResourceHandlerListeners.class, new ResourceHandlerListeners());
 //        factory.setInstance(FocusManager.class, ServiceLoader.loadService(FocusManager.class, FocusManagerImpl.class));
         factory.setInstance(ResourceMappingConfiguration.class, new ResourceMappingConfiguration());
 
@@ -22,9 +22,13 @@
 package org.richfaces.application;
 
 import static org.richfaces.application.configuration.ConfigurationServiceHelper.getBooleanConfigurationValue;
+import static org.richfaces.application.configuration.ConfigurationServiceHelper.getLongConfigurationValue;
+import static org.richfaces.application.CoreConfiguration.Items.componentIdIndexEnabled;
 import static org.richfaces.application.CoreConfiguration.Items.executeAWTInitializer;
 import static org.richfaces.application.CoreConfiguration.Items.pushInitializePushContextOnStartup;
 import static org.richfaces.application.CoreConfiguration.Items.pushJMSEnabled;
+import static org.richfaces.application.CoreConfiguration.Items.resourcesCacheWarmUp;
+import static org.richfaces.application.CoreConfiguration.Items.resourcesCacheWarmUpTimeout;
 
 import java.awt.Toolkit;
 import java.io.ByteArrayInputStream;
@@ -34,6 +38,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import javax.faces.FacesException;
+import javax.faces.application.ProjectStage;
 import javax.faces.context.FacesContext;
 import javax.faces.event.AbortProcessingException;
 import javax.faces.event.PostConstructApplicationEvent;
@@ -46,8 +51,11 @@ import javax.xml.rpc.ServiceFactory;
 
 import org.richfaces.VersionBean;
 import org.richfaces.application.push.PushContextFactory;
+import org.richfaces.context.ComponentIdIndex;
 import org.richfaces.log.Logger;
 import org.richfaces.log.RichfacesLogger;
+import org.richfaces.resource.ResourceCacheWarmer;
+import org.richfaces.resource.ResourceHandlerImpl;
 
 /**
  * <p>Listens for application's {@link PostConstructApplicationEvent} and {@link PreDestroyApplicationEvent} events in order to initialize RichFaces services.</p>
@@ -88,6 +96,14 @@ public class InitializationListener implements SystemEventListener {
         if (!jmsEnabled) {
             logWarningWhenConnectionFactoryPresent();
         }
+
+        if (getConfiguration(resourcesCacheWarmUp)) {
+            warmUpResourcesCache();
+        }
+
+        if (getConfiguration(componentIdIndexEnabled)) {
+            ComponentIdIndex.subscribe(FacesContext.getCurrentInstance().getApplication());
+        }
     }
 
     /**
@@ -145,6 +161,33 @@ public class InitializationListener implements SystemEventListener {
         }
     }
 
+    /**
+     * Populates resources cache with resources listed in resource mapping files
+     */
+    private void warmUpResourcesCache() {
+        FacesContext facesContext = FacesContext.getCurrentInstance();
+
+        if (facesContext.isProjectStage(ProjectStage.Development)) {
+            // resources are not cached on Development stage
+            return;
+        }
+
+        ResourceHandlerImpl resourceHandler = ResourceCacheWarmer.findResourceHandler(facesContext.getApplication()
+            .getResourceHandler());
+
+        if (resourceHandler == null) {
+            LOGGER.warn("RichFaces resource handler is not installed, resources cache warm-up won't be run");
+            return;
+        }
+
+        try {
+            new ResourceCacheWarmer(resourceHandler, getLongConfigurationValue(facesContext, resourcesCacheWarmUpTimeout))
+                .warmUp(facesContext);
+        } catch (Exception e) {
+            LOGGER.error(MessageFormat.format("There were problems warming up resources cache on startup: {0}", e.getMessage()));
+        }
+    }
+
     /**
      * Logs a warning that JMS API is available but Push/JMS integration is not enabled
      */
@@ -0,0 +1,106 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.application.push;
+
+import java.io.IOException;
+
+/**
+ * <p>Serialized message published to a topic, pre-encoded into the frame that is sent to clients.</p>
+ *
+ * <p>The message is encoded once when it is published and shared by all the sessions it is pushed to, the only part of
+ * the frame that differs between sessions is the sequence number.</p>
+ */
+public final class EncodedMessage {
+    private final TopicKey topicKey;
+    private final String serializedMessage;
+    private final String frameHead;
+    private final String frameTail;
+    private final boolean conflated;
+    private final long publishTime;
+
+    public EncodedMessage(TopicKey topicKey, String serializedMessage) {
+        this(topicKey, serializedMessage, false);
+    }
+
+    /**
+     * @param conflated whether the message replaces undelivered messages with the same topic key
+     */
+    public EncodedMessage(TopicKey topicKey, String serializedMessage, boolean conflated) {
+        this(topicKey, serializedMessage, conflated, 0);
+    }
+
+    /**
+     * @param conflated whether the message replaces undelivered messages with the same topic key
+     * @param publishTime value of {@link System#nanoTime()} when the message was published or 0 if the delivery latency
+     *        isn't measured
+     */
+    public EncodedMessage(TopicKey topicKey, String serializedMessage, boolean conflated, long publishTime) {
+        super();
+        this.topicKey = topicKey;
+        this.serializedMessage = serializedMessage;
+        this.conflated = conflated;
+        this.publishTime = publishTime;
+        this.frameHead = "<msg topic=\"" + topicKey.getTopicAddress() + "\" number=\"";
+        // append data as is - no escaping
+        this.frameTail = "\">" + serializedMessage + "</msg>";
+    }
+
+    /**
+     * Returns a topic key with which this message is associated
+     */
+    public TopicKey getTopicKey() {
+        return topicKey;
+    }
+
+    /**
+     * Returns serialized message
+     */
+    public String getSerializedMessage() {
+        return serializedMessage;
+    }
+
+    /**
+     * Returns true if this message replaces the undelivered messages with the same topic key
+     *
+     * @see Topic#setConflated(boolean)
+     */
+    public boolean isConflated() {
+        return conflated;
+    }
+
+    /**
+     * Returns the value of {@link System#nanoTime()} when this message was published, used to measure delivery latency, or 0
+     * if the latency isn't measured because no push listener was registered at the time
+     */
+    public long getPublishTime() {
+        return publishTime;
+    }
+
+    /**
+     * Appends the frame of this message with given sequence number to the target
+     */
+    public void appendFrame(long sequenceNumber, Appendable target) throws IOException {
+        target.append(frameHead);
+        target.append(Long.toString(sequenceNumber));
+        target.append(frameTail);
+    }
+}
@@ -26,14 +26,19 @@ package org.richfaces.application.push;
  * message was already consumed by client.
  */
 public final class MessageData {
-    private final TopicKey topicKey;
-    private final String serializedMessage;
+    private final EncodedMessage encodedMessage;
     private final long sequenceNumber;
 
     public MessageData(TopicKey topicKey, String serializedMessageData, long sequenceNumber) {
+        this(new EncodedMessage(topicKey, serializedMessageData), sequenceNumber);
+    }
+
+    /**
+     * Associates the message that is shared between sessions with a sequence number of particular session
+     */
+    public MessageData(EncodedMessage encodedMessage, long sequenceNumber) {
         super();
-        this.topicKey = topicKey;
-        this.serializedMessage = serializedMessageData;
+        this.encodedMessage = encodedMessage;
         this.sequenceNumber = sequenceNumber;
     }
 
@@ -41,14 +46,21 @@ public final class MessageData {
      * Returns a topic key with which this message is associated
      */
     public TopicKey getTopicKey() {
-        return topicKey;
+        return encodedMessage.getTopicKey();
     }
 
     /**
      * Returns serialized message
      */
     public String getSerializedMessage() {
-        return serializedMessage;
+        return encodedMessage.getSerializedMessage();
+    }
+
+    /**
+     * Returns the message pre-encoded into frame sent to clients
+     */
+    public EncodedMessage getEncodedMessage() {
+        return encodedMessage;
     }
 
     /**
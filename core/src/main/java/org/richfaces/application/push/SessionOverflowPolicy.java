@@ -0,0 +1,49 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.application.push;
+
+/**
+ * Determines what happens when a message is pushed to a session whose queue of undelivered messages is full.
+ */
+public enum SessionOverflowPolicy {
+
+    /**
+     * The oldest undelivered message is dropped
+     */
+    dropOldest,
+
+    /**
+     * The pushed message is dropped
+     */
+    dropNewest,
+
+    /**
+     * The oldest undelivered message of the same topic and subtopic as the pushed one is replaced, the oldest undelivered
+     * message is dropped if there is no such message
+     */
+    coalesceSubtopic,
+
+    /**
+     * The session is invalidated, so that the client has to connect again
+     */
+    disconnect
+}
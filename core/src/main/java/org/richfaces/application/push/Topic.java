@@ -56,6 +56,24 @@ public interface Topic {
      */
     void setMessageDataSerializer(MessageDataSerializer serializer);
 
+    /**
+     * Returns true if only the newest undelivered message of each topic key of this topic is delivered
+     */
+    boolean isConflated();
+
+    /**
+     * <p>
+     * Enables or disables conflation of messages published through this topic.
+     * </p>
+     *
+     * <p>
+     * When enabled, a message replaces the messages with the same topic key (including subtopic) that haven't been
+     * delivered to the client yet, so the clients receive at most one message per topic key in each poll. This is useful
+     * for topics carrying frequently updated state where only the latest value matters.
+     * </p>
+     */
+    void setConflated(boolean conflated);
+
     /**
      * Adds listener through that topic events will be published (by calling {@link #publishEvent(TopicEvent)}).
      */
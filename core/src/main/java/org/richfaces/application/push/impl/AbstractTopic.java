@@ -49,6 +49,7 @@ public abstract class AbstractTopic implements Topic {
     private TopicKey key;
     private volatile MessageDataSerializer serializer;
     private volatile boolean allowSubtopics;
+    private volatile boolean conflated;
     private List<TopicListener> listeners = new CopyOnWriteArrayList<TopicListener>();
 
     public AbstractTopic(TopicKey key) {
@@ -78,6 +79,24 @@ public abstract class AbstractTopic implements Topic {
         this.serializer = serializer;
     }
 
+    /*
+     * (non-Javadoc)
+     * @see org.richfaces.application.push.Topic#isConflated()
+     */
+    @Override
+    public boolean isConflated() {
+        return conflated;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.richfaces.application.push.Topic#setConflated(boolean)
+     */
+    @Override
+    public void setConflated(boolean conflated) {
+        this.conflated = conflated;
+    }
+
     /**
      * Returns true if this topic allow to use subtopics
      */
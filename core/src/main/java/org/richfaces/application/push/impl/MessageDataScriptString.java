@@ -42,17 +42,8 @@ public class MessageDataScriptString extends ScriptStringBase {
     }
 
     private void appendMessageToScript(MessageData message, Appendable target) throws IOException {
-        target.append("<msg topic=\"");
-        target.append(message.getTopicKey().getTopicAddress());
-
-        target.append("\" number=\"");
-        target.append(Long.toString(message.getSequenceNumber()));
-        target.append("\">");
-
-        // append data as is - no escaping
-        target.append(message.getSerializedMessage());
-
-        target.append("</msg>");
+        // the frame is shared by all the sessions the message was pushed to
+        message.getEncodedMessage().appendFrame(message.getSequenceNumber(), target);
     }
 
     public void appendScript(Appendable target) throws IOException {
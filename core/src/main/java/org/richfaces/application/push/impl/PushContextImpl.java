@@ -35,11 +35,14 @@ import org.richfaces.application.push.PushContext;
 import org.richfaces.application.push.SessionFactory;
 import org.richfaces.application.push.SessionManager;
 import org.richfaces.application.push.TopicsContext;
+import org.richfaces.application.push.impl.cluster.ClusterTopicsContextImpl;
 import org.richfaces.application.push.impl.jms.JMSTopicsContextImpl;
+import org.richfaces.application.push.metrics.PushListeners;
 import org.richfaces.application.CoreConfiguration;
 import org.richfaces.log.Logger;
 import org.richfaces.log.RichfacesLogger;
 
+import com.google.common.base.Strings;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 /**
@@ -61,6 +64,7 @@ public class PushContextImpl implements PushContext, SystemEventListener {
     private TopicsContextImpl topicsContext;
     private SessionManager sessionManager;
     private SessionFactory sessionFactory;
+    private final PushListeners pushListeners = new PushListeners();
 
     public PushContextImpl(String pushHandlerUrl) {
         super();
@@ -78,18 +82,32 @@ public class PushContextImpl implements PushContext, SystemEventListener {
             facesContext.getApplication().subscribeToEvent(PreDestroyApplicationEvent.class, this);
 
             boolean isJmsEnabled = isJmsEnabled(facesContext);
+            int publishThreads = ConfigurationServiceHelper.getIntConfigurationValue(facesContext,
+                    CoreConfiguration.Items.pushPublishThreads);
+            int publishBatchSize = ConfigurationServiceHelper.getIntConfigurationValue(facesContext,
+                    CoreConfiguration.Items.pushPublishBatchSize);
 
             if (isJmsEnabled) {
-                topicsContext = JMSTopicsContextImpl.getInstanceInitializedFromContext(PUBLISH_THREAD_FACTORY, facesContext);
+                topicsContext = JMSTopicsContextImpl.getInstanceInitializedFromContext(PUBLISH_THREAD_FACTORY, publishThreads,
+                        publishBatchSize, facesContext);
+            } else if (isClusterEnabled(facesContext)) {
+                topicsContext = ClusterTopicsContextImpl.getInstanceInitializedFromContext(PUBLISH_THREAD_FACTORY,
+                        publishThreads, publishBatchSize, facesContext);
             } else {
-                topicsContext = new TopicsContextImpl(PUBLISH_THREAD_FACTORY);
+                topicsContext = new TopicsContextImpl(PUBLISH_THREAD_FACTORY, publishThreads, publishBatchSize);
             }
 
-            sessionManager = new SessionManagerImpl(SESSION_MANAGER_THREAD_FACTORY);
+            pushListeners.init(facesContext);
+            topicsContext.setPushListeners(pushListeners);
 
-            sessionFactory = new SessionFactoryImpl(sessionManager, topicsContext);
+            int sessionShards = ConfigurationServiceHelper.getIntConfigurationValue(facesContext,
+                    CoreConfiguration.Items.pushSessionShards);
+            sessionManager = new SessionManagerImpl(SESSION_MANAGER_THREAD_FACTORY, sessionShards, pushListeners);
+
+            sessionFactory = new SessionFactoryImpl(sessionManager, topicsContext, pushListeners);
 
             facesContext.getExternalContext().getApplicationMap().put(INSTANCE_KEY_NAME, this);
+            facesContext.getExternalContext().getApplicationMap().put(PushListeners.INSTANCE_KEY_NAME, pushListeners);
         } catch (Exception e) {
             throw new FacesException(e.getMessage(), e);
         }
@@ -115,6 +133,8 @@ public class PushContextImpl implements PushContext, SystemEventListener {
         } catch (Exception e) {
             LOGGER.error(e.getMessage(), e);
         }
+
+        pushListeners.release();
     }
 
     /**
@@ -141,6 +161,11 @@ public class PushContextImpl implements PushContext, SystemEventListener {
         return jmsEnabled;
     }
 
+    private boolean isClusterEnabled(FacesContext facesContext) {
+        return !Strings.isNullOrEmpty(ConfigurationServiceHelper.getStringConfigurationValue(facesContext,
+                CoreConfiguration.Items.pushClusterTransport));
+    }
+
     /*
      * (non-Javadoc)
      *
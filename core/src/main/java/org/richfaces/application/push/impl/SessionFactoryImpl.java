@@ -21,10 +21,13 @@
  */
 package org.richfaces.application.push.impl;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.richfaces.application.push.Session;
 import org.richfaces.application.push.SessionFactory;
 import org.richfaces.application.push.SessionManager;
 import org.richfaces.application.push.TopicsContext;
+import org.richfaces.application.push.metrics.PushListeners;
 
 /**
  * @author Nick Belaevski
@@ -32,11 +35,21 @@ import org.richfaces.application.push.TopicsContext;
 public class SessionFactoryImpl implements SessionFactory {
     private final SessionManager sessionManager;
     private final TopicsContext topicsContext;
+    private final AtomicLong droppedMessages = new AtomicLong();
+    private final PushListeners pushListeners;
 
     public SessionFactoryImpl(SessionManager sessionManager, TopicsContext topicsContext) {
+        this(sessionManager, topicsContext, new PushListeners());
+    }
+
+    /**
+     * @param pushListeners listeners notified about requests connected to the created sessions and delivered messages
+     */
+    public SessionFactoryImpl(SessionManager sessionManager, TopicsContext topicsContext, PushListeners pushListeners) {
         super();
         this.sessionManager = sessionManager;
         this.topicsContext = topicsContext;
+        this.pushListeners = pushListeners;
     }
 
     /*
@@ -45,9 +58,18 @@ public class SessionFactoryImpl implements SessionFactory {
      * @see org.richfaces.application.push.SessionFactory#createSession(java.lang.String)
      */
     public Session createSession(String pushSessionId) {
-        Session session = new SessionImpl(pushSessionId, sessionManager, topicsContext);
+        Session session = new SessionImpl(pushSessionId, sessionManager, topicsContext, droppedMessages,
+            pushListeners);
         sessionManager.putPushSession(session);
 
         return session;
     }
+
+    /**
+     * Returns the number of messages dropped by all the created sessions because their queues of undelivered messages were
+     * full
+     */
+    public long getDroppedMessagesCount() {
+        return droppedMessages.get();
+    }
 }
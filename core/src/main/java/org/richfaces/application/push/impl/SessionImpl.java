@@ -24,26 +24,29 @@ package org.richfaces.application.push.impl;
 import java.text.MessageFormat;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
-import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicLong;
 
 import javax.faces.context.FacesContext;
 
 import org.richfaces.application.configuration.ConfigurationServiceHelper;
+import org.richfaces.application.push.BatchingSession;
 import org.richfaces.application.push.DestroyableSession;
+import org.richfaces.application.push.EncodedMessage;
 import org.richfaces.application.push.MessageData;
 import org.richfaces.application.push.Request;
 import org.richfaces.application.push.Session;
 import org.richfaces.application.push.SessionManager;
+import org.richfaces.application.push.SessionOverflowPolicy;
 import org.richfaces.application.push.SessionSubscriptionEvent;
 import org.richfaces.application.push.SessionUnsubscriptionEvent;
 import org.richfaces.application.push.SubscriptionFailureException;
 import org.richfaces.application.push.Topic;
 import org.richfaces.application.push.TopicKey;
 import org.richfaces.application.push.TopicsContext;
+import org.richfaces.application.push.metrics.PushListeners;
 import org.richfaces.application.CoreConfiguration;
 import org.richfaces.log.Logger;
 import org.richfaces.log.RichfacesLogger;
@@ -60,7 +63,7 @@ import com.google.common.collect.Sets;
  *
  * @see Session
  */
-public class SessionImpl implements Session, DestroyableSession {
+public class SessionImpl implements BatchingSession, DestroyableSession {
     private static final Logger LOGGER = RichfacesLogger.APPLICATION.getLogger();
     private final int maxInactiveInterval;
     private final String id;
@@ -68,22 +71,58 @@ public class SessionImpl implements Session, DestroyableSession {
     private volatile long lastAccessedTime;
     private volatile Request request;
     private volatile boolean active = true;
-    private final Queue<MessageData> messagesQueue = new ConcurrentLinkedQueue<MessageData>();
+    private final SessionMessageQueue messagesQueue;
     private final Set<TopicKey> successfulSubscriptions = Sets.newHashSet();
     private final Map<TopicKey, String> failedSubscriptions = Maps.newHashMap();
     private TopicsContext topicsContext;
-    private AtomicLong sequenceCounter = new AtomicLong();
+    private final PushListeners pushListeners;
 
     public SessionImpl(String id, SessionManager sessionManager, TopicsContext topicsContext) {
+        this(id, sessionManager, topicsContext, new AtomicLong());
+    }
+
+    /**
+     * @param droppedMessagesCounter counter of messages dropped because of full queue shared by sessions
+     */
+    public SessionImpl(String id, SessionManager sessionManager, TopicsContext topicsContext,
+            AtomicLong droppedMessagesCounter) {
+        this(id, sessionManager, topicsContext, droppedMessagesCounter, new PushListeners());
+    }
+
+    /**
+     * @param droppedMessagesCounter counter of messages dropped because of full queue shared by sessions
+     * @param pushListeners listeners notified about connected requests, delivered and dropped messages
+     */
+    public SessionImpl(String id, SessionManager sessionManager, TopicsContext topicsContext,
+            AtomicLong droppedMessagesCounter, PushListeners pushListeners) {
+        this(id, sessionManager, topicsContext, FacesContext.getCurrentInstance(), droppedMessagesCounter, pushListeners);
+    }
+
+    private SessionImpl(String id, SessionManager sessionManager, TopicsContext topicsContext, FacesContext facesContext,
+            AtomicLong droppedMessagesCounter, PushListeners pushListeners) {
+        this(id, sessionManager, topicsContext, ConfigurationServiceHelper.getIntConfigurationValue(facesContext,
+                CoreConfiguration.Items.pushSessionMaxInactiveInterval), new SessionMessageQueue(
+                ConfigurationServiceHelper.getIntConfigurationValue(facesContext, CoreConfiguration.Items.pushSessionMaxMessages),
+                ConfigurationServiceHelper.getEnumConfigurationValue(facesContext,
+                        CoreConfiguration.Items.pushSessionOverflowPolicy, SessionOverflowPolicy.class),
+                droppedMessagesCounter, pushListeners), pushListeners);
+    }
+
+    SessionImpl(String id, SessionManager sessionManager, TopicsContext topicsContext, int maxInactiveInterval,
+            SessionMessageQueue messagesQueue) {
+        this(id, sessionManager, topicsContext, maxInactiveInterval, messagesQueue, new PushListeners());
+    }
+
+    SessionImpl(String id, SessionManager sessionManager, TopicsContext topicsContext, int maxInactiveInterval,
+            SessionMessageQueue messagesQueue, PushListeners pushListeners) {
         super();
 
         this.id = id;
         this.sessionManager = sessionManager;
         this.topicsContext = topicsContext;
-
-        FacesContext facesContext = FacesContext.getCurrentInstance();
-        this.maxInactiveInterval = ConfigurationServiceHelper.getIntConfigurationValue(facesContext,
-                CoreConfiguration.Items.pushSessionMaxInactiveInterval);
+        this.maxInactiveInterval = maxInactiveInterval;
+        this.messagesQueue = messagesQueue;
+        this.pushListeners = pushListeners;
 
         resetLastAccessedTimeToCurrent();
     }
@@ -122,6 +161,10 @@ public class SessionImpl implements Session, DestroyableSession {
         this.request = request;
         sessionManager.requeue(this);
 
+        if (!pushListeners.isEmpty()) {
+            pushListeners.requestConnected(id);
+        }
+
         request.postMessages();
     }
 
@@ -132,6 +175,10 @@ public class SessionImpl implements Session, DestroyableSession {
             resetLastAccessedTimeToCurrent();
             this.request = null;
 
+            if (!pushListeners.isEmpty()) {
+                pushListeners.requestReleased(id);
+            }
+
             localRequestCopy.resume();
         }
     }
@@ -288,7 +335,7 @@ public class SessionImpl implements Session, DestroyableSession {
      */
     @Override
     public Collection<MessageData> getMessages() {
-        return messagesQueue;
+        return messagesQueue.getMessages();
     }
 
     /*
@@ -298,17 +345,35 @@ public class SessionImpl implements Session, DestroyableSession {
      */
     @Override
     public void clearBroadcastedMessages(long sequenceNumber) {
-        Queue<MessageData> queue = messagesQueue;
-        while (true) {
-            MessageData message = queue.peek();
-            if (message == null || sequenceNumber < message.getSequenceNumber()) {
+        if (!pushListeners.isEmpty()) {
+            notifyDelivered(sequenceNumber);
+        }
+
+        messagesQueue.clearBroadcastedMessages(sequenceNumber);
+    }
+
+    private void notifyDelivered(long lastSequenceNumber) {
+        long now = System.nanoTime();
+
+        for (MessageData message : messagesQueue.getMessages()) {
+            if (lastSequenceNumber < message.getSequenceNumber()) {
                 break;
             }
 
-            queue.remove();
+            long publishTime = message.getEncodedMessage().getPublishTime();
+            if (publishTime != 0) {
+                pushListeners.messageDelivered(message.getTopicKey(), now - publishTime);
+            }
         }
     }
 
+    /**
+     * Returns the number of messages dropped because the queue of undelivered messages was full
+     */
+    public long getDroppedMessagesCount() {
+        return messagesQueue.getDroppedMessagesCount();
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -316,12 +381,37 @@ public class SessionImpl implements Session, DestroyableSession {
      */
     @Override
     public void push(TopicKey topicKey, String serializedData) {
-        MessageData serializedMessage = new MessageData(topicKey, serializedData, sequenceCounter.getAndIncrement());
-        messagesQueue.add(serializedMessage);
-        synchronized (this) {
-            if (request != null) {
-                request.postMessages();
-            }
+        long publishTime = pushListeners.isEmpty() ? 0 : System.nanoTime();
+
+        if (messagesQueue.offer(new EncodedMessage(topicKey, serializedData, false, publishTime))) {
+            postMessages();
+        } else {
+            disconnectOverflown();
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.richfaces.application.push.BatchingSession#push(java.util.List)
+     */
+    @Override
+    public void push(List<EncodedMessage> messages) {
+        if (messagesQueue.offerAll(messages)) {
+            postMessages();
+        } else {
+            disconnectOverflown();
+        }
+    }
+
+    private void disconnectOverflown() {
+        LOGGER.debug(MessageFormat.format("Push session {0} is invalidated, its queue of undelivered messages is full", id));
+        invalidate();
+    }
+
+    private synchronized void postMessages() {
+        if (request != null) {
+            request.postMessages();
         }
     }
 }
@@ -21,6 +21,9 @@
  */
 package org.richfaces.application.push.impl;
 
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -29,25 +32,61 @@ import java.util.concurrent.ThreadFactory;
 import org.richfaces.application.push.DestroyableSession;
 import org.richfaces.application.push.Session;
 import org.richfaces.application.push.SessionManager;
+import org.richfaces.application.push.metrics.PushListeners;
 import org.richfaces.log.Logger;
 import org.richfaces.log.RichfacesLogger;
 
 import com.google.common.collect.MapMaker;
 
 /**
+ * <p>Sessions are split to shards by their ids; each shard has its own map of sessions and {@link SessionQueue} and expires
+ * its sessions in its own thread, so that destroying of many sessions expiring at once (e.g. when clients reconnect after a
+ * network failure) is done in parallel. The sessions that have already expired are taken and destroyed in batches.</p>
+ *
  * @author Nick Belaevski
  */
 public class SessionManagerImpl implements SessionManager {
 
     private static final Logger LOGGER = RichfacesLogger.APPLICATION.getLogger();
+    private static final int EXPIRATION_BATCH_SIZE = 100;
 
-    private ConcurrentMap<String, Session> sessionMap = new MapMaker().makeMap();
-    private SessionQueue sessionQueue = new SessionQueue();
+    private final Shard[] shards;
     private ExecutorService executorService;
+    private final PushListeners pushListeners;
 
     public SessionManagerImpl(ThreadFactory threadFactory) {
-        executorService = Executors.newSingleThreadExecutor(threadFactory);
-        executorService.submit(new SessionsExpirationRunnable());
+        this(threadFactory, new PushListeners());
+    }
+
+    /**
+     * @param pushListeners listeners notified about created and expired sessions
+     */
+    public SessionManagerImpl(ThreadFactory threadFactory, PushListeners pushListeners) {
+        this(threadFactory, 0, pushListeners);
+    }
+
+    /**
+     * @param shardsCount number of shards, number of available processors is used when not positive
+     * @param pushListeners listeners notified about created and expired sessions
+     */
+    public SessionManagerImpl(ThreadFactory threadFactory, int shardsCount, PushListeners pushListeners) {
+        this.pushListeners = pushListeners;
+
+        int count = shardsCount > 0 ? shardsCount : Runtime.getRuntime().availableProcessors();
+        shards = new Shard[count];
+        executorService = Executors.newFixedThreadPool(count, threadFactory);
+
+        for (int i = 0; i < count; i++) {
+            shards[i] = new Shard();
+            executorService.submit(new SessionsExpirationRunnable(shards[i]));
+        }
+    }
+
+    private Shard getShard(String sessionId) {
+        int hash = sessionId.hashCode();
+        hash ^= hash >>> 16;
+
+        return shards[(hash & Integer.MAX_VALUE) % shards.length];
     }
 
     /*
@@ -57,7 +96,7 @@ public class SessionManagerImpl implements SessionManager {
      */
     @Override
     public Session getPushSession(String id) {
-        return sessionMap.get(id);
+        return getShard(id).sessionMap.get(id);
     }
 
     /*
@@ -68,15 +107,20 @@ public class SessionManagerImpl implements SessionManager {
     @Override
     public void destroy() {
         executorService.shutdown();
-        sessionQueue.shutdown();
 
-        for (Session session : sessionMap.values()) {
-            if (session instanceof DestroyableSession) {
-                ((DestroyableSession) session).destroy();
-            }
+        for (Shard shard : shards) {
+            shard.sessionQueue.shutdown();
         }
 
-        sessionMap.clear();
+        for (Shard shard : shards) {
+            for (Session session : shard.sessionMap.values()) {
+                if (session instanceof DestroyableSession) {
+                    ((DestroyableSession) session).destroy();
+                }
+            }
+
+            shard.sessionMap.clear();
+        }
     }
 
     /*
@@ -86,12 +130,18 @@ public class SessionManagerImpl implements SessionManager {
      */
     @Override
     public void putPushSession(Session session) throws IllegalStateException {
-        Session existingSession = sessionMap.putIfAbsent(session.getId(), session);
+        Shard shard = getShard(session.getId());
+
+        Session existingSession = shard.sessionMap.putIfAbsent(session.getId(), session);
         if (existingSession != null) {
             throw new IllegalStateException();
         }
 
-        sessionQueue.requeue(session, true);
+        shard.sessionQueue.requeue(session, true);
+
+        if (!pushListeners.isEmpty()) {
+            pushListeners.sessionCreated(session.getId());
+        }
     }
 
     /*
@@ -101,24 +151,56 @@ public class SessionManagerImpl implements SessionManager {
      */
     @Override
     public void requeue(Session session) {
-        sessionQueue.requeue(session, false);
+        getShard(session.getId()).sessionQueue.requeue(session, false);
+    }
+
+    /**
+     * Sessions with ids of the same hash and their expiration queue
+     */
+    private static final class Shard {
+        private final ConcurrentMap<String, Session> sessionMap = new MapMaker().makeMap();
+        private final SessionQueue sessionQueue = new SessionQueue();
     }
 
     private final class SessionsExpirationRunnable implements Runnable {
+        private final Shard shard;
+        private final List<Session> expiredSessions = new ArrayList<Session>(EXPIRATION_BATCH_SIZE);
+
+        public SessionsExpirationRunnable(Shard shard) {
+            this.shard = shard;
+        }
+
         public void run() {
             try {
-                Session session = sessionQueue.take();
+                shard.sessionQueue.take(expiredSessions, EXPIRATION_BATCH_SIZE);
 
-                if (session instanceof DestroyableSession) {
-                    ((DestroyableSession) session).destroy();
+                for (Session session : expiredSessions) {
+                    destroySession(session);
                 }
 
-                sessionMap.remove(session.getId());
+                expiredSessions.clear();
 
                 executorService.submit(this);
             } catch (InterruptedException e) {
                 LOGGER.debug(e.getMessage(), e);
             }
         }
+
+        private void destroySession(Session session) {
+            try {
+                if (session instanceof DestroyableSession) {
+                    ((DestroyableSession) session).destroy();
+                }
+            } catch (Exception e) {
+                LOGGER.error(MessageFormat.format("Push session {0} could not be destroyed: {1}", session.getId(),
+                        e.getMessage()), e);
+            }
+
+            shard.sessionMap.remove(session.getId());
+
+            if (!pushListeners.isEmpty()) {
+                pushListeners.sessionExpired(session.getId());
+            }
+        }
     }
 }
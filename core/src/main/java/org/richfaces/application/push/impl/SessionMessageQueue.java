@@ -0,0 +1,210 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.application.push.impl;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.richfaces.application.push.EncodedMessage;
+import org.richfaces.application.push.MessageData;
+import org.richfaces.application.push.SessionOverflowPolicy;
+import org.richfaces.application.push.TopicKey;
+import org.richfaces.application.push.metrics.PushListeners;
+
+/**
+ * <p>Queue of messages pushed to a session and not yet delivered to the client.</p>
+ *
+ * <p>The number of queued messages can be limited; when the limit is reached, {@link SessionOverflowPolicy} decides which
+ * message is dropped or whether the session should be disconnected. Messages are numbered when they are queued, so the
+ * sequence numbers of queued messages always grow.</p>
+ *
+ * <p>Conflated message replaces the queued messages with the same topic key.</p>
+ *
+ * @since 4.5
+ */
+final class SessionMessageQueue {
+    private final Queue<MessageData> messages = new ConcurrentLinkedQueue<MessageData>();
+    private final Collection<MessageData> messagesView = Collections.unmodifiableCollection(messages);
+    private final int capacity;
+    private final SessionOverflowPolicy overflowPolicy;
+    private final AtomicLong droppedMessages = new AtomicLong();
+    private final AtomicLong droppedMessagesTotal;
+    private final PushListeners pushListeners;
+    // guarded by this
+    private long sequenceNumber;
+    private int size;
+
+    /**
+     * @param capacity maximum number of queued messages, the queue is unbounded when not positive
+     * @param overflowPolicy what happens when the queue is full
+     * @param droppedMessagesTotal counter of messages dropped by all the sessions
+     */
+    SessionMessageQueue(int capacity, SessionOverflowPolicy overflowPolicy, AtomicLong droppedMessagesTotal) {
+        this(capacity, overflowPolicy, droppedMessagesTotal, new PushListeners());
+    }
+
+    /**
+     * @param capacity maximum number of queued messages, the queue is unbounded when not positive
+     * @param overflowPolicy what happens when the queue is full
+     * @param droppedMessagesTotal counter of messages dropped by all the sessions
+     * @param pushListeners listeners notified about dropped messages
+     */
+    SessionMessageQueue(int capacity, SessionOverflowPolicy overflowPolicy, AtomicLong droppedMessagesTotal,
+            PushListeners pushListeners) {
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.droppedMessagesTotal = droppedMessagesTotal;
+        this.pushListeners = pushListeners;
+    }
+
+    /**
+     * Returns read-only view of the queued messages
+     */
+    Collection<MessageData> getMessages() {
+        return messagesView;
+    }
+
+    /**
+     * Returns the number of messages dropped because the queue was full
+     */
+    long getDroppedMessagesCount() {
+        return droppedMessages.get();
+    }
+
+    /**
+     * Queues the message
+     *
+     * @return <code>false</code> if the queue has overflown and the session should be disconnected, <code>true</code>
+     *         otherwise
+     */
+    synchronized boolean offer(EncodedMessage message) {
+        if (message.isConflated()) {
+            removeAll(message.getTopicKey());
+        }
+
+        if (capacity > 0 && size >= capacity) {
+            if (overflowPolicy == SessionOverflowPolicy.disconnect) {
+                clear();
+                dropped(1);
+                return false;
+            }
+
+            if (overflowPolicy == SessionOverflowPolicy.dropNewest) {
+                dropped(1);
+                return true;
+            }
+
+            if (overflowPolicy != SessionOverflowPolicy.coalesceSubtopic || !removeOldest(message.getTopicKey())) {
+                messages.remove();
+                size--;
+            }
+
+            dropped(1);
+        }
+
+        messages.add(new MessageData(message, sequenceNumber++));
+        size++;
+        return true;
+    }
+
+    /**
+     * Queues the messages in the given order
+     *
+     * @return <code>false</code> if the queue has overflown and the session should be disconnected, <code>true</code>
+     *         otherwise
+     */
+    synchronized boolean offerAll(List<EncodedMessage> batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            if (!offer(batch.get(i))) {
+                dropped(batch.size() - i - 1);
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Removes messages with sequence number less than or equal to the given one
+     */
+    synchronized void clearBroadcastedMessages(long lastSequenceNumber) {
+        while (true) {
+            MessageData message = messages.peek();
+            if (message == null || lastSequenceNumber < message.getSequenceNumber()) {
+                break;
+            }
+
+            messages.remove();
+            size--;
+        }
+    }
+
+    /**
+     * Drops all the queued messages
+     */
+    synchronized void clear() {
+        dropped(size);
+        messages.clear();
+        size = 0;
+    }
+
+    private boolean removeOldest(TopicKey topicKey) {
+        Iterator<MessageData> iterator = messages.iterator();
+
+        while (iterator.hasNext()) {
+            if (topicKey.equals(iterator.next().getTopicKey())) {
+                iterator.remove();
+                size--;
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void removeAll(TopicKey topicKey) {
+        Iterator<MessageData> iterator = messages.iterator();
+
+        while (iterator.hasNext()) {
+            if (topicKey.equals(iterator.next().getTopicKey())) {
+                iterator.remove();
+                size--;
+            }
+        }
+    }
+
+    private void dropped(int count) {
+        if (count > 0) {
+            droppedMessages.addAndGet(count);
+            droppedMessagesTotal.addAndGet(count);
+
+            if (!pushListeners.isEmpty()) {
+                pushListeners.messagesDropped(overflowPolicy, count);
+            }
+        }
+    }
+}
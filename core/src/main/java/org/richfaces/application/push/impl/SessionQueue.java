@@ -21,36 +21,78 @@
  */
 package org.richfaces.application.push.impl;
 
-import java.util.Comparator;
-import java.util.PriorityQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.richfaces.application.push.Session;
 
+import com.google.common.collect.MapMaker;
+
 /**
- * Based on DelayQueue by Doug Lea: http://gee.cs.oswego.edu/
+ * <p>Queue of push sessions ordered by their expiration time.</p>
+ *
+ * <p>Sessions are kept in a hashed timing wheel: each session has at most one entry in the wheel, placed to the bucket of
+ * the tick its expiration time falls into. Session expiration time only moves forward while the session is used, so
+ * {@link #requeue(Session, boolean)} and {@link #remove(Session)} don't touch the wheel - the taker re-checks expiration
+ * time of sessions in the bucket it processes and moves the sessions that have been accessed meanwhile to a later bucket,
+ * removed sessions are dropped. Both operations are therefore O(1) and don't contend on a lock; the only session whose
+ * expiration time moves backwards is an invalidated one, which is handed to the taker immediately.</p>
+ *
+ * <p>Sessions expire with precision of one tick.</p>
  *
  * @author Nick Belaevski
  *
  */
-// TODO - optimize algorithm
-// TODO - use BlockingQueue ?
 public final class SessionQueue {
-    private static final Comparator<? super Session> SESSIONS_COMPARATOR = new Comparator<Session>() {
-        public int compare(Session o1, Session o2) {
-            Long expTime1 = getExpirationTime(o1);
-            Long expTime2 = getExpirationTime(o2);
+    private static final long DEFAULT_TICK_DURATION = 1000L;
+    private static final int DEFAULT_WHEEL_SIZE = 1024;
+    private final long tickDuration;
+    private final int wheelMask;
+    private final Queue<Entry>[] wheel;
+    private final ConcurrentMap<Session, Entry> entries = new MapMaker().makeMap();
+    private final BlockingQueue<Session> expiredSessions = new LinkedBlockingQueue<Session>();
+    private final ReentrantLock wheelLock = new ReentrantLock();
+    private volatile long currentTick;
+    private volatile boolean active = true;
+
+    private static final class Entry {
+        private final Session session;
+        private long tick;
+
+        Entry(Session session) {
+            this.session = session;
+        }
+    }
+
+    public SessionQueue() {
+        this(DEFAULT_TICK_DURATION, DEFAULT_WHEEL_SIZE);
+    }
 
-            return expTime1.compareTo(expTime2);
+    /**
+     * @param tickDuration precision of sessions expiration in milliseconds
+     * @param wheelSize number of buckets in timing wheel, rounded up to the power of two
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    SessionQueue(long tickDuration, int wheelSize) {
+        this.tickDuration = tickDuration;
+
+        int size = Integer.highestOneBit(Math.max(wheelSize, 2) - 1) << 1;
+        this.wheelMask = size - 1;
+        this.wheel = new Queue[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<Entry>();
         }
-    };
-    private final Queue<Session> queue = new PriorityQueue<Session>(1, SESSIONS_COMPARATOR);
-    private final ReentrantLock lock = new ReentrantLock();
-    private final Condition available = lock.newCondition();
-    private boolean active = true;
+
+        this.currentTick = System.currentTimeMillis() / tickDuration;
+    }
 
     private static long getExpirationTime(Session session) {
         long lastAccessedTime = session.getLastAccessedTime();
@@ -61,75 +103,137 @@ public final class SessionQueue {
         return lastAccessedTime + session.getMaxInactiveInterval();
     }
 
-    private long getDelay(Session session, TimeUnit unit) {
-        long expirationTime = getExpirationTime(session);
-        if (expirationTime < 0) {
-            return Long.MIN_VALUE;
-        }
+    public Session take() throws InterruptedException {
+        while (active) {
+            Session session = expiredSessions.poll();
 
-        return unit.convert(expirationTime - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
-    }
+            if (session == null) {
+                long currentTime = System.currentTimeMillis();
+                advance(currentTime);
 
-    public Session take() throws InterruptedException {
-        final ReentrantLock lock = this.lock;
-        lock.lockInterruptibly();
-        try {
-            while (active) {
-                Session first = queue.peek();
-                if (first == null) {
-                    available.await();
-                } else {
-                    long delay = getDelay(first, TimeUnit.NANOSECONDS);
-                    if (delay > 0) {
-                        available.awaitNanos(delay);
-                    } else {
-                        Session x = queue.poll();
-                        assert x != null;
-                        if (queue.size() != 0) {
-                            available.signalAll(); // wake up other takers
-                        }
-                        return x;
-                    }
-                }
+                long delay = tickDuration - currentTime % tickDuration;
+                session = expiredSessions.poll(delay, TimeUnit.MILLISECONDS);
             }
 
-            throw new InterruptedException("Session queue is stopping");
-        } finally {
-            lock.unlock();
+            if (session != null && active) {
+                return session;
+            }
         }
+
+        throw new InterruptedException("Session queue is stopping");
+    }
+
+    /**
+     * Waits for an expired session and moves it to the given collection together with the other sessions that have already
+     * expired, so that sessions expiring at once can be processed in a batch.
+     *
+     * @param sessions collection the expired sessions are added to
+     * @param maxSessions maximum number of sessions to add
+     * @return number of added sessions
+     */
+    public int take(Collection<? super Session> sessions, int maxSessions) throws InterruptedException {
+        sessions.add(take());
+
+        return 1 + expiredSessions.drainTo(sessions, maxSessions - 1);
     }
 
     public void remove(Session session) {
-        final ReentrantLock lock = this.lock;
-        lock.lock();
+        checkActiveState();
 
+        // the entry left in the wheel is dropped when its bucket is processed
+        entries.remove(session);
+    }
+
+    public void requeue(Session session, boolean addIfNotExists) {
         checkActiveState();
 
-        try {
-            queue.remove(session);
-        } finally {
-            lock.unlock();
+        Entry entry = entries.get(session);
+
+        if (entry == null) {
+            if (!addIfNotExists) {
+                return;
+            }
+
+            entry = new Entry(session);
+            if (entries.putIfAbsent(session, entry) != null) {
+                return;
+            }
+
+            schedule(entry, getExpirationTime(session), System.currentTimeMillis());
+        } else if (getExpirationTime(session) <= System.currentTimeMillis()) {
+            expire(entry);
         }
+
+        // otherwise the session has been accessed and expires later than it is scheduled, the entry is moved on demand
     }
 
-    public void requeue(Session session, boolean addIfNotExists) {
-        final ReentrantLock lock = this.lock;
-        lock.lock();
+    private void schedule(Entry entry, long expirationTime, long currentTime) {
+        if (expirationTime <= currentTime) {
+            expire(entry);
+            return;
+        }
 
-        checkActiveState();
+        // entry scheduled to already processed tick concurrently with the taker is processed on next wheel turn
+        long tick = Math.max(expirationTime / tickDuration, currentTick + 1);
+        entry.tick = tick;
+        wheel[(int) (tick & wheelMask)].add(entry);
+    }
+
+    private void expire(Entry entry) {
+        if (entries.remove(entry.session, entry)) {
+            expiredSessions.add(entry.session);
+        }
+    }
+
+    private void advance(long currentTime) {
+        if (!wheelLock.tryLock()) {
+            // another taker is processing the wheel
+            return;
+        }
 
         try {
-            boolean exists = queue.remove(session);
+            long targetTick = currentTime / tickDuration;
+            long tick = currentTick;
+
+            // no need to process the same bucket more than once
+            if (targetTick - tick > wheel.length) {
+                tick = targetTick - wheel.length;
+            }
+
+            List<Entry> bucketEntries = new ArrayList<Entry>();
 
-            if (exists || addIfNotExists) {
-                Session first = queue.peek();
-                queue.offer(session);
-                if (first == null || SESSIONS_COMPARATOR.compare(session, first) < 0) {
-                    available.signalAll();
+            while (tick < targetTick) {
+                tick++;
+                currentTick = tick;
+
+                Queue<Entry> bucket = wheel[(int) (tick & wheelMask)];
+                Entry entry;
+                while ((entry = bucket.poll()) != null) {
+                    bucketEntries.add(entry);
                 }
+
+                for (Entry bucketEntry : bucketEntries) {
+                    processEntry(bucketEntry, tick, currentTime);
+                }
+
+                bucketEntries.clear();
             }
         } finally {
-            lock.unlock();
+            wheelLock.unlock();
+        }
+    }
+
+    private void processEntry(Entry entry, long tick, long currentTime) {
+        if (entries.get(entry.session) != entry) {
+            // session has been removed
+            return;
+        }
+
+        if (entry.tick > tick) {
+            // entry belongs to one of the next wheel turns
+            wheel[(int) (entry.tick & wheelMask)].add(entry);
+        } else {
+            schedule(entry, getExpirationTime(entry.session), currentTime);
         }
     }
 
@@ -140,14 +244,12 @@ public final class SessionQueue {
     }
 
     public void shutdown() {
-        final ReentrantLock lock = this.lock;
-        lock.lock();
-        try {
-            queue.clear();
-            active = false;
-            available.signalAll();
-        } finally {
-            lock.unlock();
+        active = false;
+        entries.clear();
+        expiredSessions.clear();
+
+        for (Queue<Entry> bucket : wheel) {
+            bucket.clear();
         }
     }
 }
@@ -21,20 +21,24 @@
  */
 package org.richfaces.application.push.impl;
 
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 
+import org.richfaces.application.push.BatchingSession;
+import org.richfaces.application.push.EncodedMessage;
 import org.richfaces.application.push.MessageException;
 import org.richfaces.application.push.Session;
 import org.richfaces.application.push.SessionSubscriptionEvent;
 import org.richfaces.application.push.SessionUnsubscriptionEvent;
 import org.richfaces.application.push.TopicEvent;
 import org.richfaces.application.push.TopicKey;
+import org.richfaces.application.push.metrics.PushListeners;
 
 /**
  * @author Nick Belaevski
@@ -60,10 +64,22 @@ public class TopicImpl extends AbstractTopic {
         String serializedData = getMessageDataSerializer().serialize(messageData);
 
         if (serializedData != null) {
-            PublishingContext topicContext = getPublishingContext(getKey());
-            if (topicContext != null) {
-                topicContext.addMessage(serializedData);
-            }
+            publishSerialized(serializedData);
+        }
+    }
+
+    /**
+     * Publishes already serialized data to the sessions subscribed to this topic
+     */
+    protected void publishSerialized(String serializedData) {
+        PushListeners pushListeners = topicsContext.getPushListeners();
+        if (!pushListeners.isEmpty()) {
+            pushListeners.messagePublished(getKey());
+        }
+
+        PublishingContext topicContext = getPublishingContext(getKey());
+        if (topicContext != null) {
+            topicContext.addMessage(serializedData);
         }
     }
 
@@ -114,8 +130,9 @@ public class TopicImpl extends AbstractTopic {
      * Binds a {@link TopicKey} with list of {@link Session}s subscribed to given topic.
      */
     private final class PublishingContext {
-        private final List<Session> sessions = new CopyOnWriteArrayList<Session>();
-        private final Queue<String> serializedMessages = new ConcurrentLinkedQueue<String>();
+        // removal of a session is O(1), many sessions are removed at once when they expire together
+        private final Set<Session> sessions = Collections.newSetFromMap(new ConcurrentHashMap<Session, Boolean>());
+        private final Queue<EncodedMessage> messages = new ConcurrentLinkedQueue<EncodedMessage>();
         private final TopicKey key;
         private boolean submittedForPublishing;
 
@@ -139,41 +156,68 @@ public class TopicImpl extends AbstractTopic {
         }
 
         /**
-         * Adds new message and submits this context for publishing
+         * Adds new message and submits this context for publishing, the message is encoded once for all sessions. The
+         * message replaces messages that haven't been published yet if the topic is conflated.
          */
         public void addMessage(String serializedMessageData) {
-            serializedMessages.add(serializedMessageData);
+            boolean conflated = isConflated();
+
+            if (conflated) {
+                messages.clear();
+            }
+
+            messages.add(new EncodedMessage(key, serializedMessageData, conflated, getPublishTime()));
 
             submitForPublishing();
         }
 
+        private long getPublishTime() {
+            // don't call nanoTime for every message when there is nobody to measure the latency
+            return topicsContext.getPushListeners().isEmpty() ? 0 : System.nanoTime();
+        }
+
         /**
-         * Publishes messages that are scheduled for publishing.
+         * Publishes a batch of messages that are scheduled for publishing, each session receives the whole batch at once.
          *
          * If there are any messages in the queue once finished publishing,
          * a new round of publishing is scheduled.
          */
         public void publishMessages() {
-            Iterator<String> itr = serializedMessages.iterator();
-            while (itr.hasNext()) {
-                String message = itr.next();
+            int batchSize = topicsContext.getPublishBatchSize();
+            List<EncodedMessage> batch = new ArrayList<EncodedMessage>();
+            EncodedMessage message;
+
+            while (batch.size() < batchSize && (message = messages.poll()) != null) {
+                batch.add(message);
+            }
+
+            if (!batch.isEmpty()) {
+                List<EncodedMessage> sharedBatch = Collections.unmodifiableList(batch);
 
                 for (Session session : sessions) {
-                    session.push(key, message);
+                    pushMessages(session, sharedBatch);
                 }
-
-                itr.remove();
             }
 
             synchronized (this) {
                 submittedForPublishing = false;
 
-                if (!serializedMessages.isEmpty()) {
+                if (!messages.isEmpty()) {
                     submitForPublishing();
                 }
             }
         }
 
+        private void pushMessages(Session session, List<EncodedMessage> batch) {
+            if (session instanceof BatchingSession) {
+                ((BatchingSession) session).push(batch);
+            } else {
+                for (EncodedMessage message : batch) {
+                    session.push(key, message.getSerializedMessage());
+                }
+            }
+        }
+
         private synchronized void submitForPublishing() {
             if (!submittedForPublishing) {
                 submittedForPublishing = true;
@@ -22,30 +22,61 @@
 package org.richfaces.application.push.impl;
 
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.richfaces.application.push.Topic;
 import org.richfaces.application.push.TopicKey;
 import org.richfaces.application.push.TopicsContext;
+import org.richfaces.application.push.metrics.PushListeners;
 
 /**
- * {@link TopicsContext} that uses {@link ExecutorService} with cached thread pool for publishing messages.
+ * <p>{@link TopicsContext} that uses {@link ExecutorService} with fixed-size thread pool for publishing messages.</p>
+ *
+ * <p>Each subscribed topic key is submitted for publishing at most once at a time and delivers at most
+ * {@link #getPublishBatchSize()} messages per run, so that a burst of messages on one topic doesn't starve the others.</p>
  *
  * @author Nick Belaevski
  */
 public class TopicsContextImpl extends TopicsContext {
+    /**
+     * Default maximum number of messages delivered to sessions at once
+     */
+    public static final int DEFAULT_PUBLISH_BATCH_SIZE = 100;
     private final ExecutorService publishService;
     private final ThreadFactory threadFactory;
+    private final int publishBatchSize;
+    private volatile PushListeners pushListeners = new PushListeners();
 
     /**
-     * Use given {@link ThreadFactory} for creating new cached thread pool executor for publishing
+     * Use given {@link ThreadFactory} for creating new thread pool executor for publishing with one thread per available
+     * processor
      */
     public TopicsContextImpl(ThreadFactory threadFactory) {
+        this(threadFactory, 0, DEFAULT_PUBLISH_BATCH_SIZE);
+    }
+
+    /**
+     * Use given {@link ThreadFactory} for creating new thread pool executor for publishing
+     *
+     * @param publishThreads number of publishing threads, number of available processors is used when not positive
+     * @param publishBatchSize maximum number of messages of one topic delivered to sessions at once
+     */
+    public TopicsContextImpl(ThreadFactory threadFactory, int publishThreads, int publishBatchSize) {
         super();
 
+        int threads = publishThreads > 0 ? publishThreads : Runtime.getRuntime().availableProcessors();
+
         this.threadFactory = threadFactory;
-        this.publishService = Executors.newCachedThreadPool(threadFactory);
+        this.publishBatchSize = Math.max(1, publishBatchSize);
+
+        // the queue is bounded by the number of topic keys with subscribers, every key is queued at most once
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        this.publishService = executor;
     }
 
     /*
@@ -64,6 +95,27 @@ public class TopicsContextImpl extends TopicsContext {
         return publishService;
     }
 
+    /**
+     * Returns maximum number of messages of one topic delivered to sessions at once
+     */
+    protected int getPublishBatchSize() {
+        return publishBatchSize;
+    }
+
+    /**
+     * Returns listeners notified about published messages
+     */
+    protected PushListeners getPushListeners() {
+        return pushListeners;
+    }
+
+    /**
+     * Sets listeners notified about published messages
+     */
+    public void setPushListeners(PushListeners pushListeners) {
+        this.pushListeners = pushListeners;
+    }
+
     /**
      * Returns associated {@link ThreadFactory} used to create executors.
      */
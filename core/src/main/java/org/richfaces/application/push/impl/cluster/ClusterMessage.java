@@ -0,0 +1,70 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.application.push.impl.cluster;
+
+import org.richfaces.application.push.TopicKey;
+
+/**
+ * Serialized push message sent to the other nodes of the cluster.
+ *
+ * @since 4.5
+ */
+public final class ClusterMessage {
+    private final String topicName;
+    private final String subtopicName;
+    private final String serializedData;
+
+    public ClusterMessage(String topicName, String subtopicName, String serializedData) {
+        super();
+        this.topicName = topicName;
+        this.subtopicName = subtopicName;
+        this.serializedData = serializedData;
+    }
+
+    /**
+     * Returns name of the topic the message was published to
+     */
+    public String getTopicName() {
+        return topicName;
+    }
+
+    /**
+     * Returns name of the subtopic the message was published to or <code>null</code>
+     */
+    public String getSubtopicName() {
+        return subtopicName;
+    }
+
+    /**
+     * Returns the message serialized by serializer of the topic on the publishing node
+     */
+    public String getSerializedData() {
+        return serializedData;
+    }
+
+    /**
+     * Returns key of the topic the message was published to
+     */
+    public TopicKey getTopicKey() {
+        return new TopicKey(topicName, subtopicName);
+    }
+}
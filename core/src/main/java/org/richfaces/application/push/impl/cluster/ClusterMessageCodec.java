@@ -0,0 +1,288 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.application.push.impl.cluster;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * <p>Binary format of batches of {@link ClusterMessage}s sent between nodes.</p>
+ *
+ * <p>The batch starts with format version, name of the cluster, identifier of the sending node, time of sending, sequence
+ * number of the batch and number of messages; each message consists of topic name, optional subtopic name and UTF-8 encoded
+ * serialized data. Batches of other clusters are ignored by the decoder.</p>
+ *
+ * <p>When shared secret is configured, the batch is followed by its HMAC-SHA256 signature computed using the secret; batches
+ * with missing or invalid signature are rejected.</p>
+ *
+ * <p>Batches sent more than {@value #MAX_BATCH_AGE} ms ago (according to the clocks of the nodes, which have to be
+ * synchronized) and batches already received are rejected, so that signed batches can't be replayed.</p>
+ *
+ * @since 4.5
+ */
+public final class ClusterMessageCodec {
+    /**
+     * Maximum difference in milliseconds between the time the batch was sent and the time it is received
+     */
+    static final long MAX_BATCH_AGE = 60000;
+    private static final int VERSION = 3;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final int MAC_LENGTH = 32;
+    private final String clusterName;
+    private final SecretKeySpec secretKey;
+    private final AtomicLong sequenceNumber = new AtomicLong();
+    private final Map<String, ReplayWindow> replayWindows = new HashMap<String, ReplayWindow>();
+
+    /**
+     * Sequence numbers of the batches received from one node; the latest {@value #SIZE} numbers are remembered, so that
+     * batches that arrive out of order are accepted while duplicates are not
+     */
+    private static final class ReplayWindow {
+        private static final int SIZE = 64;
+        private long highest = -1;
+        // bit n is set if batch number (highest - n) has been received
+        private long received;
+        private long lastReceiveTime;
+
+        boolean accept(long sequenceNumber, long receiveTime) {
+            if (sequenceNumber > highest) {
+                long shift = sequenceNumber - highest;
+                received = shift < SIZE ? (received << shift) | 1 : 1;
+                highest = sequenceNumber;
+            } else {
+                long offset = highest - sequenceNumber;
+                if (offset >= SIZE || (received & (1L << offset)) != 0) {
+                    return false;
+                }
+
+                received |= 1L << offset;
+            }
+
+            lastReceiveTime = receiveTime;
+            return true;
+        }
+    }
+
+    /**
+     * Batch decoded by {@link ClusterMessageCodec#decode(byte[], int, int)}
+     */
+    public static final class Batch {
+        private final String nodeId;
+        private final List<ClusterMessage> messages;
+
+        Batch(String nodeId, List<ClusterMessage> messages) {
+            this.nodeId = nodeId;
+            this.messages = messages;
+        }
+
+        /**
+         * Returns identifier of the node that sent the batch
+         */
+        public String getNodeId() {
+            return nodeId;
+        }
+
+        public List<ClusterMessage> getMessages() {
+            return messages;
+        }
+    }
+
+    /**
+     * @param clusterName name of the cluster the batches are sent to and accepted from
+     * @param secret secret shared by the nodes of the cluster used to sign the batches, batches are not signed when
+     *        <code>null</code> or empty
+     */
+    public ClusterMessageCodec(String clusterName, String secret) {
+        if (clusterName == null || clusterName.length() == 0) {
+            throw new IllegalArgumentException("Push cluster name is required");
+        }
+
+        this.clusterName = clusterName;
+        this.secretKey = secret != null && secret.length() != 0 ? new SecretKeySpec(secret.getBytes(UTF_8), MAC_ALGORITHM)
+            : null;
+    }
+
+    /**
+     * Returns whether the batches are signed using shared secret
+     */
+    public boolean isSigned() {
+        return secretKey != null;
+    }
+
+    /**
+     * Writes the batch of messages sent by the given node to the stream
+     */
+    public void encode(String nodeId, List<ClusterMessage> messages, OutputStream stream) throws IOException {
+        encode(nodeId, messages, stream, System.currentTimeMillis());
+    }
+
+    void encode(String nodeId, List<ClusterMessage> messages, OutputStream stream, long sendTime) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(buffer);
+        output.writeByte(VERSION);
+        output.writeUTF(clusterName);
+        output.writeUTF(nodeId);
+        output.writeLong(sendTime);
+        output.writeLong(sequenceNumber.getAndIncrement());
+        output.writeInt(messages.size());
+
+        for (ClusterMessage message : messages) {
+            output.writeUTF(message.getTopicName());
+            output.writeBoolean(message.getSubtopicName() != null);
+            if (message.getSubtopicName() != null) {
+                output.writeUTF(message.getSubtopicName());
+            }
+
+            byte[] data = message.getSerializedData().getBytes(UTF_8);
+            output.writeInt(data.length);
+            output.write(data);
+        }
+
+        output.flush();
+
+        byte[] batch = buffer.toByteArray();
+        stream.write(batch);
+
+        if (secretKey != null) {
+            stream.write(sign(batch, 0, batch.length));
+        }
+
+        stream.flush();
+    }
+
+    /**
+     * Reads the batch of messages
+     *
+     * @return the batch or <code>null</code> if it was sent to another cluster
+     * @throws IOException if the data don't contain valid batch, its signature is not valid or the batch has already been
+     *         received
+     */
+    public Batch decode(byte[] buffer, int offset, int length) throws IOException {
+        int batchLength = length;
+        if (secretKey != null) {
+            batchLength -= MAC_LENGTH;
+            if (batchLength < 0) {
+                throw new IOException("Push cluster message is not signed");
+            }
+        }
+
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(buffer, offset, batchLength));
+
+        int version = input.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported version of push cluster message: " + version);
+        }
+
+        if (!clusterName.equals(input.readUTF())) {
+            return null;
+        }
+
+        if (secretKey != null) {
+            byte[] signature = Arrays.copyOfRange(buffer, offset + batchLength, offset + length);
+
+            if (!MessageDigest.isEqual(signature, sign(buffer, offset, batchLength))) {
+                throw new IOException("Push cluster message has invalid signature");
+            }
+        }
+
+        String nodeId = input.readUTF();
+        long sendTime = input.readLong();
+        long batchSequenceNumber = input.readLong();
+        int count = input.readInt();
+        if (count < 0) {
+            throw new IOException("Invalid number of push cluster messages: " + count);
+        }
+
+        List<ClusterMessage> messages = new ArrayList<ClusterMessage>(Math.min(count, 1024));
+        for (int i = 0; i < count; i++) {
+            String topicName = input.readUTF();
+            String subtopicName = input.readBoolean() ? input.readUTF() : null;
+
+            int dataLength = input.readInt();
+            if (dataLength < 0 || dataLength > input.available()) {
+                throw new IOException("Invalid length of push cluster message: " + dataLength);
+            }
+
+            byte[] data = new byte[dataLength];
+            input.readFully(data);
+
+            messages.add(new ClusterMessage(topicName, subtopicName, new String(data, UTF_8)));
+        }
+
+        checkNotReplayed(nodeId, sendTime, batchSequenceNumber);
+
+        return new Batch(nodeId, messages);
+    }
+
+    private synchronized void checkNotReplayed(String nodeId, long sendTime, long batchSequenceNumber) throws IOException {
+        long now = System.currentTimeMillis();
+        if (Math.abs(now - sendTime) > MAX_BATCH_AGE) {
+            throw new IOException("Push cluster message has expired");
+        }
+
+        // batches of nodes not heard of for a long time would be rejected as expired anyway
+        for (Iterator<ReplayWindow> iterator = replayWindows.values().iterator(); iterator.hasNext();) {
+            if (now - iterator.next().lastReceiveTime > MAX_BATCH_AGE) {
+                iterator.remove();
+            }
+        }
+
+        ReplayWindow window = replayWindows.get(nodeId);
+        if (window == null) {
+            window = new ReplayWindow();
+            replayWindows.put(nodeId, window);
+        }
+
+        if (!window.accept(batchSequenceNumber, now)) {
+            throw new IOException("Push cluster message has already been received");
+        }
+    }
+
+    private byte[] sign(byte[] buffer, int offset, int length) throws IOException {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(secretKey);
+            mac.update(buffer, offset, length);
+            return mac.doFinal();
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Push cluster message could not be signed: " + e.getMessage());
+        }
+    }
+}
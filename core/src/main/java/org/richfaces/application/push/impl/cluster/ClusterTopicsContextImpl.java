@@ -0,0 +1,233 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.application.push.impl.cluster;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+
+import javax.faces.FacesException;
+import javax.faces.context.FacesContext;
+
+import org.richfaces.application.CoreConfiguration;
+import org.richfaces.application.configuration.ConfigurationServiceHelper;
+import org.richfaces.application.push.MessageException;
+import org.richfaces.application.push.Topic;
+import org.richfaces.application.push.TopicKey;
+import org.richfaces.application.push.impl.TopicImpl;
+import org.richfaces.application.push.impl.TopicsContextImpl;
+import org.richfaces.log.Logger;
+import org.richfaces.log.RichfacesLogger;
+
+import com.google.common.base.Strings;
+
+/**
+ * <p>A {@link org.richfaces.application.push.TopicsContext} that delivers messages published on this node also to the other
+ * nodes of the cluster, without the need of a JMS broker.</p>
+ *
+ * <p>Messages are serialized once on the publishing node and sent through pluggable {@link ClusterTransport}. One thread
+ * sends the messages queued by all the topics in batches; the transport receives the messages of all the topics by one
+ * thread as well.</p>
+ *
+ * @since 4.5
+ */
+public class ClusterTopicsContextImpl extends TopicsContextImpl implements ClusterMessageReceiver {
+    /**
+     * Value of {@link CoreConfiguration.Items#pushClusterTransport} selecting {@link MulticastClusterTransport}
+     */
+    public static final String MULTICAST_TRANSPORT = "multicast";
+    private static final Logger LOGGER = RichfacesLogger.APPLICATION.getLogger();
+    /**
+     * Maximum number of messages waiting to be sent to the other nodes, messages published when the queue is full are
+     * delivered to the local sessions only
+     */
+    private static final int MAX_OUTGOING_MESSAGES = 10000;
+    private final ClusterTransport transport;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final BlockingQueue<ClusterMessage> outgoingMessages = new LinkedBlockingQueue<ClusterMessage>(
+        MAX_OUTGOING_MESSAGES);
+    private final Thread senderThread;
+
+    /**
+     * Creates topics context and starts the transport
+     *
+     * @see TopicsContextImpl#TopicsContextImpl(ThreadFactory, int, int)
+     */
+    public ClusterTopicsContextImpl(ThreadFactory threadFactory, int publishThreads, int publishBatchSize,
+            ClusterTransport transport) throws IOException {
+        super(threadFactory, publishThreads, publishBatchSize);
+
+        this.transport = transport;
+        transport.start(nodeId, this);
+
+        senderThread = threadFactory.newThread(new Runnable() {
+            public void run() {
+                sendMessages();
+            }
+        });
+        senderThread.start();
+    }
+
+    /**
+     * A factory method for creating {@link ClusterTopicsContextImpl} with transport configured in the context
+     */
+    public static ClusterTopicsContextImpl getInstanceInitializedFromContext(ThreadFactory threadFactory, int publishThreads,
+            int publishBatchSize, FacesContext facesContext) throws IOException {
+        return new ClusterTopicsContextImpl(threadFactory, publishThreads, publishBatchSize, createTransport(facesContext));
+    }
+
+    private static ClusterTransport createTransport(FacesContext facesContext) throws IOException {
+        String transport = ConfigurationServiceHelper.getStringConfigurationValue(facesContext,
+                CoreConfiguration.Items.pushClusterTransport);
+
+        if (MULTICAST_TRANSPORT.equals(transport)) {
+            String clusterName = ConfigurationServiceHelper.getStringConfigurationValue(facesContext,
+                    CoreConfiguration.Items.pushClusterName);
+            String group = ConfigurationServiceHelper.getStringConfigurationValue(facesContext,
+                    CoreConfiguration.Items.pushClusterMulticastGroup);
+            String secret = ConfigurationServiceHelper.getStringConfigurationValue(facesContext,
+                    CoreConfiguration.Items.pushClusterSecret);
+
+            // anyone able to send datagrams to the group could push scripts to the clients otherwise
+            if (Strings.isNullOrEmpty(clusterName) || Strings.isNullOrEmpty(group) || Strings.isNullOrEmpty(secret)) {
+                throw new FacesException("Push cluster name, secret and multicast group have to be configured to use "
+                        + "multicast push cluster transport");
+            }
+
+            int port = ConfigurationServiceHelper.getIntConfigurationValue(facesContext,
+                    CoreConfiguration.Items.pushClusterMulticastPort);
+
+            return new MulticastClusterTransport(InetAddress.getByName(group), port, new ClusterMessageCodec(clusterName,
+                    secret));
+        }
+
+        try {
+            ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+            return Class.forName(transport, true, classLoader).asSubclass(ClusterTransport.class).newInstance();
+        } catch (Exception e) {
+            throw new FacesException(MessageFormat.format("Push cluster transport {0} can''t be created", transport), e);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.richfaces.application.push.impl.TopicsContextImpl#createTopic(org.richfaces.application.push.TopicKey)
+     */
+    @Override
+    protected Topic createTopic(TopicKey key) {
+        return new ClusterTopic(key);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.richfaces.application.push.impl.cluster.ClusterMessageReceiver#receive(java.util.List)
+     */
+    @Override
+    public void receive(List<ClusterMessage> messages) {
+        for (ClusterMessage message : messages) {
+            // topics are not created for received messages, there is nobody to deliver them to on this node
+            Topic topic = getTopic(message.getTopicKey());
+
+            if (topic instanceof ClusterTopic) {
+                ((ClusterTopic) topic).publishReceived(message.getSerializedData());
+            }
+        }
+    }
+
+    private void sendMessages() {
+        List<ClusterMessage> batch = new ArrayList<ClusterMessage>();
+
+        try {
+            while (true) {
+                batch.add(outgoingMessages.take());
+                // messages queued meanwhile are sent together
+                outgoingMessages.drainTo(batch, getPublishBatchSize() - 1);
+
+                try {
+                    transport.send(batch);
+                } catch (IOException e) {
+                    LOGGER.error(MessageFormat.format("Push messages could not be sent to the cluster: {0}", e.getMessage()),
+                            e);
+                }
+
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            LOGGER.debug(e.getMessage(), e);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.richfaces.application.push.impl.TopicsContextImpl#destroy()
+     */
+    @Override
+    public void destroy() {
+        senderThread.interrupt();
+
+        try {
+            transport.stop();
+        } catch (Exception e) {
+            LOGGER.error(e.getMessage(), e);
+        }
+
+        super.destroy();
+    }
+
+    /**
+     * Topic that publishes messages to the local sessions and sends them to the other nodes
+     */
+    private final class ClusterTopic extends TopicImpl {
+        public ClusterTopic(TopicKey key) {
+            super(key, ClusterTopicsContextImpl.this);
+        }
+
+        /*
+         * (non-Javadoc)
+         * @see org.richfaces.application.push.impl.TopicImpl#publish(java.lang.Object)
+         */
+        @Override
+        public void publish(Object messageData) throws MessageException {
+            String serializedData = getMessageDataSerializer().serialize(messageData);
+
+            if (serializedData != null) {
+                publishSerialized(serializedData);
+
+                TopicKey key = getKey();
+                if (!outgoingMessages.offer(new ClusterMessage(key.getTopicName(), key.getSubtopicName(), serializedData))) {
+                    LOGGER.debug(MessageFormat.format(
+                            "Push message for topic {0} is not sent to the cluster, the queue of outgoing messages is full", key));
+                }
+            }
+        }
+
+        void publishReceived(String serializedData) {
+            publishSerialized(serializedData);
+        }
+    }
+}
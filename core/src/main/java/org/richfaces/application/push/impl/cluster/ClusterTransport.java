@@ -0,0 +1,56 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.application.push.impl.cluster;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * <p>Transport that delivers push messages between the nodes of a cluster.</p>
+ *
+ * <p>Implementations should receive messages using a single thread for all topics and must not deliver messages back to
+ * the node that sent them. Implementations are instantiated by their public no-argument constructor when configured by
+ * class name.</p>
+ *
+ * @since 4.5
+ * @see ClusterTopicsContextImpl
+ */
+public interface ClusterTransport {
+
+    /**
+     * Connects to the cluster and starts receiving messages
+     *
+     * @param nodeId unique identifier of this node
+     * @param receiver callback invoked with the messages received from the other nodes
+     */
+    void start(String nodeId, ClusterMessageReceiver receiver) throws IOException;
+
+    /**
+     * Sends the batch of messages to all the other nodes
+     */
+    void send(List<ClusterMessage> messages) throws IOException;
+
+    /**
+     * Stops receiving messages and releases the resources
+     */
+    void stop();
+}
@@ -0,0 +1,90 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.application.push.impl.cluster;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * <p>{@link ClusterTransport} that delivers messages in memory to the transports of the same group. It is intended for
+ * tests of several nodes running in one JVM.</p>
+ *
+ * <p>Messages are delivered synchronously by the sending thread.</p>
+ *
+ * @since 4.5
+ */
+public class LoopbackClusterTransport implements ClusterTransport {
+    private final List<LoopbackClusterTransport> group;
+    private volatile String nodeId;
+    private volatile ClusterMessageReceiver receiver;
+
+    /**
+     * Creates transport of a new group
+     */
+    public LoopbackClusterTransport() {
+        this.group = new CopyOnWriteArrayList<LoopbackClusterTransport>();
+    }
+
+    /**
+     * Creates transport connected to the same group as the given transport
+     */
+    public LoopbackClusterTransport(LoopbackClusterTransport member) {
+        this.group = member.group;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.richfaces.application.push.impl.cluster.ClusterTransport#start(java.lang.String,
+     * org.richfaces.application.push.impl.cluster.ClusterMessageReceiver)
+     */
+    @Override
+    public void start(String nodeId, ClusterMessageReceiver receiver) {
+        this.nodeId = nodeId;
+        this.receiver = receiver;
+        group.add(this);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.richfaces.application.push.impl.cluster.ClusterTransport#send(java.util.List)
+     */
+    @Override
+    public void send(List<ClusterMessage> messages) {
+        List<ClusterMessage> copy = new ArrayList<ClusterMessage>(messages);
+
+        for (LoopbackClusterTransport member : group) {
+            if (member != this && !member.nodeId.equals(nodeId)) {
+                member.receiver.receive(copy);
+            }
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.richfaces.application.push.impl.cluster.ClusterTransport#stop()
+     */
+    @Override
+    public void stop() {
+        group.remove(this);
+    }
+}
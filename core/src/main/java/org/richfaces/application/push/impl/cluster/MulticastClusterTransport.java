@@ -0,0 +1,174 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.application.push.impl.cluster;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.MulticastSocket;
+import java.text.MessageFormat;
+import java.util.List;
+
+import org.richfaces.log.Logger;
+import org.richfaces.log.RichfacesLogger;
+
+/**
+ * <p>{@link ClusterTransport} that sends messages to the other nodes using UDP multicast.</p>
+ *
+ * <p>Each batch of messages is sent as one datagram, batches that don't fit are split. Delivery is not guaranteed, which
+ * matches the semantics of push where clients may miss messages while they are reconnecting.</p>
+ *
+ * <p>Datagrams carry the cluster name and signature made with a secret shared by the nodes (see
+ * {@link ClusterMessageCodec}); datagrams of other clusters, datagrams with invalid signature and replayed datagrams are
+ * dropped.</p>
+ *
+ * @since 4.5
+ */
+public class MulticastClusterTransport implements ClusterTransport {
+    private static final Logger LOGGER = RichfacesLogger.APPLICATION.getLogger();
+    private static final int MAX_DATAGRAM_SIZE = 65507;
+    private final InetAddress group;
+    private final int port;
+    private final ClusterMessageCodec codec;
+    private volatile MulticastSocket socket;
+    private volatile String nodeId;
+    private Thread receiverThread;
+
+    /**
+     * @param group multicast group address
+     * @param port port the datagrams are sent to
+     * @param codec codec of the datagrams carrying name of the cluster and its shared secret
+     * @throws IllegalArgumentException if the codec doesn't sign the datagrams
+     */
+    public MulticastClusterTransport(InetAddress group, int port, ClusterMessageCodec codec) {
+        super();
+        if (!codec.isSigned()) {
+            throw new IllegalArgumentException("Push cluster secret is required by multicast transport");
+        }
+
+        this.group = group;
+        this.port = port;
+        this.codec = codec;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.richfaces.application.push.impl.cluster.ClusterTransport#start(java.lang.String,
+     * org.richfaces.application.push.impl.cluster.ClusterMessageReceiver)
+     */
+    @Override
+    public synchronized void start(String nodeId, final ClusterMessageReceiver receiver) throws IOException {
+        this.nodeId = nodeId;
+
+        final MulticastSocket multicastSocket = new MulticastSocket(port);
+        multicastSocket.joinGroup(group);
+        socket = multicastSocket;
+
+        receiverThread = new Thread(new Runnable() {
+            public void run() {
+                receive(multicastSocket, receiver);
+            }
+        }, "push-cluster-receiver-thread");
+        receiverThread.setDaemon(true);
+        receiverThread.start();
+    }
+
+    private void receive(MulticastSocket multicastSocket, ClusterMessageReceiver receiver) {
+        byte[] buffer = new byte[MAX_DATAGRAM_SIZE];
+        DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+
+        while (!multicastSocket.isClosed()) {
+            try {
+                packet.setLength(buffer.length);
+                multicastSocket.receive(packet);
+
+                ClusterMessageCodec.Batch batch = codec.decode(packet.getData(), packet.getOffset(), packet.getLength());
+                if (batch == null) {
+                    // datagram of another cluster using the same group
+                    continue;
+                }
+
+                if (!nodeId.equals(batch.getNodeId())) {
+                    receiver.receive(batch.getMessages());
+                }
+            } catch (IOException e) {
+                if (!multicastSocket.isClosed()) {
+                    LOGGER.warn(MessageFormat.format("Push cluster message from {0} could not be received: {1}",
+                        packet.getAddress(), e.getMessage()));
+                }
+            } catch (RuntimeException e) {
+                LOGGER.error(e.getMessage(), e);
+            }
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.richfaces.application.push.impl.cluster.ClusterTransport#send(java.util.List)
+     */
+    @Override
+    public void send(List<ClusterMessage> messages) throws IOException {
+        MulticastSocket multicastSocket = socket;
+        if (multicastSocket == null) {
+            throw new IOException("Push cluster transport is not started");
+        }
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        codec.encode(nodeId, messages, stream);
+
+        if (stream.size() <= MAX_DATAGRAM_SIZE) {
+            byte[] data = stream.toByteArray();
+            multicastSocket.send(new DatagramPacket(data, data.length, group, port));
+        } else if (messages.size() > 1) {
+            int half = messages.size() / 2;
+            send(messages.subList(0, half));
+            send(messages.subList(half, messages.size()));
+        } else {
+            LOGGER.warn(MessageFormat.format("Push message for topic {0} is too large to be sent to the cluster",
+                messages.get(0).getTopicKey()));
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.richfaces.application.push.impl.cluster.ClusterTransport#stop()
+     */
+    @Override
+    public synchronized void stop() {
+        if (socket != null) {
+            try {
+                socket.leaveGroup(group);
+            } catch (IOException e) {
+                LOGGER.debug(e.getMessage(), e);
+            }
+
+            socket.close();
+            socket = null;
+        }
+
+        if (receiverThread != null) {
+            receiverThread.interrupt();
+            receiverThread = null;
+        }
+    }
+}
@@ -26,12 +26,14 @@ import static org.richfaces.application.CoreConfiguration.Items.pushJMSConnectio
 import static org.richfaces.application.CoreConfiguration.Items.pushJMSConnectionPasswordEnvRef;
 import static org.richfaces.application.CoreConfiguration.Items.pushJMSConnectionUsername;
 import static org.richfaces.application.CoreConfiguration.Items.pushJMSConnectionUsernameEnvRef;
+import static org.richfaces.application.CoreConfiguration.Items.pushJMSSharedConnection;
 import static org.richfaces.application.CoreConfiguration.Items.pushJMSTopicsNamespace;
 import static org.richfaces.application.CoreConfiguration.PushPropertiesItems.pushPropertiesJMSConnectionFactory;
 import static org.richfaces.application.CoreConfiguration.PushPropertiesItems.pushPropertiesJMSConnectionPassword;
 import static org.richfaces.application.CoreConfiguration.PushPropertiesItems.pushPropertiesJMSConnectionUsername;
 import static org.richfaces.application.CoreConfiguration.PushPropertiesItems.pushPropertiesJMSTopicsNamespace;
 
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ThreadFactory;
 
@@ -42,6 +44,7 @@ import javax.jms.ConnectionFactory;
 import javax.jms.JMSException;
 import javax.jms.Message;
 import javax.jms.MessageConsumer;
+import javax.jms.MessageListener;
 import javax.jms.ObjectMessage;
 import javax.jms.Session;
 import javax.jms.TextMessage;
@@ -64,6 +67,7 @@ import com.google.common.base.Strings;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Maps;
 
 /**
  * A {@link org.richfaces.application.push.TopicsContext} that allows Push to listen for messages on Java Messaging Service (JMS)
@@ -73,18 +77,31 @@ import com.google.common.cache.LoadingCache;
 public class JMSTopicsContextImpl extends TopicsContextImpl {
 
     private static final Logger LOGGER = RichfacesLogger.APPLICATION.getLogger();
+    private static final String SUBTOPIC_PROPERTY = "rf_push_subtopic";
+    private static final String SERIALIZED_DATA_INDICATOR = "org_richfaces_push_SerializedData";
 
     private final InitialContext initialContext;
     private final Name connectionFactoryName;
     private final Name topicsNamespace;
     private final String username;
     private final String password;
+    private final SharedJMSConsumer sharedConsumer;
 
     /**
      * A factory method for creating {@link JMSTopicsContextImpl} initialized from context
      */
     public static JMSTopicsContextImpl getInstanceInitializedFromContext(ThreadFactory threadFactory, FacesContext facesContext)
             throws NamingException {
+        return getInstanceInitializedFromContext(threadFactory, 0, DEFAULT_PUBLISH_BATCH_SIZE, facesContext);
+    }
+
+    /**
+     * A factory method for creating {@link JMSTopicsContextImpl} initialized from context with given publishing settings
+     *
+     * @see TopicsContextImpl#TopicsContextImpl(ThreadFactory, int, int)
+     */
+    public static JMSTopicsContextImpl getInstanceInitializedFromContext(ThreadFactory threadFactory, int publishThreads,
+            int publishBatchSize, FacesContext facesContext) throws NamingException {
         ConfigurationService configurationService = ServiceTracker.getService(ConfigurationService.class);
 
         InitialContext initialContext = new InitialContext();
@@ -97,18 +114,25 @@ public class JMSTopicsContextImpl extends TopicsContextImpl {
         String username = getUserName(facesContext, configurationService);
         String password = getPassword(facesContext, configurationService);
 
-        return new JMSTopicsContextImpl(threadFactory, initialContext, connectionFactoryName, topicsNamespace, username,
-                password);
+        boolean sharedConnection = configurationService.getBooleanValue(facesContext, pushJMSSharedConnection);
+
+        return new JMSTopicsContextImpl(threadFactory, publishThreads, publishBatchSize, initialContext,
+                connectionFactoryName, topicsNamespace, username, password, sharedConnection);
     }
 
-    private JMSTopicsContextImpl(ThreadFactory threadFactory, InitialContext initialContext, Name connectionFactoryName,
-            Name topicsNamespace, String username, String password) {
-        super(threadFactory);
+    /**
+     * @param sharedConnection whether messages of all topics should be received using one connection or each topic should
+     *        use its own connection
+     */
+    JMSTopicsContextImpl(ThreadFactory threadFactory, int publishThreads, int publishBatchSize, InitialContext initialContext,
+            Name connectionFactoryName, Name topicsNamespace, String username, String password, boolean sharedConnection) {
+        super(threadFactory, publishThreads, publishBatchSize);
         this.initialContext = initialContext;
         this.connectionFactoryName = connectionFactoryName;
         this.topicsNamespace = topicsNamespace;
         this.username = username;
         this.password = password;
+        this.sharedConsumer = sharedConnection ? new SharedJMSConsumer() : null;
     }
 
     /*
@@ -119,10 +143,18 @@ public class JMSTopicsContextImpl extends TopicsContextImpl {
     @Override
     protected org.richfaces.application.push.Topic createTopic(TopicKey key) {
         org.richfaces.application.push.Topic topic = super.createTopic(key);
-        try {
-            jmsConsumerContexts.get(key.getTopicName());
-        } catch (ExecutionException e) {
-            throw new FacesException(String.format("Can't create a JMS topic %s", key), e);
+        if (sharedConsumer != null) {
+            try {
+                sharedConsumer.subscribe(key.getTopicName());
+            } catch (Exception e) {
+                throw new FacesException(String.format("Can't create a JMS topic %s", key), e);
+            }
+        } else {
+            try {
+                jmsConsumerContexts.get(key.getTopicName());
+            } catch (ExecutionException e) {
+                throw new FacesException(String.format("Can't create a JMS topic %s", key), e);
+            }
         }
         return topic;
     }
@@ -134,6 +166,10 @@ public class JMSTopicsContextImpl extends TopicsContextImpl {
      */
     @Override
     public void destroy() {
+        if (sharedConsumer != null) {
+            sharedConsumer.stop();
+        }
+
         for (JMSConsumerContext jmsConsumerContext : jmsConsumerContexts.asMap().values()) {
             try {
                 jmsConsumerContext.stop();
@@ -169,14 +205,136 @@ public class JMSTopicsContextImpl extends TopicsContextImpl {
                 }
             }));
 
+    private void processMessage(String name, Message message) throws JMSException {
+        String subtopicName = message.getStringProperty(SUBTOPIC_PROPERTY);
+        TopicKey topicKey = new TopicKey(name, subtopicName);
+
+        org.richfaces.application.push.Topic pushTopic = getOrCreateTopic(topicKey);
+        if (pushTopic != null) {
+            try {
+                Object messageData = getMessageData(message);
+                pushTopic.publish(messageData);
+            } catch (Exception e) {
+                LOGGER.error(e.getMessage(), e);
+            }
+        }
+    }
+
+    private Connection createConnection() throws JMSException, NamingException {
+        ConnectionFactory connectionFactory = (ConnectionFactory) initialContext.lookup(connectionFactoryName);
+        Connection connection = connectionFactory.createConnection(username, password);
+        connection.start();
+        return connection;
+    }
+
+    private Topic lookupTopic(String name) throws NamingException {
+        Name topicName = appendToName(topicsNamespace, name);
+
+        return (Topic) initialContext.lookup(topicName);
+    }
+
+    private Name appendToName(Name name, String comp) throws NamingException {
+        Name clonedName = (Name) name.clone();
+        return clonedName.add(comp);
+    }
+
+    private Object getMessageData(Message message) throws JMSException {
+        Object messageData = null;
+
+        if (message instanceof ObjectMessage) {
+            messageData = ((ObjectMessage) message).getObject();
+        } else if (message instanceof TextMessage) {
+            TextMessage textMessage = (TextMessage) message;
+
+            if (message.getBooleanProperty(SERIALIZED_DATA_INDICATOR)) {
+                messageData = new JSLiteral(textMessage.getText());
+            } else {
+                messageData = textMessage.getText();
+            }
+        }
+
+        return messageData;
+    }
+
+    /**
+     * <p>
+     * Listens for messages of all the topics using one connection and one session, so that the number of connections and
+     * threads doesn't grow with the number of topics.
+     * </p>
+     *
+     * <p>
+     * Messages of all the topics are delivered by the thread of the session and acknowledged lazily.
+     * </p>
+     */
+    private class SharedJMSConsumer {
+        private final ConcurrentMap<String, MessageConsumer> consumers = Maps.newConcurrentMap();
+        private Connection connection;
+        private Session session;
+
+        /**
+         * Creates consumer of the JMS topic with given name unless it already exists
+         */
+        public void subscribe(String name) throws NamingException, JMSException {
+            // checked without locking, so that message listeners don't wait for creation of other consumers
+            if (!consumers.containsKey(name)) {
+                createConsumer(name);
+            }
+        }
+
+        private synchronized void createConsumer(final String name) throws NamingException, JMSException {
+            if (consumers.containsKey(name)) {
+                return;
+            }
+
+            if (connection == null) {
+                connection = createConnection();
+                session = connection.createSession(false, Session.DUPS_OK_ACKNOWLEDGE);
+            }
+
+            // the session must not be used while it delivers messages, stopping the connection waits for the listeners
+            connection.stop();
+            try {
+                MessageConsumer consumer = session.createConsumer(lookupTopic(name), null, false);
+                consumer.setMessageListener(new MessageListener() {
+                    public void onMessage(Message message) {
+                        try {
+                            processMessage(name, message);
+                        } catch (Exception e) {
+                            LOGGER.error(e.getMessage(), e);
+                        }
+                    }
+                });
+                consumers.put(name, consumer);
+            } finally {
+                connection.start();
+            }
+        }
+
+        /**
+         * Closes the connection and the consumers
+         */
+        public synchronized void stop() {
+            consumers.clear();
+
+            if (connection != null) {
+                try {
+                    // closes the session and the consumers as well
+                    connection.close();
+                } catch (Exception e) {
+                    LOGGER.error(e.getMessage(), e);
+                }
+
+                connection = null;
+                session = null;
+            }
+        }
+    }
+
     /**
      * A context that holds {@link MessageConsumer} connected to JMS and allows to transfer messages from JMS topic to Push topic
      */
     private class JMSConsumerContext {
 
-        private static final String SUBTOPIC_PROPERTY = "rf_push_subtopic";
-        private static final String SERIALIZED_DATA_INDICATOR = "org_richfaces_push_SerializedData";
-
         private final String name;
         private Connection connection;
         private Session session;
@@ -194,7 +352,7 @@ public class JMSTopicsContextImpl extends TopicsContextImpl {
         public synchronized void start() throws NamingException, JMSException {
             connection = createConnection();
             session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
-            consumer = session.createConsumer(lookupTopic(), null, false);
+            consumer = session.createConsumer(lookupTopic(name), null, false);
 
             pollingThread = getThreadFactory().newThread(new Runnable() {
                 public void run() {
@@ -203,18 +361,7 @@ public class JMSTopicsContextImpl extends TopicsContextImpl {
                             Message message = consumer.receive();
 
                             if (message != null) {
-                                String subtopicName = message.getStringProperty(SUBTOPIC_PROPERTY);
-                                TopicKey topicKey = new TopicKey(name, subtopicName);
-
-                                org.richfaces.application.push.Topic pushTopic = getOrCreateTopic(topicKey);
-                                if (pushTopic != null) {
-                                    try {
-                                        Object messageData = getMessageData(message);
-                                        pushTopic.publish(messageData);
-                                    } catch (Exception e) {
-                                        LOGGER.error(e.getMessage(), e);
-                                    }
-                                }
+                                processMessage(name, message);
                             } else {
                                 break;
                             }
@@ -259,42 +406,6 @@ public class JMSTopicsContextImpl extends TopicsContextImpl {
                 }
             }
         }
-
-        private Connection createConnection() throws JMSException, NamingException {
-            ConnectionFactory connectionFactory = (ConnectionFactory) initialContext.lookup(connectionFactoryName);
-            Connection connection = connectionFactory.createConnection(username, password);
-            connection.start();
-            return connection;
-        }
-
-        private Topic lookupTopic() throws NamingException {
-            Name topicName = appendToName(topicsNamespace, name);
-
-            return (Topic) initialContext.lookup(topicName);
-        }
-
-        private Name appendToName(Name name, String comp) throws NamingException {
-            Name clonedName = (Name) name.clone();
-            return clonedName.add(comp);
-        }
-
-        private Object getMessageData(Message message) throws JMSException {
-            Object messageData = null;
-
-            if (message instanceof ObjectMessage) {
-                messageData = ((ObjectMessage) message).getObject();
-            } else if (message instanceof TextMessage) {
-                TextMessage textMessage = (TextMessage) message;
-
-                if (message.getBooleanProperty(SERIALIZED_DATA_INDICATOR)) {
-                    messageData = new JSLiteral(textMessage.getText());
-                } else {
-                    messageData = textMessage.getText();
-                }
-            }
-
-            return messageData;
-        }
     }
 
     private static String getConnectionFactory(FacesContext facesContext, ConfigurationService configurationService) {
@@ -0,0 +1,87 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.application.push.metrics;
+
+import org.richfaces.application.push.SessionOverflowPolicy;
+import org.richfaces.application.push.TopicKey;
+
+/**
+ * <p>Receives notifications about push messages and sessions processed by {@link org.richfaces.application.push.PushContext}.</p>
+ *
+ * <p>Implementations are registered using <code>META-INF/services/org.richfaces.application.push.metrics.PushListener</code>
+ * file or {@link PushListeners#addListener(PushListener)} and are called by publishing and
+ * request processing threads, so they should be thread-safe and fast.</p>
+ *
+ * @since 4.5
+ */
+public interface PushListener {
+    /**
+     * Called when message has been published to a topic.
+     *
+     * @param topicKey key of the topic
+     */
+    void messagePublished(TopicKey topicKey);
+
+    /**
+     * Called when message has been delivered to a client connected to a push session.
+     *
+     * @param topicKey key of the topic the message was published to
+     * @param latencyNanos time from publishing of the message to its delivery, in nanoseconds
+     */
+    void messageDelivered(TopicKey topicKey, long latencyNanos);
+
+    /**
+     * Called when messages queued for a push session have been dropped because the queue was full.
+     *
+     * @param overflowPolicy overflow policy of the session that dropped the messages
+     * @param count number of dropped messages
+     */
+    void messagesDropped(SessionOverflowPolicy overflowPolicy, int count);
+
+    /**
+     * Called when push session has been created.
+     *
+     * @param sessionId id of the session
+     */
+    void sessionCreated(String sessionId);
+
+    /**
+     * Called when push session has expired or has been invalidated and was destroyed.
+     *
+     * @param sessionId id of the session
+     */
+    void sessionExpired(String sessionId);
+
+    /**
+     * Called when request has connected to push session to receive messages.
+     *
+     * @param sessionId id of the session
+     */
+    void requestConnected(String sessionId);
+
+    /**
+     * Called when request has been released from push session.
+     *
+     * @param sessionId id of the session
+     */
+    void requestReleased(String sessionId);
+}
@@ -0,0 +1,167 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.application.push.metrics;
+
+import static org.richfaces.application.configuration.ConfigurationServiceHelper.getBooleanConfigurationValue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.faces.context.FacesContext;
+
+import org.richfaces.application.CoreConfiguration;
+import org.richfaces.application.ServiceLoader;
+import org.richfaces.application.push.SessionOverflowPolicy;
+import org.richfaces.application.push.TopicKey;
+
+/**
+ * <p>Notifies all registered {@link PushListener}s: the ones registered as services, the ones added using {@link #addListener(PushListener)} and
+ * {@link PushMetrics} exposed via JMX if push metrics are enabled.</p>
+ *
+ * <p>Push components don't notify listeners at all if none is registered.</p>
+ *
+ * @since 4.5
+ */
+public class PushListeners implements PushListener {
+    public static final String INSTANCE_KEY_NAME = PushListeners.class.getName();
+    private static final PushListener[] EMPTY_LISTENERS = new PushListener[0];
+    private volatile PushListener[] listeners = EMPTY_LISTENERS;
+    private PushMetrics metrics;
+
+    /**
+     * Registers the listeners configured for the application.
+     *
+     * @param facesContext faces context of the application startup
+     */
+    public void init(FacesContext facesContext) {
+        List<PushListener> result = new ArrayList<PushListener>(ServiceLoader.loadServices(PushListener.class));
+
+        if (getBooleanConfigurationValue(facesContext, CoreConfiguration.Items.pushMetricsEnabled)) {
+            metrics = new PushMetrics();
+            metrics.register(facesContext.getExternalContext().getContextName());
+            result.add(metrics);
+        }
+
+        synchronized (this) {
+            result.addAll(Arrays.asList(listeners));
+            listeners = result.toArray(new PushListener[result.size()]);
+        }
+    }
+
+    public void release() {
+        if (metrics != null) {
+            metrics.unregister();
+            metrics = null;
+        }
+
+        listeners = EMPTY_LISTENERS;
+    }
+
+    /**
+     * Returns the listeners notified by push of the application.
+     *
+     * @param facesContext current faces context
+     * @return listeners of the application or <code>null</code> if push hasn't been initialized yet
+     */
+    public static PushListeners getInstance(FacesContext facesContext) {
+        return (PushListeners) facesContext.getExternalContext().getApplicationMap().get(INSTANCE_KEY_NAME);
+    }
+
+    /**
+     * Registers listener notified about messages and sessions processed by push
+     */
+    public synchronized void addListener(PushListener listener) {
+        List<PushListener> result = new ArrayList<PushListener>(Arrays.asList(listeners));
+        result.add(listener);
+        listeners = result.toArray(new PushListener[result.size()]);
+    }
+
+    /**
+     * Unregisters listener previously registered by {@link #addListener(PushListener)}
+     */
+    public synchronized void removeListener(PushListener listener) {
+        List<PushListener> result = new ArrayList<PushListener>(Arrays.asList(listeners));
+        result.remove(listener);
+        listeners = result.toArray(new PushListener[result.size()]);
+    }
+
+    /**
+     * Returns whether there are any listeners to notify.
+     *
+     * @return <code>true</code> if no listener is registered
+     */
+    public boolean isEmpty() {
+        return listeners.length == 0;
+    }
+
+    /**
+     * Returns metrics exposed via JMX.
+     *
+     * @return metrics exposed via JMX or <code>null</code> if push metrics are not enabled
+     */
+    public PushMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void messagePublished(TopicKey topicKey) {
+        for (PushListener listener : listeners) {
+            listener.messagePublished(topicKey);
+        }
+    }
+
+    public void messageDelivered(TopicKey topicKey, long latencyNanos) {
+        for (PushListener listener : listeners) {
+            listener.messageDelivered(topicKey, latencyNanos);
+        }
+    }
+
+    public void messagesDropped(SessionOverflowPolicy overflowPolicy, int count) {
+        for (PushListener listener : listeners) {
+            listener.messagesDropped(overflowPolicy, count);
+        }
+    }
+
+    public void sessionCreated(String sessionId) {
+        for (PushListener listener : listeners) {
+            listener.sessionCreated(sessionId);
+        }
+    }
+
+    public void sessionExpired(String sessionId) {
+        for (PushListener listener : listeners) {
+            listener.sessionExpired(sessionId);
+        }
+    }
+
+    public void requestConnected(String sessionId) {
+        for (PushListener listener : listeners) {
+            listener.requestConnected(sessionId);
+        }
+    }
+
+    public void requestReleased(String sessionId) {
+        for (PushListener listener : listeners) {
+            listener.requestReleased(sessionId);
+        }
+    }
+}
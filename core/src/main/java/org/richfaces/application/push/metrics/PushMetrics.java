@@ -0,0 +1,274 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.application.push.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.text.MessageFormat;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.richfaces.application.push.SessionOverflowPolicy;
+import org.richfaces.application.push.TopicKey;
+import org.richfaces.log.Logger;
+import org.richfaces.log.RichfacesLogger;
+
+/**
+ * <p>Collects statistics of push messages and sessions and exposes them via JMX, as
+ * <code>org.richfaces:type=PushMetrics,application=&lt;context name&gt;</code> MBean.</p>
+ *
+ * <p>Counters are updated without locking. Statistics of particular topics are kept by topic name (subtopics are counted
+ * together) for a limited number of topics, messages of other topics are counted in totals only.</p>
+ *
+ * @since 4.5
+ */
+public class PushMetrics implements PushListener, PushMetricsMXBean {
+    static final int MAX_TRACKED_TOPICS = 1000;
+    private static final Logger LOGGER = RichfacesLogger.APPLICATION.getLogger();
+    private static final long[] LATENCY_BOUNDS_MILLIS = { 1, 10, 100, 1000, 10000 };
+    private final AtomicLong publishedMessages = new AtomicLong();
+    private final AtomicLong deliveredMessages = new AtomicLong();
+    private final AtomicLong latencyNanos = new AtomicLong();
+    private final AtomicLongArray latencyHistogram = new AtomicLongArray(LATENCY_BOUNDS_MILLIS.length + 1);
+    private final Map<SessionOverflowPolicy, AtomicLong> droppedMessages = createDroppedMessagesCounters();
+    private final AtomicLong activeSessions = new AtomicLong();
+    private final AtomicLong expiredSessions = new AtomicLong();
+    private final AtomicLong activeRequests = new AtomicLong();
+    private final ConcurrentMap<String, Counters> topicCounters = new ConcurrentHashMap<String, Counters>();
+    private ObjectName objectName;
+
+    private static final class Counters {
+        private final AtomicLong publishedMessages = new AtomicLong();
+        private final AtomicLong deliveredMessages = new AtomicLong();
+
+        TopicStatistics toStatistics() {
+            return new TopicStatistics(publishedMessages.get(), deliveredMessages.get());
+        }
+    }
+
+    private static Map<SessionOverflowPolicy, AtomicLong> createDroppedMessagesCounters() {
+        Map<SessionOverflowPolicy, AtomicLong> result = new EnumMap<SessionOverflowPolicy, AtomicLong>(
+            SessionOverflowPolicy.class);
+
+        for (SessionOverflowPolicy overflowPolicy : SessionOverflowPolicy.values()) {
+            result.put(overflowPolicy, new AtomicLong());
+        }
+
+        return result;
+    }
+
+    private Counters getCounters(TopicKey topicKey) {
+        String topicName = topicKey.getTopicName();
+        Counters counters = topicCounters.get(topicName);
+
+        if (counters == null && topicCounters.size() < MAX_TRACKED_TOPICS) {
+            Counters newCounters = new Counters();
+            counters = topicCounters.putIfAbsent(topicName, newCounters);
+
+            if (counters == null) {
+                counters = newCounters;
+            }
+        }
+
+        return counters;
+    }
+
+    /**
+     * Registers this object in platform MBean server.
+     *
+     * @param applicationName name of the application, used to distinguish metrics of several applications
+     */
+    void register(String applicationName) {
+        try {
+            ObjectName name = new ObjectName("org.richfaces:type=PushMetrics,application="
+                + ObjectName.quote(applicationName != null ? applicationName : ""));
+
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            objectName = name;
+        } catch (JMException e) {
+            LOGGER.warn(MessageFormat.format("Push metrics could not be registered in MBean server: {0}", e.getMessage()));
+        }
+    }
+
+    /**
+     * Unregisters this object from platform MBean server.
+     */
+    void unregister() {
+        if (objectName != null) {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+            try {
+                if (mBeanServer.isRegistered(objectName)) {
+                    mBeanServer.unregisterMBean(objectName);
+                }
+            } catch (JMException e) {
+                LOGGER.warn(MessageFormat.format("Push metrics could not be unregistered from MBean server: {0}",
+                    e.getMessage()));
+            }
+
+            objectName = null;
+        }
+    }
+
+    public void messagePublished(TopicKey topicKey) {
+        publishedMessages.incrementAndGet();
+
+        Counters counters = getCounters(topicKey);
+        if (counters != null) {
+            counters.publishedMessages.incrementAndGet();
+        }
+    }
+
+    public void messageDelivered(TopicKey topicKey, long latencyNanos) {
+        deliveredMessages.incrementAndGet();
+        this.latencyNanos.addAndGet(latencyNanos);
+
+        long latencyMillis = TimeUnit.NANOSECONDS.toMillis(latencyNanos);
+        int bucket = 0;
+
+        while (bucket < LATENCY_BOUNDS_MILLIS.length && latencyMillis >= LATENCY_BOUNDS_MILLIS[bucket]) {
+            bucket++;
+        }
+
+        latencyHistogram.incrementAndGet(bucket);
+
+        Counters counters = getCounters(topicKey);
+        if (counters != null) {
+            counters.deliveredMessages.incrementAndGet();
+        }
+    }
+
+    public void messagesDropped(SessionOverflowPolicy overflowPolicy, int count) {
+        droppedMessages.get(overflowPolicy).addAndGet(count);
+    }
+
+    public void sessionCreated(String sessionId) {
+        activeSessions.incrementAndGet();
+    }
+
+    public void sessionExpired(String sessionId) {
+        activeSessions.decrementAndGet();
+        expiredSessions.incrementAndGet();
+    }
+
+    public void requestConnected(String sessionId) {
+        activeRequests.incrementAndGet();
+    }
+
+    public void requestReleased(String sessionId) {
+        activeRequests.decrementAndGet();
+    }
+
+    public long getPublishedMessages() {
+        return publishedMessages.get();
+    }
+
+    public long getDeliveredMessages() {
+        return deliveredMessages.get();
+    }
+
+    public double getAverageDeliveryLatencyMillis() {
+        long delivered = deliveredMessages.get();
+
+        return delivered != 0 ? (double) latencyNanos.get() / delivered / TimeUnit.MILLISECONDS.toNanos(1) : 0;
+    }
+
+    public Map<String, Long> getDeliveryLatencyHistogram() {
+        Map<String, Long> result = new LinkedHashMap<String, Long>();
+
+        for (int i = 0; i < LATENCY_BOUNDS_MILLIS.length; i++) {
+            result.put("< " + LATENCY_BOUNDS_MILLIS[i] + " ms", latencyHistogram.get(i));
+        }
+
+        result.put(">= " + LATENCY_BOUNDS_MILLIS[LATENCY_BOUNDS_MILLIS.length - 1] + " ms",
+            latencyHistogram.get(LATENCY_BOUNDS_MILLIS.length));
+
+        return result;
+    }
+
+    public long getDroppedMessages() {
+        long result = 0;
+
+        for (AtomicLong counter : droppedMessages.values()) {
+            result += counter.get();
+        }
+
+        return result;
+    }
+
+    public Map<String, Long> getDroppedMessagesByOverflowPolicy() {
+        Map<String, Long> result = new LinkedHashMap<String, Long>();
+
+        for (Entry<SessionOverflowPolicy, AtomicLong> entry : droppedMessages.entrySet()) {
+            result.put(entry.getKey().name(), entry.getValue().get());
+        }
+
+        return result;
+    }
+
+    public long getActiveSessions() {
+        return activeSessions.get();
+    }
+
+    public long getExpiredSessions() {
+        return expiredSessions.get();
+    }
+
+    public long getActiveRequests() {
+        return activeRequests.get();
+    }
+
+    public Map<String, TopicStatistics> getTopicStatistics() {
+        Map<String, TopicStatistics> result = new TreeMap<String, TopicStatistics>();
+
+        for (Entry<String, Counters> entry : topicCounters.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().toStatistics());
+        }
+
+        return result;
+    }
+
+    public void reset() {
+        publishedMessages.set(0);
+        deliveredMessages.set(0);
+        latencyNanos.set(0);
+        for (int i = 0; i < latencyHistogram.length(); i++) {
+            latencyHistogram.set(i, 0);
+        }
+        for (AtomicLong counter : droppedMessages.values()) {
+            counter.set(0);
+        }
+        expiredSessions.set(0);
+        topicCounters.clear();
+    }
+}
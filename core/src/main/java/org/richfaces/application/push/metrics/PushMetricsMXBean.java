@@ -0,0 +1,83 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.application.push.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX management interface of {@link PushMetrics}.
+ *
+ * @since 4.5
+ */
+public interface PushMetricsMXBean {
+    long getPublishedMessages();
+
+    /**
+     * @return number of deliveries of messages to clients, message is counted once for each session it is delivered to
+     */
+    long getDeliveredMessages();
+
+    /**
+     * @return average time from publishing of a message to its delivery to a client
+     */
+    double getAverageDeliveryLatencyMillis();
+
+    /**
+     * @return number of delivered messages by ranges of time from their publishing to delivery
+     */
+    Map<String, Long> getDeliveryLatencyHistogram();
+
+    /**
+     * @return number of messages dropped because queues of undelivered messages of sessions were full
+     */
+    long getDroppedMessages();
+
+    /**
+     * @return number of dropped messages by names of the session overflow policies that dropped them
+     */
+    Map<String, Long> getDroppedMessagesByOverflowPolicy();
+
+    /**
+     * @return number of push sessions that were created and haven't expired yet
+     */
+    long getActiveSessions();
+
+    /**
+     * @return number of push sessions that have expired or have been invalidated
+     */
+    long getExpiredSessions();
+
+    /**
+     * @return number of requests currently connected to push sessions
+     */
+    long getActiveRequests();
+
+    /**
+     * @return statistics of the particular topics by topic names
+     */
+    Map<String, TopicStatistics> getTopicStatistics();
+
+    /**
+     * Resets all counters except of the numbers of active sessions and requests.
+     */
+    void reset();
+}
@@ -0,0 +1,469 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.cache.concurrent;
+
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.richfaces.cache.Cache;
+
+/**
+ * <p>Bounded {@link Cache} implementation designed for highly concurrent access.</p>
+ *
+ * <p>Entries are stored in a {@link ConcurrentHashMap}, so reads never block. Eviction and expiration bookkeeping is
+ * split into independent segments, each guarded by its own lock:</p>
+ *
+ * <ul>
+ * <li>every segment keeps its entries in a LRU-ordered list; reads are recorded into a small lossy buffer which is
+ * replayed against the list when the segment lock is acquired, so readers never wait for the lock</li>
+ * <li>every segment keeps entries with expiration date in a hashed timer wheel, which is advanced by the maintenance
+ * performed during writes and buffer drains; an expired entry is never returned even if it has not been purged yet</li>
+ * </ul>
+ *
+ * <p>When the total weight of entries exceeds the capacity, the least recently used entries of the segment that has
+ * just been written to are evicted, so the eviction order is LRU per segment and approximately LRU for the whole
+ * cache. Every entry weighs 1 unless {@link Weigher} is provided; entries heavier than the whole capacity are not
+ * stored at all.</p>
+ *
+ * @since 4.5
+ */
+public class ConcurrentLRUCache implements Cache {
+    public static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+    private static final int DEFAULT_INITIAL_CAPACITY = 256;
+    static final int MAX_SEGMENTS = 1 << 12;
+    static final long TICK_MILLIS = 1000;
+    static final int WHEEL_SIZE = 256;
+    private static final int READ_BUFFER_SIZE = 32;
+    private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+    private final ConcurrentMap<Object, Node> data;
+    private final Segment[] segments;
+    private final int segmentMask;
+    private final long capacity;
+    private final Weigher weigher;
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong weightedSize = new AtomicLong();
+
+    public ConcurrentLRUCache(int capacity) {
+        this(capacity, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    public ConcurrentLRUCache(int capacity, int concurrencyLevel) {
+        this(capacity, concurrencyLevel, null);
+    }
+
+    /**
+     * @param capacity maximum total weight of entries
+     * @param concurrencyLevel estimated number of concurrently writing threads
+     * @param weigher calculates weight of entries, if <code>null</code> every entry weighs 1
+     */
+    public ConcurrentLRUCache(long capacity, int concurrencyLevel, Weigher weigher) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity should be positive: " + capacity);
+        }
+
+        if (concurrencyLevel <= 0) {
+            throw new IllegalArgumentException("Concurrency level should be positive: " + concurrencyLevel);
+        }
+
+        int segmentsCount = 1;
+        while (segmentsCount < Math.min(concurrencyLevel, MAX_SEGMENTS)) {
+            segmentsCount <<= 1;
+        }
+
+        this.capacity = capacity;
+        this.weigher = weigher;
+        this.segmentMask = segmentsCount - 1;
+        this.segments = new Segment[segmentsCount];
+        for (int i = 0; i < segmentsCount; i++) {
+            segments[i] = new Segment();
+        }
+
+        int initialCapacity = (int) Math.min(weigher == null ? capacity : DEFAULT_INITIAL_CAPACITY, 1 << 16);
+        this.data = new ConcurrentHashMap<Object, Node>(initialCapacity, 0.75f, segmentsCount);
+    }
+
+    private static int spread(int hashCode) {
+        // same supplemental hash as used by java.util.concurrent collections
+        int h = hashCode;
+        h += (h << 15) ^ 0xffffcd7d;
+        h ^= (h >>> 10);
+        h += (h << 3);
+        h ^= (h >>> 6);
+        h += (h << 2) + (h << 14);
+        return h ^ (h >>> 16);
+    }
+
+    private int segmentIndex(Object key) {
+        return spread(key.hashCode()) & segmentMask;
+    }
+
+    long getCurrentTime() {
+        return System.currentTimeMillis();
+    }
+
+    public Object get(Object key) {
+        Node node = data.get(key);
+
+        if (node == null) {
+            return null;
+        }
+
+        Segment segment = segments[node.segmentIndex];
+
+        if (node.isExpired(getCurrentTime())) {
+            segment.tryCleanUp();
+            return null;
+        }
+
+        segment.recordRead(node);
+
+        return node.value;
+    }
+
+    public void put(Object key, Object value, Date expired) {
+        long now = getCurrentTime();
+        long expiresAt = (expired != null) ? expired.getTime() : Node.NEVER;
+        long weight = weigh(key, value);
+
+        int index = segmentIndex(key);
+        Segment segment = segments[index];
+        Node node = new Node(key, value, expiresAt, weight, index);
+
+        segment.lock();
+        try {
+            segment.advance(now);
+
+            if (node.isExpired(now) || weight > capacity) {
+                // already stale or too heavy, don't keep it
+                Node oldNode = data.get(key);
+
+                if (oldNode != null) {
+                    segment.remove(oldNode);
+                }
+
+                return;
+            }
+
+            Node oldNode = data.put(key, node);
+
+            if (oldNode != null) {
+                segment.unlink(oldNode);
+                weightedSize.addAndGet(weight - oldNode.weight);
+            } else {
+                size.incrementAndGet();
+                weightedSize.addAndGet(weight);
+            }
+
+            segment.link(node);
+        } finally {
+            segment.unlock();
+        }
+
+        evictOverflow(index, node);
+    }
+
+    private void evictOverflow(int writtenSegmentIndex, Node writtenNode) {
+        int index = writtenSegmentIndex;
+        int emptySegments = 0;
+
+        while (weightedSize.get() > capacity && emptySegments <= segmentMask) {
+            Segment segment = segments[index];
+
+            if (segment.evictEldest(writtenNode)) {
+                emptySegments = 0;
+            } else {
+                emptySegments++;
+                index = (index + 1) & segmentMask;
+            }
+        }
+    }
+
+    private long weigh(Object key, Object value) {
+        if (weigher == null) {
+            return 1;
+        }
+
+        long weight = weigher.weigh(key, value);
+
+        if (weight < 0) {
+            throw new IllegalArgumentException("Negative weight of cache entry: " + key);
+        }
+
+        return weight;
+    }
+
+    /**
+     * Returns approximate number of entries in cache. Expired entries that have not been purged yet are counted too.
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Returns approximate total weight of entries in cache. Expired entries that have not been purged yet are counted too.
+     */
+    public long weightedSize() {
+        return weightedSize.get();
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public void start() {
+    }
+
+    public void stop() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    static final class Node {
+        static final long NEVER = Long.MAX_VALUE;
+        final Object key;
+        final Object value;
+        final long expiresAt;
+        final long weight;
+        final int segmentIndex;
+        // guarded by segment lock
+        Node lruPrevious;
+        Node lruNext;
+        Node wheelPrevious;
+        Node wheelNext;
+        boolean linked;
+
+        Node(Object key, Object value, long expiresAt, long weight, int segmentIndex) {
+            this.key = key;
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.weight = weight;
+            this.segmentIndex = segmentIndex;
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+
+        boolean isExpiring() {
+            return expiresAt != NEVER;
+        }
+    }
+
+    private final class Segment extends ReentrantLock {
+        private static final long serialVersionUID = 6045437049370236245L;
+        // LRU list sentinel: head.lruNext is the eldest entry, head.lruPrevious is the youngest one
+        private final Node head = sentinel();
+        private final Node[] wheel = new Node[WHEEL_SIZE];
+        private final AtomicReferenceArray<Node> readBuffer = new AtomicReferenceArray<Node>(READ_BUFFER_SIZE);
+        private final AtomicInteger readCounter = new AtomicInteger();
+        private long currentTick = -1;
+
+        Segment() {
+            for (int i = 0; i < WHEEL_SIZE; i++) {
+                wheel[i] = sentinel();
+            }
+        }
+
+        private Node sentinel() {
+            Node node = new Node(null, null, Node.NEVER, 0, -1);
+            node.lruPrevious = node;
+            node.lruNext = node;
+            node.wheelPrevious = node;
+            node.wheelNext = node;
+            return node;
+        }
+
+        void recordRead(Node node) {
+            int index = readCounter.getAndIncrement() & READ_BUFFER_MASK;
+            readBuffer.lazySet(index, node);
+
+            if (index == READ_BUFFER_MASK) {
+                tryCleanUp();
+            }
+        }
+
+        void tryCleanUp() {
+            if (tryLock()) {
+                try {
+                    advance(getCurrentTime());
+                } finally {
+                    unlock();
+                }
+            }
+        }
+
+        // should be called under lock
+        void advance(long now) {
+            drainReadBuffer();
+            expire(now);
+        }
+
+        private void drainReadBuffer() {
+            for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+                Node node = readBuffer.getAndSet(i, null);
+
+                if (node != null && node.linked) {
+                    unlinkLru(node);
+                    linkLru(node);
+                }
+            }
+        }
+
+        private void expire(long now) {
+            long tick = now / TICK_MILLIS;
+
+            if (currentTick < 0) {
+                currentTick = tick;
+                return;
+            }
+
+            if (tick <= currentTick) {
+                return;
+            }
+
+            // visit each bucket at most once, even if the wheel has not been turned for a long time
+            long ticks = Math.min(tick - currentTick, WHEEL_SIZE);
+
+            for (long i = 1; i <= ticks; i++) {
+                Node bucket = wheel[(int) ((currentTick + i) & (WHEEL_SIZE - 1))];
+                Node node = bucket.wheelNext;
+
+                while (node != bucket) {
+                    Node next = node.wheelNext;
+
+                    if (node.isExpired(now)) {
+                        remove(node);
+                    }
+
+                    node = next;
+                }
+            }
+
+            currentTick = tick;
+        }
+
+        void link(Node node) {
+            node.linked = true;
+            linkLru(node);
+
+            if (node.isExpiring()) {
+                // entries expiring in the current tick go to the next bucket, as current one has been already visited
+                long tick = Math.max(node.expiresAt / TICK_MILLIS, currentTick + 1);
+                Node bucket = wheel[(int) (tick & (WHEEL_SIZE - 1))];
+
+                node.wheelPrevious = bucket.wheelPrevious;
+                node.wheelNext = bucket;
+                bucket.wheelPrevious.wheelNext = node;
+                bucket.wheelPrevious = node;
+            }
+        }
+
+        void unlink(Node node) {
+            if (!node.linked) {
+                return;
+            }
+
+            node.linked = false;
+            unlinkLru(node);
+
+            if (node.wheelNext != null) {
+                node.wheelPrevious.wheelNext = node.wheelNext;
+                node.wheelNext.wheelPrevious = node.wheelPrevious;
+                node.wheelPrevious = null;
+                node.wheelNext = null;
+            }
+        }
+
+        private void linkLru(Node node) {
+            node.lruPrevious = head.lruPrevious;
+            node.lruNext = head;
+            head.lruPrevious.lruNext = node;
+            head.lruPrevious = node;
+        }
+
+        private void unlinkLru(Node node) {
+            node.lruPrevious.lruNext = node.lruNext;
+            node.lruNext.lruPrevious = node.lruPrevious;
+            node.lruPrevious = null;
+            node.lruNext = null;
+        }
+
+        void remove(Node node) {
+            unlink(node);
+
+            if (data.remove(node.key, node)) {
+                size.decrementAndGet();
+                weightedSize.addAndGet(-node.weight);
+            }
+        }
+
+        /**
+         * Evicts the least recently used entry of this segment, unless it's the entry that has just been added.
+         *
+         * @return <code>true</code> if entry has been evicted
+         */
+        boolean evictEldest(Node exclusion) {
+            lock();
+            try {
+                Node eldest = head.lruNext;
+
+                if (eldest == exclusion) {
+                    eldest = eldest.lruNext;
+                }
+
+                if (eldest == head) {
+                    return false;
+                }
+
+                remove(eldest);
+                return true;
+            } finally {
+                unlock();
+            }
+        }
+
+        void clear() {
+            lock();
+            try {
+                Node node = head.lruNext;
+
+                while (node != head) {
+                    Node next = node.lruNext;
+                    remove(node);
+                    node = next;
+                }
+
+                for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+                    readBuffer.set(i, null);
+                }
+            } finally {
+                unlock();
+            }
+        }
+    }
+}
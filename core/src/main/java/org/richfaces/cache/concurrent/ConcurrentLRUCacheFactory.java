@@ -0,0 +1,75 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.cache.concurrent;
+
+import static org.richfaces.application.configuration.ConfigurationServiceHelper.getIntConfigurationValue;
+import static org.richfaces.application.configuration.ConfigurationServiceHelper.getLongConfigurationValue;
+
+import java.util.Map;
+
+import javax.faces.context.FacesContext;
+
+import org.richfaces.application.CoreConfiguration;
+import org.richfaces.cache.Cache;
+import org.richfaces.cache.CacheFactory;
+import org.richfaces.log.Logger;
+import org.richfaces.log.RichfacesLogger;
+import org.richfaces.resource.CachedResourceWeigher;
+import org.richfaces.resource.ResourceHandlerImpl;
+
+/**
+ * <p>Creates instances of {@link ConcurrentLRUCache}. If the resources cache memory limit is configured, the created resources
+ * cache is bounded by the total size of cached resources content, other caches are bounded by the number of entries.</p>
+ *
+ * <p>The factory is not a part of the default factories chain, it has to be selected by setting
+ * {@link org.richfaces.cache.CacheManager#CACHE_MANAGER_FACTORY_CLASS} context parameter to the name of this class.</p>
+ *
+ * @since 4.5
+ */
+public class ConcurrentLRUCacheFactory implements CacheFactory {
+    private static final Logger LOG = RichfacesLogger.CACHE.getLogger();
+
+    public Cache createCache(FacesContext facesContext, String cacheName, Map<?, ?> env) {
+        int concurrencyLevel = getIntConfigurationValue(facesContext, CoreConfiguration.Items.cacheConcurrencyLevel);
+        Long memoryLimit = null;
+        if (ResourceHandlerImpl.RESOURCE_CACHE_NAME.equals(cacheName)) {
+            memoryLimit = getLongConfigurationValue(facesContext, CoreConfiguration.Items.resourcesCacheMemoryLimit);
+        }
+
+        if (memoryLimit != null) {
+            LOG.info("Creating concurrent LRU cache instance of " + memoryLimit + " bytes capacity and " + concurrencyLevel
+                + " concurrency level");
+
+            return new ConcurrentLRUCache(memoryLimit, concurrencyLevel, new CachedResourceWeigher());
+        }
+
+        int cacheSize = getIntConfigurationValue(facesContext, CoreConfiguration.Items.resourcesCacheSize);
+
+        LOG.info("Creating concurrent LRU cache instance of " + cacheSize + " items capacity and " + concurrencyLevel
+            + " concurrency level");
+
+        return new ConcurrentLRUCache(cacheSize, concurrencyLevel);
+    }
+
+    public void destroy() {
+    }
+}
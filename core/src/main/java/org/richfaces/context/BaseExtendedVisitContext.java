@@ -27,11 +27,13 @@ import java.util.AbstractCollection;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.Set;
 
 import javax.faces.component.NamingContainer;
 import javax.faces.component.UIComponent;
+import javax.faces.component.UIViewRoot;
 import javax.faces.component.visit.VisitCallback;
 import javax.faces.component.visit.VisitContext;
 import javax.faces.component.visit.VisitHint;
@@ -47,7 +49,10 @@ import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Sets;
 
 /**
- * {@link ExtendedVisitContext} that allows track visit of implicitly processed subtrees and adds support for shortIds
+ * <p>{@link ExtendedVisitContext} that allows track visit of implicitly processed subtrees and adds support for shortIds</p>
+ *
+ * <p>When all the components to visit are found in {@link ComponentIdIndex}, the subtrees that don't contain any of them
+ * are rejected, so that the visit walks just the paths from the view root to the visited components.</p>
  *
  * @author Nick Belaevski
  */
@@ -59,6 +64,9 @@ public class BaseExtendedVisitContext extends ExtendedVisitContext {
     private SetMultimap<String, String> subtreeIds;
     private ListMultimap<String, String> directSubtreeIds;
     private CollectionProxy proxiedClientIds;
+    // components on the paths from view root to the components to visit, null if the visit can't be pruned
+    private Set<UIComponent> visitPaths;
+    private boolean visitStarted;
 
     /**
      * Creates a PartialVisitorContext instance with the specified hints.
@@ -96,6 +104,11 @@ public class BaseExtendedVisitContext extends ExtendedVisitContext {
      */
     @Override
     public VisitResult invokeVisitCallback(UIComponent component, VisitCallback callback) {
+        if (!visitStarted) {
+            visitStarted = true;
+            visitPaths = findVisitPaths();
+        }
+
         if (shortIds.contains(buildExtendedComponentId(component))) {
             String clientId = buildExtendedClientId(component);
 
@@ -112,7 +125,52 @@ public class BaseExtendedVisitContext extends ExtendedVisitContext {
             }
         }
 
-        return invokeVisitCallbackForImplicitComponent(component, callback);
+        VisitResult visitResult = invokeVisitCallbackForImplicitComponent(component, callback);
+
+        if (visitResult == VisitResult.ACCEPT && visitPaths != null && !visitPaths.contains(component)) {
+            // no component to visit in this subtree
+            return VisitResult.REJECT;
+        }
+
+        return visitResult;
+    }
+
+    /**
+     * Finds paths from view root to all the components to visit.
+     *
+     * @return components on the paths or <code>null</code> if some of the components to visit is not indexed
+     */
+    private Set<UIComponent> findVisitPaths() {
+        FacesContext facesContext = getFacesContext();
+        UIViewRoot viewRoot = facesContext.getViewRoot();
+
+        if (viewRoot == null) {
+            return null;
+        }
+
+        Set<UIComponent> result = Collections.newSetFromMap(new IdentityHashMap<UIComponent, Boolean>());
+
+        for (String clientId : clientIds) {
+            UIComponent component = ComponentIdIndex.findComponent(facesContext, viewRoot, clientId);
+            if (component == null) {
+                return null;
+            }
+
+            ComponentIdIndex.addPath(component, result);
+        }
+
+        for (UIComponent component : getImplicitComponentsToVisit(viewRoot)) {
+            ComponentIdIndex.addPath(component, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the components that may be visited even though their ids were not requested, their subtrees are not pruned
+     */
+    protected Collection<UIComponent> getImplicitComponentsToVisit(UIViewRoot viewRoot) {
+        return Collections.emptySet();
     }
 
     protected VisitResult invokeVisitCallbackForImplicitComponent(UIComponent component, VisitCallback callback) {
@@ -124,6 +182,9 @@ public class BaseExtendedVisitContext extends ExtendedVisitContext {
      */
     private boolean addNode(String clientId) {
         if (clientIds.add(clientId)) {
+            // the paths were found for the original ids
+            visitPaths = null;
+
             visitClientId(clientId, addNode);
 
             return true;
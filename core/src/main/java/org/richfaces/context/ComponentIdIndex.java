@@ -0,0 +1,179 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.context;
+
+import static org.richfaces.component.MetaComponentResolver.META_COMPONENT_SEPARATOR_CHAR;
+
+import java.util.Collection;
+import java.util.Set;
+
+import javax.faces.application.Application;
+import javax.faces.component.UIComponent;
+import javax.faces.component.UINamingContainer;
+import javax.faces.component.UIViewRoot;
+import javax.faces.context.FacesContext;
+import javax.faces.event.AbortProcessingException;
+import javax.faces.event.PostAddToViewEvent;
+import javax.faces.event.PreRemoveFromViewEvent;
+import javax.faces.event.SystemEvent;
+import javax.faces.event.SystemEventListener;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.SetMultimap;
+
+/**
+ * <p>Index of components in the component tree by their ids, that allows to find a component with given client id in O(n)
+ * where "n" is depth of the tree, without walking the tree.</p>
+ *
+ * <p>The index is kept in transient state of {@link UIViewRoot} and is maintained on {@link PostAddToViewEvent} (resp.
+ * {@link PreRemoveFromViewEvent}) the same way as {@link AjaxOutputTracker} tracks {@link org.ajax4jsf.component.AjaxOutput}s.
+ * Components are indexed in the view being processed by current {@link FacesContext}. Components found in the index are
+ * checked to be attached to the view and to have the requested client id, so the index never gives wrong results; it doesn't
+ * find components that were added while the events were not processed and components inside of iteration components, whose
+ * client ids differ by rows.</p>
+ *
+ * <p>Maintaining the index costs some time on every view build, so it is enabled only by the
+ * <code>org.richfaces.componentIdIndex.enabled</code> context parameter.</p>
+ *
+ * @since 4.5
+ */
+public class ComponentIdIndex implements SystemEventListener {
+    private static final String INDEX_KEY = ComponentIdIndex.class.getName();
+
+    /**
+     * Starts indexing components of views of given application.
+     */
+    public static void subscribe(Application application) {
+        ComponentIdIndex index = new ComponentIdIndex();
+        application.subscribeToEvent(PostAddToViewEvent.class, index);
+        application.subscribeToEvent(PreRemoveFromViewEvent.class, index);
+    }
+
+    /**
+     * Tracks additions (resp. removals) of components to (resp. from) a component tree on {@link PostAddToViewEvent} (resp.
+     * {@link PreRemoveFromViewEvent})
+     */
+    @Override
+    public void processEvent(SystemEvent event) throws AbortProcessingException {
+        if (event instanceof PostAddToViewEvent) {
+            componentAdded(((PostAddToViewEvent) event).getComponent());
+        } else if (event instanceof PreRemoveFromViewEvent) {
+            componentRemoved(((PreRemoveFromViewEvent) event).getComponent());
+        } else {
+            throw new IllegalArgumentException(event.toString());
+        }
+    }
+
+    public boolean isListenerForSource(Object source) {
+        return source instanceof UIComponent && !(source instanceof UIViewRoot);
+    }
+
+    /**
+     * Finds component with given client id in the view.
+     *
+     * @param clientId client id of the component, optionally followed by meta-component id
+     * @return component with given client id or <code>null</code> if no such component is indexed
+     */
+    static UIComponent findComponent(FacesContext facesContext, UIViewRoot viewRoot, String clientId) {
+        SetMultimap<String, UIComponent> index = getIndex(viewRoot, false);
+
+        if (index == null) {
+            return null;
+        }
+
+        String componentClientId = clientId;
+        int metaSeparatorIdx = componentClientId.indexOf(META_COMPONENT_SEPARATOR_CHAR);
+        if (metaSeparatorIdx >= 0) {
+            componentClientId = componentClientId.substring(0, metaSeparatorIdx);
+        }
+
+        String id = componentClientId.substring(componentClientId.lastIndexOf(UINamingContainer
+            .getSeparatorChar(facesContext)) + 1);
+
+        Set<UIComponent> candidates = index.get(id);
+        for (UIComponent candidate : candidates) {
+            if (getViewRoot(candidate) == viewRoot && componentClientId.equals(candidate.getClientId(facesContext))) {
+                return candidate;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Adds given component and all its parents up to the view root to the collection.
+     */
+    static void addPath(UIComponent component, Collection<UIComponent> result) {
+        UIComponent c = component;
+        while (c != null && result.add(c)) {
+            c = c.getParent();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SetMultimap<String, UIComponent> getIndex(UIViewRoot viewRoot, boolean create) {
+        SetMultimap<String, UIComponent> index = (SetMultimap<String, UIComponent>) viewRoot.getTransientStateHelper()
+            .getTransient(INDEX_KEY);
+
+        if (index == null && create) {
+            index = HashMultimap.create();
+            viewRoot.getTransientStateHelper().putTransient(INDEX_KEY, index);
+        }
+
+        return index;
+    }
+
+    private static UIViewRoot getViewRoot(UIComponent component) {
+        UIComponent c = component;
+        while (c.getParent() != null) {
+            c = c.getParent();
+        }
+
+        return c instanceof UIViewRoot ? (UIViewRoot) c : null;
+    }
+
+    private static UIViewRoot getCurrentViewRoot() {
+        FacesContext facesContext = FacesContext.getCurrentInstance();
+        return facesContext != null ? facesContext.getViewRoot() : null;
+    }
+
+    private void componentAdded(UIComponent component) {
+        String id = component.getId();
+        UIViewRoot viewRoot = getCurrentViewRoot();
+
+        if (id != null && viewRoot != null) {
+            getIndex(viewRoot, true).put(id, component);
+        }
+    }
+
+    private void componentRemoved(UIComponent component) {
+        String id = component.getId();
+        UIViewRoot viewRoot = getCurrentViewRoot();
+
+        if (id != null && viewRoot != null) {
+            SetMultimap<String, UIComponent> index = getIndex(viewRoot, false);
+            if (index != null) {
+                index.remove(id, component);
+            }
+        }
+    }
+}
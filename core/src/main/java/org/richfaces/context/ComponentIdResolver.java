@@ -43,7 +43,7 @@ import org.richfaces.context.IdParser.Node;
 import org.richfaces.util.SeparatorChar;
 
 import com.google.common.base.Joiner;
-import com.google.common.base.Strings;
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.Iterators;
 
 /**
@@ -146,34 +146,22 @@ public final class ComponentIdResolver {
         metaComponentSubstitutions = substitutionsMap;
     }
 
-    private boolean hasFunctionNodes(Node[] nodes) {
-        for (Node node : nodes) {
-            if (node.getFunction() != null) {
-                return true;
-            }
-        }
-
-        return false;
-    }
-
-    private String getMetaComponentId(String s) {
-        int metaComponentIdx = s.indexOf(META_COMPONENT_SEPARATOR_CHAR);
-
-        if (metaComponentIdx < 0) {
-            return null;
-        } else {
-            return s.substring(metaComponentIdx);
-        }
+    /**
+     * Returns statistics of the cache of parsed id expressions shared by all the requests
+     */
+    public static CacheStats getIdExpressionCacheStats() {
+        return IdExpression.getCacheStats();
     }
 
     private Collection<String> computeClientIds(FacesContext context, UIComponent topMatchComponent,
         UIComponent bottomMatchComponent, String id) {
 
-        Node[] nodes = IdParser.parse(id);
-        if (!hasFunctionNodes(nodes)) {
+        IdExpression expression = IdExpression.parse(id);
+        if (!expression.hasFunctionNodes()) {
             return Collections.singleton(EMPTY_STRING_JOINER.join(bottomMatchComponent.getClientId(facesContext),
-                getMetaComponentId(id)));
+                expression.getMetaComponentId()));
         } else {
+            Node[] nodes = expression.getNodes();
             String topMatchClientId = topMatchComponent.getClientId(facesContext);
             Node[] topMatchNodes = IdParser.parse(topMatchClientId);
 
@@ -192,27 +180,10 @@ public final class ComponentIdResolver {
     }
 
     protected void addIdImmediately(String id) {
-        Node[] nodes = IdParser.parse(id);
-
         ComponentIdResolverNode resolverNode = rootNode;
 
-        for (Node node : nodes) {
-            if (node.getFunction() != null) {
-                continue;
-            }
-
-            String image = node.getImage();
-
-            int metaSepIdx = image.indexOf(META_COMPONENT_SEPARATOR_CHAR);
-            if (metaSepIdx >= 0) {
-                image = image.substring(0, metaSepIdx);
-            }
-
-            if (Strings.isNullOrEmpty(image)) {
-                continue;
-            }
-
-            resolverNode = resolverNode.getOrCreateChild(image);
+        for (String componentId : IdExpression.parse(id).getComponentIds()) {
+            resolverNode = resolverNode.getOrCreateChild(componentId);
         }
 
         unresolvedIds.add(id);
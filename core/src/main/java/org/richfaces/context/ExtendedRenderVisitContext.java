@@ -25,6 +25,7 @@ import java.util.Collection;
 import java.util.Set;
 
 import javax.faces.component.UIComponent;
+import javax.faces.component.UIViewRoot;
 import javax.faces.component.visit.VisitCallback;
 import javax.faces.component.visit.VisitContext;
 import javax.faces.component.visit.VisitContextWrapper;
@@ -74,6 +75,19 @@ public class ExtendedRenderVisitContext extends BaseExtendedVisitContext {
         return !limitRender && AjaxOutputTracker.hasNestedAjaxOutputs(component);
     }
 
+    /*
+     * (non-Javadoc)
+     * @see org.richfaces.context.BaseExtendedVisitContext#getImplicitComponentsToVisit(javax.faces.component.UIViewRoot)
+     */
+    @Override
+    protected Collection<UIComponent> getImplicitComponentsToVisit(UIViewRoot viewRoot) {
+        if (!limitRender) {
+            return AjaxOutputTracker.getAjaxOutputs(getFacesContext(), viewRoot);
+        }
+
+        return super.getImplicitComponentsToVisit(viewRoot);
+    }
+
     /*
      * (non-Javadoc)
      * @see org.richfaces.context.BaseExtendedVisitContext#addDirectSubtreeIdsToVisitForImplicitComponents(javax.faces.component.UIComponent, java.util.Set)
@@ -0,0 +1,143 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.context;
+
+import static org.richfaces.component.MetaComponentResolver.META_COMPONENT_SEPARATOR_CHAR;
+
+import java.util.List;
+
+import org.richfaces.context.IdParser.Node;
+
+import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * <p>Id expression used in <code>render</code> and <code>execute</code> attributes, parsed to the form used by
+ * {@link ComponentIdResolver}.</p>
+ *
+ * <p>Parsed expressions are immutable and are shared by all the requests of the application; the
+ * {@value #MAX_CACHED_EXPRESSIONS} most recently used ones are cached by the expression string.</p>
+ *
+ * @since 4.5
+ */
+final class IdExpression {
+    static final int MAX_CACHED_EXPRESSIONS = 1000;
+    private static final String[] EMPTY_STRINGS_ARRAY = new String[0];
+    private static final LoadingCache<String, IdExpression> CACHE = CacheBuilder.newBuilder()
+        .maximumSize(MAX_CACHED_EXPRESSIONS).recordStats().build(new CacheLoader<String, IdExpression>() {
+            @Override
+            public IdExpression load(String id) {
+                return new IdExpression(id);
+            }
+        });
+    private final Node[] nodes;
+    private final boolean hasFunctionNodes;
+    private final String metaComponentId;
+    private final String[] componentIds;
+
+    private IdExpression(String id) {
+        this.nodes = IdParser.parse(id);
+
+        int metaComponentIdx = id.indexOf(META_COMPONENT_SEPARATOR_CHAR);
+        this.metaComponentId = metaComponentIdx >= 0 ? id.substring(metaComponentIdx) : null;
+
+        boolean functionNodes = false;
+        List<String> ids = Lists.newArrayListWithCapacity(nodes.length);
+
+        for (Node node : nodes) {
+            if (node.getFunction() != null) {
+                functionNodes = true;
+                continue;
+            }
+
+            String image = node.getImage();
+
+            int metaSepIdx = image.indexOf(META_COMPONENT_SEPARATOR_CHAR);
+            if (metaSepIdx >= 0) {
+                image = image.substring(0, metaSepIdx);
+            }
+
+            if (!Strings.isNullOrEmpty(image)) {
+                ids.add(image);
+            }
+        }
+
+        this.hasFunctionNodes = functionNodes;
+        this.componentIds = ids.toArray(EMPTY_STRINGS_ARRAY);
+    }
+
+    /**
+     * Returns parsed id expression.
+     *
+     * @throws IllegalArgumentException if the expression is malformed
+     */
+    static IdExpression parse(String id) {
+        try {
+            return CACHE.getUnchecked(id);
+        } catch (UncheckedExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        }
+    }
+
+    /**
+     * Returns statistics of the cache of parsed expressions.
+     */
+    static CacheStats getCacheStats() {
+        return CACHE.stats();
+    }
+
+    /**
+     * Returns the nodes of the expression, the array must not be modified
+     */
+    Node[] getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Returns whether the expression contains function nodes, e.g. <code>@rows(...)</code>
+     */
+    boolean hasFunctionNodes() {
+        return hasFunctionNodes;
+    }
+
+    /**
+     * Returns the meta-component part of the expression including the leading separator or <code>null</code> if there is
+     * none
+     */
+    String getMetaComponentId() {
+        return metaComponentId;
+    }
+
+    /**
+     * Returns ids of the components on the path, without function nodes and meta-component ids; the array must not be
+     * modified
+     */
+    String[] getComponentIds() {
+        return componentIds;
+    }
+}
@@ -25,6 +25,7 @@ import static org.richfaces.resource.ResourceUtils.secondToMillis;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URL;
 import java.text.MessageFormat;
 import java.util.Date;
@@ -34,12 +35,12 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
 
 import javax.faces.application.Resource;
 import javax.faces.context.FacesContext;
 
 import org.ajax4jsf.io.ByteBuffer;
-import org.ajax4jsf.io.FastBufferInputStream;
 import org.ajax4jsf.io.FastBufferOutputStream;
 import org.richfaces.log.Logger;
 import org.richfaces.log.RichfacesLogger;
@@ -55,8 +56,11 @@ public class CachedResourceImpl extends AbstractCacheableResource {
     private static final int MAX_AGE_VALUE_GROUP = 2;
     private static final int SMAX_AGE_GROUP = 1;
     private static final Pattern MAX_AGE = Pattern.compile("^(?:(s-maxage)|max-age)=(\\d+)$", Pattern.CASE_INSENSITIVE);
-    private ByteBuffer content;
+    private static final String GZIP_TAG_SUFFIX = "gzip";
+    private ResourceContent content;
+    private ResourceContent gzipContent;
     private String entityTag;
+    private String gzipEntityTag;
     /**
      * serves only to define server cache entry expiration time only browser cache expiration is controlled by stored HTTP
      * headers value
@@ -169,16 +173,136 @@ public class CachedResourceImpl extends AbstractCacheableResource {
     }
 
     public void initialize(Resource resource) throws IOException {
+        initialize(resource, false);
+    }
+
+    /**
+     * Reads content and headers of the given resource.
+     *
+     * @param resource the resource to cache
+     * @param offHeap whether the content should be stored in direct memory outside of Java heap
+     * @throws IOException if content of the resource cannot be read
+     */
+    public void initialize(Resource resource, boolean offHeap) throws IOException {
+        initialize(resource, offHeap, false);
+    }
+
+    /**
+     * Reads content and headers of the given resource. If <code>gzip</code> is set and the resource has textual content, its
+     * gzip-compressed variant is prepared once here and kept next to the original content.
+     *
+     * @param resource the resource to cache
+     * @param offHeap whether the content should be stored in direct memory outside of Java heap
+     * @param gzip whether gzip-compressed variant of the content should be prepared
+     * @throws IOException if content of the resource cannot be read
+     */
+    public void initialize(Resource resource, boolean offHeap, boolean gzip) throws IOException {
         setResourceName(resource.getResourceName());
         setContentType(resource.getContentType());
         this.headers = resource.getResponseHeaders();
         initializeFromHeaders();
-        this.content = readContent(resource.getInputStream());
+
+        ByteBuffer buffer = readContent(resource.getInputStream());
+        this.content = offHeap ? new DirectResourceContent(buffer) : new HeapResourceContent(buffer);
+
+        this.gzipContent = null;
+        this.gzipEntityTag = null;
+
+        if (gzip && ResourceUtils.isCompressibleContentType(getContentType())) {
+            ByteBuffer gzipBuffer = compress(content);
+            ResourceContent compressed = new HeapResourceContent(gzipBuffer);
+
+            if (compressed.getLength() < content.getLength()) {
+                this.gzipContent = offHeap ? new DirectResourceContent(gzipBuffer) : compressed;
+                this.gzipEntityTag = ResourceUtils.variantTag(entityTag, GZIP_TAG_SUFFIX);
+            }
+        }
+    }
+
+    private static ByteBuffer compress(ResourceContent content) throws IOException {
+        FastBufferOutputStream os = new FastBufferOutputStream();
+        GZIPOutputStream gzipStream = new GZIPOutputStream(os);
+
+        content.writeTo(gzipStream);
+        gzipStream.close();
+
+        ByteBuffer buffer = os.getFirstBuffer();
+
+        buffer.compact();
+
+        return buffer;
+    }
+
+    /**
+     * Returns number of bytes of the cached resource content.
+     *
+     * @return number of bytes of the cached resource content
+     */
+    public int getContentLength() {
+        return content.getLength();
+    }
+
+    /**
+     * Writes the cached content to the given stream without creating intermediate copy of it.
+     *
+     * @param os the stream to write content to
+     * @throws IOException if content cannot be written
+     */
+    public void writeContent(OutputStream os) throws IOException {
+        content.writeTo(os);
+    }
+
+    /**
+     * Returns whether gzip-compressed variant of the content is available.
+     *
+     * @return <code>true</code> if gzip-compressed variant of the content is available
+     */
+    public boolean hasGzipContent() {
+        return gzipContent != null;
+    }
+
+    /**
+     * Returns number of bytes of gzip-compressed variant of the content.
+     *
+     * @return number of bytes of gzip-compressed variant of the content, 0 if there is no such variant
+     */
+    public int getGzipContentLength() {
+        return gzipContent != null ? gzipContent.getLength() : 0;
+    }
+
+    /**
+     * Writes gzip-compressed variant of the content to the given stream.
+     *
+     * @param os the stream to write content to
+     * @throws IOException if content cannot be written
+     */
+    public void writeGzipContent(OutputStream os) throws IOException {
+        gzipContent.writeTo(os);
+    }
+
+    /**
+     * Returns entity tag of gzip-compressed variant of the content. Representations with different content encodings have
+     * to be tagged differently, as they are not byte-for-byte identical.
+     *
+     * @param context current faces context
+     * @return entity tag of gzip-compressed variant or <code>null</code> if the resource has no entity tag
+     */
+    public String getGzipEntityTag(FacesContext context) {
+        return gzipEntityTag;
+    }
+
+    @Override
+    protected boolean isMatchesEntityTag(FacesContext context, String matchHeaderValue) {
+        if (super.isMatchesEntityTag(context, matchHeaderValue)) {
+            return true;
+        }
+
+        return gzipEntityTag != null && ResourceUtils.matchTag(gzipEntityTag, matchHeaderValue);
     }
 
     @Override
     public InputStream getInputStream() throws IOException {
-        return new FastBufferInputStream(content);
+        return content.getInputStream();
     }
 
     @Override
@@ -0,0 +1,42 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.resource;
+
+import org.richfaces.cache.concurrent.Weigher;
+
+/**
+ * Weighs {@link CachedResourceImpl} entries of resources cache by the number of bytes of their content and its gzip
+ * variant, so that the cache capacity can be expressed as a memory limit. Other entries weigh 1 byte.
+ *
+ * @since 4.5
+ */
+public class CachedResourceWeigher implements Weigher {
+    public long weigh(Object key, Object value) {
+        if (value instanceof CachedResourceImpl) {
+            CachedResourceImpl cachedResource = (CachedResourceImpl) value;
+
+            return Math.max(cachedResource.getContentLength() + cachedResource.getGzipContentLength(), 1);
+        }
+
+        return 1;
+    }
+}
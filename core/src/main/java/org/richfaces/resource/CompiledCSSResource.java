@@ -24,15 +24,21 @@ package org.richfaces.resource;
 import java.io.ByteArrayInputStream;
 import java.io.DataInput;
 import java.io.DataOutput;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.text.MessageFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.faces.application.ProjectStage;
 import javax.faces.application.Resource;
 import javax.faces.context.FacesContext;
 
+import org.richfaces.cache.Cache;
+import org.richfaces.cache.concurrent.ConcurrentLRUCache;
 import org.richfaces.log.Logger;
 import org.richfaces.log.RichfacesLogger;
 import org.richfaces.resource.css.CSSVisitorImpl;
@@ -53,6 +59,8 @@ import com.steadystate.css.parser.SACParserCSS3;
 public class CompiledCSSResource extends AbstractCacheableResource implements StateHolderResource {
     private static final Logger LOGGER = RichfacesLogger.RESOURCE.getLogger();
     private static final String NULL_STYLESHEET = "Parsed stylesheet for ''{0}'':''{1}'' resource is null.";
+    private static final int PARSED_STYLESHEETS_CACHE_SIZE = 256;
+    private static final String PARSED_STYLESHEETS_ATTRIBUTE = CompiledCSSResource.class.getName() + ":ParsedStyleSheets";
     // TODO handle sourceResources headers, etc.
     private Resource sourceResource;
 
@@ -89,6 +97,70 @@ public class CompiledCSSResource extends AbstractCacheableResource implements St
     @Override
     public InputStream getInputStream() throws IOException {
         FacesContext ctx = FacesContext.getCurrentInstance();
+        CSSStyleSheet styleSheet = getStyleSheet(ctx);
+
+        if (styleSheet != null) {
+            // TODO nick - handle encoding
+            String encoding = ctx.getExternalContext().getResponseCharacterEncoding();
+            CSSVisitorImpl cssVisitor = new CSSVisitorImpl(ctx);
+            cssVisitor.setEncoding(encoding != null ? encoding : "UTF-8");
+            cssVisitor.visitStyleSheet(styleSheet);
+
+            String cssText = cssVisitor.getCSSText();
+
+            return new ByteArrayInputStream(cssText.getBytes(cssVisitor.getEncoding()));
+        } else {
+            if (!ctx.isProjectStage(ProjectStage.Production)) {
+                LOGGER.info(MessageFormat.format(NULL_STYLESHEET, getLibraryName(), getResourceName()));
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Returns parsed source of this stylesheet. Parsing doesn't depend on skin, so parsed stylesheets are shared by all
+     * skins and requests of the application until source of the stylesheet is modified; skin-specific values are evaluated
+     * by {@link CSSVisitorImpl} for each skin.
+     */
+    CSSStyleSheet getStyleSheet(FacesContext ctx) {
+        ParsedStyleSheets parsedStyleSheets = ParsedStyleSheets.getInstance(ctx);
+        String styleSheetKey = getStyleSheetKey(ctx, parsedStyleSheets);
+        CSSStyleSheet styleSheet = (CSSStyleSheet) parsedStyleSheets.styleSheets.get(styleSheetKey);
+
+        if (styleSheet == null) {
+            styleSheet = parseStyleSheet(ctx);
+
+            if (styleSheet != null) {
+                parsedStyleSheets.styleSheets.put(styleSheetKey, styleSheet, null);
+            }
+        }
+
+        return styleSheet;
+    }
+
+    private String getStyleSheetKey(FacesContext ctx, ParsedStyleSheets parsedStyleSheets) {
+        String resourceKey = getLibraryName() + ':' + getResourceName();
+        long lastModified = 0;
+
+        // resources packaged in JARs don't change until redeployment, files can be modified on Development stage
+        if (ctx.isProjectStage(ProjectStage.Development)) {
+            Object sourceFile = parsedStyleSheets.sourceFiles.get(resourceKey);
+
+            if (sourceFile == null) {
+                File file = ResourceUtils.getResourceFile(sourceResource);
+                sourceFile = file != null ? file : Boolean.FALSE;
+                parsedStyleSheets.sourceFiles.put(resourceKey, sourceFile);
+            }
+
+            if (sourceFile instanceof File) {
+                lastModified = ((File) sourceFile).lastModified();
+            }
+        }
+
+        return resourceKey + '@' + lastModified;
+    }
+
+    private CSSStyleSheet parseStyleSheet(FacesContext ctx) {
         InputStream stream = null;
         CSSStyleSheet styleSheet = null;
         try {
@@ -116,22 +188,7 @@ public class CompiledCSSResource extends AbstractCacheableResource implements St
             }
         }
 
-        if (styleSheet != null) {
-            // TODO nick - handle encoding
-            String encoding = ctx.getExternalContext().getResponseCharacterEncoding();
-            CSSVisitorImpl cssVisitor = new CSSVisitorImpl(ctx);
-            cssVisitor.setEncoding(encoding != null ? encoding : "UTF-8");
-            cssVisitor.visitStyleSheet(styleSheet);
-
-            String cssText = cssVisitor.getCSSText();
-
-            return new ByteArrayInputStream(cssText.getBytes(cssVisitor.getEncoding()));
-        } else {
-            if (!ctx.isProjectStage(ProjectStage.Production)) {
-                LOGGER.info(MessageFormat.format(NULL_STYLESHEET, getLibraryName(), getResourceName()));
-            }
-            return null;
-        }
+        return styleSheet;
     }
 
     @Override
@@ -155,6 +212,39 @@ public class CompiledCSSResource extends AbstractCacheableResource implements St
         return super.userAgentNeedsUpdate(context);
     }
 
+    /**
+     * Parsed stylesheets of an application, kept in application map so that applications sharing RichFaces classes don't
+     * share them
+     */
+    private static final class ParsedStyleSheets {
+        /**
+         * parsed stylesheets by resource and last modification time of their source
+         */
+        private final Cache styleSheets = new ConcurrentLRUCache(PARSED_STYLESHEETS_CACHE_SIZE);
+        /**
+         * source files of stylesheets by resource, {@link Boolean#FALSE} for stylesheets not stored in files
+         */
+        private final ConcurrentMap<String, Object> sourceFiles = new ConcurrentHashMap<String, Object>();
+
+        static ParsedStyleSheets getInstance(FacesContext context) {
+            Map<String, Object> applicationMap = context.getExternalContext().getApplicationMap();
+            ParsedStyleSheets instance = (ParsedStyleSheets) applicationMap.get(PARSED_STYLESHEETS_ATTRIBUTE);
+
+            if (instance == null) {
+                synchronized (ParsedStyleSheets.class) {
+                    instance = (ParsedStyleSheets) applicationMap.get(PARSED_STYLESHEETS_ATTRIBUTE);
+
+                    if (instance == null) {
+                        instance = new ParsedStyleSheets();
+                        applicationMap.put(PARSED_STYLESHEETS_ATTRIBUTE, instance);
+                    }
+                }
+            }
+
+            return instance;
+        }
+    }
+
     private static final class ErrorHandlerImpl implements ErrorHandler {
         // TODO nick - sort out logging between stages
         private boolean productionStage;
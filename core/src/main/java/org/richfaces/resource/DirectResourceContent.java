@@ -0,0 +1,125 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * <p>Keeps resource content off heap, in a direct {@link ByteBuffer}, so that large cached resources don't have to be
+ * traversed and copied by garbage collector.</p>
+ *
+ * <p>Content is written to output streams through the per-thread transfer buffer of {@link ResourceUtils}, the whole
+ * content is never copied back to heap.</p>
+ *
+ * @since 4.5
+ */
+final class DirectResourceContent implements ResourceContent {
+    private final ByteBuffer buffer;
+
+    DirectResourceContent(org.ajax4jsf.io.ByteBuffer heapBuffer) {
+        int length = 0;
+        for (org.ajax4jsf.io.ByteBuffer link = heapBuffer; link != null; link = link.getNext()) {
+            length += link.getUsedSize();
+        }
+
+        ByteBuffer directBuffer = ByteBuffer.allocateDirect(length);
+        for (org.ajax4jsf.io.ByteBuffer link = heapBuffer; link != null; link = link.getNext()) {
+            directBuffer.put(link.getBytes(), 0, link.getUsedSize());
+        }
+
+        directBuffer.flip();
+
+        this.buffer = directBuffer.asReadOnlyBuffer();
+    }
+
+    public int getLength() {
+        return buffer.limit();
+    }
+
+    public InputStream getInputStream() {
+        return new ByteBufferInputStream(buffer.duplicate());
+    }
+
+    public void writeTo(OutputStream os) throws IOException {
+        ByteBuffer source = buffer.duplicate();
+        byte[] transferBuffer = ResourceUtils.acquireTransferBuffer();
+
+        try {
+            while (source.hasRemaining()) {
+                int length = Math.min(source.remaining(), transferBuffer.length);
+                source.get(transferBuffer, 0, length);
+                os.write(transferBuffer, 0, length);
+            }
+        } finally {
+            ResourceUtils.releaseTransferBuffer(transferBuffer);
+        }
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer source;
+
+        ByteBufferInputStream(ByteBuffer source) {
+            this.source = source;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!source.hasRemaining()) {
+                return -1;
+            }
+
+            return source.get() & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+
+            if (!source.hasRemaining()) {
+                return -1;
+            }
+
+            int length = Math.min(len, source.remaining());
+            source.get(b, off, length);
+
+            return length;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            int length = (int) Math.min(Math.max(n, 0), source.remaining());
+            source.position(source.position() + length);
+
+            return length;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return source.remaining();
+        }
+    }
+}
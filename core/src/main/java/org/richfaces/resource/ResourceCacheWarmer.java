@@ -0,0 +1,133 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.resource;
+
+import java.text.MessageFormat;
+import java.util.Collection;
+import java.util.Set;
+
+import javax.faces.application.ResourceHandler;
+import javax.faces.application.ResourceHandlerWrapper;
+import javax.faces.context.FacesContext;
+
+import org.richfaces.log.Logger;
+import org.richfaces.log.RichfacesLogger;
+import org.richfaces.resource.mapping.PropertiesResourceMapper;
+
+import com.google.common.collect.Sets;
+
+/**
+ * <p>Populates resources cache on application startup, so that the first requests for resources don't have to build them.</p>
+ *
+ * <p>Resources listed in dynamic resource mapping files are created and cached the same way as if they were requested by
+ * user agent. Resources listed in static resource mapping files produced by resource optimizer are skipped, as they are
+ * served from the files written by the optimizer and never from the cache. Resources are built one by one by the thread
+ * starting the application, as faces context of the application startup cannot be shared with other threads. The warm-up
+ * is limited by time checked between resources: the resource being built when the time is over is completed, the remaining
+ * resources are built on demand.</p>
+ *
+ * @since 4.5
+ */
+public final class ResourceCacheWarmer {
+    private static final Logger LOGGER = RichfacesLogger.RESOURCE.getLogger();
+    private final ResourceHandlerImpl resourceHandler;
+    private final long timeout;
+
+    /**
+     * @param resourceHandler the handler used to build and cache resources
+     * @param timeout maximum time in milliseconds the warm-up may take
+     */
+    public ResourceCacheWarmer(ResourceHandlerImpl resourceHandler, long timeout) {
+        this.resourceHandler = resourceHandler;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Looks up RichFaces resource handler in the chain of resource handlers.
+     *
+     * @param resourceHandler the first resource handler in the chain
+     * @return RichFaces resource handler or <code>null</code> if the chain doesn't contain it
+     */
+    public static ResourceHandlerImpl findResourceHandler(ResourceHandler resourceHandler) {
+        ResourceHandler handler = resourceHandler;
+
+        while (handler != null) {
+            if (handler instanceof ResourceHandlerImpl) {
+                return (ResourceHandlerImpl) handler;
+            }
+
+            handler = handler instanceof ResourceHandlerWrapper ? ((ResourceHandlerWrapper) handler).getWrapped() : null;
+        }
+
+        return null;
+    }
+
+    /**
+     * Builds and caches the resources.
+     *
+     * @param context faces context of the application startup
+     * @return number of resources stored in the cache
+     */
+    public int warmUp(FacesContext context) {
+        Set<ResourceKey> resourceKeys = Sets.newLinkedHashSet(resourceHandler.getMappedDynamicResourceKeys());
+        resourceKeys.removeAll(PropertiesResourceMapper.getStaticallyMappedResourceKeys());
+
+        long startTime = System.currentTimeMillis();
+        int cached = warmUp(context, resourceKeys, startTime + timeout);
+
+        LOGGER.info(MessageFormat.format("Resources cache warm-up: {0} of {1} resources cached in {2} ms",
+            String.valueOf(cached), String.valueOf(resourceKeys.size()), String.valueOf(System.currentTimeMillis() - startTime)));
+
+        return cached;
+    }
+
+    private int warmUp(FacesContext context, Collection<ResourceKey> resourceKeys, long deadline) {
+        int cached = 0;
+
+        for (ResourceKey resourceKey : resourceKeys) {
+            if (System.currentTimeMillis() > deadline) {
+                LOGGER.warn("Resources cache warm-up has not completed in time, remaining resources will be built on demand");
+                break;
+            }
+
+            if (preloadResource(context, resourceKey)) {
+                cached++;
+            }
+        }
+
+        return cached;
+    }
+
+    private boolean preloadResource(FacesContext context, ResourceKey resourceKey) {
+        try {
+            return resourceHandler.preloadResource(context, resourceKey);
+        } catch (Exception e) {
+            LOGGER.warn(MessageFormat.format("Resource {0} could not be cached on startup: {1}", resourceKey, e.getMessage()));
+
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug(e.getMessage(), e);
+            }
+
+            return false;
+        }
+    }
+}
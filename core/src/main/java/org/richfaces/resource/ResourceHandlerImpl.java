@@ -21,14 +21,26 @@
  */
 package org.richfaces.resource;
 
+import static org.richfaces.application.configuration.ConfigurationServiceHelper.getBooleanConfigurationValue;
+import static org.richfaces.application.configuration.ConfigurationServiceHelper.getIntConfigurationValue;
+import static org.richfaces.application.configuration.ConfigurationServiceHelper.getLongConfigurationValue;
+
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLConnection;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import javax.faces.application.ProjectStage;
 import javax.faces.application.Resource;
@@ -38,13 +50,20 @@ import javax.faces.context.ExternalContext;
 import javax.faces.context.FacesContext;
 import javax.servlet.http.HttpServletResponse;
 
+import org.richfaces.application.CoreConfiguration;
 import org.richfaces.cache.Cache;
+import org.richfaces.cache.concurrent.ConcurrentLRUCache;
 import org.richfaces.log.Logger;
 import org.richfaces.log.RichfacesLogger;
+import org.richfaces.resource.mapping.PropertiesResourceMapper;
 import org.richfaces.renderkit.html.ResourceLibraryRenderer;
+import org.richfaces.resource.metrics.ResourceHandlerListener;
+import org.richfaces.resource.metrics.ResourceHandlerListeners;
 import org.richfaces.application.ServiceTracker;
 import org.richfaces.util.RequestStateManager.BooleanRequestStateVariable;
 
+import com.google.common.io.CountingOutputStream;
+
 /**
  * <p>RichFaces-specific {@link ResourceHandler}.</p>
  *
@@ -66,19 +85,78 @@ public class ResourceHandlerImpl extends ResourceHandlerWrapper {
     public static final String RESOURCE_CACHE_NAME = "org.richfaces.ResourcesCache";
     public static final String HANDLER_START_TIME_ATTRIBUTE = ResourceHandlerImpl.class.getName() + ":StartTime";
     private static final Logger LOGGER = RichfacesLogger.RESOURCE.getLogger();
+    private static final int OVERSIZED_RESOURCES_CACHE_SIZE = 1024;
+    private static final int GZIP_SIBLINGS_CACHE_SIZE = 1024;
+    /**
+     * time in milliseconds after which the presence of gzip-compressed copy of a resource is checked again
+     */
+    private static final long GZIP_SIBLINGS_CHECK_INTERVAL = 60000;
+    private static final String JAVAX_FACES_RESOURCE_IDENTIFIER = ResourceHandler.RESOURCE_IDENTIFIER + "/";
+    private static final String GZIP_VARIANT = "gzip";
 
     private ResourceFactory resourceFactory;
     private ResourceHandler defaultHandler;
+    /**
+     * keys of resources which content exceeded the cache entry size limit, these are streamed without buffering
+     */
+    private final Cache oversizedResources = new ConcurrentLRUCache(OVERSIZED_RESOURCES_CACHE_SIZE);
+    /**
+     * URLs of gzip-compressed copies of static optimized resources, {@link Boolean#FALSE} for resources without such copy
+     */
+    private final Cache gzipSiblings = new ConcurrentLRUCache(GZIP_SIBLINGS_CACHE_SIZE);
+    private volatile StaticResourcePaths staticResourcePaths;
+    private final ResourceLoadings resourceLoadings = new ResourceLoadings();
+
+    /**
+     * Paths of the files written by resource optimizer, as they are requested from the default resource handler.
+     */
+    private static final class StaticResourcePaths {
+        private final Set<String> paths = new HashSet<String>();
+        // skin dependent paths split at the skin placeholder
+        private final List<String[]> skinDependentPaths = new ArrayList<String[]>();
+
+        StaticResourcePaths(Collection<String> mappedPaths) {
+            for (String path : mappedPaths) {
+                int skinIdx = path.indexOf(ResourceFactory.SKINNED_RESOURCE_PLACEHOLDER);
+
+                if (skinIdx >= 0) {
+                    skinDependentPaths.add(new String[] { path.substring(0, skinIdx),
+                            path.substring(skinIdx + ResourceFactory.SKINNED_RESOURCE_PLACEHOLDER.length()) });
+                } else {
+                    paths.add(path);
+                }
+            }
+        }
+
+        boolean contains(String path) {
+            if (paths.contains(path)) {
+                return true;
+            }
+
+            for (String[] skinDependentPath : skinDependentPaths) {
+                if (path.length() > skinDependentPath[0].length() + skinDependentPath[1].length()
+                    && path.startsWith(skinDependentPath[0]) && path.endsWith(skinDependentPath[1])) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+    }
 
     public ResourceHandlerImpl(ResourceHandler defaultHandler) {
-        this.defaultHandler = defaultHandler;
-        this.resourceFactory = new ResourceFactoryImpl(defaultHandler);
+        this(defaultHandler, new ResourceFactoryImpl(defaultHandler));
 
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug(MessageFormat.format("Instance of {0} resource handler created", getClass().getName()));
         }
     }
 
+    ResourceHandlerImpl(ResourceHandler defaultHandler, ResourceFactory resourceFactory) {
+        this.defaultHandler = defaultHandler;
+        this.resourceFactory = resourceFactory;
+    }
+
     /*
      * (non-Javadoc)
      * @see javax.faces.application.ResourceHandlerWrapper#isResourceRequest(javax.faces.context.FacesContext)
@@ -104,47 +182,34 @@ public class ResourceHandlerImpl extends ResourceHandlerWrapper {
             ResourceRequestData data = resourceCodec.decodeResource(context, resourcePath);
             assert (data != null);
 
+            ResourceHandlerListener listener = getListener(context);
             Cache cache = ServiceTracker.getService(context, Cache.class);
             Resource resource = lookupInCache(cache, data.getResourceKey());
 
             if (resource == null) {
-                resource = resourceFactory.createResource(context, data);
-            }
-
-            if (resource == null) {
-                sendResourceNotFound(context);
-                return;
-            }
-
-            if (resource instanceof CacheableResource) {
-                CacheableResource cacheableResource = (CacheableResource) resource;
+                if (listener != null) {
+                    listener.cacheMiss(data.getResourceKey());
+                }
 
-                if (cacheableResource.isCacheable(context)) {
+                long startTime = listener != null ? System.nanoTime() : 0;
 
-                    // TODO - we could move this part of code to ConcurrentMap so that
-                    // only single thread does resource put
-                    CachedResourceImpl cachedResource = new CachedResourceImpl();
+                resource = loadResource(context, cache, data, listener);
 
-                    cachedResource.initialize(resource);
+                if (listener != null && resource != null) {
+                    listener.resourceLoaded(data.getResourceKey(), System.nanoTime() - startTime);
+                }
+            } else if (listener != null) {
+                listener.cacheHit(data.getResourceKey());
+            }
 
-                    // someone may provided this resource for us
-                    // while we were reading it, check once again
-                    resource = lookupInCache(cache, data.getResourceKey());
+            if (resource == null) {
+                sendResourceNotFound(context);
 
-                    if (resource == null) {
-                        // don't cache it on Development stage
-                        if (!ProjectStage.Development.equals(context.getApplication().getProjectStage())) {
-                            Date cacheExpirationDate = cachedResource.getExpired(context);
-                            if (LOGGER.isDebugEnabled()) {
-                                LOGGER.debug(new MessageFormat(
-                                        "Storing {0} resource in cache until {1,date,dd MMM yyyy HH:mm:ss zzz}", Locale.US)
-                                        .format(new Object[] { data.getResourceKey(), cacheExpirationDate }));
-                            }
-                            cache.put(data.getResourceKey(), cachedResource, cacheExpirationDate);
-                        }
-                        resource = cachedResource;
-                    }
+                if (listener != null) {
+                    listener.resourceServed(data.getResourceKey(), HttpServletResponse.SC_NOT_FOUND, -1);
                 }
+
+                return;
             }
 
             if (resource.userAgentNeedsUpdate(context)) {
@@ -179,39 +244,46 @@ public class ResourceHandlerImpl extends ResourceHandlerWrapper {
                     externalContext.setResponseContentType(contentType);
                 }
 
+                long contentLength = -1;
+
                 if (resource instanceof ContentProducerResource) {
                     ContentProducerResource contentProducerResource = (ContentProducerResource) resource;
                     contentProducerResource.encode(context);
+                } else if (resource instanceof CachedResourceImpl) {
+                    contentLength = serveCached(context, (CachedResourceImpl) resource);
                 } else {
-                    // TODO setup output buffer size according to configuration parameter
-                    InputStream is = resource.getInputStream();
-                    OutputStream os = externalContext.getResponseOutputStream();
-
-                    try {
-                        ResourceUtils.copyStreamContent(is, os);
-                    } finally {
-                        if (is != null) {
-                            try {
-                                is.close();
-                            } catch (IOException e) {
-                                if (LOGGER.isDebugEnabled()) {
-                                    LOGGER.debug(e.getMessage(), e);
-                                }
-                            }
-                        }
+                    File file = isBinary(resource) ? ResourceUtils.getResourceFile(resource) : null;
 
-                        // TODO flush resource
-                        // TODO dispose resource
+                    if (file != null) {
+                        contentLength = serveFile(externalContext, file);
+                    } else {
+                        contentLength = serveStream(externalContext, resource, listener != null);
                     }
                 }
 
+                if (listener != null) {
+                    listener.resourceServed(data.getResourceKey(), HttpServletResponse.SC_OK, contentLength);
+                }
+
                 if (LOGGER.isDebugEnabled()) {
                     LOGGER.debug("Resource succesfully encoded");
                 }
             } else {
+                if (resource instanceof CachedResourceImpl) {
+                    setNotModifiedEntityTag(context, (CachedResourceImpl) resource);
+                }
+
                 sendNotModified(context);
+
+                if (listener != null) {
+                    listener.resourceServed(data.getResourceKey(), HttpServletResponse.SC_NOT_MODIFIED, 0);
+                }
             }
         } else {
+            if (serveGzipSibling(context)) {
+                return;
+            }
+
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug("Passing request to the next resource handler in chain");
             }
@@ -220,6 +292,401 @@ public class ResourceHandlerImpl extends ResourceHandlerWrapper {
         }
     }
 
+    /**
+     * Creates the requested resource and caches it if it is cacheable. Concurrent requests for the same resource are
+     * coalesced, so that only one thread creates it while the others wait for the result.
+     */
+    private Resource loadResource(final FacesContext context, final Cache cache, final ResourceRequestData data,
+        ResourceHandlerListener listener) throws IOException {
+
+        return resourceLoadings.load(data.getResourceKey(), new ResourceLoadings.ResourceLoader() {
+            public Resource load() throws IOException {
+                // resource may have been cached after the cache lookup of this request
+                Resource resource = lookupInCache(cache, data.getResourceKey());
+
+                if (resource == null) {
+                    resource = createAndCacheResource(context, cache, data);
+                }
+
+                return resource;
+            }
+        }, getLongConfigurationValue(context, CoreConfiguration.Items.resourcesLoadingWaitTimeout), listener);
+    }
+
+    private Resource createAndCacheResource(FacesContext context, Cache cache, ResourceRequestData data) throws IOException {
+        Resource resource = resourceFactory.createResource(context, data);
+
+        if (resource == null) {
+            return null;
+        }
+
+        return cacheResource(context, cache, data.getResourceKey(), resource);
+    }
+
+    /**
+     * Stores the given resource in the cache if it is cacheable.
+     *
+     * @return cached copy of the resource or the resource itself if it is not cacheable
+     */
+    private Resource cacheResource(FacesContext context, Cache cache, String resourceKey, Resource resource)
+        throws IOException {
+
+        if (resource instanceof CacheableResource) {
+            CacheableResource cacheableResource = (CacheableResource) resource;
+
+            if (cacheableResource.isCacheable(context) && oversizedResources.get(resourceKey) == null) {
+                CachedResourceImpl cachedResource = new CachedResourceImpl();
+
+                ResourceHandlerListener listener = getListener(context);
+
+                if (listener != null) {
+                    listener.resourceBuilt(resourceKey);
+                }
+
+                cachedResource.initialize(resource,
+                    getBooleanConfigurationValue(context, CoreConfiguration.Items.resourcesCacheOffHeap),
+                    getBooleanConfigurationValue(context, CoreConfiguration.Items.resourcesGzip));
+
+                // someone may provided this resource for us
+                // while we were reading it, check once again
+                resource = lookupInCache(cache, resourceKey);
+
+                if (resource == null && isOversized(context, cachedResource)) {
+                    if (LOGGER.isDebugEnabled()) {
+                        LOGGER.debug(MessageFormat.format("Resource {0} exceeds cache entry size limit, it won''t be cached",
+                            resourceKey));
+                    }
+
+                    oversizedResources.put(resourceKey, Boolean.TRUE, null);
+                    resource = cachedResource;
+                } else if (resource == null) {
+                    // don't cache it on Development stage
+                    if (!ProjectStage.Development.equals(context.getApplication().getProjectStage())) {
+                        Date cacheExpirationDate = cachedResource.getExpired(context);
+                        if (LOGGER.isDebugEnabled()) {
+                            LOGGER.debug(new MessageFormat(
+                                    "Storing {0} resource in cache until {1,date,dd MMM yyyy HH:mm:ss zzz}", Locale.US)
+                                    .format(new Object[] { resourceKey, cacheExpirationDate }));
+                        }
+                        cache.put(resourceKey, cachedResource, cacheExpirationDate);
+                    }
+                    resource = cachedResource;
+                }
+            }
+        }
+
+        return resource;
+    }
+
+    /**
+     * Creates the resource with the given key and stores it in the cache, the same way as if it was requested by user agent.
+     * The resource is created in its default state, i.e. with the state it has when it is rendered using the current skin.
+     *
+     * @param context current faces context
+     * @param resourceKey key of the resource
+     * @return <code>true</code> if the resource was stored in the cache
+     * @throws IOException if content of the resource cannot be read
+     */
+    boolean preloadResource(FacesContext context, final ResourceKey resourceKey) throws IOException {
+        Resource resource = resourceFactory.createResource(context, new ResourceRequestData() {
+            public String getResourceName() {
+                return resourceKey.getResourceName();
+            }
+
+            public String getLibraryName() {
+                return resourceKey.getLibraryName();
+            }
+
+            public String getVersion() {
+                return null;
+            }
+
+            public Object getData() {
+                return null;
+            }
+
+            public String getResourceKey() {
+                return resourceKey.toString();
+            }
+        });
+
+        if (!(resource instanceof CacheableResource) || !((CacheableResource) resource).isCacheable(context)) {
+            return false;
+        }
+
+        // cache key is computed the same way it is decoded from request path
+        ResourceCodec resourceCodec = ServiceTracker.getService(context, ResourceCodec.class);
+        String version = resource instanceof VersionedResource ? ((VersionedResource) resource).getVersion() : null;
+        String requestPath = resourceCodec.encodeResourceRequestPath(context, resource.getLibraryName(),
+            resource.getResourceName(), ResourceUtils.saveResourceState(context, resource), version);
+
+        if (requestPath == null || !requestPath.startsWith(RICHFACES_RESOURCE_IDENTIFIER)) {
+            return false;
+        }
+
+        String cacheKey = requestPath.substring(RICHFACES_RESOURCE_IDENTIFIER.length());
+        Cache cache = ServiceTracker.getService(context, Cache.class);
+
+        if (cache == null || cache.get(cacheKey) != null) {
+            return false;
+        }
+
+        return cacheResource(context, cache, cacheKey, resource) instanceof CachedResourceImpl && cache.get(cacheKey) != null;
+    }
+
+    /**
+     * Returns keys of resources mapped to their implementations by resource mapping files.
+     *
+     * @return keys of mapped dynamic resources
+     */
+    Collection<ResourceKey> getMappedDynamicResourceKeys() {
+        return resourceFactory.getMappedDynamicResourceKeys();
+    }
+
+    /**
+     * Textual resources may be post-processed when read from their input stream, e.g. EL expressions are evaluated in
+     * stylesheets, so only binary ones are served from their files directly.
+     */
+    private static boolean isBinary(Resource resource) {
+        String contentType = resource.getContentType();
+
+        return contentType != null && !contentType.startsWith("text/") && !contentType.contains("javascript");
+    }
+
+    private static int serveCached(FacesContext context, CachedResourceImpl cachedResource) throws IOException {
+        ExternalContext externalContext = context.getExternalContext();
+
+        if (cachedResource.hasGzipContent()) {
+            // responses differ by content encoding, intermediate caches should take it into account
+            externalContext.setResponseHeader("Vary", "Accept-Encoding");
+
+            if (ResourceUtils.acceptsGzip(externalContext.getRequestHeaderMap().get("Accept-Encoding"))) {
+                String gzipEntityTag = cachedResource.getGzipEntityTag(context);
+
+                if (gzipEntityTag != null) {
+                    externalContext.setResponseHeader("ETag", gzipEntityTag);
+                }
+
+                externalContext.setResponseHeader("Content-Encoding", "gzip");
+                externalContext.setResponseContentLength(cachedResource.getGzipContentLength());
+                cachedResource.writeGzipContent(externalContext.getResponseOutputStream());
+
+                return cachedResource.getGzipContentLength();
+            }
+        }
+
+        externalContext.setResponseContentLength(cachedResource.getContentLength());
+        cachedResource.writeContent(externalContext.getResponseOutputStream());
+
+        return cachedResource.getContentLength();
+    }
+
+    /**
+     * Tags 304 response with the entity tag of the variant the user agent has, so that it keeps the right tag.
+     */
+    private static void setNotModifiedEntityTag(FacesContext context, CachedResourceImpl cachedResource) {
+        if (!cachedResource.hasGzipContent()) {
+            return;
+        }
+
+        ExternalContext externalContext = context.getExternalContext();
+        String matchHeaderValue = externalContext.getRequestHeaderMap().get("If-None-Match");
+        String gzipEntityTag = cachedResource.getGzipEntityTag(context);
+        String entityTag;
+
+        if (gzipEntityTag != null && matchHeaderValue != null && ResourceUtils.matchTag(gzipEntityTag, matchHeaderValue)) {
+            entityTag = gzipEntityTag;
+        } else {
+            entityTag = cachedResource.getEntityTag(context);
+        }
+
+        externalContext.setResponseHeader("Vary", "Accept-Encoding");
+
+        if (entityTag != null) {
+            externalContext.setResponseHeader("ETag", entityTag);
+        }
+    }
+
+    /**
+     * Serves gzip-compressed copy (<code>.gz</code> file) written by resource optimizer next to a static optimized resource
+     * handled by the default resource handler to user agents accepting gzip content encoding. The copy is served as is, the
+     * resource is not compressed at runtime. Copies are not looked up on Development stage, as the resources may change.
+     *
+     * @return <code>true</code> if the response has been served
+     */
+    private boolean serveGzipSibling(FacesContext context) throws IOException {
+        ExternalContext externalContext = context.getExternalContext();
+
+        if (!getBooleanConfigurationValue(context, CoreConfiguration.Items.resourcesGzip)
+            || context.isProjectStage(ProjectStage.Development)
+            || !ResourceUtils.acceptsGzip(externalContext.getRequestHeaderMap().get("Accept-Encoding"))) {
+            return false;
+        }
+
+        String resourcePath = ResourceUtils.decodeResourceURL(context);
+
+        if (resourcePath == null || !resourcePath.startsWith(JAVAX_FACES_RESOURCE_IDENTIFIER)) {
+            return false;
+        }
+
+        String resourceName = resourcePath.substring(JAVAX_FACES_RESOURCE_IDENTIFIER.length());
+        String libraryName = externalContext.getRequestParameterMap().get("ln");
+        String resourceKey = ResourceKey.create(resourceName, libraryName).toString();
+        Object gzipSibling = gzipSiblings.get(resourceKey);
+
+        if (Boolean.FALSE.equals(gzipSibling)
+            || (gzipSibling == null && !getStaticResourcePaths().contains(libraryName != null ? libraryName + "/" + resourceName
+                : resourceName))) {
+            return false;
+        }
+
+        Resource resource = defaultHandler.createResource(resourceName, libraryName);
+
+        if (resource == null) {
+            return false;
+        }
+
+        URL gzipURL = (URL) gzipSibling;
+
+        if (gzipURL == null) {
+            URL url;
+
+            try {
+                url = resource.getURL();
+            } catch (UnsupportedOperationException e) {
+                url = null;
+            }
+
+            gzipURL = url != null ? ResourceUtils.getGzipSiblingURL(url) : null;
+            gzipSiblings.put(resourceKey, gzipURL != null ? gzipURL : Boolean.FALSE,
+                new Date(System.currentTimeMillis() + GZIP_SIBLINGS_CHECK_INTERVAL));
+
+            if (gzipURL == null) {
+                return false;
+            }
+        }
+
+        Map<String, String> headers = resource.getResponseHeaders();
+        String gzipEntityTag = null;
+
+        for (Entry<String, String> headerEntry : headers.entrySet()) {
+            if ("etag".equals(headerEntry.getKey().toLowerCase(Locale.US))) {
+                gzipEntityTag = ResourceUtils.variantTag(headerEntry.getValue(), GZIP_VARIANT);
+            }
+        }
+
+        String matchHeaderValue = externalContext.getRequestHeaderMap().get("If-None-Match");
+        boolean notModified = gzipEntityTag != null && matchHeaderValue != null
+            && ResourceUtils.matchTag(gzipEntityTag, matchHeaderValue);
+
+        // the resource is answered here also when it is not modified, so that it is not created by the default handler again
+        if (notModified || !resource.userAgentNeedsUpdate(context)) {
+            externalContext.setResponseHeader("Vary", "Accept-Encoding");
+            if (gzipEntityTag != null) {
+                externalContext.setResponseHeader("ETag", gzipEntityTag);
+            }
+            sendNotModified(context);
+
+            return true;
+        }
+
+        URLConnection connection = gzipURL.openConnection();
+        InputStream is = connection.getInputStream();
+
+        try {
+            for (Entry<String, String> headerEntry : headers.entrySet()) {
+                String headerName = headerEntry.getKey().toLowerCase(Locale.US);
+
+                if (!"content-length".equals(headerName) && !"etag".equals(headerName)) {
+                    externalContext.setResponseHeader(headerEntry.getKey(), headerEntry.getValue());
+                }
+            }
+
+            if (gzipEntityTag != null) {
+                externalContext.setResponseHeader("ETag", gzipEntityTag);
+            }
+
+            if (resource.getContentType() != null) {
+                externalContext.setResponseContentType(resource.getContentType());
+            }
+
+            externalContext.setResponseHeader("Vary", "Accept-Encoding");
+            externalContext.setResponseHeader("Content-Encoding", "gzip");
+
+            if (connection.getContentLength() >= 0) {
+                externalContext.setResponseContentLength(connection.getContentLength());
+            }
+
+            ResourceUtils.copyStreamContent(is, externalContext.getResponseOutputStream());
+        } finally {
+            is.close();
+        }
+
+        return true;
+    }
+
+    private StaticResourcePaths getStaticResourcePaths() {
+        StaticResourcePaths paths = staticResourcePaths;
+
+        if (paths == null) {
+            paths = new StaticResourcePaths(PropertiesResourceMapper.getStaticallyMappedResourcePaths());
+            staticResourcePaths = paths;
+        }
+
+        return paths;
+    }
+
+    private static long serveFile(ExternalContext externalContext, File file) throws IOException {
+        long length = file.length();
+
+        if (length <= Integer.MAX_VALUE) {
+            externalContext.setResponseContentLength((int) length);
+        }
+
+        ResourceUtils.copyFileContent(file, externalContext.getResponseOutputStream());
+
+        return length;
+    }
+
+    /**
+     * @return number of written bytes or -1 if they were not counted
+     */
+    private static long serveStream(ExternalContext externalContext, Resource resource, boolean countBytes)
+        throws IOException {
+        // TODO setup output buffer size according to configuration parameter
+        InputStream is = resource.getInputStream();
+        OutputStream os = externalContext.getResponseOutputStream();
+        CountingOutputStream countingStream = countBytes ? new CountingOutputStream(os) : null;
+
+        try {
+            ResourceUtils.copyStreamContent(is, countingStream != null ? countingStream : os);
+
+            return countingStream != null ? countingStream.getCount() : -1;
+        } finally {
+            if (is != null) {
+                try {
+                    is.close();
+                } catch (IOException e) {
+                    if (LOGGER.isDebugEnabled()) {
+                        LOGGER.debug(e.getMessage(), e);
+                    }
+                }
+            }
+
+            // TODO flush resource
+            // TODO dispose resource
+        }
+    }
+
+    /**
+     * @return listener to notify about processed requests or <code>null</code> if there are no listeners
+     */
+    private static ResourceHandlerListener getListener(FacesContext context) {
+        ResourceHandlerListeners listeners = ServiceTracker.getService(context, ResourceHandlerListeners.class);
+
+        return listeners != null && !listeners.isEmpty() ? listeners : null;
+    }
+
     protected boolean isThisHandlerResourceRequest(FacesContext context) {
         Boolean resourceRequest = BooleanRequestStateVariable.ResourceRequest.get(context);
 
@@ -238,6 +705,12 @@ public class ResourceHandlerImpl extends ResourceHandlerWrapper {
         return resourceRequest;
     }
 
+    private static boolean isOversized(FacesContext context, CachedResourceImpl cachedResource) {
+        Integer maxEntrySize = getIntConfigurationValue(context, CoreConfiguration.Items.resourcesCacheMaxEntrySize);
+
+        return maxEntrySize != null && cachedResource.getContentLength() > maxEntrySize;
+    }
+
     private Resource lookupInCache(Cache cache, String resourceKey) {
         if (cache == null) {
             LOGGER.debug("No cache was provided");
@@ -0,0 +1,143 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.resource;
+
+import java.io.IOException;
+import java.text.MessageFormat;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.faces.application.Resource;
+
+import org.richfaces.log.Logger;
+import org.richfaces.log.RichfacesLogger;
+import org.richfaces.resource.metrics.ResourceHandlerListener;
+
+/**
+ * Coalesces concurrent loadings of the same resource, so that only one request creates it while the others wait for the
+ * result. Only cached resources ({@link CachedResourceImpl}) are shared with the waiting requests, as these can be served
+ * repeatedly; if the loading fails or produces a resource which is not cached, the waiting requests load their own copy.
+ *
+ * @since 4.5
+ */
+final class ResourceLoadings {
+    private static final Logger LOGGER = RichfacesLogger.RESOURCE.getLogger();
+    private final ConcurrentMap<String, ResourceLoading> pendingLoadings = new ConcurrentHashMap<String, ResourceLoading>();
+
+    /**
+     * Creates resource for a single request.
+     */
+    interface ResourceLoader {
+        /**
+         * @return the created resource or <code>null</code> if there is no such resource
+         * @throws IOException if content of the resource cannot be read
+         */
+        Resource load() throws IOException;
+    }
+
+    /**
+     * Result of resource loading shared with concurrent requests for the same resource.
+     */
+    private static final class ResourceLoading {
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private volatile Resource resource;
+
+        void complete(Resource resource) {
+            this.resource = resource;
+            latch.countDown();
+        }
+
+        /**
+         * @param timeout maximum time to wait in milliseconds
+         * @return loaded resource or <code>null</code> if it has to be created by the waiting request itself
+         */
+        Resource await(long timeout) {
+            try {
+                if (!latch.await(timeout, TimeUnit.MILLISECONDS)) {
+                    return null;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+
+            return resource;
+        }
+    }
+
+    /**
+     * Loads resource using the given loader, unless it is being loaded by a concurrent request already, in which case the
+     * result of that loading is waited for.
+     *
+     * @param resourceKey key of the resource
+     * @param loader creates the resource
+     * @param timeout maximum time in milliseconds to wait for the concurrent loading
+     * @param listener listener to notify about requests served by the concurrent loading, may be <code>null</code>
+     * @return the loaded resource or <code>null</code> if there is no such resource
+     * @throws IOException if content of the resource cannot be read
+     */
+    Resource load(String resourceKey, ResourceLoader loader, long timeout, ResourceHandlerListener listener)
+        throws IOException {
+
+        ResourceLoading loading = new ResourceLoading();
+        ResourceLoading pendingLoading = pendingLoadings.putIfAbsent(resourceKey, loading);
+
+        if (pendingLoading != null) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug(MessageFormat.format("Resource {0} is being loaded by another request, waiting for it", resourceKey));
+            }
+
+            Resource resource = pendingLoading.await(timeout);
+
+            if (resource != null) {
+                if (listener != null) {
+                    listener.resourceDeduplicated(resourceKey);
+                }
+
+                return resource;
+            }
+
+            // resource is not cacheable, its loading failed or takes too long, create it for this request
+            return loader.load();
+        }
+
+        Resource resource = null;
+
+        try {
+            resource = loader.load();
+
+            return resource;
+        } finally {
+            loading.complete(resource instanceof CachedResourceImpl ? resource : null);
+            pendingLoadings.remove(resourceKey, loading);
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the resource with the given key is being loaded
+     */
+    boolean isLoading(String resourceKey) {
+        return pendingLoadings.containsKey(resourceKey);
+    }
+}
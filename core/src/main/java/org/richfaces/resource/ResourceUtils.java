@@ -44,6 +44,8 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
@@ -52,12 +54,12 @@ import java.io.ObjectStreamClass;
 import java.io.OutputStream;
 import java.io.StreamCorruptedException;
 import java.io.UnsupportedEncodingException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
 import java.net.URLDecoder;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
-import java.nio.channels.Channels;
-import java.nio.channels.ReadableByteChannel;
-import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetEncoder;
 import java.text.Format;
@@ -76,6 +78,7 @@ import java.util.zip.Deflater;
 import java.util.zip.Inflater;
 
 import javax.faces.FacesException;
+import javax.faces.application.Resource;
 import javax.faces.application.ViewHandler;
 import javax.faces.component.StateHolder;
 import javax.faces.component.UINamingContainer;
@@ -115,6 +118,9 @@ public final class ResourceUtils {
     private static final long MILLISECOND_IN_SECOND = 1000L;
     private static final String QUOTED_STRING_REGEX = "(?:\\\\[\\x00-\\x7F]|[^\"\\\\])+";
     private static final Pattern ETAG_PATTERN = Pattern.compile("(?:W/)?\"(" + QUOTED_STRING_REGEX + ")\"(?:,\\s*)?");
+    private static final int TRANSFER_BUFFER_SIZE = 8192;
+    // holds JDK classes only, so it doesn't pin application class loader to container threads
+    private static final ThreadLocal<byte[]> TRANSFER_BUFFER = new ThreadLocal<byte[]>();
 
     public static final class NamingContainerDataHolder {
         public static final char SEPARATOR_CHAR = UINamingContainer.getSeparatorChar(FacesContext.getCurrentInstance());
@@ -364,23 +370,91 @@ public final class ResourceUtils {
         return resourceName;
     }
 
+    /**
+     * Takes the transfer buffer of the current thread, so that copying streams doesn't allocate memory per call. Nested
+     * callers get a fresh buffer. The buffer should be given back by {@link #releaseTransferBuffer(byte[])}.
+     */
+    static byte[] acquireTransferBuffer() {
+        byte[] buffer = TRANSFER_BUFFER.get();
+
+        if (buffer == null) {
+            return new byte[TRANSFER_BUFFER_SIZE];
+        }
+
+        TRANSFER_BUFFER.set(null);
+
+        return buffer;
+    }
+
+    static void releaseTransferBuffer(byte[] buffer) {
+        TRANSFER_BUFFER.set(buffer);
+    }
+
     public static void copyStreamContent(InputStream is, OutputStream os) throws IOException {
-        ReadableByteChannel inChannel = Channels.newChannel(is);
-        WritableByteChannel outChannel = Channels.newChannel(os);
+        byte[] buffer = acquireTransferBuffer();
 
-        // TODO make this configurable
-        ByteBuffer buffer = ByteBuffer.allocate(8192);
-        int read;
+        try {
+            int read;
 
-        while ((read = inChannel.read(buffer)) > 0) {
-            buffer.rewind();
-            buffer.limit(read);
+            while ((read = is.read(buffer)) != -1) {
+                os.write(buffer, 0, read);
+            }
+        } finally {
+            releaseTransferBuffer(buffer);
+        }
+    }
+
+    /**
+     * Copies content of the file directly, without going through {@link java.net.URLConnection}.
+     *
+     * @param file the file to copy
+     * @param os the stream to copy file content to
+     * @throws IOException if file cannot be read or stream cannot be written
+     */
+    public static void copyFileContent(File file, OutputStream os) throws IOException {
+        InputStream is = new FileInputStream(file);
 
-            while (read > 0) {
-                read -= outChannel.write(buffer);
+        try {
+            copyStreamContent(is, os);
+        } finally {
+            try {
+                is.close();
+            } catch (IOException e) {
+                if (RESOURCE_LOGGER.isDebugEnabled()) {
+                    RESOURCE_LOGGER.debug(e.getMessage(), e);
+                }
             }
+        }
+    }
+
+    /**
+     * Returns file the resource is read from if the resource is backed by a regular file, e.g. it's located in an exploded
+     * web application.
+     *
+     * @param resource the resource
+     * @return file the resource is read from or <code>null</code>
+     */
+    public static File getResourceFile(Resource resource) {
+        URL url;
+
+        try {
+            url = resource.getURL();
+        } catch (UnsupportedOperationException e) {
+            return null;
+        }
+
+        if (url == null || !"file".equals(url.getProtocol())) {
+            return null;
+        }
 
-            buffer.clear();
+        try {
+            File file = new File(url.toURI());
+
+            return file.isFile() ? file : null;
+        } catch (URISyntaxException e) {
+            return null;
+        } catch (IllegalArgumentException e) {
+            return null;
         }
     }
 
@@ -584,6 +658,114 @@ public final class ResourceUtils {
         return false;
     }
 
+    /**
+     * Returns entity tag of the given tag's representation variant, e.g. <code>"1234-gzip"</code> for <code>"1234"</code>
+     * and <code>gzip</code> variant. Weakness of the original tag is preserved.
+     *
+     * @param eTag the original entity tag
+     * @param variant the variant name
+     * @return entity tag of the variant, <code>null</code> if the original tag is <code>null</code> or malformed
+     */
+    public static String variantTag(String eTag, String variant) {
+        if (eTag == null || !ETAG_PATTERN.matcher(eTag).matches()) {
+            return null;
+        }
+
+        int closingQuoteIdx = eTag.lastIndexOf('"');
+
+        return eTag.substring(0, closingQuoteIdx) + '-' + variant + eTag.substring(closingQuoteIdx);
+    }
+
+    /**
+     * Checks whether the given value of <code>Accept-Encoding</code> request header allows gzip content encoding.
+     *
+     * @param acceptEncoding the header value, can be <code>null</code>
+     * @return <code>true</code> if the user agent accepts gzip-encoded content
+     */
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        Boolean wildcardAccepted = null;
+
+        for (String coding : acceptEncoding.split(",")) {
+            String[] params = coding.split(";");
+            String name = params[0].trim().toLowerCase(Locale.US);
+            boolean accepted = true;
+
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+
+                if (param.startsWith("q=")) {
+                    try {
+                        accepted = Float.parseFloat(param.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        accepted = false;
+                    }
+                }
+            }
+
+            if ("gzip".equals(name) || "x-gzip".equals(name)) {
+                return accepted;
+            }
+
+            if ("*".equals(name)) {
+                wildcardAccepted = accepted;
+            }
+        }
+
+        return Boolean.TRUE.equals(wildcardAccepted);
+    }
+
+    /**
+     * Checks whether content of the given type benefits from compression, i.e. whether it is textual.
+     *
+     * @param contentType the content type, can be <code>null</code>
+     * @return <code>true</code> for textual content types
+     */
+    public static boolean isCompressibleContentType(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+
+        String type = contentType.toLowerCase(Locale.US);
+
+        return type.startsWith("text/") || type.contains("javascript") || type.contains("json") || type.contains("xml");
+    }
+
+    /**
+     * Looks up gzip-compressed copy of the resource at the given URL, written next to it by resource optimizer (the URL with
+     * <code>.gz</code> extension appended). The copy is ignored if it is older than the resource.
+     *
+     * @param url URL of the resource
+     * @return URL of the compressed copy or <code>null</code> if there is no up-to-date copy
+     */
+    public static URL getGzipSiblingURL(URL url) {
+        try {
+            URL gzipURL = new URL(url.toExternalForm() + ".gz");
+            long gzipLastModified = getLastModified(gzipURL.openConnection());
+
+            if (getLastModified(url.openConnection()) > gzipLastModified) {
+                return null;
+            }
+
+            return gzipURL;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static long getLastModified(URLConnection connection) throws IOException {
+        // connecting opens the stream of some connections, e.g. of files
+        InputStream is = connection.getInputStream();
+        try {
+            return connection.getLastModified();
+        } finally {
+            is.close();
+        }
+    }
+
     public static long millisToSecond(long millisecond) {
         return millisecond / MILLISECOND_IN_SECOND;
     }
@@ -123,10 +123,52 @@ public class PropertiesResourceMapper implements ResourceMapper, ResourceAggrega
         return result;
     }
 
+    /**
+     * Returns keys of resources listed in static resource mapping files of current application stage, i.e. keys of the
+     * resources processed by resource optimizer.
+     *
+     * @return keys of statically mapped resources
+     */
+    public static Set<ResourceKey> getStaticallyMappedResourceKeys() {
+        Set<ResourceKey> result = Sets.newLinkedHashSet();
+
+        for (String mappingFile : PropertiesMappingConfiguration.getMappingFiles()) {
+            if (classpathResourceExistsForLocation(mappingFile)) {
+                for (String key : PropertiesUtil.loadProperties(mappingFile).keySet()) {
+                    result.add(ResourceKey.create(key));
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns paths of the files written by resource optimizer, as listed in static resource mapping files of current
+     * application stage. Paths of skin dependent resources contain skin placeholder, absolute URLs are not returned.
+     *
+     * @return paths of statically mapped resources relative to resource servlet mapping
+     */
+    public static Set<String> getStaticallyMappedResourcePaths() {
+        Set<String> result = Sets.newHashSet();
+
+        for (String mappingFile : PropertiesMappingConfiguration.getMappingFiles()) {
+            if (classpathResourceExistsForLocation(mappingFile)) {
+                for (String path : PropertiesUtil.loadProperties(mappingFile).values()) {
+                    if (!new ResourcePath(path).isAbsoluteURL()) {
+                        result.add(path);
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
     /**
      * Checks whenever given class-path resource exists
      */
-    private boolean classpathResourceExistsForLocation(String location) {
+    private static boolean classpathResourceExistsForLocation(String location) {
         ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
         return contextClassLoader.getResource(location) != null;
     }
@@ -0,0 +1,77 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.resource.metrics;
+
+/**
+ * <p>Receives notifications about resource requests processed by {@link org.richfaces.resource.ResourceHandlerImpl}.</p>
+ *
+ * <p>Implementations are registered using <code>META-INF/services/org.richfaces.resource.metrics.ResourceHandlerListener</code>
+ * file and are called by request processing threads, so they should be thread-safe and fast.</p>
+ *
+ * @since 4.5
+ */
+public interface ResourceHandlerListener {
+    /**
+     * Called when requested resource was found in resources cache.
+     *
+     * @param resourceKey key of the resource
+     */
+    void cacheHit(String resourceKey);
+
+    /**
+     * Called when requested resource was not found in resources cache.
+     *
+     * @param resourceKey key of the resource
+     */
+    void cacheMiss(String resourceKey);
+
+    /**
+     * Called when resource that was not found in resources cache has been created (and cached if it is cacheable).
+     *
+     * @param resourceKey key of the resource
+     * @param durationNanos time the loading took, in nanoseconds
+     */
+    void resourceLoaded(String resourceKey, long durationNanos);
+
+    /**
+     * Called when content of resource has been read in order to be cached.
+     *
+     * @param resourceKey key of the resource
+     */
+    void resourceBuilt(String resourceKey);
+
+    /**
+     * Called when request got the resource loaded by a concurrent request for the same resource instead of loading it.
+     *
+     * @param resourceKey key of the resource
+     */
+    void resourceDeduplicated(String resourceKey);
+
+    /**
+     * Called when response for resource request has been sent.
+     *
+     * @param resourceKey key of the resource
+     * @param statusCode HTTP status code of the response
+     * @param contentLength number of bytes of the response content, -1 if unknown
+     */
+    void resourceServed(String resourceKey, int statusCode, long contentLength);
+}
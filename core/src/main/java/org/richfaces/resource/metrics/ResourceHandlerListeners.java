@@ -0,0 +1,126 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.resource.metrics;
+
+import static org.richfaces.application.configuration.ConfigurationServiceHelper.getBooleanConfigurationValue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.faces.context.FacesContext;
+
+import org.richfaces.application.CoreConfiguration;
+import org.richfaces.application.Initializable;
+import org.richfaces.application.ServiceLoader;
+
+/**
+ * <p>Notifies all registered {@link ResourceHandlerListener}s: the ones registered as services and
+ * {@link ResourceHandlerMetrics} exposed via JMX if resource metrics are enabled.</p>
+ *
+ * <p>Resource handler doesn't notify listeners at all if none is registered.</p>
+ *
+ * @since 4.5
+ */
+public class ResourceHandlerListeners implements ResourceHandlerListener, Initializable {
+    private static final ResourceHandlerListener[] EMPTY_LISTENERS = new ResourceHandlerListener[0];
+    private volatile ResourceHandlerListener[] listeners = EMPTY_LISTENERS;
+    private ResourceHandlerMetrics metrics;
+
+    public void init() {
+        List<ResourceHandlerListener> result = new ArrayList<ResourceHandlerListener>(
+            ServiceLoader.loadServices(ResourceHandlerListener.class));
+
+        FacesContext facesContext = FacesContext.getCurrentInstance();
+
+        if (facesContext != null
+            && getBooleanConfigurationValue(facesContext, CoreConfiguration.Items.resourceMetricsEnabled)) {
+            metrics = new ResourceHandlerMetrics();
+            metrics.register(facesContext.getExternalContext().getContextName());
+            result.add(metrics);
+        }
+
+        listeners = result.toArray(new ResourceHandlerListener[result.size()]);
+    }
+
+    public void release() {
+        if (metrics != null) {
+            metrics.unregister();
+            metrics = null;
+        }
+
+        listeners = EMPTY_LISTENERS;
+    }
+
+    /**
+     * Returns whether there are any listeners to notify.
+     *
+     * @return <code>true</code> if no listener is registered
+     */
+    public boolean isEmpty() {
+        return listeners.length == 0;
+    }
+
+    /**
+     * Returns metrics exposed via JMX.
+     *
+     * @return metrics exposed via JMX or <code>null</code> if resource metrics are not enabled
+     */
+    public ResourceHandlerMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void cacheHit(String resourceKey) {
+        for (ResourceHandlerListener listener : listeners) {
+            listener.cacheHit(resourceKey);
+        }
+    }
+
+    public void cacheMiss(String resourceKey) {
+        for (ResourceHandlerListener listener : listeners) {
+            listener.cacheMiss(resourceKey);
+        }
+    }
+
+    public void resourceLoaded(String resourceKey, long durationNanos) {
+        for (ResourceHandlerListener listener : listeners) {
+            listener.resourceLoaded(resourceKey, durationNanos);
+        }
+    }
+
+    public void resourceBuilt(String resourceKey) {
+        for (ResourceHandlerListener listener : listeners) {
+            listener.resourceBuilt(resourceKey);
+        }
+    }
+
+    public void resourceDeduplicated(String resourceKey) {
+        for (ResourceHandlerListener listener : listeners) {
+            listener.resourceDeduplicated(resourceKey);
+        }
+    }
+
+    public void resourceServed(String resourceKey, int statusCode, long contentLength) {
+        for (ResourceHandlerListener listener : listeners) {
+            listener.resourceServed(resourceKey, statusCode, contentLength);
+        }
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.resource.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.text.MessageFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.servlet.http.HttpServletResponse;
+
+import org.richfaces.log.Logger;
+import org.richfaces.log.RichfacesLogger;
+
+/**
+ * <p>Collects statistics of resource requests and exposes them via JMX, as
+ * <code>org.richfaces:type=ResourceHandlerMetrics,application=&lt;context name&gt;</code> MBean.</p>
+ *
+ * <p>Counters are updated without locking. Statistics of particular resources are kept for a limited number of resource
+ * keys, requests for other resources are counted in totals only.</p>
+ *
+ * @since 4.5
+ */
+public class ResourceHandlerMetrics implements ResourceHandlerListener, ResourceHandlerMetricsMXBean {
+    static final int MAX_TRACKED_RESOURCES = 1000;
+    private static final Logger LOGGER = RichfacesLogger.RESOURCE.getLogger();
+    private static final long[] LOAD_TIME_BOUNDS_MILLIS = { 1, 10, 100, 1000 };
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+    private final AtomicLong loadedResources = new AtomicLong();
+    private final AtomicLong loadTimeNanos = new AtomicLong();
+    private final AtomicLongArray loadTimeHistogram = new AtomicLongArray(LOAD_TIME_BOUNDS_MILLIS.length + 1);
+    private final AtomicLong builtResources = new AtomicLong();
+    private final AtomicLong deduplicatedResources = new AtomicLong();
+    private final AtomicLong okResponses = new AtomicLong();
+    private final AtomicLong notModifiedResponses = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final ConcurrentMap<String, Counters> resourceCounters = new ConcurrentHashMap<String, Counters>();
+    private ObjectName objectName;
+
+    private static final class Counters {
+        private final AtomicLong cacheHits = new AtomicLong();
+        private final AtomicLong cacheMisses = new AtomicLong();
+        private final AtomicLong okResponses = new AtomicLong();
+        private final AtomicLong notModifiedResponses = new AtomicLong();
+        private final AtomicLong bytesSent = new AtomicLong();
+
+        ResourceStatistics toStatistics() {
+            return new ResourceStatistics(cacheHits.get(), cacheMisses.get(), okResponses.get(), notModifiedResponses.get(),
+                bytesSent.get());
+        }
+    }
+
+    private Counters getCounters(String resourceKey) {
+        Counters counters = resourceCounters.get(resourceKey);
+
+        if (counters == null && resourceCounters.size() < MAX_TRACKED_RESOURCES) {
+            Counters newCounters = new Counters();
+            counters = resourceCounters.putIfAbsent(resourceKey, newCounters);
+
+            if (counters == null) {
+                counters = newCounters;
+            }
+        }
+
+        return counters;
+    }
+
+    /**
+     * Registers this object in platform MBean server.
+     *
+     * @param applicationName name of the application, used to distinguish metrics of several applications
+     */
+    void register(String applicationName) {
+        try {
+            ObjectName name = new ObjectName("org.richfaces:type=ResourceHandlerMetrics,application="
+                + ObjectName.quote(applicationName != null ? applicationName : ""));
+
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            objectName = name;
+        } catch (JMException e) {
+            LOGGER.warn(MessageFormat.format("Resource handler metrics could not be registered in MBean server: {0}",
+                e.getMessage()));
+        }
+    }
+
+    /**
+     * Unregisters this object from platform MBean server.
+     */
+    void unregister() {
+        if (objectName != null) {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+            try {
+                if (mBeanServer.isRegistered(objectName)) {
+                    mBeanServer.unregisterMBean(objectName);
+                }
+            } catch (JMException e) {
+                LOGGER.warn(MessageFormat.format("Resource handler metrics could not be unregistered from MBean server: {0}",
+                    e.getMessage()));
+            }
+
+            objectName = null;
+        }
+    }
+
+    public void cacheHit(String resourceKey) {
+        cacheHits.incrementAndGet();
+
+        Counters counters = getCounters(resourceKey);
+        if (counters != null) {
+            counters.cacheHits.incrementAndGet();
+        }
+    }
+
+    public void cacheMiss(String resourceKey) {
+        cacheMisses.incrementAndGet();
+
+        Counters counters = getCounters(resourceKey);
+        if (counters != null) {
+            counters.cacheMisses.incrementAndGet();
+        }
+    }
+
+    public void resourceLoaded(String resourceKey, long durationNanos) {
+        loadedResources.incrementAndGet();
+        loadTimeNanos.addAndGet(durationNanos);
+
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(durationNanos);
+        int bucket = 0;
+
+        while (bucket < LOAD_TIME_BOUNDS_MILLIS.length && durationMillis >= LOAD_TIME_BOUNDS_MILLIS[bucket]) {
+            bucket++;
+        }
+
+        loadTimeHistogram.incrementAndGet(bucket);
+    }
+
+    public void resourceBuilt(String resourceKey) {
+        builtResources.incrementAndGet();
+    }
+
+    public void resourceDeduplicated(String resourceKey) {
+        deduplicatedResources.incrementAndGet();
+    }
+
+    public void resourceServed(String resourceKey, int statusCode, long contentLength) {
+        Counters counters = getCounters(resourceKey);
+
+        if (statusCode == HttpServletResponse.SC_NOT_MODIFIED) {
+            notModifiedResponses.incrementAndGet();
+
+            if (counters != null) {
+                counters.notModifiedResponses.incrementAndGet();
+            }
+        } else if (statusCode == HttpServletResponse.SC_OK) {
+            okResponses.incrementAndGet();
+
+            if (counters != null) {
+                counters.okResponses.incrementAndGet();
+            }
+        }
+
+        if (contentLength > 0) {
+            bytesSent.addAndGet(contentLength);
+
+            if (counters != null) {
+                counters.bytesSent.addAndGet(contentLength);
+            }
+        }
+    }
+
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses.get();
+    }
+
+    public double getCacheHitRatio() {
+        long hits = cacheHits.get();
+        long requests = hits + cacheMisses.get();
+
+        return requests != 0 ? (double) hits / requests : 0;
+    }
+
+    public long getLoadedResources() {
+        return loadedResources.get();
+    }
+
+    public double getAverageLoadTimeMillis() {
+        long loaded = loadedResources.get();
+
+        return loaded != 0 ? (double) loadTimeNanos.get() / loaded / TimeUnit.MILLISECONDS.toNanos(1) : 0;
+    }
+
+    public Map<String, Long> getLoadTimeHistogram() {
+        Map<String, Long> result = new LinkedHashMap<String, Long>();
+
+        for (int i = 0; i < LOAD_TIME_BOUNDS_MILLIS.length; i++) {
+            result.put("< " + LOAD_TIME_BOUNDS_MILLIS[i] + " ms", loadTimeHistogram.get(i));
+        }
+
+        result.put(">= " + LOAD_TIME_BOUNDS_MILLIS[LOAD_TIME_BOUNDS_MILLIS.length - 1] + " ms",
+            loadTimeHistogram.get(LOAD_TIME_BOUNDS_MILLIS.length));
+
+        return result;
+    }
+
+    public long getBuiltResources() {
+        return builtResources.get();
+    }
+
+    public long getDeduplicatedResources() {
+        return deduplicatedResources.get();
+    }
+
+    public long getOkResponses() {
+        return okResponses.get();
+    }
+
+    public long getNotModifiedResponses() {
+        return notModifiedResponses.get();
+    }
+
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    public Map<String, ResourceStatistics> getResourceStatistics() {
+        Map<String, ResourceStatistics> result = new TreeMap<String, ResourceStatistics>();
+
+        for (Entry<String, Counters> entry : resourceCounters.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().toStatistics());
+        }
+
+        return result;
+    }
+
+    public void reset() {
+        cacheHits.set(0);
+        cacheMisses.set(0);
+        loadedResources.set(0);
+        loadTimeNanos.set(0);
+        for (int i = 0; i < loadTimeHistogram.length(); i++) {
+            loadTimeHistogram.set(i, 0);
+        }
+        builtResources.set(0);
+        deduplicatedResources.set(0);
+        okResponses.set(0);
+        notModifiedResponses.set(0);
+        bytesSent.set(0);
+        resourceCounters.clear();
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.resource.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX management interface of {@link ResourceHandlerMetrics}.
+ *
+ * @since 4.5
+ */
+public interface ResourceHandlerMetricsMXBean {
+    long getCacheHits();
+
+    long getCacheMisses();
+
+    /**
+     * @return ratio of requests served from resources cache to all requests, 0 if there were no requests
+     */
+    double getCacheHitRatio();
+
+    /**
+     * @return number of resources created because they were not found in resources cache
+     */
+    long getLoadedResources();
+
+    double getAverageLoadTimeMillis();
+
+    /**
+     * @return number of loaded resources by ranges of time their loading took
+     */
+    Map<String, Long> getLoadTimeHistogram();
+
+    /**
+     * @return number of resources which content has been read in order to be cached
+     */
+    long getBuiltResources();
+
+    /**
+     * @return number of requests that got the resource loaded by a concurrent request instead of loading it themselves
+     */
+    long getDeduplicatedResources();
+
+    /**
+     * @return number of responses sent with 200 (OK) status code
+     */
+    long getOkResponses();
+
+    /**
+     * @return number of responses sent with 304 (Not Modified) status code
+     */
+    long getNotModifiedResponses();
+
+    /**
+     * @return number of bytes of content sent in responses, not counting content of unknown length
+     */
+    long getBytesSent();
+
+    /**
+     * @return statistics of the particular resources by resource keys
+     */
+    Map<String, ResourceStatistics> getResourceStatistics();
+
+    /**
+     * Resets all counters.
+     */
+    void reset();
+}
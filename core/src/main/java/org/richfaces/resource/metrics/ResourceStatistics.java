@@ -0,0 +1,72 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.resource.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Statistics of requests for a single resource.
+ *
+ * @since 4.5
+ */
+public final class ResourceStatistics {
+    private final long cacheHits;
+    private final long cacheMisses;
+    private final long okResponses;
+    private final long notModifiedResponses;
+    private final long bytesSent;
+
+    @ConstructorProperties({ "cacheHits", "cacheMisses", "okResponses", "notModifiedResponses", "bytesSent" })
+    public ResourceStatistics(long cacheHits, long cacheMisses, long okResponses, long notModifiedResponses, long bytesSent) {
+        this.cacheHits = cacheHits;
+        this.cacheMisses = cacheMisses;
+        this.okResponses = okResponses;
+        this.notModifiedResponses = notModifiedResponses;
+        this.bytesSent = bytesSent;
+    }
+
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses;
+    }
+
+    public long getOkResponses() {
+        return okResponses;
+    }
+
+    public long getNotModifiedResponses() {
+        return notModifiedResponses;
+    }
+
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    @Override
+    public String toString() {
+        return "hits: " + cacheHits + ", misses: " + cacheMisses + ", 200: " + okResponses + ", 304: " + notModifiedResponses
+            + ", bytes: " + bytesSent;
+    }
+}
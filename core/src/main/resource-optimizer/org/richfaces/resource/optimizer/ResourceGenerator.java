@@ -195,6 +195,11 @@ public class ResourceGenerator {
      */
     @Parameter(names = { "--compress" }, descriptionKey = "compress")
     private boolean compress = false;
+    /**
+     * Turns on writing of gzip-compressed copies of textual resources
+     */
+    @Parameter(names = { "--gzip" }, descriptionKey = "gzip")
+    private boolean gzip = false;
     /**
      * Turns on packing of JavaScript/CSS resources
      */
@@ -412,6 +417,7 @@ public class ResourceGenerator {
             faces.start();
 
             ResourceWriterImpl resourceWriter = new ResourceWriterImpl(new File(resourcesOutputDir), getDefaultResourceProcessors(), log, resourcesWithKnownOrder);
+            resourceWriter.setGzip(gzip);
             ResourceTaskFactoryImpl taskFactory = new ResourceTaskFactoryImpl(faces, pack);
             taskFactory.setResourceWriter(resourceWriter);
 
@@ -29,6 +29,8 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
 
 import javax.faces.application.Resource;
 
@@ -71,6 +73,13 @@ public class ResourceWriterImpl implements ResourceWriter {
      * packed output stream by extension
      */
     private final Map<String, OutputStream> PACKED = new LinkedHashMap<String, OutputStream>();
+    /*
+     * packed output files by extension
+     */
+    private final Map<String, File> PACKED_FILES = new LinkedHashMap<String, File>();
+    private static final Pattern COMPRESSIBLE_FILE = Pattern.compile("\\.(js|css|html?|xml|svg|json|txt)$",
+            Pattern.CASE_INSENSITIVE);
+    private static final String GZIP_EXTENSION = ".gz";
 
     private File resourceContentsDir;
     private Map<String, String> processedResources = Maps.newConcurrentMap();
@@ -79,6 +88,7 @@ public class ResourceWriterImpl implements ResourceWriter {
     private long currentTime;
     private Set<ResourceKey> resourcesWithKnownOrder;
     private Set<ResourceKey> packedResources = Sets.newHashSet();
+    private boolean gzip = false;
 
     public ResourceWriterImpl(File resourceContentsDir, Iterable<ResourceProcessor> resourceProcessors, Logger log,
                               Set<ResourceKey> resourcesWithKnownOrder) {
@@ -93,6 +103,14 @@ public class ResourceWriterImpl implements ResourceWriter {
         currentTime = System.currentTimeMillis();
     }
 
+    /**
+     * Turns on writing of gzip-compressed copy next to each textual resource file (with .gz extension appended), so that
+     * the pre-compressed content can be served without compressing it at runtime.
+     */
+    public void setGzip(boolean gzip) {
+        this.gzip = gzip;
+    }
+
     private synchronized File createOutputFile(String path) throws IOException {
         File outFile = new File(resourceContentsDir, path);
         outFile.getParentFile().mkdirs();
@@ -123,6 +141,10 @@ public class ResourceWriterImpl implements ResourceWriter {
         matchingProcessor.process(requestPathWithSkin, new ResourceInputStreamSupplier(resource).openStream(),
                 Files.asByteSink(outFile).openStream(), true);
         processedResources.put(ResourceUtil.getResourceQualifier(resource), requestPath);
+
+        if (gzip && COMPRESSIBLE_FILE.matcher(requestPathWithSkin).find()) {
+            writeGzipFile(outFile);
+        }
     }
 
     public void writePackedResource(String packName, String skinName, Resource resource) throws IOException {
@@ -157,6 +179,7 @@ public class ResourceWriterImpl implements ResourceWriter {
                 log.debug("Opening shared output stream for " + outFile);
                 outputStream = Files.asByteSink(outFile, FileWriteMode.APPEND).openStream();
                 PACKED.put(packagingCacheKey, outputStream);
+                PACKED_FILES.put(packagingCacheKey, outFile);
             }
             outputStream = PACKED.get(packagingCacheKey);
         }
@@ -179,6 +202,25 @@ public class ResourceWriterImpl implements ResourceWriter {
         }
     }
 
+    /**
+     * Writes gzip-compressed copy of the given file, the copy is not kept if compression doesn't make the file smaller.
+     */
+    private void writeGzipFile(File file) throws IOException {
+        File gzipFile = new File(file.getPath() + GZIP_EXTENSION);
+        OutputStream os = new GZIPOutputStream(Files.asByteSink(gzipFile).openStream());
+
+        try {
+            Files.asByteSource(file).copyTo(os);
+        } finally {
+            os.close();
+        }
+
+        if (gzipFile.length() >= file.length()) {
+            log.debug(MessageFormat.format("Compressed {0} file is not smaller than original, removing it", gzipFile.getPath()));
+            gzipFile.delete();
+        }
+    }
+
     private ResourceProcessor getMatchingResourceProcessor(final String requestPath) {
         return Iterables.get(Iterables.filter(resourceProcessors, new Predicate<ResourceProcessor>() {
             @Override
@@ -230,5 +272,15 @@ public class ResourceWriterImpl implements ResourceWriter {
                 // Swallow
             }
         }
+
+        if (gzip) {
+            for (File packedFile : PACKED_FILES.values()) {
+                try {
+                    writeGzipFile(packedFile);
+                } catch (IOException e) {
+                    log.warn(MessageFormat.format("Could not write compressed copy of {0} file", packedFile.getPath()), e);
+                }
+            }
+        }
     }
 }
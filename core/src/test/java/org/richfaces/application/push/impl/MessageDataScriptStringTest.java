@@ -0,0 +1,59 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.application.push.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.richfaces.application.push.EncodedMessage;
+import org.richfaces.application.push.MessageData;
+import org.richfaces.application.push.TopicKey;
+
+public class MessageDataScriptStringTest {
+    @Test
+    public void testSharedMessageFrames() throws Exception {
+        EncodedMessage first = new EncodedMessage(new TopicKey("sub@topic"), "'first'");
+        EncodedMessage second = new EncodedMessage(new TopicKey("topic"), "{\"value\":2}");
+
+        MessageDataScriptString script = new MessageDataScriptString(Arrays.asList(new MessageData(first, 7),
+                new MessageData(second, 8)));
+
+        assertEquals("<msg topic=\"sub@topic\" number=\"7\">'first'</msg>"
+                + "<msg topic=\"topic\" number=\"8\">{\"value\":2}</msg>", script.toScript());
+        assertEquals(8, script.getLastSequenceNumber());
+
+        script = new MessageDataScriptString(Arrays.asList(new MessageData(first, 0)));
+        assertEquals("<msg topic=\"sub@topic\" number=\"0\">'first'</msg>", script.toScript());
+    }
+
+    @Test
+    public void testMessageData() throws Exception {
+        MessageData message = new MessageData(new TopicKey("topic"), "'data'", 3);
+
+        assertEquals("'data'", message.getSerializedMessage());
+        assertEquals(new TopicKey("topic"), message.getTopicKey());
+        assertEquals("<msg topic=\"topic\" number=\"3\">'data'</msg>",
+                new MessageDataScriptString(Arrays.asList(message)).toScript());
+    }
+}
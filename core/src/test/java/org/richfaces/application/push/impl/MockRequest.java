@@ -0,0 +1,78 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.application.push.impl;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.richfaces.application.push.MessageData;
+import org.richfaces.application.push.Request;
+import org.richfaces.application.push.Session;
+
+/**
+ * Long-polling request that consumes the session's messages immediately, counting the deliveries and the delivered
+ * messages.
+ */
+class MockRequest implements Request {
+    private final Session session;
+    private final AtomicLong deliveredMessages;
+    private final AtomicInteger deliveries = new AtomicInteger();
+
+    MockRequest(Session session, AtomicLong deliveredMessages) {
+        this.session = session;
+        this.deliveredMessages = deliveredMessages;
+    }
+
+    int getDeliveries() {
+        return deliveries.get();
+    }
+
+    public void suspend() {
+    }
+
+    public void resume() {
+    }
+
+    public Session getSession() {
+        return session;
+    }
+
+    public boolean isPolling() {
+        return true;
+    }
+
+    public void postMessages() {
+        int count = 0;
+        long lastSequenceNumber = -1;
+
+        for (MessageData message : session.getMessages()) {
+            count++;
+            lastSequenceNumber = message.getSequenceNumber();
+        }
+
+        if (count > 0) {
+            session.clearBroadcastedMessages(lastSequenceNumber);
+            deliveries.incrementAndGet();
+            deliveredMessages.addAndGet(count);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.application.push.impl;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+import org.richfaces.application.push.MessageData;
+import org.richfaces.application.push.Request;
+import org.richfaces.application.push.Session;
+import org.richfaces.application.push.TopicKey;
+
+/**
+ * Push session with controlled access time, used to test expiration of sessions.
+ */
+class MockSession implements Session {
+    private final String id;
+    private final int maxInactiveInterval;
+    private volatile long lastAccessedTime;
+
+    MockSession(String id, int maxInactiveInterval) {
+        this.id = id;
+        this.maxInactiveInterval = maxInactiveInterval;
+        this.lastAccessedTime = System.currentTimeMillis();
+    }
+
+    void access() {
+        lastAccessedTime = System.currentTimeMillis();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int getMaxInactiveInterval() {
+        return maxInactiveInterval;
+    }
+
+    public long getLastAccessedTime() {
+        return lastAccessedTime;
+    }
+
+    public Collection<TopicKey> getSuccessfulSubscriptions() {
+        return Collections.emptySet();
+    }
+
+    public Map<TopicKey, String> getFailedSubscriptions() {
+        return Collections.emptyMap();
+    }
+
+    public void subscribe(String[] topics) {
+    }
+
+    public void connect(Request request) {
+    }
+
+    public void disconnect() {
+    }
+
+    public void invalidate() {
+        lastAccessedTime = -1;
+    }
+
+    public void push(TopicKey topicKey, String serializedData) {
+    }
+
+    public Collection<MessageData> getMessages() {
+        return Collections.emptySet();
+    }
+
+    public void clearBroadcastedMessages(long sequenceNumber) {
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.application.push.impl;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.richfaces.application.push.SessionOverflowPolicy;
+import org.richfaces.application.push.metrics.PushListeners;
+import org.richfaces.application.push.metrics.PushMetrics;
+
+/**
+ * <p>Measures time {@link SessionManagerImpl} needs to destroy a population of push sessions that expire at once, the way
+ * sessions expire when clients don't reconnect after a network failure. Every session is subscribed to several topics, so
+ * destroying it publishes unsubscription events.</p>
+ *
+ * <p>Run {@link #main(String[])} from the test classpath to measure the manager with 1 to 8 shards.</p>
+ *
+ * @since 4.5
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SessionManagerBenchmark {
+    private static final int TOPICS_COUNT = 10;
+    @Param({ "1", "2", "4", "8" })
+    private int shards;
+    @Param({ "10000", "50000" })
+    private int sessionsCount;
+    private TopicsContextImpl topicsContext;
+    private SessionManagerImpl sessionManager;
+    private PushMetrics metrics;
+    private SessionImpl[] sessions;
+
+    @Setup(Level.Invocation)
+    public void setUp() throws Exception {
+        metrics = new PushMetrics();
+        PushListeners pushListeners = new PushListeners();
+        pushListeners.addListener(metrics);
+
+        topicsContext = new TopicsContextImpl(Executors.defaultThreadFactory());
+        sessionManager = new SessionManagerImpl(Executors.defaultThreadFactory(), shards, pushListeners);
+
+        String[] topics = new String[TOPICS_COUNT];
+        for (int i = 0; i < TOPICS_COUNT; i++) {
+            topics[i] = "topic" + i;
+        }
+
+        sessions = new SessionImpl[sessionsCount];
+        for (int i = 0; i < sessionsCount; i++) {
+            sessions[i] = new SessionImpl("session" + i, sessionManager, topicsContext, 300000, new SessionMessageQueue(0,
+                SessionOverflowPolicy.dropOldest, new AtomicLong()));
+            sessionManager.putPushSession(sessions[i]);
+            sessions[i].subscribe(topics);
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+        sessionManager.destroy();
+        topicsContext.destroy();
+    }
+
+    @Benchmark
+    public long expireAll() throws InterruptedException {
+        for (SessionImpl session : sessions) {
+            session.invalidate();
+        }
+
+        while (metrics.getExpiredSessions() < sessionsCount) {
+            Thread.sleep(1);
+        }
+
+        return metrics.getExpiredSessions();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+            .include(SessionManagerBenchmark.class.getSimpleName())
+            .build();
+
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.application.push.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.richfaces.application.push.metrics.PushListeners;
+import org.richfaces.application.push.metrics.PushMetrics;
+
+public class SessionManagerImplTest {
+    private static final int SESSIONS_COUNT = 1000;
+    private final PushMetrics metrics = new PushMetrics();
+    private SessionManagerImpl sessionManager;
+
+    @Before
+    public void setUp() {
+        PushListeners pushListeners = new PushListeners();
+        pushListeners.addListener(metrics);
+        sessionManager = new SessionManagerImpl(Executors.defaultThreadFactory(), 4, pushListeners);
+    }
+
+    @After
+    public void tearDown() {
+        sessionManager.destroy();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDuplicateSession() throws Exception {
+        sessionManager.putPushSession(new MockSession("session", 60000));
+        sessionManager.putPushSession(new MockSession("session", 60000));
+    }
+
+    @Test
+    public void testSessionsAreFound() throws Exception {
+        MockSession[] sessions = new MockSession[SESSIONS_COUNT];
+
+        for (int i = 0; i < SESSIONS_COUNT; i++) {
+            sessions[i] = new MockSession("session" + i, 60000);
+            sessionManager.putPushSession(sessions[i]);
+        }
+
+        for (int i = 0; i < SESSIONS_COUNT; i++) {
+            assertSame(sessions[i], sessionManager.getPushSession("session" + i));
+        }
+
+        assertNull(sessionManager.getPushSession("unknown"));
+        assertEquals(SESSIONS_COUNT, metrics.getActiveSessions());
+    }
+
+    @Test
+    public void testInvalidatedSessionsExpire() throws Exception {
+        MockSession[] sessions = new MockSession[SESSIONS_COUNT];
+
+        for (int i = 0; i < SESSIONS_COUNT; i++) {
+            sessions[i] = new MockSession("session" + i, 60000);
+            sessionManager.putPushSession(sessions[i]);
+        }
+
+        // every other session expires, all shards get expired sessions at once
+        for (int i = 0; i < SESSIONS_COUNT; i += 2) {
+            sessions[i].invalidate();
+            sessionManager.requeue(sessions[i]);
+        }
+
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (metrics.getExpiredSessions() < SESSIONS_COUNT / 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(SESSIONS_COUNT / 2, metrics.getExpiredSessions());
+        assertEquals(SESSIONS_COUNT / 2, metrics.getActiveSessions());
+
+        for (int i = 0; i < SESSIONS_COUNT; i++) {
+            if (i % 2 == 0) {
+                assertNull(sessionManager.getPushSession("session" + i));
+            } else {
+                assertSame(sessions[i], sessionManager.getPushSession("session" + i));
+            }
+        }
+    }
+}
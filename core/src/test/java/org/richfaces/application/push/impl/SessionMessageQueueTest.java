@@ -0,0 +1,158 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.application.push.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+import org.richfaces.application.push.EncodedMessage;
+import org.richfaces.application.push.MessageData;
+import org.richfaces.application.push.SessionOverflowPolicy;
+import org.richfaces.application.push.TopicKey;
+import org.richfaces.application.push.metrics.PushListeners;
+import org.richfaces.application.push.metrics.PushMetrics;
+
+public class SessionMessageQueueTest {
+    private static final TopicKey FIRST_KEY = new TopicKey("first@topic");
+    private static final TopicKey SECOND_KEY = new TopicKey("second@topic");
+    private final AtomicLong droppedMessagesTotal = new AtomicLong();
+
+    private SessionMessageQueue createQueue(int capacity, SessionOverflowPolicy policy) {
+        return new SessionMessageQueue(capacity, policy, droppedMessagesTotal);
+    }
+
+    private static List<String> getSerializedMessages(SessionMessageQueue queue) {
+        List<String> result = new ArrayList<String>();
+        for (MessageData message : queue.getMessages()) {
+            result.add(message.getSerializedMessage());
+        }
+        return result;
+    }
+
+    private static void offer(SessionMessageQueue queue, TopicKey key, String... messages) {
+        for (String message : messages) {
+            assertTrue(queue.offer(new EncodedMessage(key, message)));
+        }
+    }
+
+    @Test
+    public void testUnbounded() throws Exception {
+        SessionMessageQueue queue = createQueue(0, SessionOverflowPolicy.dropOldest);
+        offer(queue, FIRST_KEY, "1", "2", "3");
+
+        assertEquals(Arrays.asList("1", "2", "3"), getSerializedMessages(queue));
+        assertEquals(0, queue.getDroppedMessagesCount());
+    }
+
+    @Test
+    public void testDroppedMessagesMetrics() throws Exception {
+        PushMetrics metrics = new PushMetrics();
+        PushListeners listeners = new PushListeners();
+        listeners.addListener(metrics);
+
+        SessionMessageQueue queue = new SessionMessageQueue(2, SessionOverflowPolicy.dropNewest, droppedMessagesTotal,
+            listeners);
+        offer(queue, FIRST_KEY, "1", "2", "3", "4");
+
+        assertEquals(2, metrics.getDroppedMessages());
+        assertEquals(Long.valueOf(2), metrics.getDroppedMessagesByOverflowPolicy().get("dropNewest"));
+        assertEquals(Long.valueOf(0), metrics.getDroppedMessagesByOverflowPolicy().get("dropOldest"));
+    }
+
+    @Test
+    public void testSequenceNumbers() throws Exception {
+        SessionMessageQueue queue = createQueue(0, SessionOverflowPolicy.dropOldest);
+        offer(queue, FIRST_KEY, "1", "2", "3");
+
+        queue.clearBroadcastedMessages(1);
+        assertEquals(Arrays.asList("3"), getSerializedMessages(queue));
+        assertEquals(2, queue.getMessages().iterator().next().getSequenceNumber());
+    }
+
+    @Test
+    public void testDropOldest() throws Exception {
+        SessionMessageQueue queue = createQueue(2, SessionOverflowPolicy.dropOldest);
+        offer(queue, FIRST_KEY, "1", "2", "3", "4");
+
+        assertEquals(Arrays.asList("3", "4"), getSerializedMessages(queue));
+        assertEquals(2, queue.getDroppedMessagesCount());
+        assertEquals(2, droppedMessagesTotal.get());
+    }
+
+    @Test
+    public void testDropNewest() throws Exception {
+        SessionMessageQueue queue = createQueue(2, SessionOverflowPolicy.dropNewest);
+        offer(queue, FIRST_KEY, "1", "2", "3", "4");
+
+        assertEquals(Arrays.asList("1", "2"), getSerializedMessages(queue));
+        assertEquals(2, queue.getDroppedMessagesCount());
+
+        queue.clearBroadcastedMessages(0);
+        offer(queue, FIRST_KEY, "5");
+        assertEquals(Arrays.asList("2", "5"), getSerializedMessages(queue));
+    }
+
+    @Test
+    public void testCoalesceSubtopic() throws Exception {
+        SessionMessageQueue queue = createQueue(3, SessionOverflowPolicy.coalesceSubtopic);
+        offer(queue, FIRST_KEY, "first1");
+        offer(queue, SECOND_KEY, "second1");
+        offer(queue, FIRST_KEY, "first2");
+        offer(queue, SECOND_KEY, "second2");
+
+        assertEquals(Arrays.asList("first1", "first2", "second2"), getSerializedMessages(queue));
+
+        // no message of the same subtopic, the oldest one is dropped
+        offer(queue, new TopicKey("third@topic"), "third1");
+        assertEquals(Arrays.asList("first2", "second2", "third1"), getSerializedMessages(queue));
+        assertEquals(2, queue.getDroppedMessagesCount());
+    }
+
+    @Test
+    public void testDisconnect() throws Exception {
+        SessionMessageQueue queue = createQueue(2, SessionOverflowPolicy.disconnect);
+        offer(queue, FIRST_KEY, "1", "2");
+
+        assertFalse(queue.offerAll(Arrays.asList(new EncodedMessage(FIRST_KEY, "3"), new EncodedMessage(FIRST_KEY, "4"))));
+        assertTrue(queue.getMessages().isEmpty());
+        assertEquals(4, queue.getDroppedMessagesCount());
+    }
+
+    @Test
+    public void testConflation() throws Exception {
+        SessionMessageQueue queue = createQueue(0, SessionOverflowPolicy.dropOldest);
+        queue.offer(new EncodedMessage(FIRST_KEY, "first1", true));
+        queue.offer(new EncodedMessage(SECOND_KEY, "second1", true));
+        queue.offer(new EncodedMessage(FIRST_KEY, "first2", true));
+        queue.offer(new EncodedMessage(FIRST_KEY, "first3", true));
+
+        assertEquals(Arrays.asList("second1", "first3"), getSerializedMessages(queue));
+        assertEquals(0, queue.getDroppedMessagesCount());
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.application.push.impl;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.richfaces.application.push.Session;
+
+/**
+ * <p>Measures throughput of {@link SessionQueue#requeue(Session, boolean)} for a population of synthetic push sessions,
+ * the way sessions are requeued when their clients reconnect. Short-living sessions keep expiring and being replaced, so
+ * the taker runs concurrently with the requeuing threads.</p>
+ *
+ * <p>Run {@link #main(String[])} from the test classpath to measure the queue at 1 to 32 threads.</p>
+ *
+ * @since 4.5
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SessionQueueBenchmark {
+    private static final int[] THREADS = { 1, 2, 4, 8, 16, 32 };
+    private static final int SHORT_SESSION_INTERVAL = 500;
+    private static final int LONG_SESSION_INTERVAL = 300000;
+    @Param({ "1000", "100000" })
+    private int sessionsCount;
+    private SessionQueue queue;
+    private MockSession[] sessions;
+    private Thread taker;
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private final Random random = new Random();
+    }
+
+    @Setup
+    public void setUp() {
+        queue = new SessionQueue();
+        sessions = new MockSession[sessionsCount];
+
+        for (int i = 0; i < sessionsCount; i++) {
+            sessions[i] = createSession(i);
+            queue.requeue(sessions[i], true);
+        }
+
+        taker = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    while (true) {
+                        Session session = queue.take();
+                        int index = Integer.parseInt(session.getId());
+                        sessions[index] = createSession(index);
+                        queue.requeue(sessions[index], true);
+                    }
+                } catch (InterruptedException e) {
+                    // queue has been shut down
+                } catch (IllegalStateException e) {
+                    // queue has been shut down
+                }
+            }
+        });
+        taker.setDaemon(true);
+        taker.start();
+    }
+
+    private static MockSession createSession(int index) {
+        // every tenth session expires shortly
+        return new MockSession(String.valueOf(index), index % 10 == 0 ? SHORT_SESSION_INTERVAL : LONG_SESSION_INTERVAL);
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        queue.shutdown();
+        taker.join();
+    }
+
+    @Benchmark
+    public MockSession reconnect(ThreadState state) {
+        MockSession session = sessions[state.random.nextInt(sessionsCount)];
+        session.access();
+        queue.requeue(session, false);
+        return session;
+    }
+
+    public static void main(String[] args) throws Exception {
+        for (int threads : THREADS) {
+            Options options = new OptionsBuilder()
+                .include(SessionQueueBenchmark.class.getSimpleName())
+                .threads(threads)
+                .build();
+
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.application.push.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.richfaces.application.push.Session;
+
+public class SessionQueueTest {
+    private static final long TICK = 10;
+    private SessionQueue queue;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        queue = new SessionQueue(TICK, 16);
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        queue.shutdown();
+        executor.shutdownNow();
+    }
+
+    private Future<Session> takeAsync() {
+        return executor.submit(new Callable<Session>() {
+            public Session call() throws Exception {
+                return queue.take();
+            }
+        });
+    }
+
+    @Test
+    public void testExpiration() throws Exception {
+        MockSession longSession = new MockSession("long", 400);
+        MockSession shortSession = new MockSession("short", 100);
+        queue.requeue(longSession, true);
+        queue.requeue(shortSession, true);
+
+        long start = System.currentTimeMillis();
+        assertSame(shortSession, takeAsync().get(1, TimeUnit.SECONDS));
+        assertTrue(System.currentTimeMillis() - start >= 100 - TICK);
+        assertSame(longSession, takeAsync().get(1, TimeUnit.SECONDS));
+        assertTrue(System.currentTimeMillis() - start >= 400 - TICK);
+    }
+
+    @Test
+    public void testAccessedSessionExpiresLater() throws Exception {
+        MockSession session = new MockSession("session", 200);
+        queue.requeue(session, true);
+
+        long start = System.currentTimeMillis();
+        Future<Session> future = takeAsync();
+        Thread.sleep(100);
+        session.access();
+        queue.requeue(session, false);
+
+        assertSame(session, future.get(1, TimeUnit.SECONDS));
+        assertTrue(System.currentTimeMillis() - start >= 300 - TICK);
+    }
+
+    @Test
+    public void testInvalidatedSessionExpiresImmediately() throws Exception {
+        MockSession session = new MockSession("session", 60000);
+        queue.requeue(session, true);
+        Future<Session> future = takeAsync();
+
+        session.invalidate();
+        queue.requeue(session, false);
+
+        assertSame(session, future.get(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test(expected = TimeoutException.class)
+    public void testRemove() throws Exception {
+        MockSession session = new MockSession("session", 50);
+        queue.requeue(session, true);
+        queue.remove(session);
+
+        takeAsync().get(300, TimeUnit.MILLISECONDS);
+    }
+
+    @Test(expected = TimeoutException.class)
+    public void testRequeueDoesNotAddSession() throws Exception {
+        MockSession session = new MockSession("session", 50);
+        queue.requeue(session, false);
+
+        takeAsync().get(300, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testManySessions() throws Exception {
+        int count = 10000;
+        for (int i = 0; i < count; i++) {
+            MockSession session = new MockSession("session" + i, 50 + i % 200);
+            queue.requeue(session, true);
+            queue.requeue(session, false);
+        }
+
+        Set<Session> expired = new HashSet<Session>();
+        for (int i = 0; i < count; i++) {
+            expired.add(takeAsync().get(1, TimeUnit.SECONDS));
+        }
+
+        assertEquals(count, expired.size());
+    }
+}
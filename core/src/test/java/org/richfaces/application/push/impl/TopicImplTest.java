@@ -0,0 +1,151 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.application.push.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Test;
+import org.richfaces.application.push.SessionOverflowPolicy;
+import org.richfaces.application.push.TopicKey;
+import org.richfaces.application.push.metrics.PushListeners;
+import org.richfaces.application.push.metrics.PushMetrics;
+
+public class TopicImplTest {
+    private static final TopicKey TOPIC_KEY = new TopicKey("topic");
+    private TopicsContextImpl topicsContext;
+    private SessionManagerImpl sessionManager;
+    private final AtomicLong deliveredMessages = new AtomicLong();
+    private final PushListeners pushListeners = new PushListeners();
+
+    @After
+    public void tearDown() {
+        sessionManager.destroy();
+        topicsContext.destroy();
+    }
+
+    private MockRequest connectSession(String id) throws Exception {
+        SessionImpl session = new SessionImpl(id, sessionManager, topicsContext, 60000, new SessionMessageQueue(0,
+                SessionOverflowPolicy.dropOldest, new AtomicLong()), pushListeners);
+        sessionManager.putPushSession(session);
+        session.subscribe(new String[] { TOPIC_KEY.getTopicAddress() });
+
+        MockRequest request = new MockRequest(session, deliveredMessages);
+        session.connect(request);
+        return request;
+    }
+
+    private void publishBlocked(int messagesCount) throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        // the only publishing thread waits until all the messages are queued
+        topicsContext.getPublisherService().submit(new Runnable() {
+            public void run() {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        for (int i = 0; i < messagesCount; i++) {
+            topicsContext.publish(TOPIC_KEY, "message" + i);
+        }
+
+        latch.countDown();
+    }
+
+    private void awaitDelivery(long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (deliveredMessages.get() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(expected, deliveredMessages.get());
+    }
+
+    private void setUp(int batchSize) {
+        topicsContext = new TopicsContextImpl(Executors.defaultThreadFactory(), 1, batchSize);
+        topicsContext.setPushListeners(pushListeners);
+        sessionManager = new SessionManagerImpl(Executors.defaultThreadFactory(), pushListeners);
+    }
+
+    @Test
+    public void testBurstIsDeliveredAtOnce() throws Exception {
+        setUp(100);
+        MockRequest first = connectSession("first");
+        MockRequest second = connectSession("second");
+
+        publishBlocked(50);
+
+        awaitDelivery(100);
+        assertEquals(1, first.getDeliveries());
+        assertEquals(1, second.getDeliveries());
+    }
+
+    @Test
+    public void testBurstIsSplitToBatches() throws Exception {
+        setUp(10);
+        MockRequest request = connectSession("session");
+
+        publishBlocked(45);
+
+        awaitDelivery(45);
+        assertEquals(5, request.getDeliveries());
+    }
+
+    @Test
+    public void testConflatedTopic() throws Exception {
+        setUp(100);
+        topicsContext.getOrCreateTopic(TOPIC_KEY).setConflated(true);
+        MockRequest request = connectSession("session");
+
+        publishBlocked(50);
+
+        awaitDelivery(1);
+        assertEquals(1, request.getDeliveries());
+    }
+
+    @Test
+    public void testListenersAreNotified() throws Exception {
+        PushMetrics metrics = new PushMetrics();
+        pushListeners.addListener(metrics);
+        setUp(100);
+        connectSession("first");
+        connectSession("second");
+
+        publishBlocked(10);
+
+        awaitDelivery(20);
+        assertEquals(10, metrics.getPublishedMessages());
+        assertEquals(20, metrics.getDeliveredMessages());
+        assertEquals(20, metrics.getTopicStatistics().get(TOPIC_KEY.getTopicName()).getDeliveredMessages());
+        assertEquals(2, metrics.getActiveSessions());
+        assertEquals(2, metrics.getActiveRequests());
+    }
+}
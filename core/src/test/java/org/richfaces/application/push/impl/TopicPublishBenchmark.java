@@ -0,0 +1,115 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.application.push.impl;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.richfaces.application.push.SessionOverflowPolicy;
+import org.richfaces.application.push.TopicKey;
+
+/**
+ * <p>Measures time needed to deliver a burst of messages published to one topic to all its subscribers. The sessions are
+ * connected by {@link MockRequest}s that consume the messages immediately.</p>
+ *
+ * <p>Run {@link #main(String[])} from the test classpath.</p>
+ *
+ * @since 4.5
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TopicPublishBenchmark {
+    private static final TopicKey TOPIC_KEY = new TopicKey("topic");
+    @Param({ "100", "10000" })
+    private int subscribersCount;
+    @Param({ "1", "100" })
+    private int burstSize;
+    @Param({ "1", "100" })
+    private int batchSize;
+    private TopicsContextImpl topicsContext;
+    private SessionManagerImpl sessionManager;
+    private final AtomicLong deliveredMessages = new AtomicLong();
+    private long expectedMessages;
+
+    @Setup
+    public void setUp() throws Exception {
+        topicsContext = new TopicsContextImpl(Executors.defaultThreadFactory(), 0, batchSize);
+        sessionManager = new SessionManagerImpl(Executors.defaultThreadFactory());
+
+        for (int i = 0; i < subscribersCount; i++) {
+            SessionImpl session = new SessionImpl(String.valueOf(i), sessionManager, topicsContext,
+                    (int) TimeUnit.HOURS.toMillis(1), new SessionMessageQueue(0, SessionOverflowPolicy.dropOldest,
+                            new AtomicLong()));
+            sessionManager.putPushSession(session);
+            session.subscribe(new String[] { TOPIC_KEY.getTopicAddress() });
+            session.connect(new MockRequest(session, deliveredMessages));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionManager.destroy();
+        topicsContext.destroy();
+    }
+
+    @Benchmark
+    public long publishBurst() throws Exception {
+        for (int i = 0; i < burstSize; i++) {
+            topicsContext.publish(TOPIC_KEY, "message");
+        }
+
+        expectedMessages += (long) burstSize * subscribersCount;
+        while (deliveredMessages.get() < expectedMessages) {
+            Thread.yield();
+        }
+
+        return expectedMessages;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+            .include(TopicPublishBenchmark.class.getSimpleName())
+            .build();
+
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.application.push.impl.cluster;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ClusterMessageCodecTest {
+    private static final List<ClusterMessage> MESSAGES = Arrays.asList(new ClusterMessage("topic", null, "'data'"));
+
+    private static byte[] encode(ClusterMessageCodec codec, List<ClusterMessage> messages) throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        codec.encode("node", messages, stream);
+        return stream.toByteArray();
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        List<ClusterMessage> messages = Arrays.asList(new ClusterMessage("topic", null, "'data'"), new ClusterMessage("topic",
+                "subtopic", "{\"text\":\"\u017elu\u0165ou\u010dk\u00fd k\u016f\u0148\"}"));
+
+        ClusterMessageCodec codec = new ClusterMessageCodec("cluster", null);
+        byte[] data = encode(codec, messages);
+
+        ClusterMessageCodec.Batch batch = codec.decode(data, 0, data.length);
+        assertEquals("node", batch.getNodeId());
+        assertEquals(2, batch.getMessages().size());
+
+        ClusterMessage first = batch.getMessages().get(0);
+        assertEquals("topic", first.getTopicName());
+        assertNull(first.getSubtopicName());
+        assertEquals("'data'", first.getSerializedData());
+
+        ClusterMessage second = batch.getMessages().get(1);
+        assertEquals("subtopic", second.getSubtopicName());
+        assertEquals(messages.get(1).getSerializedData(), second.getSerializedData());
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidData() throws Exception {
+        byte[] data = new byte[] { 42, 0, 0 };
+        new ClusterMessageCodec("cluster", null).decode(data, 0, data.length);
+    }
+
+    @Test
+    public void testOtherCluster() throws Exception {
+        byte[] data = encode(new ClusterMessageCodec("other", null), MESSAGES);
+
+        assertNull(new ClusterMessageCodec("cluster", null).decode(data, 0, data.length));
+    }
+
+    @Test
+    public void testSigned() throws Exception {
+        ClusterMessageCodec codec = new ClusterMessageCodec("cluster", "secret");
+        byte[] data = encode(codec, MESSAGES);
+
+        // the batch is decoded from the middle of the buffer as datagram packets may do
+        byte[] buffer = new byte[data.length + 10];
+        System.arraycopy(data, 0, buffer, 5, data.length);
+
+        ClusterMessageCodec.Batch batch = codec.decode(buffer, 5, data.length);
+        assertEquals("node", batch.getNodeId());
+        assertEquals("'data'", batch.getMessages().get(0).getSerializedData());
+    }
+
+    @Test
+    public void testInvalidSignature() throws Exception {
+        byte[] data = encode(new ClusterMessageCodec("cluster", "other secret"), MESSAGES);
+
+        try {
+            new ClusterMessageCodec("cluster", "secret").decode(data, 0, data.length);
+            fail();
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testTamperedData() throws Exception {
+        ClusterMessageCodec codec = new ClusterMessageCodec("cluster", "secret");
+        byte[] data = encode(codec, MESSAGES);
+        data[data.length - 40]++;
+
+        try {
+            codec.decode(data, 0, data.length);
+            fail();
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testMissingSignature() throws Exception {
+        byte[] data = encode(new ClusterMessageCodec("cluster", null), MESSAGES);
+
+        new ClusterMessageCodec("cluster", "secret").decode(data, 0, data.length);
+    }
+
+    @Test
+    public void testReplayedBatch() throws Exception {
+        ClusterMessageCodec codec = new ClusterMessageCodec("cluster", "secret");
+        byte[] data = encode(codec, MESSAGES);
+
+        assertNotNull(codec.decode(data, 0, data.length));
+        try {
+            codec.decode(data, 0, data.length);
+            fail();
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testBatchesOutOfOrder() throws Exception {
+        ClusterMessageCodec codec = new ClusterMessageCodec("cluster", "secret");
+        byte[] first = encode(codec, MESSAGES);
+        byte[] second = encode(codec, MESSAGES);
+
+        assertNotNull(codec.decode(second, 0, second.length));
+        assertNotNull(codec.decode(first, 0, first.length));
+    }
+
+    @Test(expected = IOException.class)
+    public void testExpiredBatch() throws Exception {
+        ClusterMessageCodec codec = new ClusterMessageCodec("cluster", "secret");
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        codec.encode("node", MESSAGES, stream, System.currentTimeMillis() - ClusterMessageCodec.MAX_BATCH_AGE - 1000);
+        byte[] data = stream.toByteArray();
+
+        codec.decode(data, 0, data.length);
+    }
+}
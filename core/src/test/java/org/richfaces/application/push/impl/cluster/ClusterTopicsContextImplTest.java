@@ -0,0 +1,144 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.application.push.impl.cluster;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.richfaces.application.push.MessageData;
+import org.richfaces.application.push.Request;
+import org.richfaces.application.push.Session;
+import org.richfaces.application.push.SessionSubscriptionEvent;
+import org.richfaces.application.push.Topic;
+import org.richfaces.application.push.TopicKey;
+
+public class ClusterTopicsContextImplTest {
+    private static final TopicKey TOPIC_KEY = new TopicKey("topic");
+    private ClusterTopicsContextImpl firstNode;
+    private ClusterTopicsContextImpl secondNode;
+
+    /**
+     * Session recording the pushed messages
+     */
+    private static final class RecordingSession implements Session {
+        private final List<String> messages = new CopyOnWriteArrayList<String>();
+
+        public String getId() {
+            return "session";
+        }
+
+        public int getMaxInactiveInterval() {
+            return 0;
+        }
+
+        public long getLastAccessedTime() {
+            return 0;
+        }
+
+        public Collection<TopicKey> getSuccessfulSubscriptions() {
+            return Collections.emptySet();
+        }
+
+        public Map<TopicKey, String> getFailedSubscriptions() {
+            return Collections.emptyMap();
+        }
+
+        public void subscribe(String[] topics) {
+        }
+
+        public void connect(Request request) {
+        }
+
+        public void disconnect() {
+        }
+
+        public void invalidate() {
+        }
+
+        public void push(TopicKey topicKey, String serializedData) {
+            messages.add(serializedData);
+        }
+
+        public Collection<MessageData> getMessages() {
+            return Collections.emptySet();
+        }
+
+        public void clearBroadcastedMessages(long sequenceNumber) {
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        LoopbackClusterTransport transport = new LoopbackClusterTransport();
+        firstNode = new ClusterTopicsContextImpl(Executors.defaultThreadFactory(), 1, 100, transport);
+        secondNode = new ClusterTopicsContextImpl(Executors.defaultThreadFactory(), 1, 100, new LoopbackClusterTransport(
+                transport));
+    }
+
+    @After
+    public void tearDown() {
+        firstNode.destroy();
+        secondNode.destroy();
+    }
+
+    private static RecordingSession subscribe(ClusterTopicsContextImpl node) {
+        RecordingSession session = new RecordingSession();
+        Topic topic = node.getOrCreateTopic(TOPIC_KEY);
+        topic.publishEvent(new SessionSubscriptionEvent(topic, TOPIC_KEY, session));
+        return session;
+    }
+
+    private static void awaitMessages(RecordingSession session, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (session.messages.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testPublishToAllNodes() throws Exception {
+        RecordingSession firstSession = subscribe(firstNode);
+        RecordingSession secondSession = subscribe(secondNode);
+
+        firstNode.publish(TOPIC_KEY, "first");
+        secondNode.publish(TOPIC_KEY, "second");
+
+        awaitMessages(firstSession, 2);
+        awaitMessages(secondSession, 2);
+
+        // give the nodes chance to deliver duplicates
+        Thread.sleep(100);
+
+        assertEquals(2, firstSession.messages.size());
+        assertEquals(2, secondSession.messages.size());
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.application.push.impl.jms;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.MessageProducer;
+import javax.jms.TextMessage;
+import javax.naming.Context;
+import javax.naming.InitialContext;
+import javax.naming.NameParser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.richfaces.application.push.MessageData;
+import org.richfaces.application.push.Request;
+import org.richfaces.application.push.Session;
+import org.richfaces.application.push.SessionSubscriptionEvent;
+import org.richfaces.application.push.Topic;
+import org.richfaces.application.push.TopicKey;
+
+/**
+ * <p>Measures time needed to receive a burst of messages sent to many JMS topics by {@link JMSTopicsContextImpl} with and
+ * without shared connection. Messages are sent through embedded in-VM ActiveMQ broker.</p>
+ *
+ * <p>Run {@link #main(String[])} from the test classpath.</p>
+ *
+ * @since 4.5
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JMSTopicsContextBenchmark {
+    private static final String BROKER_URL = "vm://push-benchmark?broker.persistent=false&broker.useJmx=false";
+    private static final int BURST_SIZE = 1000;
+    @Param({ "false", "true" })
+    private boolean sharedConnection;
+    @Param({ "10", "200" })
+    private int topicsCount;
+    private JMSTopicsContextImpl topicsContext;
+    private Connection producerConnection;
+    private javax.jms.Session producerSession;
+    private MessageProducer[] producers;
+    private final AtomicLong receivedMessages = new AtomicLong();
+    private long expectedMessages;
+
+    /**
+     * Session counting the messages pushed to it
+     */
+    private final class CountingSession implements Session {
+        public String getId() {
+            return "session";
+        }
+
+        public int getMaxInactiveInterval() {
+            return 0;
+        }
+
+        public long getLastAccessedTime() {
+            return 0;
+        }
+
+        public Collection<TopicKey> getSuccessfulSubscriptions() {
+            return Collections.emptySet();
+        }
+
+        public Map<TopicKey, String> getFailedSubscriptions() {
+            return Collections.emptyMap();
+        }
+
+        public void subscribe(String[] topics) {
+        }
+
+        public void connect(Request request) {
+        }
+
+        public void disconnect() {
+        }
+
+        public void invalidate() {
+        }
+
+        public void push(TopicKey topicKey, String serializedData) {
+            receivedMessages.incrementAndGet();
+        }
+
+        public Collection<MessageData> getMessages() {
+            return Collections.emptySet();
+        }
+
+        public void clearBroadcastedMessages(long sequenceNumber) {
+        }
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        Hashtable<String, String> environment = new Hashtable<String, String>();
+        environment.put(Context.INITIAL_CONTEXT_FACTORY, "org.apache.activemq.jndi.ActiveMQInitialContextFactory");
+        environment.put(Context.PROVIDER_URL, BROKER_URL);
+
+        InitialContext initialContext = new InitialContext(environment);
+        NameParser nameParser = initialContext.getNameParser("");
+
+        topicsContext = new JMSTopicsContextImpl(Executors.defaultThreadFactory(), 0, 100, initialContext,
+            nameParser.parse("ConnectionFactory"), nameParser.parse("dynamicTopics"), "", "", sharedConnection);
+
+        producerConnection = ((ConnectionFactory) initialContext.lookup("ConnectionFactory")).createConnection();
+        producerSession = producerConnection.createSession(false, javax.jms.Session.AUTO_ACKNOWLEDGE);
+        producers = new MessageProducer[topicsCount];
+
+        Session session = new CountingSession();
+        for (int i = 0; i < topicsCount; i++) {
+            TopicKey key = new TopicKey("topic" + i);
+            Topic topic = topicsContext.getOrCreateTopic(key);
+            topic.publishEvent(new SessionSubscriptionEvent(topic, key, session));
+
+            producers[i] = producerSession.createProducer((javax.jms.Topic) initialContext.lookup("dynamicTopics/" + key
+                .getTopicName()));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        producerConnection.close();
+        topicsContext.destroy();
+    }
+
+    @Benchmark
+    public long receiveBurst() throws Exception {
+        for (int i = 0; i < BURST_SIZE; i++) {
+            TextMessage message = producerSession.createTextMessage("'message'");
+            message.setBooleanProperty("org_richfaces_push_SerializedData", true);
+            producers[i % topicsCount].send(message);
+        }
+
+        expectedMessages += BURST_SIZE;
+        while (receivedMessages.get() < expectedMessages) {
+            Thread.yield();
+        }
+
+        return expectedMessages;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+            .include(JMSTopicsContextBenchmark.class.getSimpleName())
+            .build();
+
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.application.push.impl.jms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.IllegalStateException;
+import javax.jms.MessageProducer;
+import javax.jms.TextMessage;
+import javax.naming.Context;
+import javax.naming.InitialContext;
+import javax.naming.Name;
+import javax.naming.NameParser;
+import javax.naming.NamingException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.richfaces.application.push.MessageData;
+import org.richfaces.application.push.Request;
+import org.richfaces.application.push.Session;
+import org.richfaces.application.push.SessionSubscriptionEvent;
+import org.richfaces.application.push.Topic;
+import org.richfaces.application.push.TopicKey;
+
+import com.google.common.collect.Sets;
+
+/**
+ * Receives messages through embedded in-VM ActiveMQ broker.
+ */
+public class JMSTopicsContextImplTest {
+    private static final String BROKER_URL = "vm://push-test?broker.persistent=false&broker.useJmx=false";
+    private static final long TIMEOUT = 10000;
+    private InitialContext initialContext;
+    private NameParser nameParser;
+    private final List<Connection> createdConnections = new CopyOnWriteArrayList<Connection>();
+    private final Set<String> receivedMessages = new CopyOnWriteArraySet<String>();
+    private JMSTopicsContextImpl topicsContext;
+    private Connection producerConnection;
+    private javax.jms.Session producerSession;
+
+    /**
+     * Session recording the messages pushed to it as topic address and message data
+     */
+    private final class RecordingSession implements Session {
+        public String getId() {
+            return "session";
+        }
+
+        public int getMaxInactiveInterval() {
+            return 0;
+        }
+
+        public long getLastAccessedTime() {
+            return 0;
+        }
+
+        public Collection<TopicKey> getSuccessfulSubscriptions() {
+            return Collections.emptySet();
+        }
+
+        public Map<TopicKey, String> getFailedSubscriptions() {
+            return Collections.emptyMap();
+        }
+
+        public void subscribe(String[] topics) {
+        }
+
+        public void connect(Request request) {
+        }
+
+        public void disconnect() {
+        }
+
+        public void invalidate() {
+        }
+
+        public void push(TopicKey topicKey, String serializedData) {
+            receivedMessages.add(topicKey.getTopicAddress() + "=" + serializedData);
+        }
+
+        public Collection<MessageData> getMessages() {
+            return Collections.emptySet();
+        }
+
+        public void clearBroadcastedMessages(long sequenceNumber) {
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        Hashtable<String, String> environment = new Hashtable<String, String>();
+        environment.put(Context.INITIAL_CONTEXT_FACTORY, "org.apache.activemq.jndi.ActiveMQInitialContextFactory");
+        environment.put(Context.PROVIDER_URL, BROKER_URL);
+
+        // records the connections created by the topics context
+        initialContext = new InitialContext(environment) {
+            @Override
+            public Object lookup(Name name) throws NamingException {
+                Object result = super.lookup(name);
+
+                if (result instanceof ConnectionFactory) {
+                    return createRecordingConnectionFactory((ConnectionFactory) result);
+                }
+
+                return result;
+            }
+        };
+        nameParser = initialContext.getNameParser("");
+
+        producerConnection = ((ConnectionFactory) initialContext.lookup("ConnectionFactory")).createConnection();
+        producerSession = producerConnection.createSession(false, javax.jms.Session.AUTO_ACKNOWLEDGE);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        producerConnection.close();
+
+        if (topicsContext != null) {
+            topicsContext.destroy();
+        }
+    }
+
+    private ConnectionFactory createRecordingConnectionFactory(final ConnectionFactory connectionFactory) {
+        return (ConnectionFactory) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[] { ConnectionFactory.class }, new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    try {
+                        Object result = method.invoke(connectionFactory, args);
+
+                        if (result instanceof Connection) {
+                            createdConnections.add((Connection) result);
+                        }
+
+                        return result;
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }
+            });
+    }
+
+    private void createTopicsContext(boolean sharedConnection) throws Exception {
+        topicsContext = new JMSTopicsContextImpl(Executors.defaultThreadFactory(), 0, 100, initialContext,
+            nameParser.parse("ConnectionFactory"), nameParser.parse("dynamicTopics"), "", "", sharedConnection);
+    }
+
+    private void subscribe(TopicKey key, Session session) {
+        Topic topic = topicsContext.getOrCreateTopic(key);
+        topic.publishEvent(new SessionSubscriptionEvent(topic, key, session));
+    }
+
+    private void send(String topicName, String subtopicName, String text) throws Exception {
+        MessageProducer producer = producerSession.createProducer((javax.jms.Topic) initialContext
+            .lookup("dynamicTopics/" + topicName));
+
+        try {
+            TextMessage message = producerSession.createTextMessage(text);
+            message.setBooleanProperty("org_richfaces_push_SerializedData", true);
+
+            if (subtopicName != null) {
+                message.setStringProperty("rf_push_subtopic", subtopicName);
+            }
+
+            producer.send(message);
+        } finally {
+            producer.close();
+        }
+    }
+
+    private void awaitMessages(Set<String> expectedMessages) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+
+        while (!receivedMessages.containsAll(expectedMessages)) {
+            assertTrue("Messages not received: " + Sets.difference(expectedMessages, receivedMessages),
+                System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private void subscribeAndReceive() throws Exception {
+        Session session = new RecordingSession();
+        subscribe(new TopicKey("first"), session);
+        subscribe(new TopicKey("first", "sub"), session);
+        subscribe(new TopicKey("second"), session);
+        subscribe(new TopicKey("second", "sub"), session);
+
+        send("first", null, "1");
+        send("first", "sub", "2");
+        send("second", null, "3");
+        send("second", "sub", "4");
+
+        awaitMessages(Sets.newHashSet("first=1", "sub@first=2", "second=3", "sub@second=4"));
+    }
+
+    @Test
+    public void testSharedConnection() throws Exception {
+        createTopicsContext(true);
+
+        subscribeAndReceive();
+
+        assertEquals(1, createdConnections.size());
+    }
+
+    @Test
+    public void testConnectionPerTopic() throws Exception {
+        createTopicsContext(false);
+
+        subscribeAndReceive();
+
+        assertEquals(2, createdConnections.size());
+    }
+
+    @Test
+    public void testSharedConnectionClosedOnDestroy() throws Exception {
+        createTopicsContext(true);
+        subscribeAndReceive();
+
+        topicsContext.destroy();
+        topicsContext = null;
+
+        assertEquals(1, createdConnections.size());
+        try {
+            createdConnections.get(0).createSession(false, javax.jms.Session.AUTO_ACKNOWLEDGE);
+            fail("Connection has not been closed");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+}
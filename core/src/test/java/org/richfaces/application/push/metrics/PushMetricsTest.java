@@ -0,0 +1,149 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.application.push.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+
+import org.junit.Test;
+import org.richfaces.application.push.SessionOverflowPolicy;
+import org.richfaces.application.push.TopicKey;
+
+public class PushMetricsTest {
+    @Test
+    public void testCounters() throws Exception {
+        PushMetrics metrics = new PushMetrics();
+
+        metrics.sessionCreated("first");
+        metrics.sessionCreated("second");
+        metrics.requestConnected("first");
+        metrics.messagePublished(new TopicKey("room1@chat"));
+        metrics.messagePublished(new TopicKey("room2@chat"));
+        metrics.messagePublished(new TopicKey("news"));
+        metrics.messageDelivered(new TopicKey("room1@chat"), TimeUnit.MILLISECONDS.toNanos(2));
+        metrics.messageDelivered(new TopicKey("room1@chat"), TimeUnit.MILLISECONDS.toNanos(4));
+        metrics.messagesDropped(SessionOverflowPolicy.dropOldest, 2);
+        metrics.messagesDropped(SessionOverflowPolicy.disconnect, 5);
+        metrics.requestReleased("first");
+        metrics.sessionExpired("second");
+
+        assertEquals(3, metrics.getPublishedMessages());
+        assertEquals(2, metrics.getDeliveredMessages());
+        assertEquals(3, metrics.getAverageDeliveryLatencyMillis(), 0.001);
+        assertEquals(1, metrics.getActiveSessions());
+        assertEquals(1, metrics.getExpiredSessions());
+        assertEquals(0, metrics.getActiveRequests());
+        assertEquals(7, metrics.getDroppedMessages());
+        assertEquals(Long.valueOf(5), metrics.getDroppedMessagesByOverflowPolicy().get("disconnect"));
+
+        // subtopics are counted together
+        Map<String, TopicStatistics> statistics = metrics.getTopicStatistics();
+        assertEquals(2, statistics.size());
+        assertEquals(2, statistics.get("chat").getPublishedMessages());
+        assertEquals(2, statistics.get("chat").getDeliveredMessages());
+        assertEquals(1, statistics.get("news").getPublishedMessages());
+        assertEquals(0, statistics.get("news").getDeliveredMessages());
+
+        metrics.reset();
+        assertEquals(0, metrics.getPublishedMessages());
+        assertEquals(0, metrics.getAverageDeliveryLatencyMillis(), 0);
+        assertEquals(0, metrics.getDroppedMessages());
+        assertEquals(1, metrics.getActiveSessions());
+        assertTrue(metrics.getTopicStatistics().isEmpty());
+    }
+
+    @Test
+    public void testDeliveryLatencyHistogram() throws Exception {
+        PushMetrics metrics = new PushMetrics();
+        TopicKey topicKey = new TopicKey("topic");
+
+        metrics.messageDelivered(topicKey, TimeUnit.MICROSECONDS.toNanos(500));
+        metrics.messageDelivered(topicKey, TimeUnit.MILLISECONDS.toNanos(1));
+        metrics.messageDelivered(topicKey, TimeUnit.MILLISECONDS.toNanos(50));
+        metrics.messageDelivered(topicKey, TimeUnit.SECONDS.toNanos(30));
+
+        Map<String, Long> histogram = metrics.getDeliveryLatencyHistogram();
+        assertEquals(6, histogram.size());
+        assertEquals(Long.valueOf(1), histogram.get("< 1 ms"));
+        assertEquals(Long.valueOf(1), histogram.get("< 10 ms"));
+        assertEquals(Long.valueOf(1), histogram.get("< 100 ms"));
+        assertEquals(Long.valueOf(0), histogram.get("< 1000 ms"));
+        assertEquals(Long.valueOf(0), histogram.get("< 10000 ms"));
+        assertEquals(Long.valueOf(1), histogram.get(">= 10000 ms"));
+    }
+
+    @Test
+    public void testTrackedTopicsLimit() throws Exception {
+        PushMetrics metrics = new PushMetrics();
+
+        for (int i = 0; i < PushMetrics.MAX_TRACKED_TOPICS + 10; i++) {
+            metrics.messagePublished(new TopicKey("topic" + i));
+        }
+
+        assertEquals(PushMetrics.MAX_TRACKED_TOPICS + 10, metrics.getPublishedMessages());
+        assertEquals(PushMetrics.MAX_TRACKED_TOPICS, metrics.getTopicStatistics().size());
+    }
+
+    @Test
+    public void testListeners() throws Exception {
+        PushListeners listeners = new PushListeners();
+        PushMetrics metrics = new PushMetrics();
+        assertTrue(listeners.isEmpty());
+
+        listeners.addListener(metrics);
+        assertFalse(listeners.isEmpty());
+        listeners.messagePublished(new TopicKey("topic"));
+        assertEquals(1, metrics.getPublishedMessages());
+
+        listeners.removeListener(metrics);
+        assertTrue(listeners.isEmpty());
+    }
+
+    @Test
+    public void testRegistration() throws Exception {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("org.richfaces:type=PushMetrics,application=" + ObjectName.quote("test"));
+        PushMetrics metrics = new PushMetrics();
+
+        metrics.register("test");
+        try {
+            metrics.messagePublished(new TopicKey("topic"));
+            assertTrue(mBeanServer.isRegistered(name));
+            assertEquals(Long.valueOf(1), mBeanServer.getAttribute(name, "PublishedMessages"));
+            // per-topic statistics are exposed as open data
+            assertEquals(1, ((TabularData) mBeanServer.getAttribute(name, "TopicStatistics")).size());
+        } finally {
+            metrics.unregister();
+        }
+
+        assertFalse(mBeanServer.isRegistered(name));
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.cache;
+
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.richfaces.cache.concurrent.ConcurrentLRUCache;
+import org.richfaces.cache.lru.LRUMapCache;
+
+/**
+ * <p>Compares throughput of {@link LRUMapCache} and {@link ConcurrentLRUCache} under the resource cache access
+ * pattern: mostly reads of a working set slightly larger than the cache capacity, with occasional puts.</p>
+ *
+ * <p>Run {@link #main(String[])} from the test classpath to measure the implementations at 1 to 64 threads.</p>
+ *
+ * @since 4.5
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheBenchmark {
+    private static final int CAPACITY = 512;
+    private static final int KEYS_COUNT = 640;
+    private static final int[] THREADS = { 1, 2, 4, 8, 16, 32, 64 };
+    @Param({ "lru", "concurrent" })
+    private String implementation;
+    private Cache cache;
+    private String[] keys;
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private final Random random = new Random();
+
+        int nextIndex() {
+            return random.nextInt(KEYS_COUNT);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        if ("lru".equals(implementation)) {
+            cache = new LRUMapCache(CAPACITY);
+        } else {
+            cache = new ConcurrentLRUCache(CAPACITY);
+        }
+
+        cache.start();
+
+        keys = new String[KEYS_COUNT];
+        Date expired = new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1));
+
+        for (int i = 0; i < KEYS_COUNT; i++) {
+            keys[i] = "org.richfaces/resource" + i + ".js";
+            cache.put(keys[i], new Object(), expired);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        cache.stop();
+    }
+
+    @Benchmark
+    public Object readMostly(ThreadState state) {
+        String key = keys[state.nextIndex()];
+        Object value = cache.get(key);
+
+        if (value == null) {
+            value = new Object();
+            cache.put(key, value, new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)));
+        }
+
+        return value;
+    }
+
+    public static void main(String[] args) throws Exception {
+        for (int threads : THREADS) {
+            Options options = new OptionsBuilder()
+                .include(CacheBenchmark.class.getSimpleName())
+                .threads(threads)
+                .build();
+
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.cache.concurrent;
+
+import java.util.Date;
+
+import junit.framework.TestCase;
+
+import org.junit.Assert;
+
+/**
+ * @since 4.5
+ */
+public class ConcurrentLRUCacheEvictionTest extends TestCase {
+    private static final class TestCache extends ConcurrentLRUCache {
+        private long currentTime = 1000000L;
+
+        TestCache(int capacity, int concurrencyLevel) {
+            super(capacity, concurrencyLevel);
+        }
+
+        TestCache(int capacity, int concurrencyLevel, Weigher weigher) {
+            super(capacity, concurrencyLevel, weigher);
+        }
+
+        @Override
+        long getCurrentTime() {
+            return currentTime;
+        }
+
+        void advanceTime(long millis) {
+            currentTime += millis;
+        }
+    }
+
+    private static final class LengthWeigher implements Weigher {
+        public long weigh(Object key, Object value) {
+            return ((byte[]) value).length;
+        }
+    }
+
+    public void testLRUEvictionInSingleSegment() throws Exception {
+        TestCache cache = new TestCache(3, 1);
+        cache.put("key1", "value1", null);
+        cache.put("key2", "value2", null);
+        cache.put("key3", "value3", null);
+
+        // reads are buffered, replay them by a write
+        for (int i = 0; i < 64; i++) {
+            cache.get("key1");
+            cache.get("key3");
+        }
+
+        cache.put("key4", "value4", null);
+
+        Assert.assertEquals(3, cache.size());
+        Assert.assertEquals("value1", cache.get("key1"));
+        Assert.assertNull(cache.get("key2"));
+        Assert.assertEquals("value3", cache.get("key3"));
+        Assert.assertEquals("value4", cache.get("key4"));
+    }
+
+    public void testCapacityAcrossSegments() throws Exception {
+        TestCache cache = new TestCache(100, 16);
+
+        for (int i = 0; i < 1000; i++) {
+            cache.put("key" + i, "value" + i, null);
+        }
+
+        Assert.assertEquals(100, cache.size());
+        Assert.assertEquals("value999", cache.get("key999"));
+    }
+
+    public void testReplace() throws Exception {
+        TestCache cache = new TestCache(10, 4);
+        cache.put("key", "value1", new Date(cache.getCurrentTime() + 5000));
+        cache.put("key", "value2", null);
+
+        Assert.assertEquals(1, cache.size());
+        Assert.assertEquals("value2", cache.get("key"));
+
+        cache.advanceTime(10000);
+        cache.put("other", "value", null);
+
+        Assert.assertEquals("value2", cache.get("key"));
+    }
+
+    public void testExpiration() throws Exception {
+        TestCache cache = new TestCache(10, 1);
+        cache.put("key1", "value1", new Date(cache.getCurrentTime() + 2500));
+        cache.put("key2", "value2", new Date(cache.getCurrentTime() + 60000));
+
+        cache.advanceTime(2000);
+        Assert.assertEquals("value1", cache.get("key1"));
+
+        cache.advanceTime(1000);
+        Assert.assertNull(cache.get("key1"));
+        Assert.assertEquals("value2", cache.get("key2"));
+
+        // expired entry is purged by the next write
+        cache.put("key3", "value3", null);
+        Assert.assertEquals(2, cache.size());
+    }
+
+    public void testExpirationAfterWheelTurns() throws Exception {
+        TestCache cache = new TestCache(10, 1);
+        long ttl = ConcurrentLRUCache.TICK_MILLIS * ConcurrentLRUCache.WHEEL_SIZE * 3 + 1500;
+        cache.put("key", "value", new Date(cache.getCurrentTime() + ttl));
+
+        for (int i = 0; i < 3; i++) {
+            cache.advanceTime(ConcurrentLRUCache.TICK_MILLIS * ConcurrentLRUCache.WHEEL_SIZE);
+            cache.put("other", "value", null);
+            Assert.assertEquals("value", cache.get("key"));
+        }
+
+        cache.advanceTime(2000);
+        cache.put("other", "value", null);
+        Assert.assertEquals(1, cache.size());
+        Assert.assertNull(cache.get("key"));
+    }
+
+    public void testAlreadyExpiredEntryIsNotStored() throws Exception {
+        TestCache cache = new TestCache(10, 1);
+        cache.put("key", "value", new Date(cache.getCurrentTime() - 1));
+
+        Assert.assertEquals(0, cache.size());
+        Assert.assertNull(cache.get("key"));
+    }
+
+    public void testWeightedCapacity() throws Exception {
+        TestCache cache = new TestCache(1000, 1, new LengthWeigher());
+        cache.put("key1", new byte[400], null);
+        cache.put("key2", new byte[400], null);
+
+        Assert.assertEquals(800, cache.weightedSize());
+
+        cache.put("key3", new byte[300], null);
+
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals(700, cache.weightedSize());
+        Assert.assertNull(cache.get("key1"));
+
+        cache.put("key2", new byte[100], null);
+        Assert.assertEquals(400, cache.weightedSize());
+    }
+
+    public void testEntryHeavierThanCapacity() throws Exception {
+        TestCache cache = new TestCache(1000, 1, new LengthWeigher());
+        cache.put("key1", new byte[400], null);
+        cache.put("key2", new byte[1001], null);
+
+        Assert.assertNull(cache.get("key2"));
+        Assert.assertEquals(400, cache.weightedSize());
+
+        cache.put("key1", new byte[2000], null);
+
+        Assert.assertNull(cache.get("key1"));
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(0, cache.weightedSize());
+    }
+
+    public void testStop() throws Exception {
+        TestCache cache = new TestCache(10, 4);
+
+        for (int i = 0; i < 10; i++) {
+            cache.put("key" + i, "value" + i, new Date(cache.getCurrentTime() + 5000));
+        }
+
+        cache.stop();
+
+        Assert.assertEquals(0, cache.size());
+        Assert.assertNull(cache.get("key0"));
+    }
+}
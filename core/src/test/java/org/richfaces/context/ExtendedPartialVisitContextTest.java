@@ -25,6 +25,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -50,6 +51,7 @@ import javax.faces.component.UIForm;
 import javax.faces.component.UIOutput;
 import javax.faces.component.UIViewRoot;
 import javax.faces.component.html.HtmlOutputText;
+import javax.faces.component.html.HtmlPanelGroup;
 import javax.faces.component.visit.VisitCallback;
 import javax.faces.component.visit.VisitContext;
 import javax.faces.component.visit.VisitHint;
@@ -317,6 +319,7 @@ public class ExtendedPartialVisitContextTest {
 
         facesContext = FacesContext.getCurrentInstance();
         application = facesContext.getApplication();
+        ComponentIdIndex.subscribe(application);
 
         createView();
 
@@ -681,4 +684,48 @@ public class ExtendedPartialVisitContextTest {
         assertTrue(result);
         assertEquals(Arrays.asList("myForm"), trackingVisitCallback.getVisitedIds());
     }
+
+    @Test
+    public void testComponentIdIndex() throws Exception {
+        assertSame(form, ComponentIdIndex.findComponent(facesContext, viewRoot, "myForm"));
+        assertSame(dataHeader, ComponentIdIndex.findComponent(facesContext, viewRoot, "myForm:table:theHeader"));
+        assertSame(table, ComponentIdIndex.findComponent(facesContext, viewRoot, "myForm:table@header"));
+        assertNull(ComponentIdIndex.findComponent(facesContext, viewRoot, "myForm:table:0:nestedText"));
+        assertNull(ComponentIdIndex.findComponent(facesContext, viewRoot, "myForm:nonExistentId"));
+
+        table.getFacets().remove("header");
+        assertNull(ComponentIdIndex.findComponent(facesContext, viewRoot, "myForm:table:theHeader"));
+    }
+
+    @Test
+    public void testVisitIsPrunedToComponentsToVisit() throws Exception {
+        UIComponent panel = application.createComponent(HtmlPanelGroup.COMPONENT_TYPE);
+        panel.setId("panel");
+        form.getChildren().add(panel);
+        UIComponent panelText = application.createComponent(HtmlOutputText.COMPONENT_TYPE);
+        panelText.setId("panelText");
+        panel.getChildren().add(panelText);
+
+        final List<String> walkedIds = new ArrayList<String>();
+        Set<String> rendererIds = Collections.<String>emptySet();
+
+        renderingContext = new ExtendedRenderVisitContext(new PartialVisitContext(facesContext, rendererIds), facesContext,
+            rendererIds, EnumSet.<VisitHint>of(VisitHint.SKIP_UNRENDERED), false) {
+            @Override
+            protected VisitResult invokeVisitCallbackForImplicitComponent(UIComponent component, VisitCallback callback) {
+                walkedIds.add(component.getId());
+                return super.invokeVisitCallbackForImplicitComponent(component, callback);
+            }
+        };
+        renderingContext.getIdsToVisit().add("myForm:outerOutput");
+
+        viewRoot.visitTree(renderingContext, trackingVisitCallback);
+
+        assertEquals(Arrays.asList("myForm:outerOutput", "myForm:table:0:nestedOutput", "myForm:table:1:nestedOutput"),
+            trackingVisitCallback.getVisitedIds());
+
+        // panel doesn't contain any component to visit, so its children are not walked
+        assertTrue(walkedIds.contains("panel"));
+        assertFalse(walkedIds.contains("panelText"));
+    }
 }
@@ -0,0 +1,80 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.context;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.richfaces.context.IdParser.Node;
+
+import com.google.common.cache.CacheStats;
+
+public class IdExpressionTest {
+    @Test
+    public void testSimpleExpression() throws Exception {
+        IdExpression expression = IdExpression.parse("form:table");
+
+        assertArrayEquals(new Node[] { new Node("form"), new Node("table") }, expression.getNodes());
+        assertFalse(expression.hasFunctionNodes());
+        assertNull(expression.getMetaComponentId());
+        assertArrayEquals(new String[] { "form", "table" }, expression.getComponentIds());
+    }
+
+    @Test
+    public void testFunctionsAndMetaComponents() throws Exception {
+        IdExpression expression = IdExpression.parse("form:table:@rows(1):cell@header");
+
+        assertTrue(expression.hasFunctionNodes());
+        assertArrayEquals(new String[] { "form", "table", "cell" }, expression.getComponentIds());
+
+        expression = IdExpression.parse("form:table@body");
+        assertFalse(expression.hasFunctionNodes());
+        assertEquals("@body", expression.getMetaComponentId());
+        assertArrayEquals(new String[] { "form", "table" }, expression.getComponentIds());
+    }
+
+    @Test
+    public void testExpressionsAreCached() throws Exception {
+        IdExpression expression = IdExpression.parse("cachedForm:cachedTable");
+        CacheStats stats = IdExpression.getCacheStats();
+
+        assertSame(expression, IdExpression.parse("cachedForm:cachedTable"));
+        assertEquals(1, IdExpression.getCacheStats().minus(stats).hitCount());
+        assertEquals(0, IdExpression.getCacheStats().minus(stats).missCount());
+    }
+
+    @Test
+    public void testMalformedExpression() throws Exception {
+        try {
+            IdExpression.parse("form:table:@rows(");
+            fail();
+        } catch (IllegalArgumentException e) {
+            // ignore
+        }
+    }
+}
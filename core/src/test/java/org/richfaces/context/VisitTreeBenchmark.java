@@ -0,0 +1,164 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.context;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+import javax.faces.application.Application;
+import javax.faces.component.UIComponent;
+import javax.faces.component.UIForm;
+import javax.faces.component.UIViewRoot;
+import javax.faces.component.html.HtmlOutputText;
+import javax.faces.component.html.HtmlPanelGroup;
+import javax.faces.component.visit.VisitCallback;
+import javax.faces.component.visit.VisitContext;
+import javax.faces.component.visit.VisitHint;
+import javax.faces.component.visit.VisitResult;
+import javax.faces.context.FacesContext;
+
+import org.jboss.test.faces.FacesEnvironment;
+import org.jboss.test.faces.FacesEnvironment.FacesRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.sun.faces.component.visit.PartialVisitContext;
+
+/**
+ * <p>Measures partial visit of a single component in a synthetic view: a form containing a tree of panels with given depth
+ * and number of children of each panel, i.e. with no naming containers that would limit the visit. The visited component
+ * is the last leaf of the tree.</p>
+ *
+ * <p>{@link ExtendedRenderVisitContext} rejects the subtrees that don't contain the visited component, JSF
+ * {@link PartialVisitContext} is measured for comparison.</p>
+ *
+ * <p>Run {@link #main(String[])} from the test classpath.</p>
+ *
+ * @since 4.5
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VisitTreeBenchmark {
+    private static final VisitCallback CALLBACK = new VisitCallback() {
+        public VisitResult visit(VisitContext context, UIComponent target) {
+            return VisitResult.REJECT;
+        }
+    };
+    // depth:children, all the trees have 4096 leaves
+    @Param({ "6:4", "4:8", "2:64" })
+    private String shape;
+    @Param({ "true", "false" })
+    private boolean extended;
+    private FacesEnvironment environment;
+    private FacesRequest facesRequest;
+    private FacesContext facesContext;
+    private UIViewRoot viewRoot;
+    private String lastLeafId;
+
+    @Setup
+    public void setUp() throws Exception {
+        environment = FacesEnvironment.createEnvironment();
+        environment.start();
+
+        facesRequest = environment.createFacesRequest();
+        facesRequest.start();
+
+        facesContext = FacesContext.getCurrentInstance();
+        viewRoot = facesContext.getViewRoot();
+
+        Application application = facesContext.getApplication();
+        UIForm form = (UIForm) application.createComponent(UIForm.COMPONENT_TYPE);
+        form.setId("form");
+        viewRoot.getChildren().add(form);
+
+        String[] dimensions = shape.split(":");
+        UIComponent lastLeaf = createSubtree(application, form, "c", Integer.parseInt(dimensions[0]),
+            Integer.parseInt(dimensions[1]));
+        lastLeafId = lastLeaf.getClientId(facesContext);
+    }
+
+    private UIComponent createSubtree(Application application, UIComponent parent, String idPrefix, int depth, int children) {
+        UIComponent lastLeaf = null;
+
+        for (int i = 0; i < children; i++) {
+            String id = idPrefix + "_" + i;
+
+            if (depth > 1) {
+                UIComponent panel = application.createComponent(HtmlPanelGroup.COMPONENT_TYPE);
+                panel.setId(id);
+                parent.getChildren().add(panel);
+
+                lastLeaf = createSubtree(application, panel, id, depth - 1, children);
+            } else {
+                lastLeaf = application.createComponent(HtmlOutputText.COMPONENT_TYPE);
+                lastLeaf.setId(id);
+                parent.getChildren().add(lastLeaf);
+            }
+        }
+
+        return lastLeaf;
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        facesRequest.release();
+        environment.release();
+    }
+
+    @Benchmark
+    public boolean visitLastLeaf() {
+        VisitContext visitContext = new PartialVisitContext(facesContext, Collections.singleton(lastLeafId));
+
+        if (extended) {
+            visitContext = new ExtendedRenderVisitContext(visitContext, facesContext, Collections.singleton(lastLeafId),
+                EnumSet.<VisitHint>of(VisitHint.SKIP_UNRENDERED), true);
+        }
+
+        return viewRoot.visitTree(visitContext, CALLBACK);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+            .include(VisitTreeBenchmark.class.getSimpleName())
+            .build();
+
+        new Runner(options).run();
+    }
+}
@@ -23,6 +23,7 @@ package org.richfaces.resource;
 
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -35,6 +36,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
 import java.util.TimeZone;
+import java.util.zip.GZIPInputStream;
 
 import javax.faces.application.Resource;
 import javax.faces.context.FacesContext;
@@ -202,6 +204,7 @@ public class CachedResourceImplTest extends AbstractFacesTest {
 
         ByteArrayInputStream bigStream = new ByteArrayInputStream(bs);
         CachedResourceImpl cachedResource = createCachedResource(createTestHeaders(), bigStream);
+        assertEquals(bs.length, cachedResource.getContentLength());
         InputStream stream = cachedResource.getInputStream();
         byte[] testBs = new byte[bs.length];
 
@@ -211,6 +214,47 @@ public class CachedResourceImplTest extends AbstractFacesTest {
         stream.close();
     }
 
+    public void testGzipContent() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sb.append(".rf-test").append(i).append(" { color: red; }\n");
+        }
+        byte[] bs = sb.toString().getBytes("US-ASCII");
+
+        MockHeadersResourceImpl mockResource = new MockHeadersResourceImpl(createTestHeaders(), new ByteArrayInputStream(bs));
+        mockResource.setContentType("text/css");
+        CachedResourceImpl cachedResource = new MockCachedResourceImpl();
+        cachedResource.initialize(mockResource, false, true);
+
+        assertTrue(cachedResource.hasGzipContent());
+        assertEquals(bs.length, cachedResource.getContentLength());
+        assertTrue(cachedResource.getGzipContentLength() < bs.length);
+        assertEquals("W/\"123-gzip\"", cachedResource.getGzipEntityTag(facesContext));
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        cachedResource.writeGzipContent(os);
+        assertEquals(cachedResource.getGzipContentLength(), os.size());
+
+        InputStream stream = new GZIPInputStream(new ByteArrayInputStream(os.toByteArray()));
+        ByteArrayOutputStream uncompressed = new ByteArrayOutputStream();
+        ResourceUtils.copyStreamContent(stream, uncompressed);
+        assertTrue(Arrays.equals(bs, uncompressed.toByteArray()));
+
+        // both variants are recognized by user agent cache check
+        this.connection.addRequestHeaders(Collections.singletonMap("If-None-Match", "W/\"123-gzip\""));
+        assertFalse(cachedResource.userAgentNeedsUpdate(facesContext));
+    }
+
+    public void testNoGzipContentForBinaryResource() throws Exception {
+        byte[] bs = new byte[1000];
+
+        CachedResourceImpl cachedResource = new MockCachedResourceImpl();
+        cachedResource.initialize(new MockHeadersResourceImpl(createTestHeaders(), new ByteArrayInputStream(bs)), false, true);
+
+        assertFalse(cachedResource.hasGzipContent());
+        assertEquals(0, cachedResource.getGzipContentLength());
+    }
+
     public void testCacheable() throws Exception {
         CachedResourceImpl cachedResource = createCachedResource();
 
@@ -0,0 +1,172 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.text.MessageFormat;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.faces.application.Resource;
+import javax.faces.context.FacesContext;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.richfaces.log.Logger;
+import org.richfaces.log.RichfacesLogger;
+
+/**
+ * <p>Compares heap and off-heap storage of {@link CachedResourceImpl} content.</p>
+ *
+ * <p>The JMH benchmark measures throughput of writing cached content to a response stream; {@link #main(String[])}
+ * logs heap footprint of a cache populated with resources in both storage modes.</p>
+ *
+ * @since 4.5
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CachedResourceStorageBenchmark {
+    private static final Logger LOGGER = RichfacesLogger.RESOURCE.getLogger();
+    private static final int RESOURCES_COUNT = 200;
+    @Param({ "8192", "262144" })
+    private int contentLength;
+    @Param({ "false", "true" })
+    private boolean offHeap;
+    private CachedResourceImpl resource;
+    private final OutputStream sink = new OutputStream() {
+        @Override
+        public void write(int b) throws IOException {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+        }
+    };
+
+    @Setup
+    public void setUp() throws IOException {
+        resource = createCachedResource(contentLength, offHeap);
+    }
+
+    @Benchmark
+    public void writeContent() throws IOException {
+        resource.writeContent(sink);
+    }
+
+    private static CachedResourceImpl createCachedResource(int length, boolean offHeap) throws IOException {
+        byte[] bytes = new byte[length];
+        new Random().nextBytes(bytes);
+
+        CachedResourceImpl cachedResource = new CachedResourceImpl();
+        cachedResource.initialize(new BytesResource(bytes), offHeap);
+
+        return cachedResource;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int length = 256 * 1024;
+
+        for (boolean offHeap : new boolean[] { false, true }) {
+            long before = usedHeap();
+            CachedResourceImpl[] resources = new CachedResourceImpl[RESOURCES_COUNT];
+
+            for (int i = 0; i < resources.length; i++) {
+                resources[i] = createCachedResource(length, offHeap);
+            }
+
+            long after = usedHeap();
+
+            LOGGER.info(MessageFormat.format("{0} storage: {1} resources of {2} bytes retain {3} KB of heap",
+                offHeap ? "off-heap" : "heap", String.valueOf(RESOURCES_COUNT), String.valueOf(length),
+                String.valueOf((after - before) / 1024)));
+
+            // keep resources reachable until measured
+            if (resources[resources.length - 1] == null) {
+                throw new IllegalStateException();
+            }
+        }
+    }
+
+    private static final class BytesResource extends Resource {
+        private final byte[] bytes;
+
+        BytesResource(byte[] bytes) {
+            this.bytes = bytes;
+            setResourceName("benchmark.png");
+            setContentType("image/png");
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return new ByteArrayInputStream(bytes);
+        }
+
+        @Override
+        public Map<String, String> getResponseHeaders() {
+            return Collections.singletonMap("Cache-Control", "max-age=86400");
+        }
+
+        @Override
+        public String getRequestPath() {
+            return null;
+        }
+
+        @Override
+        public URL getURL() {
+            return null;
+        }
+
+        @Override
+        public boolean userAgentNeedsUpdate(FacesContext context) {
+            return true;
+        }
+    }
+}
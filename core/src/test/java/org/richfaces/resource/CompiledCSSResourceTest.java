@@ -0,0 +1,125 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.resource;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+
+import javax.faces.application.ProjectStage;
+import javax.faces.application.Resource;
+import javax.faces.context.ExternalContext;
+import javax.faces.context.FacesContext;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.w3c.dom.css.CSSStyleSheet;
+
+public class CompiledCSSResourceTest {
+    private static final String CSS = ".rf-test { color: '#{richSkin.generalTextColor}'; }";
+    private FacesContext facesContext;
+    private Resource sourceResource;
+    private File sourceFile;
+
+    @Before
+    public void setUp() throws Exception {
+        ExternalContext externalContext = mock(ExternalContext.class);
+        when(externalContext.getApplicationMap()).thenReturn(new HashMap<String, Object>());
+
+        facesContext = mock(FacesContext.class);
+        when(facesContext.getExternalContext()).thenReturn(externalContext);
+
+        sourceFile = File.createTempFile("richfaces", ".ecss");
+        OutputStream stream = new FileOutputStream(sourceFile);
+        try {
+            stream.write(CSS.getBytes("US-ASCII"));
+        } finally {
+            stream.close();
+        }
+
+        sourceResource = mock(Resource.class);
+        when(sourceResource.getLibraryName()).thenReturn("org.richfaces");
+        when(sourceResource.getResourceName()).thenReturn("test.ecss");
+        when(sourceResource.getURL()).thenReturn(sourceFile.toURI().toURL());
+        when(sourceResource.getInputStream()).thenAnswer(new Answer<InputStream>() {
+            public InputStream answer(InvocationOnMock invocation) throws Throwable {
+                return new ByteArrayInputStream(CSS.getBytes("US-ASCII"));
+            }
+        });
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        sourceFile.delete();
+    }
+
+    private void setProjectStage(ProjectStage projectStage) {
+        for (ProjectStage stage : ProjectStage.values()) {
+            when(facesContext.isProjectStage(stage)).thenReturn(stage == projectStage);
+        }
+    }
+
+    @Test
+    public void testStyleSheetSharedBySkinsAndRequests() throws Exception {
+        setProjectStage(ProjectStage.Production);
+
+        // each request creates its own resource instance, skin is applied only when the parsed stylesheet is rendered
+        CSSStyleSheet styleSheet = new CompiledCSSResource(sourceResource).getStyleSheet(facesContext);
+        assertNotNull(styleSheet);
+        assertSame(styleSheet, new CompiledCSSResource(sourceResource).getStyleSheet(facesContext));
+        assertSame(styleSheet, new CompiledCSSResource(sourceResource).getStyleSheet(facesContext));
+
+        verify(sourceResource, times(1)).getInputStream();
+    }
+
+    @Test
+    public void testModifiedSourceParsedAgainInDevelopment() throws Exception {
+        setProjectStage(ProjectStage.Development);
+
+        CSSStyleSheet styleSheet = new CompiledCSSResource(sourceResource).getStyleSheet(facesContext);
+        assertNotNull(styleSheet);
+        assertSame(styleSheet, new CompiledCSSResource(sourceResource).getStyleSheet(facesContext));
+
+        sourceFile.setLastModified(sourceFile.lastModified() + 10000);
+
+        CSSStyleSheet modifiedStyleSheet = new CompiledCSSResource(sourceResource).getStyleSheet(facesContext);
+        assertNotNull(modifiedStyleSheet);
+        assertNotSame(styleSheet, modifiedStyleSheet);
+        assertSame(modifiedStyleSheet, new CompiledCSSResource(sourceResource).getStyleSheet(facesContext));
+
+        verify(sourceResource, times(2)).getInputStream();
+    }
+}
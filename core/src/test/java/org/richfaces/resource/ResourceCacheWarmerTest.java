@@ -0,0 +1,230 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.resource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.argThat;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+
+import javax.faces.application.Application;
+import javax.faces.application.ProjectStage;
+import javax.faces.application.Resource;
+import javax.faces.application.ResourceHandler;
+import javax.faces.context.FacesContext;
+
+import org.junit.Test;
+import org.mockito.ArgumentMatcher;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.richfaces.application.CoreConfiguration;
+import org.richfaces.application.ServicesFactory;
+import org.richfaces.application.configuration.ConfigurationService;
+import org.richfaces.cache.Cache;
+import org.richfaces.cache.concurrent.ConcurrentLRUCache;
+import org.richfaces.test.AbstractServicesTest;
+
+public class ResourceCacheWarmerTest extends AbstractServicesTest {
+    private static final ResourceKey FIRST_KEY = ResourceKey.create("first.js", "lib");
+    private static final ResourceKey SECOND_KEY = ResourceKey.create("second.js", "lib");
+    // listed in META-INF/richfaces/static-resource-mappings.properties
+    private static final ResourceKey STATIC_KEY = ResourceKey.create("name", "library");
+    private Cache cache = new ConcurrentLRUCache(16);
+    private ResourceFactory resourceFactory = mock(ResourceFactory.class);
+    private FacesContext facesContext = mock(FacesContext.class);
+
+    private static class TestResource extends Resource implements CacheableResource {
+        TestResource(ResourceKey resourceKey) {
+            setResourceName(resourceKey.getResourceName());
+            setLibraryName(resourceKey.getLibraryName());
+            setContentType("text/javascript");
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return new ByteArrayInputStream(getResourceName().getBytes("US-ASCII"));
+        }
+
+        @Override
+        public Map<String, String> getResponseHeaders() {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public String getRequestPath() {
+            return null;
+        }
+
+        @Override
+        public URL getURL() {
+            return null;
+        }
+
+        @Override
+        public boolean userAgentNeedsUpdate(FacesContext context) {
+            return true;
+        }
+
+        public boolean isCacheable(FacesContext context) {
+            return true;
+        }
+
+        public Date getExpires(FacesContext context) {
+            return null;
+        }
+
+        public int getTimeToLive(FacesContext context) {
+            return 0;
+        }
+
+        public String getEntityTag(FacesContext context) {
+            return null;
+        }
+    }
+
+    /**
+     * Creates the resource after the given delay
+     */
+    private static class DelayedResourceAnswer implements Answer<Resource> {
+        private final long delay;
+
+        DelayedResourceAnswer(long delay) {
+            this.delay = delay;
+        }
+
+        public Resource answer(InvocationOnMock invocation) throws Throwable {
+            Thread.sleep(delay);
+
+            ResourceRequestData data = (ResourceRequestData) invocation.getArguments()[1];
+            return new TestResource(ResourceKey.create(data.getResourceName(), data.getLibraryName()));
+        }
+    }
+
+    private static ResourceRequestData requestFor(final ResourceKey resourceKey) {
+        return argThat(new ArgumentMatcher<ResourceRequestData>() {
+            @Override
+            public boolean matches(Object argument) {
+                return resourceKey.toString().equals(((ResourceRequestData) argument).getResourceKey());
+            }
+        });
+    }
+
+    private static String getCacheKey(ResourceKey resourceKey) {
+        return resourceKey.getResourceName() + "?ln=" + resourceKey.getLibraryName();
+    }
+
+    @Override
+    protected void configureServices(ServicesFactory injector) {
+        ConfigurationService configurationService = mock(ConfigurationService.class);
+        when(configurationService.getBooleanValue(any(FacesContext.class), any(Enum.class))).thenReturn(Boolean.FALSE);
+        when(configurationService.getIntValue(any(FacesContext.class),
+            eq(CoreConfiguration.Items.resourcesCacheMaxEntrySize))).thenReturn(null);
+        injector.setInstance(ConfigurationService.class, configurationService);
+
+        ResourceCodec resourceCodec = mock(ResourceCodec.class);
+        when(resourceCodec.encodeResourceRequestPath(any(FacesContext.class), anyString(), anyString(), any(), anyString()))
+            .thenAnswer(new Answer<String>() {
+                public String answer(InvocationOnMock invocation) {
+                    Object[] arguments = invocation.getArguments();
+                    return ResourceHandlerImpl.RICHFACES_RESOURCE_IDENTIFIER
+                        + getCacheKey(ResourceKey.create((String) arguments[2], (String) arguments[1]));
+                }
+            });
+        injector.setInstance(ResourceCodec.class, resourceCodec);
+        injector.setInstance(Cache.class, cache);
+
+        Application application = mock(Application.class);
+        when(application.getProjectStage()).thenReturn(ProjectStage.Production);
+        when(facesContext.getApplication()).thenReturn(application);
+    }
+
+    private ResourceCacheWarmer createWarmer(long timeout, ResourceKey... mappedKeys) {
+        when(resourceFactory.getMappedDynamicResourceKeys()).thenReturn(Arrays.asList(mappedKeys));
+
+        return new ResourceCacheWarmer(new ResourceHandlerImpl(mock(ResourceHandler.class), resourceFactory), timeout);
+    }
+
+    @Test
+    public void testMappedResourcesCached() throws Exception {
+        when(resourceFactory.createResource(any(FacesContext.class), any(ResourceRequestData.class))).thenAnswer(
+            new DelayedResourceAnswer(0));
+
+        assertEquals(2, createWarmer(10000, FIRST_KEY, SECOND_KEY).warmUp(facesContext));
+
+        assertNotNull(cache.get(getCacheKey(FIRST_KEY)));
+        assertNotNull(cache.get(getCacheKey(SECOND_KEY)));
+    }
+
+    @Test
+    public void testStaticallyMappedResourcesSkipped() throws Exception {
+        when(resourceFactory.createResource(any(FacesContext.class), any(ResourceRequestData.class))).thenAnswer(
+            new DelayedResourceAnswer(0));
+
+        assertEquals(1, createWarmer(10000, STATIC_KEY, FIRST_KEY).warmUp(facesContext));
+
+        assertNotNull(cache.get(getCacheKey(FIRST_KEY)));
+        assertNull(cache.get(getCacheKey(STATIC_KEY)));
+        verify(resourceFactory, never()).createResource(any(FacesContext.class), requestFor(STATIC_KEY));
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        when(resourceFactory.createResource(any(FacesContext.class), any(ResourceRequestData.class))).thenAnswer(
+            new DelayedResourceAnswer(100));
+
+        assertEquals(1, createWarmer(50, FIRST_KEY, SECOND_KEY).warmUp(facesContext));
+
+        assertNotNull(cache.get(getCacheKey(FIRST_KEY)));
+        assertNull(cache.get(getCacheKey(SECOND_KEY)));
+        verify(resourceFactory, never()).createResource(any(FacesContext.class), requestFor(SECOND_KEY));
+    }
+
+    @Test
+    public void testFailingResource() throws Exception {
+        when(resourceFactory.createResource(any(FacesContext.class), any(ResourceRequestData.class))).thenAnswer(
+            new DelayedResourceAnswer(0));
+        doThrow(new IllegalStateException("Resource can't be built")).when(resourceFactory).createResource(
+            any(FacesContext.class), requestFor(FIRST_KEY));
+
+        assertEquals(1, createWarmer(10000, FIRST_KEY, SECOND_KEY).warmUp(facesContext));
+
+        assertNull(cache.get(getCacheKey(FIRST_KEY)));
+        assertNotNull(cache.get(getCacheKey(SECOND_KEY)));
+    }
+}
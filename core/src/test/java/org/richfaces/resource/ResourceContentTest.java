@@ -0,0 +1,109 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.resource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.ajax4jsf.io.ByteBuffer;
+import org.ajax4jsf.io.FastBufferOutputStream;
+
+/**
+ * @since 4.5
+ */
+public class ResourceContentTest extends TestCase {
+    private byte[] bytes;
+    private ByteBuffer buffer;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        bytes = new byte[100123];
+        new Random().nextBytes(bytes);
+
+        FastBufferOutputStream os = new FastBufferOutputStream(1024);
+        os.write(bytes);
+        os.close();
+
+        buffer = os.getFirstBuffer();
+    }
+
+    private void checkContent(ResourceContent content) throws Exception {
+        assertEquals(bytes.length, content.getLength());
+
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        content.writeTo(written);
+        assertTrue(Arrays.equals(bytes, written.toByteArray()));
+
+        // content can be written repeatedly
+        written.reset();
+        content.writeTo(written);
+        assertTrue(Arrays.equals(bytes, written.toByteArray()));
+
+        InputStream is = content.getInputStream();
+        byte[] read = new byte[bytes.length];
+        int offset = 0;
+        int length;
+        while ((length = is.read(read, offset, read.length - offset)) > 0) {
+            offset += length;
+        }
+
+        assertEquals(bytes.length, offset);
+        assertEquals(-1, is.read());
+        assertTrue(Arrays.equals(bytes, read));
+    }
+
+    public void testHeapContent() throws Exception {
+        checkContent(new HeapResourceContent(buffer));
+    }
+
+    public void testDirectContent() throws Exception {
+        checkContent(new DirectResourceContent(buffer));
+    }
+
+    public void testDirectContentSingleByteReads() throws Exception {
+        ResourceContent content = new DirectResourceContent(buffer);
+        InputStream is = content.getInputStream();
+
+        for (byte b : bytes) {
+            assertEquals(b & 0xFF, is.read());
+        }
+
+        assertEquals(-1, is.read());
+    }
+
+    public void testEmptyContent() throws Exception {
+        ResourceContent content = new DirectResourceContent(new ByteBuffer(0));
+
+        assertEquals(0, content.getLength());
+        assertEquals(-1, content.getInputStream().read());
+
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        content.writeTo(written);
+        assertEquals(0, written.size());
+    }
+}
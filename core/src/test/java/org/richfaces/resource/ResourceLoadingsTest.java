@@ -0,0 +1,264 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.resource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.faces.application.Resource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.richfaces.resource.metrics.ResourceHandlerListener;
+
+public class ResourceLoadingsTest {
+    private static final String RESOURCE_KEY = "org.richfaces:test.js";
+    private static final int WAITERS = 3;
+    private static final long TIMEOUT = 10000;
+    private ResourceLoadings resourceLoadings;
+    private ResourceHandlerListener listener;
+    private ExecutorService executor;
+    private CountDownLatch leaderStarted;
+    private CountDownLatch leaderRelease;
+    private AtomicInteger waiterLoads;
+
+    /**
+     * Loader of the first request, blocks until it is released by the test.
+     */
+    private class LeaderLoader implements ResourceLoadings.ResourceLoader {
+        private final Resource resource;
+
+        LeaderLoader(Resource resource) {
+            this.resource = resource;
+        }
+
+        public Resource load() throws IOException {
+            leaderStarted.countDown();
+
+            try {
+                leaderRelease.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e.getMessage());
+            }
+
+            if (resource == null) {
+                throw new IOException("Loading failed");
+            }
+
+            return resource;
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        resourceLoadings = new ResourceLoadings();
+        listener = mock(ResourceHandlerListener.class);
+        executor = Executors.newCachedThreadPool();
+        leaderStarted = new CountDownLatch(1);
+        leaderRelease = new CountDownLatch(1);
+        waiterLoads = new AtomicInteger();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+    }
+
+    private Future<Resource> submitLoad(final ResourceLoadings.ResourceLoader loader) {
+        return executor.submit(new Callable<Resource>() {
+            public Resource call() throws Exception {
+                return resourceLoadings.load(RESOURCE_KEY, loader, TIMEOUT, listener);
+            }
+        });
+    }
+
+    /**
+     * Starts the leading request and requests waiting for it, returns after all of them are waiting for the leading one.
+     */
+    private Future<Resource> startLoadings(Resource leaderResource, List<Future<Resource>> waiters) throws Exception {
+        final List<Thread> waiterThreads = new ArrayList<Thread>();
+        Future<Resource> leader = submitLoad(new LeaderLoader(leaderResource));
+
+        assertTrue(leaderStarted.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        assertTrue(resourceLoadings.isLoading(RESOURCE_KEY));
+
+        for (int i = 0; i < WAITERS; i++) {
+            waiters.add(executor.submit(new Callable<Resource>() {
+                public Resource call() throws Exception {
+                    synchronized (waiterThreads) {
+                        waiterThreads.add(Thread.currentThread());
+                    }
+
+                    return resourceLoadings.load(RESOURCE_KEY, new ResourceLoadings.ResourceLoader() {
+                        public Resource load() throws IOException {
+                            waiterLoads.incrementAndGet();
+                            return new CachedResourceImpl();
+                        }
+                    }, TIMEOUT, listener);
+                }
+            }));
+        }
+
+        awaitWaiting(waiterThreads);
+
+        return leader;
+    }
+
+    private static void awaitWaiting(List<Thread> threads) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+
+        while (System.currentTimeMillis() < deadline) {
+            int waiting = 0;
+
+            synchronized (threads) {
+                for (Thread thread : threads) {
+                    if (thread.getState() == Thread.State.TIMED_WAITING) {
+                        waiting++;
+                    }
+                }
+            }
+
+            if (waiting == WAITERS) {
+                return;
+            }
+
+            Thread.sleep(10);
+        }
+
+        fail("Requests are not waiting for the loading resource");
+    }
+
+    @Test
+    public void testConcurrentRequestsShareCachedResource() throws Exception {
+        CachedResourceImpl cachedResource = new CachedResourceImpl();
+        List<Future<Resource>> waiters = new ArrayList<Future<Resource>>();
+        Future<Resource> leader = startLoadings(cachedResource, waiters);
+
+        leaderRelease.countDown();
+
+        assertSame(cachedResource, leader.get());
+        for (Future<Resource> waiter : waiters) {
+            assertSame(cachedResource, waiter.get());
+        }
+
+        assertEquals(0, waiterLoads.get());
+        assertFalse(resourceLoadings.isLoading(RESOURCE_KEY));
+        verify(listener, times(WAITERS)).resourceDeduplicated(RESOURCE_KEY);
+    }
+
+    @Test
+    public void testNonCacheableResourceIsNotShared() throws Exception {
+        Resource resource = mock(Resource.class);
+        List<Future<Resource>> waiters = new ArrayList<Future<Resource>>();
+        Future<Resource> leader = startLoadings(resource, waiters);
+
+        leaderRelease.countDown();
+
+        assertSame(resource, leader.get());
+        for (Future<Resource> waiter : waiters) {
+            assertNotSame(resource, waiter.get());
+        }
+
+        assertEquals(WAITERS, waiterLoads.get());
+        assertFalse(resourceLoadings.isLoading(RESOURCE_KEY));
+        verify(listener, times(0)).resourceDeduplicated(RESOURCE_KEY);
+    }
+
+    @Test
+    public void testFailedLoading() throws Exception {
+        List<Future<Resource>> waiters = new ArrayList<Future<Resource>>();
+        Future<Resource> leader = startLoadings(null, waiters);
+
+        leaderRelease.countDown();
+
+        try {
+            leader.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+
+        for (Future<Resource> waiter : waiters) {
+            assertTrue(waiter.get() instanceof CachedResourceImpl);
+        }
+
+        assertEquals(WAITERS, waiterLoads.get());
+        assertFalse(resourceLoadings.isLoading(RESOURCE_KEY));
+        verify(listener, times(0)).resourceDeduplicated(RESOURCE_KEY);
+    }
+
+    @Test
+    public void testLoadingTimeout() throws Exception {
+        final CachedResourceImpl ownResource = new CachedResourceImpl();
+
+        submitLoad(new LeaderLoader(new CachedResourceImpl()));
+        assertTrue(leaderStarted.await(TIMEOUT, TimeUnit.MILLISECONDS));
+
+        Resource resource = resourceLoadings.load(RESOURCE_KEY, new ResourceLoadings.ResourceLoader() {
+            public Resource load() throws IOException {
+                return ownResource;
+            }
+        }, 50, listener);
+
+        assertSame(ownResource, resource);
+
+        leaderRelease.countDown();
+    }
+
+    @Test
+    public void testSequentialLoadings() throws Exception {
+        final AtomicInteger loads = new AtomicInteger();
+        ResourceLoadings.ResourceLoader loader = new ResourceLoadings.ResourceLoader() {
+            public Resource load() throws IOException {
+                loads.incrementAndGet();
+                return new CachedResourceImpl();
+            }
+        };
+
+        Resource first = resourceLoadings.load(RESOURCE_KEY, loader, TIMEOUT, listener);
+        Resource second = resourceLoadings.load(RESOURCE_KEY, loader, TIMEOUT, listener);
+
+        assertNotSame(first, second);
+        assertEquals(2, loads.get());
+        assertFalse(resourceLoadings.isLoading(RESOURCE_KEY));
+    }
+}
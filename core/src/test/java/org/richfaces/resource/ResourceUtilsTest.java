@@ -27,6 +27,13 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
 import org.junit.Test;
 
 /**
@@ -95,4 +102,80 @@ public class ResourceUtilsTest {
             // ok
         }
     }
+
+    @Test
+    public void testVariantTag() throws Exception {
+        assertEquals("\"123-gzip\"", ResourceUtils.variantTag("\"123\"", "gzip"));
+        assertEquals("W/\"123-gzip\"", ResourceUtils.variantTag("W/\"123\"", "gzip"));
+        assertNull(ResourceUtils.variantTag(null, "gzip"));
+        assertNull(ResourceUtils.variantTag("123", "gzip"));
+    }
+
+    @Test
+    public void testAcceptsGzip() throws Exception {
+        assertTrue(ResourceUtils.acceptsGzip("gzip, deflate"));
+        assertTrue(ResourceUtils.acceptsGzip("deflate, GZIP;q=0.5"));
+        assertTrue(ResourceUtils.acceptsGzip("x-gzip"));
+        assertTrue(ResourceUtils.acceptsGzip("*"));
+        assertFalse(ResourceUtils.acceptsGzip(null));
+        assertFalse(ResourceUtils.acceptsGzip("identity"));
+        assertFalse(ResourceUtils.acceptsGzip("gzip;q=0, deflate"));
+        assertFalse(ResourceUtils.acceptsGzip("*, gzip;q=0"));
+    }
+
+    @Test
+    public void testCopyStreamContent() throws Exception {
+        byte[] bytes = new byte[20000];
+        new Random().nextBytes(bytes);
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        ResourceUtils.copyStreamContent(new ByteArrayInputStream(bytes), os);
+        assertTrue(Arrays.equals(bytes, os.toByteArray()));
+
+        // transfer buffer is reused
+        os.reset();
+        ResourceUtils.copyStreamContent(new ByteArrayInputStream(bytes), os);
+        assertTrue(Arrays.equals(bytes, os.toByteArray()));
+    }
+
+    @Test
+    public void testCopyFileContent() throws Exception {
+        byte[] bytes = new byte[20000];
+        new Random().nextBytes(bytes);
+
+        File file = File.createTempFile("resource", ".png");
+        try {
+            FileOutputStream fos = new FileOutputStream(file);
+            try {
+                fos.write(bytes);
+            } finally {
+                fos.close();
+            }
+
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            ResourceUtils.copyFileContent(file, os);
+            assertTrue(Arrays.equals(bytes, os.toByteArray()));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testGetGzipSiblingURL() throws Exception {
+        File file = File.createTempFile("resource", ".js");
+        File gzipFile = new File(file.getPath() + ".gz");
+        try {
+            assertNull(ResourceUtils.getGzipSiblingURL(file.toURI().toURL()));
+
+            gzipFile.createNewFile();
+            assertEquals(gzipFile.toURI().toURL(), ResourceUtils.getGzipSiblingURL(file.toURI().toURL()));
+
+            // the resource has been changed after the copy was written
+            gzipFile.setLastModified(file.lastModified() - 10000);
+            assertNull(ResourceUtils.getGzipSiblingURL(file.toURI().toURL()));
+        } finally {
+            file.delete();
+            gzipFile.delete();
+        }
+    }
 }
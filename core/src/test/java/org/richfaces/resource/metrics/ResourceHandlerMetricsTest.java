@@ -0,0 +1,135 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.richfaces.resource.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Test;
+
+public class ResourceHandlerMetricsTest {
+    @Test
+    public void testCounters() throws Exception {
+        ResourceHandlerMetrics metrics = new ResourceHandlerMetrics();
+
+        metrics.cacheMiss("a.css");
+        metrics.resourceLoaded("a.css", TimeUnit.MILLISECONDS.toNanos(5));
+        metrics.resourceBuilt("a.css");
+        metrics.resourceServed("a.css", HttpServletResponse.SC_OK, 100);
+        metrics.resourceDeduplicated("a.css");
+        metrics.cacheHit("a.css");
+        metrics.resourceServed("a.css", HttpServletResponse.SC_NOT_MODIFIED, 0);
+        metrics.cacheHit("b.png");
+        metrics.resourceServed("b.png", HttpServletResponse.SC_OK, -1);
+        metrics.cacheHit("b.png");
+        metrics.resourceServed("b.png", HttpServletResponse.SC_OK, 50);
+
+        assertEquals(3, metrics.getCacheHits());
+        assertEquals(1, metrics.getCacheMisses());
+        assertEquals(0.75, metrics.getCacheHitRatio(), 0.001);
+        assertEquals(1, metrics.getLoadedResources());
+        assertEquals(5, metrics.getAverageLoadTimeMillis(), 0.001);
+        assertEquals(1, metrics.getBuiltResources());
+        assertEquals(1, metrics.getDeduplicatedResources());
+        assertEquals(3, metrics.getOkResponses());
+        assertEquals(1, metrics.getNotModifiedResponses());
+        assertEquals(150, metrics.getBytesSent());
+
+        Map<String, ResourceStatistics> statistics = metrics.getResourceStatistics();
+        assertEquals(2, statistics.size());
+        assertEquals(1, statistics.get("a.css").getCacheHits());
+        assertEquals(1, statistics.get("a.css").getCacheMisses());
+        assertEquals(1, statistics.get("a.css").getNotModifiedResponses());
+        assertEquals(100, statistics.get("a.css").getBytesSent());
+        assertEquals(2, statistics.get("b.png").getOkResponses());
+        assertEquals(50, statistics.get("b.png").getBytesSent());
+
+        metrics.reset();
+        assertEquals(0, metrics.getCacheHits());
+        assertEquals(0, metrics.getCacheHitRatio(), 0);
+        assertEquals(0, metrics.getBuiltResources());
+        assertEquals(0, metrics.getDeduplicatedResources());
+        assertTrue(metrics.getResourceStatistics().isEmpty());
+    }
+
+    @Test
+    public void testLoadTimeHistogram() throws Exception {
+        ResourceHandlerMetrics metrics = new ResourceHandlerMetrics();
+
+        metrics.resourceLoaded("a", TimeUnit.MICROSECONDS.toNanos(500));
+        metrics.resourceLoaded("b", TimeUnit.MILLISECONDS.toNanos(1));
+        metrics.resourceLoaded("c", TimeUnit.MILLISECONDS.toNanos(50));
+        metrics.resourceLoaded("d", TimeUnit.SECONDS.toNanos(3));
+
+        Map<String, Long> histogram = metrics.getLoadTimeHistogram();
+        assertEquals(5, histogram.size());
+        assertEquals(Long.valueOf(1), histogram.get("< 1 ms"));
+        assertEquals(Long.valueOf(1), histogram.get("< 10 ms"));
+        assertEquals(Long.valueOf(1), histogram.get("< 100 ms"));
+        assertEquals(Long.valueOf(0), histogram.get("< 1000 ms"));
+        assertEquals(Long.valueOf(1), histogram.get(">= 1000 ms"));
+    }
+
+    @Test
+    public void testTrackedResourcesLimit() throws Exception {
+        ResourceHandlerMetrics metrics = new ResourceHandlerMetrics();
+
+        for (int i = 0; i < ResourceHandlerMetrics.MAX_TRACKED_RESOURCES + 10; i++) {
+            metrics.cacheHit("resource" + i);
+        }
+
+        assertEquals(ResourceHandlerMetrics.MAX_TRACKED_RESOURCES + 10, metrics.getCacheHits());
+        assertEquals(ResourceHandlerMetrics.MAX_TRACKED_RESOURCES, metrics.getResourceStatistics().size());
+    }
+
+    @Test
+    public void testRegistration() throws Exception {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("org.richfaces:type=ResourceHandlerMetrics,application="
+            + ObjectName.quote("test"));
+        ResourceHandlerMetrics metrics = new ResourceHandlerMetrics();
+
+        metrics.register("test");
+        try {
+            metrics.cacheHit("a.css");
+            assertTrue(mBeanServer.isRegistered(name));
+            assertEquals(Long.valueOf(1), mBeanServer.getAttribute(name, "CacheHits"));
+            // per-resource statistics are exposed as open data
+            assertEquals(1, ((TabularData) mBeanServer.getAttribute(name, "ResourceStatistics"))
+                .size());
+        } finally {
+            metrics.unregister();
+        }
+
+        assertFalse(mBeanServer.isRegistered(name));
+    }
+}